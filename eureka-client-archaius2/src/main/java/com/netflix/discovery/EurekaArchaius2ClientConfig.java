@@ -125,6 +125,10 @@ public class EurekaArchaius2ClientConfig implements EurekaClientConfig {
         return config.getBoolean("disableDelta", false);
     }
 
+    public int getRegistryWatchWaitSeconds() {
+        return config.getInteger("registryWatchWaitSeconds", 0);
+    }
+
     public String fetchRegistryForRemoteRegions() {
         return config.getString("fetchRemoteRegionsRegistry", null);
     }
@@ -17,6 +17,7 @@
 package com.netflix.discovery.shared.transport.jersey2;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
@@ -37,6 +38,10 @@ import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse.EurekaHttpResponseBuilder;
+import com.netflix.discovery.shared.transport.HeartbeatBatchRequest;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
+import com.netflix.discovery.shared.transport.InstanceBatchRequest;
+import com.netflix.discovery.shared.transport.InstanceBatchResponse;
 import com.netflix.discovery.util.StringUtil;
 import org.glassfish.jersey.client.JerseyClient;
 import org.glassfish.jersey.client.JerseyInvocation.Builder;
@@ -107,6 +112,50 @@ public class Jersey2ApplicationClient implements EurekaHttpClient {
         }
     }
 
+    @Override
+    public EurekaHttpResponse<InstanceBatchResponse> registerAll(List<InstanceInfo> infos) {
+        return postBatch(InstanceBatchRequest.REGISTER_URL_PATH, InstanceBatchRequest.registrationOf(infos),
+                infos.size(), InstanceBatchResponse.class);
+    }
+
+    @Override
+    public EurekaHttpResponse<InstanceBatchResponse> cancelAll(List<InstanceInfo> infos) {
+        return postBatch(InstanceBatchRequest.CANCEL_URL_PATH, InstanceBatchRequest.cancellationOf(infos),
+                infos.size(), InstanceBatchResponse.class);
+    }
+
+    @Override
+    public EurekaHttpResponse<HeartbeatBatchResponse> sendHeartBeats(List<InstanceInfo> infos) {
+        return postBatch(HeartbeatBatchRequest.URL_PATH, HeartbeatBatchRequest.heartbeatsOf(infos),
+                infos.size(), HeartbeatBatchResponse.class);
+    }
+
+    private <R> EurekaHttpResponse<R> postBatch(String urlPath, Object batchRequest, int instanceCount, Class<R> responseType) {
+        Response response = null;
+        try {
+            Builder resourceBuilder = jerseyClient.target(serviceUrl).path(urlPath).request();
+            addExtraProperties(resourceBuilder);
+            addExtraHeaders(resourceBuilder);
+            response = resourceBuilder
+                    .accept(MediaType.APPLICATION_JSON)
+                    .acceptEncoding("gzip")
+                    .post(Entity.entity(batchRequest, MediaType.APPLICATION_JSON_TYPE));
+            R batchResponse = null;
+            if (response.getStatus() == Status.OK.getStatusCode() && response.hasEntity()) {
+                batchResponse = response.readEntity(responseType);
+            }
+            return anEurekaHttpResponse(response.getStatus(), batchResponse).headers(headersOf(response)).build();
+        } finally {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Jersey2 HTTP POST {}/{} with {} instances; statusCode={}", serviceUrl, urlPath,
+                        instanceCount, response == null ? "N/A" : response.getStatus());
+            }
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
     @Override
     public EurekaHttpResponse<Void> cancel(String appName, String id) {
         String urlPath = "apps/" + appName + '/' + id;
@@ -207,22 +256,42 @@ public class Jersey2ApplicationClient implements EurekaHttpClient {
 
     @Override
     public EurekaHttpResponse<Applications> getApplications(String... regions) {
-        return getApplicationsInternal("apps/", regions);
+        return getApplicationsInternal("apps/", null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getDelta(String... regions) {
-        return getApplicationsInternal("apps/delta", regions);
+        return getApplicationsInternal("apps/delta", null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getVip(String vipAddress, String... regions) {
-        return getApplicationsInternal("vips/" + vipAddress, regions);
+        return getApplicationsInternal("vips/" + vipAddress, null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getSecureVip(String secureVipAddress, String... regions) {
-        return getApplicationsInternal("svips/" + secureVipAddress, regions);
+        return getApplicationsInternal("svips/" + secureVipAddress, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getApplicationsIfModified(String eTag, String... regions) {
+        return getApplicationsInternal("apps/", eTag, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaIfModified(String eTag, String... regions) {
+        return getApplicationsInternal("apps/delta", eTag, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> watchDelta(String eTag, long waitMs, String... regions) {
+        return getApplicationsInternal("apps/delta", eTag, waitMs, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getVipIfModified(String vipAddress, String eTag, String... regions) {
+        return getApplicationsInternal("vips/" + vipAddress, eTag, regions);
     }
 
     @Override
@@ -250,16 +319,27 @@ public class Jersey2ApplicationClient implements EurekaHttpClient {
         }
     }
 
-    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String[] regions) {
+    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String eTag, String[] regions) {
+        return getApplicationsInternal(urlPath, eTag, 0, regions);
+    }
+
+    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String eTag, long waitMs,
+                                                                     String[] regions) {
         Response response = null;
         try {
             JerseyWebTarget webTarget = jerseyClient.target(serviceUrl).path(urlPath);
             if (regions != null && regions.length > 0) {
                 webTarget = webTarget.queryParam("regions", StringUtil.join(regions));
             }
+            if (waitMs > 0) {
+                webTarget = webTarget.queryParam("waitMs", waitMs);
+            }
             Builder requestBuilder = webTarget.request();
             addExtraProperties(requestBuilder);
             addExtraHeaders(requestBuilder);
+            if (eTag != null) {
+                requestBuilder.header(HttpHeaders.IF_NONE_MATCH, eTag);
+            }
             response = requestBuilder.accept(MediaType.APPLICATION_JSON_TYPE).get();
 
             Applications applications = null;
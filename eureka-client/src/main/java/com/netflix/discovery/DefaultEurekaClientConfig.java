@@ -348,6 +348,12 @@ public class DefaultEurekaClientConfig implements EurekaClientConfig {
                 false).get();
     }
 
+    @Override
+    public int getRegistryWatchWaitSeconds() {
+        return configInstance.getIntProperty(
+                namespace + "registryWatchWaitSeconds", 0).get();
+    }
+
     @Nullable
     @Override
     public String fetchRegistryForRemoteRegions() {
@@ -30,6 +30,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
@@ -141,6 +142,10 @@ public class DiscoveryClient implements EurekaClient {
     // additional executors for supervised subtasks
     private final ThreadPoolExecutor heartbeatExecutor;
     private final ThreadPoolExecutor cacheRefreshExecutor;
+    // watches the registry deltas in between the fetches, if enabled
+    private ExecutorService registryWatchExecutor;
+    // whether the registry watch fetches are held by the server, in which case the regular fetches are suspended
+    private volatile boolean registryWatchActive;
 
     private final Provider<HealthCheckHandler> healthCheckHandlerProvider;
     private final Provider<HealthCheckCallback> healthCheckCallbackProvider;
@@ -148,6 +153,10 @@ public class DiscoveryClient implements EurekaClient {
     private final Lock fetchRegistryUpdateLock = new ReentrantLock();
     // monotonically increasing generation counter to ensure stale threads do not reset registry to an older version
     private final AtomicLong fetchRegistryGeneration;
+    // Entity tag of the full registry response the local registry is as of, or null if it was updated since
+    private volatile String fullRegistryETag;
+    // Entity tag of the last delta response applied, or null if it did not reconcile
+    private volatile String deltaETag;
     private final ApplicationInfoManager applicationInfoManager;
     private final InstanceInfo instanceInfo;
     private final AtomicReference<String> remoteRegionsToFetch;
@@ -910,6 +919,13 @@ public class DiscoveryClient implements EurekaClient {
      * @return true if the registry was fetched
      */
     private boolean fetchRegistry(boolean forceFullRegistryFetch) {
+        return fetchRegistry(forceFullRegistryFetch, 0);
+    }
+
+    /**
+     * @param watchWaitMs how long the server may hold a delta fetch until the delta changes, or 0 not to watch
+     */
+    private boolean fetchRegistry(boolean forceFullRegistryFetch, long watchWaitMs) {
         Stopwatch tracer = FETCH_REGISTRY_TIMER.start();
 
         try {
@@ -933,7 +949,7 @@ public class DiscoveryClient implements EurekaClient {
                 logger.info("Application version is -1: {}", (applications.getVersion() == -1));
                 getAndStoreFullRegistry();
             } else {
-                getAndUpdateDelta(applications);
+                getAndUpdateDelta(applications, watchWaitMs);
             }
             applications.setAppsHashCode(applications.getReconcileHashCode());
             logTotalInstances();
@@ -1017,8 +1033,13 @@ public class DiscoveryClient implements EurekaClient {
 
         Applications apps = null;
         EurekaHttpResponse<Applications> httpResponse = clientConfig.getRegistryRefreshSingleVipAddress() == null
-                ? eurekaTransport.queryClient.getApplications(remoteRegionsRef.get())
-                : eurekaTransport.queryClient.getVip(clientConfig.getRegistryRefreshSingleVipAddress(), remoteRegionsRef.get());
+                ? eurekaTransport.queryClient.getApplicationsIfModified(fullRegistryETag, remoteRegionsRef.get())
+                : eurekaTransport.queryClient.getVipIfModified(clientConfig.getRegistryRefreshSingleVipAddress(),
+                        fullRegistryETag, remoteRegionsRef.get());
+        if (httpResponse.getStatusCode() == Status.NOT_MODIFIED.getStatusCode()) {
+            logger.info("The full registry is not modified since the last fetch");
+            return;
+        }
         if (httpResponse.getStatusCode() == Status.OK.getStatusCode()) {
             apps = httpResponse.getEntity();
         }
@@ -1028,6 +1049,7 @@ public class DiscoveryClient implements EurekaClient {
             logger.error("The application is null for some reason. Not storing this information");
         } else if (fetchRegistryGeneration.compareAndSet(currentUpdateGeneration, currentUpdateGeneration + 1)) {
             localRegionApps.set(this.filterAndShuffle(apps));
+            fullRegistryETag = httpResponse.getETag();
             logger.debug("Got full registry with apps hashcode {}", apps.getAppsHashCode());
         } else {
             logger.warn("Not updating applications as another thread is updating it already");
@@ -1044,14 +1066,23 @@ public class DiscoveryClient implements EurekaClient {
      *   do reconciliation if reconcileHashCode clash
      * fi
      *
+     * @param watchWaitMs how long the server may hold the fetch until the delta changes, or 0 not to watch
      * @return the client response
      * @throws Throwable on error
      */
-    private void getAndUpdateDelta(Applications applications) throws Throwable {
+    private void getAndUpdateDelta(Applications applications, long watchWaitMs) throws Throwable {
         long currentUpdateGeneration = fetchRegistryGeneration.get();
 
         Applications delta = null;
-        EurekaHttpResponse<Applications> httpResponse = eurekaTransport.queryClient.getDelta(remoteRegionsRef.get());
+        String lastDeltaETag = deltaETag;
+        EurekaHttpResponse<Applications> httpResponse = watchWaitMs > 0 && lastDeltaETag != null
+                ? eurekaTransport.queryClient.watchDelta(lastDeltaETag, watchWaitMs, remoteRegionsRef.get())
+                : eurekaTransport.queryClient.getDeltaIfModified(lastDeltaETag, remoteRegionsRef.get());
+        if (httpResponse.getStatusCode() == Status.NOT_MODIFIED.getStatusCode()) {
+            // The same delta as the last one, which is already applied
+            logger.debug("The delta is not modified since the last fetch");
+            return;
+        }
         if (httpResponse.getStatusCode() == Status.OK.getStatusCode()) {
             delta = httpResponse.getEntity();
         }
@@ -1063,9 +1094,11 @@ public class DiscoveryClient implements EurekaClient {
         } else if (fetchRegistryGeneration.compareAndSet(currentUpdateGeneration, currentUpdateGeneration + 1)) {
             logger.debug("Got delta update with apps hashcode {}", delta.getAppsHashCode());
             String reconcileHashCode = "";
+            deltaETag = null;
             if (fetchRegistryUpdateLock.tryLock()) {
                 try {
                     updateDelta(delta);
+                    fullRegistryETag = null;
                     reconcileHashCode = getReconcileHashCode(applications);
                 } finally {
                     fetchRegistryUpdateLock.unlock();
@@ -1076,6 +1109,8 @@ public class DiscoveryClient implements EurekaClient {
             // There is a diff in number of instances for some reason
             if (!reconcileHashCode.equals(delta.getAppsHashCode()) || clientConfig.shouldLogDeltaDiff()) {
                 reconcileAndLogDifference(delta, reconcileHashCode);  // this makes a remoteCall
+            } else {
+                deltaETag = httpResponse.getETag();
             }
         } else {
             logger.warn("Not updating application delta as another thread is updating it already");
@@ -1151,6 +1186,7 @@ public class DiscoveryClient implements EurekaClient {
 
         if (fetchRegistryGeneration.compareAndSet(currentUpdateGeneration, currentUpdateGeneration + 1)) {
             localRegionApps.set(this.filterAndShuffle(serverApps));
+            fullRegistryETag = httpResponse.getETag();
             getApplications().setVersion(delta.getVersion());
             logger.warn(
                     "The Reconcile hashcodes after complete sync up, client : {}, server : {}.",
@@ -1243,6 +1279,16 @@ public class DiscoveryClient implements EurekaClient {
                             new CacheRefreshThread()
                     ),
                     registryFetchIntervalSeconds, TimeUnit.SECONDS);
+
+            long watchWaitMs = getRegistryWatchWaitMs();
+            if (watchWaitMs > 0) {
+                registryWatchExecutor = Executors.newSingleThreadExecutor(
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("DiscoveryClient-RegistryWatcher-%d")
+                                .setDaemon(true)
+                                .build());
+                registryWatchExecutor.submit(new RegistryWatchThread(watchWaitMs, registryFetchIntervalSeconds * 1000L));
+            }
         }
 
         if (clientConfig.shouldRegisterWithEureka()) {
@@ -1309,6 +1355,9 @@ public class DiscoveryClient implements EurekaClient {
         if (cacheRefreshExecutor != null) {
             cacheRefreshExecutor.shutdownNow();
         }
+        if (registryWatchExecutor != null) {
+            registryWatchExecutor.shutdownNow();
+        }
         if (scheduler != null) {
             scheduler.shutdownNow();
         }
@@ -1422,12 +1471,68 @@ public class DiscoveryClient implements EurekaClient {
      */
     class CacheRefreshThread implements Runnable {
         public void run() {
+            if (registryWatchActive) {
+                logger.debug("Skipping the registry fetch, as the registry is being watched");
+                return;
+            }
             refreshRegistry();
         }
     }
 
+    /**
+     * Keeps watching the registry deltas, each fetch being held by the server until the delta changes, so the
+     * changes are applied as soon as they are made, rather than at the next fetch. The regular fetches are suspended
+     * while the watch is active. Whenever a watch fetch fails or is not held by the server, as it does not support
+     * watching or holds as many fetches as it can already, or there is no delta to watch from, it is left to the
+     * regular fetches for a fetch interval.
+     */
+    class RegistryWatchThread implements Runnable {
+        private final long waitMs;
+        private final long fetchIntervalMs;
+
+        RegistryWatchThread(long waitMs, long fetchIntervalMs) {
+            this.waitMs = waitMs;
+            this.fetchIntervalMs = fetchIntervalMs;
+        }
+
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    String lastDeltaETag = deltaETag;
+                    long startTime = System.currentTimeMillis();
+                    boolean success = lastDeltaETag != null && refreshRegistry(waitMs);
+                    boolean held = System.currentTimeMillis() - startTime >= waitMs / 2;
+                    registryWatchActive = success && (held || !lastDeltaETag.equals(deltaETag));
+                    if (!registryWatchActive) {
+                        try {
+                            Thread.sleep(fetchIntervalMs);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            } finally {
+                registryWatchActive = false;
+            }
+        }
+    }
+
+    /**
+     * @return the time a delta fetch may be held by the server, which is kept below the read timeout and the
+     * fetch interval, or 0 not to watch the registry
+     */
+    private long getRegistryWatchWaitMs() {
+        int waitSeconds = Math.min(clientConfig.getRegistryWatchWaitSeconds(),
+                Math.min(clientConfig.getEurekaServerReadTimeoutSeconds(), clientConfig.getRegistryFetchIntervalSeconds()) - 1);
+        return waitSeconds > 0 ? waitSeconds * 1000L : 0;
+    }
+
     @VisibleForTesting
     void refreshRegistry() {
+        refreshRegistry(0);
+    }
+
+    private boolean refreshRegistry(long watchWaitMs) {
         try {
             boolean isFetchingRemoteRegionRegistries = isFetchingRemoteRegionRegistries();
 
@@ -1455,7 +1560,7 @@ public class DiscoveryClient implements EurekaClient {
                 }
             }
 
-            boolean success = fetchRegistry(remoteRegionsModified);
+            boolean success = fetchRegistry(remoteRegionsModified, watchWaitMs);
             if (success) {
                 registrySize = localRegionApps.get().size();
                 lastSuccessfulRegistryFetchTimestamp = System.currentTimeMillis();
@@ -1476,9 +1581,11 @@ public class DiscoveryClient implements EurekaClient {
                 logger.debug("Completed cache refresh task for discovery. All Apps hash code is {} ",
                         allAppsHashCodes.toString());
             }
+            return success;
         } catch (Throwable e) {
             logger.error("Cannot fetch registry from server", e);
-        }        
+            return false;
+        }
     }
     
     /**
@@ -357,6 +357,21 @@ public interface EurekaClientConfig {
      */
     boolean shouldDisableDelta();
 
+    /**
+     * Indicates how long (in seconds) the eureka server is asked to hold a delta fetch until the registry
+     * changes, so the changes are seen as soon as they are made rather than at the next fetch. Between two
+     * fetch intervals the client keeps watching for changes this way, for as long as the server holds the
+     * fetches.
+     *
+     * <p>
+     * The wait is kept below {@link #getEurekaServerReadTimeoutSeconds()} and
+     * {@link #getRegistryFetchIntervalSeconds()}, and 0 disables watching.
+     * </p>
+     *
+     * @return the time in seconds a delta fetch is held, or 0 not to watch the registry.
+     */
+    int getRegistryWatchWaitSeconds();
+
     /**
      * Comma separated list of regions for which the eureka registry information will be fetched. It is mandatory to
      * define the availability zones for each of these regions as returned by {@link #getAvailabilityZones(String)}.
@@ -3,6 +3,7 @@ package com.netflix.discovery.converters;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -195,6 +196,17 @@ public class EurekaJacksonCodec {
         }
     }
 
+    /**
+     * Writes the object to the writer, which is left open, so more can be written to it.
+     */
+    public <T> void writeTo(T object, Writer writer) throws IOException {
+        ObjectWriter objectWriter = objectWriterByClass.get(object.getClass());
+        if (objectWriter == null) {
+            objectWriter = mapper.writer();
+        }
+        objectWriter.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(writer, object);
+    }
+
     public <T> String writeToString(T object) {
         try {
             ObjectWriter writer = objectWriterByClass.get(object.getClass());
@@ -597,6 +609,7 @@ public class EurekaJacksonCodec {
             jgen.writeStringField(versionDeltaKey, applications.getVersion().toString());
             jgen.writeStringField(appHashCodeKey, applications.getAppsHashCode());
             jgen.writeObjectField(NODE_APP, applications.getRegisteredApplications());
+            jgen.writeEndObject();
         }
     }
 
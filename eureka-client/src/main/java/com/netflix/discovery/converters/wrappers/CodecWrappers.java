@@ -4,6 +4,9 @@ import javax.ws.rs.core.MediaType;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -336,7 +339,10 @@ public final class CodecWrappers {
 
         @Override
         public <T> void encode(T object, OutputStream outputStream) throws IOException {
-            codec.toXML(object, outputStream);
+            // The drivers would otherwise write in the platform charset
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            codec.toXML(object, writer);
+            writer.flush();
         }
 
         @Override
@@ -374,7 +380,10 @@ public final class CodecWrappers {
 
         @Override
         public <T> void encode(T object, OutputStream outputStream) throws IOException {
-            codec.toXML(object, outputStream);
+            // The drivers would otherwise write in the platform charset
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            codec.toXML(object, writer);
+            writer.flush();
         }
 
         @Override
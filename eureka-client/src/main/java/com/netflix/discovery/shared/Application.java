@@ -65,6 +65,9 @@ public class Application {
     @XStreamOmitField
     private volatile boolean isDirty = false;
 
+    @XStreamOmitField
+    private volatile boolean readOnly = false;
+
     @XStreamImplicit
     private final Set<InstanceInfo> instances;
 
@@ -100,6 +103,7 @@ public class Application {
      *            the instance info object to be added.
      */
     public void addInstance(InstanceInfo i) {
+        checkWritable();
         instancesMap.put(i.getId(), i);
         synchronized (instances) {
             instances.remove(i);
@@ -178,6 +182,7 @@ public class Application {
      *            the name of the application.
      */
     public void setName(String name) {
+        checkWritable();
         this.name = StringCache.intern(name);
     }
 
@@ -210,6 +215,7 @@ public class Application {
                                            @Nullable Map<String, Applications> remoteRegionsRegistry,
                                            @Nullable EurekaClientConfig clientConfig,
                                            @Nullable InstanceRegionChecker instanceRegionChecker) {
+        checkWritable();
         List<InstanceInfo> instanceInfoList;
         synchronized (instances) {
             instanceInfoList = new ArrayList<InstanceInfo>(instances);
@@ -249,7 +255,22 @@ public class Application {
         this.shuffledInstances.set(instanceInfoList);
     }
 
+    /**
+     * Makes this application read only, so it can be shared by several readers. Any later attempt to change it
+     * throws an {@link UnsupportedOperationException}. The instances themselves are not made read only.
+     */
+    public void makeReadOnly() {
+        readOnly = true;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Application " + name + " is read only");
+        }
+    }
+
     private void removeInstance(InstanceInfo i, boolean markAsDirty) {
+        checkWritable();
         instancesMap.remove(i.getId());
         synchronized (instances) {
             instances.remove(i);
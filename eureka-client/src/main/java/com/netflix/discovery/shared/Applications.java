@@ -45,6 +45,7 @@ import com.netflix.discovery.InstanceRegionChecker;
 import com.netflix.discovery.provider.Serializer;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamImplicit;
+import com.thoughtworks.xstream.annotations.XStreamOmitField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -86,6 +87,9 @@ public class Applications {
 
     private String appsHashCode;
 
+    @XStreamOmitField
+    private volatile boolean readOnly = false;
+
     /**
      * Create a new, empty Eureka application list.
      */
@@ -127,6 +131,7 @@ public class Applications {
      *            the <em>application</em> to be added.
      */
     public void addApplication(Application app) {
+        checkWritable();
         appNameApplicationMap.put(app.getName().toUpperCase(Locale.ROOT), app);
         addInstancesToVIPMaps(app);
         applications.add(app);
@@ -209,6 +214,7 @@ public class Applications {
 
     @Deprecated
     public void setVersion(Long version) {
+        checkWritable();
         this.versionDelta = version;
     }
 
@@ -224,6 +230,7 @@ public class Applications {
      * @param hashCode the hash code to assign for this app collection
      */
     public void setAppsHashCode(String hashCode) {
+        checkWritable();
         this.appsHashCode = hashCode;
     }
 
@@ -431,6 +438,7 @@ public class Applications {
                                   @Nullable Map<String, Applications> remoteRegionsRegistry,
                                   @Nullable EurekaClientConfig clientConfig,
                                   @Nullable InstanceRegionChecker instanceRegionChecker) {
+        checkWritable();
         this.virtualHostNameAppMap.clear();
         this.secureVirtualHostNameAppMap.clear();
         for (Application application : appNameApplicationMap.values()) {
@@ -449,6 +457,23 @@ public class Applications {
                 secureVirtualHostNameIndexMap, filterUpInstances);
     }
 
+    /**
+     * Makes this application list and all the applications it holds read only, so it can be shared by several
+     * readers. Any later attempt to change them throws an {@link UnsupportedOperationException}.
+     */
+    public void makeReadOnly() {
+        for (Application application : applications) {
+            application.makeReadOnly();
+        }
+        readOnly = true;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("The applications are read only");
+        }
+    }
+
     /**
      * Gets the next round-robin index for the given virtual host name. This
      * index is reset after every registry fetch cycle.
@@ -1,5 +1,7 @@
 package com.netflix.discovery.shared.transport;
 
+import java.util.List;
+
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.Application;
@@ -16,8 +18,27 @@ public interface EurekaHttpClient {
 
     EurekaHttpResponse<Void> cancel(String appName, String id);
 
+    /**
+     * Registers all the given instances with a single request. The response entity holds the outcome of each
+     * registration, in the order of the given instances.
+     */
+    EurekaHttpResponse<InstanceBatchResponse> registerAll(List<InstanceInfo> infos);
+
+    /**
+     * Cancels all the given instances with a single request. The response entity holds the outcome of each
+     * cancellation, in the order of the given instances.
+     */
+    EurekaHttpResponse<InstanceBatchResponse> cancelAll(List<InstanceInfo> infos);
+
     EurekaHttpResponse<InstanceInfo> sendHeartBeat(String appName, String id, InstanceInfo info, InstanceStatus overriddenStatus);
 
+    /**
+     * Sends the heartbeats of all the given instances with a single request, for a host running several of them.
+     * The response entity only lists the heartbeats which failed; the instances reported with a 404 status code
+     * have to register again, as with a single heartbeat.
+     */
+    EurekaHttpResponse<HeartbeatBatchResponse> sendHeartBeats(List<InstanceInfo> infos);
+
     EurekaHttpResponse<Void> statusUpdate(String appName, String id, InstanceStatus newStatus, InstanceInfo info);
 
     EurekaHttpResponse<Void> deleteStatusOverride(String appName, String id, InstanceInfo info);
@@ -30,6 +51,40 @@ public interface EurekaHttpClient {
 
     EurekaHttpResponse<Applications> getSecureVip(String secureVipAddress, String... regions);
 
+    /**
+     * Same as {@link #getApplications(String...)}, but if the given entity tag still matches the applications,
+     * answered with 304 (Not Modified) and no entity instead.
+     *
+     * @param eTag the entity tag of an earlier response, or null for an unconditional request
+     */
+    EurekaHttpResponse<Applications> getApplicationsIfModified(String eTag, String... regions);
+
+    /**
+     * Same as {@link #getDelta(String...)}, but if the given entity tag still matches the delta, answered with
+     * 304 (Not Modified) and no entity instead.
+     *
+     * @param eTag the entity tag of an earlier response, or null for an unconditional request
+     */
+    EurekaHttpResponse<Applications> getDeltaIfModified(String eTag, String... regions);
+
+    /**
+     * Same as {@link #getDeltaIfModified(String, String...)}, but if the given entity tag still matches the delta,
+     * the server holds the request until the delta changes, for at most the given time, before answering with 304
+     * (Not Modified). The servers not supporting it answer right away.
+     *
+     * @param eTag the entity tag of an earlier response
+     * @param waitMs the maximum time the server holds the request, which has to be shorter than the read timeout
+     */
+    EurekaHttpResponse<Applications> watchDelta(String eTag, long waitMs, String... regions);
+
+    /**
+     * Same as {@link #getVip(String, String...)}, but if the given entity tag still matches the applications,
+     * answered with 304 (Not Modified) and no entity instead.
+     *
+     * @param eTag the entity tag of an earlier response, or null for an unconditional request
+     */
+    EurekaHttpResponse<Applications> getVipIfModified(String vipAddress, String eTag, String... regions);
+
     EurekaHttpResponse<Application> getApplication(String appName);
 
     EurekaHttpResponse<InstanceInfo> getInstance(String appName, String id);
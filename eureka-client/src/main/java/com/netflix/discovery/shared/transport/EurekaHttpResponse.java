@@ -74,6 +74,20 @@ public class EurekaHttpResponse<T> {
         return entity;
     }
 
+    /**
+     * @return the entity tag of the response, as in the ETag header, or null if it has none
+     */
+    public String getETag() {
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (HttpHeaders.ETAG.equalsIgnoreCase(header.getKey())) {
+                    return header.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
     public static EurekaHttpResponse<Void> status(int status) {
         return new EurekaHttpResponse<>(status, null);
     }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.netflix.discovery.shared.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.provider.Serializer;
+
+/**
+ * Request entity of the bulk heartbeat endpoint, with one item per instance. Each item carries what the single
+ * heartbeat sends as query parameters, and is encoded as a JSON array rather than an object, so a request
+ * renewing many instances stays small.
+ */
+@Serializer("jackson") // For DiscoveryJerseyProvider
+public class HeartbeatBatchRequest {
+
+    public static final String URL_PATH = "apps/batch/renew";
+
+    private final List<Item> items;
+
+    @JsonCreator
+    public HeartbeatBatchRequest(@JsonProperty("items") List<Item> items) {
+        this.items = items;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public static HeartbeatBatchRequest heartbeatsOf(List<InstanceInfo> infos) {
+        List<Item> items = new ArrayList<>(infos.size());
+        for (InstanceInfo info : infos) {
+            items.add(new Item(info.getAppName(), info.getId(), info.getLastDirtyTimestamp(), info.getStatus()));
+        }
+        return new HeartbeatBatchRequest(items);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        HeartbeatBatchRequest that = (HeartbeatBatchRequest) o;
+
+        return !(items != null ? !items.equals(that.items) : that.items != null);
+    }
+
+    @Override
+    public int hashCode() {
+        return items != null ? items.hashCode() : 0;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"appName", "id", "lastDirtyTimestamp", "status"})
+    public static class Item {
+
+        private final String appName;
+        private final String id;
+        private final Long lastDirtyTimestamp;
+        private final InstanceStatus status;
+
+        @JsonCreator
+        public Item(@JsonProperty("appName") String appName,
+                    @JsonProperty("id") String id,
+                    @JsonProperty("lastDirtyTimestamp") Long lastDirtyTimestamp,
+                    @JsonProperty("status") InstanceStatus status) {
+            this.appName = appName;
+            this.id = id;
+            this.lastDirtyTimestamp = lastDirtyTimestamp;
+            this.status = status;
+        }
+
+        public String getAppName() {
+            return appName;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getLastDirtyTimestamp() {
+            return lastDirtyTimestamp;
+        }
+
+        public InstanceStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            Item that = (Item) o;
+
+            if (appName != null ? !appName.equals(that.appName) : that.appName != null)
+                return false;
+            if (id != null ? !id.equals(that.id) : that.id != null)
+                return false;
+            if (lastDirtyTimestamp != null ? !lastDirtyTimestamp.equals(that.lastDirtyTimestamp) : that.lastDirtyTimestamp != null)
+                return false;
+            return status == that.status;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = appName != null ? appName.hashCode() : 0;
+            result = 31 * result + (id != null ? id.hashCode() : 0);
+            result = 31 * result + (lastDirtyTimestamp != null ? lastDirtyTimestamp.hashCode() : 0);
+            result = 31 * result + (status != null ? status.hashCode() : 0);
+            return result;
+        }
+    }
+}
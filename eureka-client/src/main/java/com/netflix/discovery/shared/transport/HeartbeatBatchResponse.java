@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.netflix.discovery.shared.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.discovery.provider.Serializer;
+
+/**
+ * Response entity of the bulk heartbeat endpoint. It only lists the heartbeats of a {@link HeartbeatBatchRequest}
+ * which failed, with the status code the equivalent single heartbeat would have gotten, so the response to a
+ * successful batch is empty.
+ */
+@Serializer("jackson") // For DiscoveryJerseyProvider
+public class HeartbeatBatchResponse {
+
+    private final List<Failure> failures;
+
+    public HeartbeatBatchResponse() {
+        this.failures = new ArrayList<>();
+    }
+
+    @JsonCreator
+    public HeartbeatBatchResponse(@JsonProperty("failures") List<Failure> failures) {
+        this.failures = failures;
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public void addFailure(Failure failure) {
+        failures.add(failure);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        HeartbeatBatchResponse that = (HeartbeatBatchResponse) o;
+
+        return !(failures != null ? !failures.equals(that.failures) : that.failures != null);
+    }
+
+    @Override
+    public int hashCode() {
+        return failures != null ? failures.hashCode() : 0;
+    }
+
+    public static class Failure {
+
+        private final String appName;
+        private final String id;
+        private final int statusCode;
+
+        @JsonCreator
+        public Failure(@JsonProperty("appName") String appName,
+                       @JsonProperty("id") String id,
+                       @JsonProperty("statusCode") int statusCode) {
+            this.appName = appName;
+            this.id = id;
+            this.statusCode = statusCode;
+        }
+
+        public String getAppName() {
+            return appName;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return 404 if the instance has to register again, or 400 for a malformed item
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            Failure that = (Failure) o;
+
+            if (statusCode != that.statusCode)
+                return false;
+            if (appName != null ? !appName.equals(that.appName) : that.appName != null)
+                return false;
+            return !(id != null ? !id.equals(that.id) : that.id != null);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = appName != null ? appName.hashCode() : 0;
+            result = 31 * result + (id != null ? id.hashCode() : 0);
+            result = 31 * result + statusCode;
+            return result;
+        }
+    }
+}
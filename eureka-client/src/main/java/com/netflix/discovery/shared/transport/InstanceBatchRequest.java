@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.discovery.shared.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.provider.Serializer;
+
+/**
+ * Request entity of the bulk registration and bulk cancellation endpoints, with one item per instance. The
+ * items of a registration carry the instance information, while the items of a cancellation only identify the
+ * instance.
+ */
+@Serializer("jackson") // For DiscoveryJerseyProvider
+public class InstanceBatchRequest {
+
+    public static final String REGISTER_URL_PATH = "apps/batch/register";
+    public static final String CANCEL_URL_PATH = "apps/batch/cancel";
+
+    private final List<Item> items;
+
+    @JsonCreator
+    public InstanceBatchRequest(@JsonProperty("items") List<Item> items) {
+        this.items = items;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public static InstanceBatchRequest registrationOf(List<InstanceInfo> infos) {
+        List<Item> items = new ArrayList<>(infos.size());
+        for (InstanceInfo info : infos) {
+            items.add(new Item(info.getAppName(), info.getId(), info));
+        }
+        return new InstanceBatchRequest(items);
+    }
+
+    public static InstanceBatchRequest cancellationOf(List<InstanceInfo> infos) {
+        List<Item> items = new ArrayList<>(infos.size());
+        for (InstanceInfo info : infos) {
+            items.add(new Item(info.getAppName(), info.getId(), null));
+        }
+        return new InstanceBatchRequest(items);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        InstanceBatchRequest that = (InstanceBatchRequest) o;
+
+        return !(items != null ? !items.equals(that.items) : that.items != null);
+    }
+
+    @Override
+    public int hashCode() {
+        return items != null ? items.hashCode() : 0;
+    }
+
+    public static class Item {
+
+        private final String appName;
+        private final String id;
+        private final InstanceInfo instanceInfo;
+
+        @JsonCreator
+        public Item(@JsonProperty("appName") String appName,
+                    @JsonProperty("id") String id,
+                    @JsonProperty("instanceInfo") InstanceInfo instanceInfo) {
+            this.appName = appName;
+            this.id = id;
+            this.instanceInfo = instanceInfo;
+        }
+
+        public String getAppName() {
+            return appName;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the instance to register, or null for a cancellation
+         */
+        public InstanceInfo getInstanceInfo() {
+            return instanceInfo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            Item that = (Item) o;
+
+            if (appName != null ? !appName.equals(that.appName) : that.appName != null)
+                return false;
+            if (id != null ? !id.equals(that.id) : that.id != null)
+                return false;
+            return !(instanceInfo != null ? !instanceInfo.equals(that.instanceInfo) : that.instanceInfo != null);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = appName != null ? appName.hashCode() : 0;
+            result = 31 * result + (id != null ? id.hashCode() : 0);
+            result = 31 * result + (instanceInfo != null ? instanceInfo.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.discovery.shared.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.discovery.provider.Serializer;
+
+/**
+ * Response entity of the bulk registration and bulk cancellation endpoints, holding the outcome of each item of
+ * the {@link InstanceBatchRequest}, in the same order. Each outcome is the status code the equivalent single
+ * instance request would have gotten.
+ */
+@Serializer("jackson") // For DiscoveryJerseyProvider
+public class InstanceBatchResponse {
+
+    private final List<ItemResponse> responseList;
+
+    public InstanceBatchResponse() {
+        this.responseList = new ArrayList<>();
+    }
+
+    @JsonCreator
+    public InstanceBatchResponse(@JsonProperty("responseList") List<ItemResponse> responseList) {
+        this.responseList = responseList;
+    }
+
+    public List<ItemResponse> getResponseList() {
+        return responseList;
+    }
+
+    public void addResponse(ItemResponse itemResponse) {
+        responseList.add(itemResponse);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        InstanceBatchResponse that = (InstanceBatchResponse) o;
+
+        return !(responseList != null ? !responseList.equals(that.responseList) : that.responseList != null);
+    }
+
+    @Override
+    public int hashCode() {
+        return responseList != null ? responseList.hashCode() : 0;
+    }
+
+    public static class ItemResponse {
+
+        private final int statusCode;
+        private final String message;
+
+        @JsonCreator
+        public ItemResponse(@JsonProperty("statusCode") int statusCode,
+                            @JsonProperty("message") String message) {
+            this.statusCode = statusCode;
+            this.message = message;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @return the reason of a rejected item, or null
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            ItemResponse that = (ItemResponse) o;
+
+            if (statusCode != that.statusCode)
+                return false;
+            return !(message != null ? !message.equals(that.message) : that.message != null);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = statusCode;
+            result = 31 * result + (message != null ? message.hashCode() : 0);
+            return result;
+        }
+    }
+}
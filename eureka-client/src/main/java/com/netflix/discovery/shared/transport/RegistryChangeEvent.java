@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.netflix.discovery.shared.transport;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.converters.EurekaJacksonCodec;
+
+/**
+ * A line of the registry change feed, which streams the changes of the registry as they are made, one JSON
+ * document per line.
+ *
+ * <p>
+ * Each change of an instance is sent with the sequence number the server recorded it with, and with the
+ * instance as it was after the change. A new stream opens with a {@link Type#SNAPSHOT} of the registry, along
+ * with the sequence number of the last change it accounts for, while a resumed stream opens with a
+ * {@link Type#HEARTBEAT}. A heartbeat carries the sequence number of the last change sent, and a
+ * {@link Type#RESYNC} tells the client it fell behind and has to start over with a new stream.
+ * </p>
+ *
+ * <p>
+ * The sequence numbers are only meaningful to the server incarnation which sent them, so the opening event of
+ * each stream carries the incarnation id of the server, which a client resuming a stream sends back.
+ * </p>
+ */
+public class RegistryChangeEvent {
+
+    public static final String URL_PATH = "changes";
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    public enum Type {
+        ADDED, MODIFIED, DELETED, SNAPSHOT, HEARTBEAT, RESYNC
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final InstanceInfo instanceInfo;
+    private final Applications applications;
+    private final String incarnation;
+
+    @JsonCreator
+    public RegistryChangeEvent(@JsonProperty("sequence") long sequence,
+                               @JsonProperty("type") Type type,
+                               @JsonProperty("instanceInfo") InstanceInfo instanceInfo,
+                               @JsonProperty("applications") Applications applications,
+                               @JsonProperty("incarnation") String incarnation) {
+        this.sequence = sequence;
+        this.type = type;
+        this.instanceInfo = instanceInfo;
+        this.applications = applications;
+        this.incarnation = incarnation;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the instance after the change, or null for the heartbeats and the resync requests
+     */
+    public InstanceInfo getInstanceInfo() {
+        return instanceInfo;
+    }
+
+    /**
+     * @return the registry, for a {@link Type#SNAPSHOT}, or null
+     */
+    public Applications getApplications() {
+        return applications;
+    }
+
+    /**
+     * @return the incarnation id of the server, for the event opening a stream, or null
+     */
+    public String getIncarnation() {
+        return incarnation;
+    }
+
+    /**
+     * @return the line sent for this event, without the line separator
+     */
+    public String toLine() {
+        return EurekaJacksonCodec.getInstance().writeToString(this);
+    }
+
+    /**
+     * Writes the line sent for this event, without the line separator, straight to the writer.
+     */
+    public void writeLine(Writer writer) throws IOException {
+        EurekaJacksonCodec.getInstance().writeTo(this, writer);
+    }
+
+    public static RegistryChangeEvent fromLine(String line) throws IOException {
+        return EurekaJacksonCodec.getInstance().readValue(RegistryChangeEvent.class, line);
+    }
+
+    public static RegistryChangeEvent changeOf(long sequence, InstanceInfo instanceInfo) {
+        return new RegistryChangeEvent(sequence, Type.valueOf(instanceInfo.getActionType().name()), instanceInfo, null, null);
+    }
+
+    public static RegistryChangeEvent snapshotOf(long sequence, Applications applications, String incarnation) {
+        return new RegistryChangeEvent(sequence, Type.SNAPSHOT, null, applications, incarnation);
+    }
+
+    public static RegistryChangeEvent heartbeatOf(long sequence, String incarnation) {
+        return new RegistryChangeEvent(sequence, Type.HEARTBEAT, null, null, incarnation);
+    }
+
+    public static RegistryChangeEvent heartbeatOf(long sequence) {
+        return heartbeatOf(sequence, null);
+    }
+
+    public static RegistryChangeEvent resyncOf(long sequence) {
+        return new RegistryChangeEvent(sequence, Type.RESYNC, null, null, null);
+    }
+
+    @Override
+    public String toString() {
+        return "RegistryChangeEvent{sequence=" + sequence + ", type=" + type
+                + (instanceInfo == null ? "" : ", instance=" + instanceInfo.getId()) + '}';
+    }
+}
@@ -16,12 +16,16 @@
 
 package com.netflix.discovery.shared.transport.decorator;
 
+import java.util.List;
+
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
+import com.netflix.discovery.shared.transport.InstanceBatchResponse;
 
 /**
  * @author Tomasz Bak
@@ -31,7 +35,10 @@ public abstract class EurekaHttpClientDecorator implements EurekaHttpClient {
     public enum RequestType {
         Register,
         Cancel,
+        RegisterAll,
+        CancelAll,
         SendHeartBeat,
+        SendHeartBeats,
         StatusUpdate,
         DeleteStatusOverride,
         GetApplications,
@@ -81,6 +88,51 @@ public abstract class EurekaHttpClientDecorator implements EurekaHttpClient {
         });
     }
 
+    @Override
+    public EurekaHttpResponse<InstanceBatchResponse> registerAll(final List<InstanceInfo> infos) {
+        return execute(new RequestExecutor<InstanceBatchResponse>() {
+            @Override
+            public EurekaHttpResponse<InstanceBatchResponse> execute(EurekaHttpClient delegate) {
+                return delegate.registerAll(infos);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.RegisterAll;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<InstanceBatchResponse> cancelAll(final List<InstanceInfo> infos) {
+        return execute(new RequestExecutor<InstanceBatchResponse>() {
+            @Override
+            public EurekaHttpResponse<InstanceBatchResponse> execute(EurekaHttpClient delegate) {
+                return delegate.cancelAll(infos);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.CancelAll;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<HeartbeatBatchResponse> sendHeartBeats(final List<InstanceInfo> infos) {
+        return execute(new RequestExecutor<HeartbeatBatchResponse>() {
+            @Override
+            public EurekaHttpResponse<HeartbeatBatchResponse> execute(EurekaHttpClient delegate) {
+                return delegate.sendHeartBeats(infos);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.SendHeartBeats;
+            }
+        });
+    }
+
     @Override
     public EurekaHttpResponse<InstanceInfo> sendHeartBeat(final String appName,
                                                           final String id,
@@ -189,6 +241,66 @@ public abstract class EurekaHttpClientDecorator implements EurekaHttpClient {
         });
     }
 
+    @Override
+    public EurekaHttpResponse<Applications> getApplicationsIfModified(final String eTag, final String... regions) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getApplicationsIfModified(eTag, regions);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetApplications;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaIfModified(final String eTag, final String... regions) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getDeltaIfModified(eTag, regions);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetDelta;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> watchDelta(final String eTag, final long waitMs, final String... regions) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.watchDelta(eTag, waitMs, regions);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetDelta;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getVipIfModified(final String vipAddress, final String eTag, final String... regions) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getVipIfModified(vipAddress, eTag, regions);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetVip;
+            }
+        });
+    }
+
     @Override
     public EurekaHttpResponse<Application> getApplication(final String appName) {
         return execute(new RequestExecutor<Application>() {
@@ -28,11 +28,13 @@ public final class ServerStatusEvaluators {
         public boolean accept(int statusCode, RequestType requestType) {
             if (statusCode >= 200 && statusCode < 300 || statusCode == 302) {
                 return true;
+            } else if (statusCode == 304) {  // only answers conditional requests, whose response it is
+                return true;
             } else if (requestType == RequestType.Register && statusCode == 404) {
                 return true;
             } else if (requestType == RequestType.SendHeartBeat && statusCode == 404) {
                 return true;
-            } else if (requestType == RequestType.Cancel) {  // cancel is best effort
+            } else if (requestType == RequestType.Cancel || requestType == RequestType.CancelAll) {  // cancel is best effort
                 return true;
             } else if (requestType == RequestType.GetDelta && (statusCode == 403 || statusCode == 404)) {
                 return true;
@@ -44,7 +46,7 @@ public final class ServerStatusEvaluators {
     private static final ServerStatusEvaluator HTTP_SUCCESS_EVALUATOR = new ServerStatusEvaluator() {
         @Override
         public boolean accept(int statusCode, RequestType requestType) {
-            return statusCode >= 200 && statusCode < 300;
+            return statusCode >= 200 && statusCode < 300 || statusCode == 304;
         }
     };
 
@@ -60,7 +62,7 @@ public final class ServerStatusEvaluators {
     }
 
     /**
-     * An evaluator that only care about http 2xx responses
+     * An evaluator that only care about http 2xx responses, and 304 responses to conditional requests
      */
     public static ServerStatusEvaluator httpSuccessEvaluator() {
         return HTTP_SUCCESS_EVALUATOR;
@@ -1,5 +1,6 @@
 package com.netflix.discovery.shared.transport.jersey;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response.Status;
@@ -16,6 +17,10 @@ import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse.EurekaHttpResponseBuilder;
+import com.netflix.discovery.shared.transport.HeartbeatBatchRequest;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
+import com.netflix.discovery.shared.transport.InstanceBatchRequest;
+import com.netflix.discovery.shared.transport.InstanceBatchResponse;
 import com.netflix.discovery.util.StringUtil;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
@@ -85,6 +90,51 @@ public abstract class AbstractJerseyEurekaHttpClient implements EurekaHttpClient
         }
     }
 
+    @Override
+    public EurekaHttpResponse<InstanceBatchResponse> registerAll(List<InstanceInfo> infos) {
+        return postBatch(InstanceBatchRequest.REGISTER_URL_PATH, InstanceBatchRequest.registrationOf(infos),
+                infos.size(), InstanceBatchResponse.class);
+    }
+
+    @Override
+    public EurekaHttpResponse<InstanceBatchResponse> cancelAll(List<InstanceInfo> infos) {
+        return postBatch(InstanceBatchRequest.CANCEL_URL_PATH, InstanceBatchRequest.cancellationOf(infos),
+                infos.size(), InstanceBatchResponse.class);
+    }
+
+    @Override
+    public EurekaHttpResponse<HeartbeatBatchResponse> sendHeartBeats(List<InstanceInfo> infos) {
+        return postBatch(HeartbeatBatchRequest.URL_PATH, HeartbeatBatchRequest.heartbeatsOf(infos),
+                infos.size(), HeartbeatBatchResponse.class);
+    }
+
+    private <R> EurekaHttpResponse<R> postBatch(String urlPath, Object batchRequest, int instanceCount, Class<R> responseType) {
+        ClientResponse response = null;
+        try {
+            Builder resourceBuilder = jerseyClient.resource(serviceUrl).path(urlPath).getRequestBuilder();
+            addExtraHeaders(resourceBuilder);
+            response = resourceBuilder
+                    .header("Accept-Encoding", "gzip")
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .post(ClientResponse.class, batchRequest);
+            EurekaHttpResponseBuilder<R> eurekaResponseBuilder =
+                    anEurekaHttpResponse(response.getStatus(), responseType).headers(headersOf(response));
+            if (response.getStatus() == Status.OK.getStatusCode() && response.hasEntity()) {
+                eurekaResponseBuilder.entity(response.getEntity(responseType));
+            }
+            return eurekaResponseBuilder.build();
+        } finally {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Jersey HTTP POST {}/{} with {} instances; statusCode={}", serviceUrl, urlPath,
+                        instanceCount, response == null ? "N/A" : response.getStatus());
+            }
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
     @Override
     public EurekaHttpResponse<InstanceInfo> sendHeartBeat(String appName, String id, InstanceInfo info, InstanceStatus overriddenStatus) {
         String urlPath = "apps/" + appName + '/' + id;
@@ -162,25 +212,50 @@ public abstract class AbstractJerseyEurekaHttpClient implements EurekaHttpClient
 
     @Override
     public EurekaHttpResponse<Applications> getApplications(String... regions) {
-        return getApplicationsInternal("apps/", regions);
+        return getApplicationsInternal("apps/", null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getDelta(String... regions) {
-        return getApplicationsInternal("apps/delta", regions);
+        return getApplicationsInternal("apps/delta", null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getVip(String vipAddress, String... regions) {
-        return getApplicationsInternal("vips/" + vipAddress, regions);
+        return getApplicationsInternal("vips/" + vipAddress, null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getSecureVip(String secureVipAddress, String... regions) {
-        return getApplicationsInternal("svips/" + secureVipAddress, regions);
+        return getApplicationsInternal("svips/" + secureVipAddress, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getApplicationsIfModified(String eTag, String... regions) {
+        return getApplicationsInternal("apps/", eTag, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaIfModified(String eTag, String... regions) {
+        return getApplicationsInternal("apps/delta", eTag, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> watchDelta(String eTag, long waitMs, String... regions) {
+        return getApplicationsInternal("apps/delta", eTag, waitMs, regions);
     }
 
-    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String[] regions) {
+    @Override
+    public EurekaHttpResponse<Applications> getVipIfModified(String vipAddress, String eTag, String... regions) {
+        return getApplicationsInternal("vips/" + vipAddress, eTag, regions);
+    }
+
+    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String eTag, String[] regions) {
+        return getApplicationsInternal(urlPath, eTag, 0, regions);
+    }
+
+    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String eTag, long waitMs,
+                                                                     String[] regions) {
         ClientResponse response = null;
         String regionsParamValue = null;
         try {
@@ -189,8 +264,14 @@ public abstract class AbstractJerseyEurekaHttpClient implements EurekaHttpClient
                 regionsParamValue = StringUtil.join(regions);
                 webResource = webResource.queryParam("regions", regionsParamValue);
             }
+            if (waitMs > 0) {
+                webResource = webResource.queryParam("waitMs", Long.toString(waitMs));
+            }
             Builder requestBuilder = webResource.getRequestBuilder();
             addExtraHeaders(requestBuilder);
+            if (eTag != null) {
+                requestBuilder.header(HttpHeaders.IF_NONE_MATCH, eTag);
+            }
             response = requestBuilder.accept(MediaType.APPLICATION_JSON_TYPE).get(ClientResponse.class);
 
             Applications applications = null;
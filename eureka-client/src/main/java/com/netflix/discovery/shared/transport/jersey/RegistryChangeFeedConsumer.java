@@ -0,0 +1,236 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.netflix.discovery.shared.transport.jersey;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.transport.RegistryChangeEvent;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.WebResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a copy of the registry of a single Eureka server up to date from its change feed, which streams the
+ * changes of the registry as they are made, instead of polling the deltas.
+ *
+ * <p>
+ * A new stream opens with a snapshot of the registry, along with the sequence number of the last change it
+ * accounts for, and the changes following that one are applied on top of it. When the server closes a stream,
+ * the consumer resumes from the last change it has seen, with the incarnation id of the server, so a server
+ * which was restarted, or another server behind the same URL, tells it to resync. When the server tells it to
+ * resync, or the connection fails, it starts over with a new stream and a new snapshot.
+ * </p>
+ *
+ * <p>
+ * The server sends a heartbeat while the registry does not change, so the read timeout of the Jersey client
+ * has to be longer than the heartbeat interval of the server.
+ * </p>
+ */
+public class RegistryChangeFeedConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistryChangeFeedConsumer.class);
+
+    private static final long MIN_RECONNECT_DELAY_MS = 1000;
+    private static final long MAX_RECONNECT_DELAY_MS = 30 * 1000;
+
+    private final Client jerseyClient;
+    private final String serviceUrl;
+    private final boolean filterOnlyUpInstances;
+
+    private final AtomicReference<Applications> applications = new AtomicReference<>();
+    private volatile long lastSequence = -1;
+    private volatile String incarnation;
+
+    private volatile boolean running;
+    private volatile ClientResponse currentResponse;
+    private Thread consumerThread;
+
+    /**
+     * @param jerseyClient the client the changes are streamed with
+     * @param serviceUrl the service URL of the server
+     * @param filterOnlyUpInstances whether only the instances which are up are served
+     */
+    public RegistryChangeFeedConsumer(Client jerseyClient,
+                                      String serviceUrl,
+                                      boolean filterOnlyUpInstances) {
+        this.jerseyClient = jerseyClient;
+        this.serviceUrl = serviceUrl;
+        this.filterOnlyUpInstances = filterOnlyUpInstances;
+    }
+
+    /**
+     * @return the registry, or null if it has not been fetched yet
+     */
+    public Applications getApplications() {
+        return applications.get();
+    }
+
+    /**
+     * @return the sequence number of the last change applied, or -1 if the next stream starts over
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        consumerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consumeUntilShutdown();
+            }
+        }, "RegistryChangeFeedConsumer");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // Unblocks the thread reading the stream
+        ClientResponse response = currentResponse;
+        if (response != null) {
+            response.close();
+        }
+        consumerThread.interrupt();
+    }
+
+    private void consumeUntilShutdown() {
+        long reconnectDelayMs = MIN_RECONNECT_DELAY_MS;
+        while (running) {
+            try {
+                consumeStream();
+                reconnectDelayMs = MIN_RECONNECT_DELAY_MS;
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                // The sequence numbers are only meaningful to the server which sent them
+                lastSequence = -1;
+                logger.warn("Cannot stream the registry changes from {}; retrying in {}ms", serviceUrl, reconnectDelayMs, e);
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                reconnectDelayMs = Math.min(reconnectDelayMs * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+
+    private void consumeStream() throws IOException {
+        WebResource webResource = jerseyClient.resource(serviceUrl).path(RegistryChangeEvent.URL_PATH);
+        if (lastSequence >= 0 && incarnation != null) {
+            webResource = webResource.queryParam("since", Long.toString(lastSequence))
+                    .queryParam("incarnation", incarnation);
+        }
+        ClientResponse response = webResource.accept(RegistryChangeEvent.MEDIA_TYPE).get(ClientResponse.class);
+        currentResponse = response;
+        try {
+            if (response.getStatus() != 200) {
+                throw new IOException("Change feed request failed with status " + response.getStatus());
+            }
+            consume(new BufferedReader(new InputStreamReader(response.getEntityInputStream(), StandardCharsets.UTF_8)));
+        } finally {
+            currentResponse = null;
+            response.close();
+        }
+    }
+
+    /**
+     * Applies the events read from a single stream, until the stream ends or the server asks for a resync.
+     */
+    void consume(BufferedReader reader) throws IOException {
+        int pending = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            RegistryChangeEvent event = RegistryChangeEvent.fromLine(line);
+            switch (event.getType()) {
+                case SNAPSHOT:
+                    applySnapshot(event);
+                    break;
+                case HEARTBEAT:
+                    if (lastSequence < 0) {
+                        throw new IOException("New change feed stream opened without a registry snapshot");
+                    }
+                    break;
+                case RESYNC:
+                    logger.info("Fell behind the registry changes of {}; starting over", serviceUrl);
+                    lastSequence = -1;
+                    return;
+                default:
+                    apply(event);
+                    pending++;
+            }
+            lastSequence = event.getSequence();
+            // Reshuffles once per batch of changes sent together, rather than once per change
+            if (pending > 0 && !reader.ready()) {
+                applications.get().shuffleInstances(filterOnlyUpInstances);
+                pending = 0;
+            }
+        }
+    }
+
+    private void applySnapshot(RegistryChangeEvent event) throws IOException {
+        Applications snapshot = event.getApplications();
+        if (snapshot == null) {
+            throw new IOException("Registry snapshot without applications");
+        }
+        snapshot.shuffleInstances(filterOnlyUpInstances);
+        applications.set(snapshot);
+        incarnation = event.getIncarnation();
+        logger.debug("Received the registry of {} as of change {}", serviceUrl, event.getSequence());
+    }
+
+    private void apply(RegistryChangeEvent event) throws IOException {
+        Applications current = applications.get();
+        if (current == null) {
+            throw new IOException("Registry change received before the stream heartbeat");
+        }
+        InstanceInfo instance = event.getInstanceInfo();
+        Application app = current.getRegisteredApplications(instance.getAppName());
+        if (app == null) {
+            app = new Application(instance.getAppName());
+            current.addApplication(app);
+        }
+        if (event.getType() == RegistryChangeEvent.Type.DELETED) {
+            app.removeInstance(instance);
+        } else {
+            app.addInstance(instance);
+        }
+        logger.debug("Applied {}", event);
+    }
+}
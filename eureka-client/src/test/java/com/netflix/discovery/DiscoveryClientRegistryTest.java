@@ -1,5 +1,6 @@
 package com.netflix.discovery;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import java.io.IOException;
 import java.util.List;
@@ -142,6 +143,29 @@ public class DiscoveryClientRegistryTest {
         assertThat(countInstances(vipClient.getApplications()), is(equalTo(2)));
     }
 
+    @Test
+    public void testCacheRefreshNotModifiedKeepsTheRegistry() throws Exception {
+        Applications initialApps = InstanceInfoGenerator.newBuilder(2, "testApp").build().takeDelta(1);
+        String vipAddress = initialApps.getRegisteredApplications().get(0).getInstances().get(0).getVIPAddress();
+        String eTag = "\"apps-1\"";
+
+        DiscoveryClientResource vipClientResource = discoveryClientResource.fork().withVipFetch(vipAddress).build();
+
+        when(requestHandler.getVip(vipAddress, TEST_REMOTE_REGION)).thenReturn(
+                anEurekaHttpResponse(200, initialApps).type(MediaType.APPLICATION_JSON_TYPE).headers(HttpHeaders.ETAG, eTag).build()
+        );
+        when(requestHandler.getVipIfModified(vipAddress, eTag, TEST_REMOTE_REGION)).thenReturn(
+                anEurekaHttpResponse(304, Applications.class).headers(HttpHeaders.ETAG, eTag).build()
+        );
+        EurekaClient vipClient = vipClientResource.getClient();
+        assertThat(countInstances(vipClient.getApplications()), is(equalTo(1)));
+
+        // The next refresh sends the entity tag, and keeps the registry as it is
+        assertThat(vipClientResource.awaitCacheUpdate(5, TimeUnit.SECONDS), is(true));
+        verify(requestHandler, timeout(5 * 1000).atLeastOnce()).getVipIfModified(vipAddress, eTag, TEST_REMOTE_REGION);
+        assertThat(countInstances(vipClient.getApplications()), is(equalTo(1)));
+    }
+
     @Test
     public void testEurekaClientPeriodicHeartbeat() throws Exception {
         DiscoveryClientResource registeringClientResource = discoveryClientResource.fork().withRegistration(true).withRegistryFetch(false).build();
@@ -0,0 +1,124 @@
+package com.netflix.discovery;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.discovery.junit.resource.DiscoveryClientResource;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.transport.EurekaHttpClient;
+import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.discovery.shared.transport.SimpleEurekaHttpServer;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static com.netflix.discovery.shared.transport.EurekaHttpResponse.anEurekaHttpResponse;
+import static com.netflix.discovery.util.EurekaEntityFunctions.countInstances;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+public class DiscoveryClientRegistryWatchTest {
+
+    private static final int WATCH_WAIT_SECONDS = 2;
+    private static final long FETCH_INTERVAL_MS = (WATCH_WAIT_SECONDS + 1) * 1000L;
+
+    private static final EurekaHttpClient requestHandler = mock(EurekaHttpClient.class);
+    private static SimpleEurekaHttpServer eurekaHttpServer;
+
+    @Rule
+    public DiscoveryClientResource discoveryClientResource = DiscoveryClientResource.newBuilder()
+            .withRegistration(false)
+            .withRegistryFetch(true)
+            .withRegistryWatch(WATCH_WAIT_SECONDS)
+            .connectWith(eurekaHttpServer)
+            .build();
+
+    private final AtomicInteger deltaFetches = new AtomicInteger();
+    private final AtomicInteger watchFetches = new AtomicInteger();
+
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        eurekaHttpServer = new SimpleEurekaHttpServer(requestHandler);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        if (eurekaHttpServer != null) {
+            eurekaHttpServer.shutdown();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        reset(requestHandler);
+    }
+
+    @Test
+    public void testChangesAreWatchedWhileTheRegularFetchesAreSuspended() throws Exception {
+        InstanceInfoGenerator instanceGen = InstanceInfoGenerator.newBuilder(2, "testApp").build();
+        Applications initialApps = instanceGen.takeDelta(1);
+        initialApps.setVersion(1L);
+        final Applications unchanged = new Applications();
+        unchanged.setAppsHashCode(initialApps.getAppsHashCode());
+        unchanged.setVersion(1L);
+        final Applications delta = instanceGen.takeDelta(1);
+        delta.setVersion(2L);
+
+        when(requestHandler.getApplications()).thenReturn(
+                anEurekaHttpResponse(200, initialApps).type(MediaType.APPLICATION_JSON_TYPE).build()
+        );
+        // The regular fetches get the delta to watch from, and should not happen anymore once it is watched
+        Answer<EurekaHttpResponse<Applications>> deltaAnswer = new Answer<EurekaHttpResponse<Applications>>() {
+            @Override
+            public EurekaHttpResponse<Applications> answer(InvocationOnMock invocation) {
+                deltaFetches.incrementAndGet();
+                return anEurekaHttpResponse(200, unchanged).type(MediaType.APPLICATION_JSON_TYPE)
+                        .headers(HttpHeaders.ETAG, "delta-1").build();
+            }
+        };
+        when(requestHandler.getDelta()).thenAnswer(deltaAnswer);
+        when(requestHandler.getDeltaIfModified(anyString())).thenAnswer(deltaAnswer);
+        // The second watch from the first delta gets the change, every other one is held until it times out
+        when(requestHandler.watchDelta(anyString(), anyLong())).thenAnswer(new Answer<EurekaHttpResponse<Applications>>() {
+            @Override
+            public EurekaHttpResponse<Applications> answer(InvocationOnMock invocation) throws Throwable {
+                int count = watchFetches.incrementAndGet();
+                if ("delta-1".equals(invocation.getArguments()[0]) && count >= 2) {
+                    return anEurekaHttpResponse(200, delta).type(MediaType.APPLICATION_JSON_TYPE)
+                            .headers(HttpHeaders.ETAG, "delta-2").build();
+                }
+                Thread.sleep((Long) invocation.getArguments()[1]);
+                return anEurekaHttpResponse(304, Applications.class).build();
+            }
+        });
+
+        EurekaClient client = discoveryClientResource.getClient();
+        assertThat(countInstances(client.getApplications()), is(equalTo(1)));
+
+        long deadline = System.currentTimeMillis() + 30 * 1000;
+        while (countInstances(client.getApplications()) < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(countInstances(client.getApplications()), is(equalTo(2)));
+
+        int deltaFetchesBefore = deltaFetches.get();
+        int watchFetchesBefore = watchFetches.get();
+        Thread.sleep(2 * FETCH_INTERVAL_MS);
+        assertThat(deltaFetches.get(), is(equalTo(deltaFetchesBefore)));
+        assertTrue(watchFetches.get() > watchFetchesBefore);
+    }
+}
@@ -5,16 +5,19 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.ActionType;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.transport.HeartbeatBatchRequest;
 import com.netflix.discovery.util.EurekaEntityComparators;
 import com.netflix.discovery.util.InstanceInfoGenerator;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -226,4 +229,16 @@ public class EurekaJacksonCodecTest {
 
         assertTrue(EurekaEntityComparators.equal(decoded, INSTANCE_INFO_1_A1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHeartbeatBatchIsEncodedAsArrays() throws Exception {
+        HeartbeatBatchRequest batchRequest = HeartbeatBatchRequest.heartbeatsOf(Arrays.asList(INSTANCE_INFO_1_A1));
+        String jsonValue = codec.writeToString(batchRequest);
+
+        HeartbeatBatchRequest.Item item = batchRequest.getItems().get(0);
+        String expectedItem = "[\"" + item.getAppName() + "\",\"" + item.getId() + "\","
+                + item.getLastDirtyTimestamp() + ",\"" + item.getStatus() + "\"]";
+        assertEquals("{\"items\":[" + expectedItem + "]}", jsonValue);
+        assertEquals(batchRequest, codec.readValue(HeartbeatBatchRequest.class, jsonValue));
+    }
+}
@@ -1,12 +1,17 @@
 package com.netflix.discovery.converters.wrappers;
 
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.util.InstanceInfoGenerator;
 import junit.framework.Assert;
 import org.junit.Test;
 
 import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * @author David Liu
@@ -26,6 +31,22 @@ public class CodecWrappersTest {
         Assert.assertNotNull(CodecWrappers.getDecoder(testWrapperName));
     }
 
+    @Test
+    public void testStreamedEncodingIsTheUtf8OfTheEncodedString() throws Exception {
+        InstanceInfo instanceInfo = new InstanceInfo.Builder(InstanceInfoGenerator.takeOne())
+                .add("city", "Z\u00fcrich")
+                .build();
+        for (Class<? extends CodecWrapper> codecClass : Arrays.asList(CodecWrappers.XStreamXml.class,
+                CodecWrappers.XStreamJson.class, CodecWrappers.LegacyJacksonJson.class, CodecWrappers.JacksonXml.class)) {
+            CodecWrapper codec = CodecWrappers.getCodec(codecClass);
+            ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            codec.encode(instanceInfo, streamed);
+
+            Assert.assertTrue(codec.codecName(),
+                    Arrays.equals(codec.encode(instanceInfo).getBytes(StandardCharsets.UTF_8), streamed.toByteArray()));
+        }
+    }
+
     private final class TestWrapper implements CodecWrapper {
 
         @Override
@@ -0,0 +1,91 @@
+package com.netflix.discovery.shared.transport.jersey;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.transport.RegistryChangeEvent;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.sun.jersey.api.client.Client;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class RegistryChangeFeedConsumerTest {
+
+    private static final String INCARNATION = "incarnation#test";
+
+    private InstanceInfoGenerator instanceGenerator;
+    private RegistryChangeFeedConsumer consumer;
+
+    @Before
+    public void setUp() throws Exception {
+        instanceGenerator = InstanceInfoGenerator.newBuilder(10, 2).withMetaData(true).build();
+        consumer = new RegistryChangeFeedConsumer(mock(Client.class), "http://localhost:8080/eureka/v2/", false);
+    }
+
+    @Test
+    public void testChangesAreAppliedOnTopOfTheSnapshot() throws Exception {
+        InstanceInfo added = InstanceInfoGenerator.newBuilder(1, "NEW_APP").build().first();
+        added.setActionType(ActionType.ADDED);
+        InstanceInfo modified = new InstanceInfo(instanceGenerator.take(0));
+        modified.setStatus(InstanceStatus.OUT_OF_SERVICE);
+        modified.setActionType(ActionType.MODIFIED);
+        InstanceInfo deleted = new InstanceInfo(instanceGenerator.take(1));
+        deleted.setActionType(ActionType.DELETED);
+
+        consumer.consume(streamOf(
+                RegistryChangeEvent.snapshotOf(5, instanceGenerator.toApplications(), INCARNATION),
+                RegistryChangeEvent.changeOf(6, added),
+                RegistryChangeEvent.changeOf(7, modified),
+                RegistryChangeEvent.changeOf(8, deleted),
+                RegistryChangeEvent.heartbeatOf(8)
+        ));
+
+        assertThat(consumer.getLastSequence(), is(equalTo(8L)));
+
+        Applications applications = consumer.getApplications();
+        assertThat(applications.getRegisteredApplications(added.getAppName()).getByInstanceId(added.getId()), is(notNullValue()));
+        InstanceInfo modifiedCopy = applications.getRegisteredApplications(modified.getAppName()).getByInstanceId(modified.getId());
+        assertThat(modifiedCopy.getStatus(), is(equalTo(InstanceStatus.OUT_OF_SERVICE)));
+        assertThat(applications.getRegisteredApplications(deleted.getAppName()).getByInstanceId(deleted.getId()), is(nullValue()));
+    }
+
+    @Test
+    public void testResyncStopsTheStreamAndStartsOver() throws Exception {
+        InstanceInfo added = InstanceInfoGenerator.newBuilder(1, "NEW_APP").build().first();
+        added.setActionType(ActionType.ADDED);
+
+        consumer.consume(streamOf(
+                RegistryChangeEvent.snapshotOf(5, instanceGenerator.toApplications(), INCARNATION),
+                RegistryChangeEvent.resyncOf(100),
+                RegistryChangeEvent.changeOf(101, added)
+        ));
+
+        assertThat(consumer.getLastSequence(), is(equalTo(-1L)));
+        assertThat(consumer.getApplications().getRegisteredApplications(added.getAppName()), is(nullValue()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNewStreamWithoutSnapshotIsRejected() throws Exception {
+        consumer.consume(streamOf(RegistryChangeEvent.heartbeatOf(5, INCARNATION)));
+    }
+
+    private static BufferedReader streamOf(RegistryChangeEvent... events) {
+        StringBuilder sb = new StringBuilder();
+        for (RegistryChangeEvent event : events) {
+            sb.append(event.toLine()).append('\n');
+        }
+        return new BufferedReader(new StringReader(sb.toString()));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.lease;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares finding the expired leases by scanning a registry shaped map of leases, as the eviction task used
+ * to do, with the {@link LeaseExpiryIndex} lookup. One lease in a hundred is expired. The cost the index adds
+ * to the renewals is measured as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LeaseExpiryBenchmark {
+
+    private static final int APPLICATION_SIZE = 20;
+    private static final int EXPIRED_RATIO = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int leaseCount;
+
+    private final Map<String, Map<String, Lease<String>>> registry = new ConcurrentHashMap<>();
+    private final LeaseExpiryIndex<String> index = new LeaseExpiryIndex<>(60 * 1000);
+    private final List<Lease<String>> aliveLeases = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        for (int i = 0; i < leaseCount; i++) {
+            String appName = "app" + i / APPLICATION_SIZE;
+            Map<String, Lease<String>> leaseMap = registry.get(appName);
+            if (leaseMap == null) {
+                leaseMap = new ConcurrentHashMap<>();
+                registry.put(appName, leaseMap);
+            }
+            String id = appName + "-instance" + i;
+            Lease<String> lease = new Lease<>(id, i % EXPIRED_RATIO == 0 ? 0 : Lease.DEFAULT_DURATION_IN_SECS);
+            leaseMap.put(id, lease);
+            index.schedule(lease);
+            if (i % EXPIRED_RATIO != 0) {
+                aliveLeases.add(lease);
+            }
+        }
+        // Let the zero duration leases expire
+        Thread.sleep(10);
+    }
+
+    @Benchmark
+    public List<Lease<String>> scanRegistry() {
+        List<Lease<String>> expired = new ArrayList<>();
+        for (Map<String, Lease<String>> leaseMap : registry.values()) {
+            for (Lease<String> lease : leaseMap.values()) {
+                if (lease.isExpired(0) && lease.getHolder() != null) {
+                    expired.add(lease);
+                }
+            }
+        }
+        return expired;
+    }
+
+    @Benchmark
+    public List<Lease<String>> lookupIndex() {
+        return index.getExpired(0);
+    }
+
+    @Benchmark
+    public Lease<String> renew() {
+        Lease<String> lease = aliveLeases.get(ThreadLocalRandom.current().nextInt(aliveLeases.size()));
+        lease.renew();
+        return lease;
+    }
+
+    @Benchmark
+    public Lease<String> renewAndReschedule() {
+        Lease<String> lease = aliveLeases.get(ThreadLocalRandom.current().nextInt(aliveLeases.size()));
+        lease.renew();
+        index.schedule(lease);
+        return lease;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.List;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.MyDataCenterInstanceConfig;
+import com.netflix.discovery.DefaultEurekaClientConfig;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.DefaultEurekaServerConfig;
+import com.netflix.eureka.EurekaServerConfig;
+import com.netflix.eureka.resources.DefaultServerCodecs;
+
+/**
+ * Creates registries for the benchmarks, with no peers and no remote regions.
+ */
+final class BenchmarkRegistries {
+
+    private BenchmarkRegistries() {
+    }
+
+    static PeerAwareInstanceRegistryImpl newRegistry() {
+        // Servo monitors resolve the data center of the local instance when first touched
+        new ApplicationInfoManager(new MyDataCenterInstanceConfig(), InstanceInfoGenerator.takeOne());
+
+        EurekaServerConfig serverConfig = new DefaultEurekaServerConfig();
+        PeerAwareInstanceRegistryImpl registry = new PeerAwareInstanceRegistryImpl(
+                serverConfig,
+                new DefaultEurekaClientConfig(),
+                new DefaultServerCodecs(serverConfig),
+                null
+        );
+        registry.initializedResponseCache();
+        return registry;
+    }
+
+    static List<InstanceInfo> newInstances(int instanceCount) {
+        int applicationCount = Math.max(1, instanceCount / 20);
+        return InstanceInfoGenerator.newBuilder(instanceCount, applicationCount).build().toInstanceList();
+    }
+
+    static void registerAll(AbstractInstanceRegistry registry, List<InstanceInfo> instances) {
+        for (InstanceInfo instance : instances) {
+            registry.register(instance, 90, true);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.DefaultEurekaServerConfig;
+import com.netflix.eureka.resources.DefaultServerCodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the compression of the full registry payload, as encoded by the response cache, with each of the
+ * built in content codings and a few compression levels, against the GZIPOutputStream the payloads used to be
+ * compressed with. Run with the gc profiler to compare the allocations as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"1000", "10000"})
+    public int instanceCount;
+
+    @Param({"gzip", "deflate"})
+    public String encoding;
+
+    @Param({"1", "-1", "9"})
+    public int level;
+
+    private byte[] payload;
+    private PayloadCompressor compressor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Applications applications = InstanceInfoGenerator.newBuilder(instanceCount, Math.max(1, instanceCount / 20))
+                .build().toApplications();
+        applications.setAppsHashCode(applications.getReconcileHashCode());
+        String json = new DefaultServerCodecs(new DefaultEurekaServerConfig())
+                .getEncoder(Key.KeyType.JSON, EurekaAccept.full)
+                .encode(applications);
+        payload = json.getBytes(Charset.forName("UTF-8"));
+        compressor = ContentEncodings.GZIP.equals(encoding)
+                ? DeflaterPayloadCompressor.gzip(level)
+                : DeflaterPayloadCompressor.deflate(level);
+    }
+
+    @Benchmark
+    public byte[] pooledDeflater() {
+        return compressor.compress(payload);
+    }
+
+    @Benchmark
+    public byte[] gzipOutputStream() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(payload.length / 4 + 64);
+        GZIPOutputStream out = new GZIPOutputStream(bos);
+        out.write(payload);
+        out.finish();
+        out.close();
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.config.ConfigurationManager;
+import com.netflix.discovery.shared.Applications;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the register throughput of the registry, on its own and while the delta payload is computed
+ * continuously by another thread, as it happens on delta cache misses during deploy storms.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeltaJournalBenchmark {
+
+    @Param({"10000", "60000"})
+    public int instanceCount;
+
+    private PeerAwareInstanceRegistryImpl registry;
+    private List<InstanceInfo> instances;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Keep the journal bounded while the writers are hammering the registry
+        ConfigurationManager.getConfigInstance().setProperty("eureka.retentionTimeInMSInDeltaQueue", "2000");
+
+        registry = BenchmarkRegistries.newRegistry();
+        instances = BenchmarkRegistries.newInstances(instanceCount);
+        BenchmarkRegistries.registerAll(registry, instances);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Benchmark
+    @Group("registerOnly")
+    @GroupThreads(3)
+    public void registerAlone() {
+        register();
+    }
+
+    @Benchmark
+    @Group("registerWithDeltaReads")
+    @GroupThreads(3)
+    public void registerWhileComputingDeltas() {
+        register();
+    }
+
+    @Benchmark
+    @Group("registerWithDeltaReads")
+    @GroupThreads(1)
+    public Applications computeDelta() {
+        return registry.getApplicationDeltasFromMultipleRegions(null);
+    }
+
+    private void register() {
+        InstanceInfo instance = instances.get(ThreadLocalRandom.current().nextInt(instances.size()));
+        registry.register(instance, 90, true);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.converters.wrappers.EncoderWrapper;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.DefaultEurekaServerConfig;
+import com.netflix.eureka.resources.DefaultServerCodecs;
+import com.netflix.eureka.resources.ServerCodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding of the payload of all the applications from scratch, as for the first request after a
+ * start or after the fragments were dropped, by the codec alone and from application fragments encoded on a
+ * given number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelEncodingBenchmark {
+
+    @Param({"10000", "150000"})
+    public int instanceCount;
+
+    @Param({"JSON", "XML"})
+    public Key.KeyType type;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private ServerCodecs codecs;
+    private EncoderWrapper encoder;
+    private ForkJoinPool pool;
+    private Applications applications;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        applications = InstanceInfoGenerator.newBuilder(instanceCount, Math.max(1, instanceCount / 20))
+                .build().toApplications();
+        applications.setAppsHashCode(applications.getReconcileHashCode());
+        applications.setVersion(1L);
+        codecs = new DefaultServerCodecs(new DefaultEurekaServerConfig());
+        encoder = codecs.getEncoder(type, EurekaAccept.full);
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public String codec() throws Exception {
+        return encoder.encode(applications);
+    }
+
+    @Benchmark
+    public byte[] fragments() throws Exception {
+        // New fragments every time, so all the applications are encoded
+        return new ApplicationFragments(codecs, pool, 1).encode(type, EurekaAccept.full, null, applications);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.MyDataCenterInstanceConfig;
+import com.netflix.config.ConfigurationManager;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the renewal throughput of the registry on a single thread and on all the cores. The renewals are
+ * replicated ones, which are not replicated any further, so this is the registry part of every heartbeat. Run
+ * with {@code -prof gc} to see the allocation per renewal, which should be zero bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenewBenchmark {
+
+    @Param({"10000", "60000"})
+    public int instanceCount;
+
+    private PeerAwareInstanceRegistryImpl registry;
+    private String[] appNames;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The generated instances are in AWS, but there are no replicas to prime
+        ConfigurationManager.getConfigInstance().setProperty("eureka.primeAwsReplicaConnections", "false");
+
+        registry = BenchmarkRegistries.newRegistry();
+        List<InstanceInfo> instances = BenchmarkRegistries.newInstances(instanceCount);
+        BenchmarkRegistries.registerAll(registry, instances);
+        // Starts the renewal rate measurement
+        registry.openForTraffic(
+                new ApplicationInfoManager(new MyDataCenterInstanceConfig(), InstanceInfoGenerator.takeOne()),
+                instances.size());
+
+        appNames = new String[instances.size()];
+        ids = new String[instances.size()];
+        for (int i = 0; i < instances.size(); i++) {
+            appNames[i] = instances.get(i).getAppName();
+            ids[i] = instances.get(i).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean renewSingleThreaded() {
+        return renew();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean renewOnAllCores() {
+        return renew();
+    }
+
+    private boolean renew() {
+        int index = ThreadLocalRandom.current().nextInt(ids.length);
+        return registry.renew(appNames[index], ids[index], true);
+    }
+}
@@ -19,10 +19,13 @@ package com.netflix.eureka;
 import javax.annotation.Nullable;
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -286,6 +289,14 @@ public class DefaultEurekaServerConfig implements EurekaServerConfig {
     }
 
     @Override
+    public int getRetentionCapacityInDeltaQueue() {
+        return configInstance.getIntProperty(
+                namespace + "retentionCapacityInDeltaQueue", 64 * 1024)
+                .get();
+    }
+
+    @Override
+    @Deprecated
     public long getDeltaRetentionTimerIntervalInMs() {
         return configInstance.getLongProperty(
                 namespace + "deltaRetentionTimerIntervalInMs", (30 * 1000))
@@ -334,6 +345,103 @@ public class DefaultEurekaServerConfig implements EurekaServerConfig {
                 namespace + "shouldUseReadOnlyResponseCache", true).get();
     }
 
+    @Override
+    public boolean shouldRefreshReadOnlyResponseCacheOnInvalidation() {
+        return configInstance.getBooleanProperty(
+                namespace + "refreshReadOnlyResponseCacheOnInvalidation", false).get();
+    }
+
+    @Override
+    public long getResponseCacheMinRefreshIntervalMs() {
+        return configInstance.getIntProperty(
+                namespace + "responseCacheMinRefreshIntervalMs", 100).get();
+    }
+
+    @Override
+    public List<String> getResponseCacheContentEncodings() {
+        String encodings = configInstance.getStringProperty(
+                namespace + "responseCacheContentEncodings", "gzip,deflate").get();
+        List<String> result = new ArrayList<String>();
+        for (String encoding : encodings.split(",")) {
+            if (!encoding.trim().isEmpty()) {
+                result.add(encoding.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int getResponseCacheCompressionLevel() {
+        return configInstance.getIntProperty(
+                namespace + "responseCacheCompressionLevel", -1).get();
+    }
+
+    @Override
+    public boolean shouldWarmUpResponseCache() {
+        return configInstance.getBooleanProperty(
+                namespace + "warmUpResponseCache", true).get();
+    }
+
+    @Override
+    public int getResponseCacheWarmUpKeyCount() {
+        return configInstance.getIntProperty(
+                namespace + "responseCacheWarmUpKeyCount", 50).get();
+    }
+
+    @Override
+    public long getResponseCacheWarmUpMinIntervalMs() {
+        return configInstance.getIntProperty(
+                namespace + "responseCacheWarmUpMinIntervalMs", 1000).get();
+    }
+
+    @Override
+    public int getResponseCacheEncodingParallelism() {
+        return configInstance.getIntProperty(
+                namespace + "responseCacheEncodingParallelism", 4).get();
+    }
+
+    @Override
+    public int getResponseCacheParallelEncodingThreshold() {
+        return configInstance.getIntProperty(
+                namespace + "responseCacheParallelEncodingThreshold", 10000).get();
+    }
+
+    @Override
+    public long getDeltaWatchMaxWaitMs() {
+        return configInstance.getLongProperty(
+                namespace + "deltaWatchMaxWaitMs", 30 * 1000).get();
+    }
+
+    @Override
+    public int getDeltaWatchMaxWatchers() {
+        return configInstance.getIntProperty(
+                namespace + "deltaWatchMaxWatchers", 100).get();
+    }
+
+    @Override
+    public int getChangeFeedMaxSubscribers() {
+        return configInstance.getIntProperty(
+                namespace + "changeFeedMaxSubscribers", 20).get();
+    }
+
+    @Override
+    public int getChangeFeedMaxLag() {
+        return configInstance.getIntProperty(
+                namespace + "changeFeedMaxLag", 1000).get();
+    }
+
+    @Override
+    public long getChangeFeedHeartbeatIntervalMs() {
+        return configInstance.getLongProperty(
+                namespace + "changeFeedHeartbeatIntervalMs", 10 * 1000).get();
+    }
+
+    @Override
+    public long getChangeFeedMaxStreamDurationMs() {
+        return configInstance.getLongProperty(
+                namespace + "changeFeedMaxStreamDurationMs", 5 * 60 * 1000).get();
+    }
+
     @Override
     public boolean shouldDisableDelta() {
         return configInstance.getBooleanProperty(namespace + "disableDelta",
@@ -384,6 +492,24 @@ public class DefaultEurekaServerConfig implements EurekaServerConfig {
                 namespace + "registrySyncRetryWaitMs", 30 * 1000).get();
     }
 
+    @Override
+    public String getRegistrySnapshotFile() {
+        String file = configInstance.getStringProperty(namespace + "registrySnapshotFile", null).get();
+        return file == null || file.trim().isEmpty() ? null : file.trim();
+    }
+
+    @Override
+    public long getRegistrySnapshotIntervalMs() {
+        return configInstance.getLongProperty(
+                namespace + "registrySnapshotIntervalMs", 60 * 1000).get();
+    }
+
+    @Override
+    public long getRegistrySnapshotMaxAgeMs() {
+        return configInstance.getLongProperty(
+                namespace + "registrySnapshotMaxAgeMs", 10 * 60 * 1000).get();
+    }
+
     @Override
     public int getMaxElementsInPeerReplicationPool() {
         return configInstance.getIntProperty(
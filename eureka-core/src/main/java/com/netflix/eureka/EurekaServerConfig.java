@@ -19,6 +19,7 @@ package com.netflix.eureka;
 import com.netflix.eureka.aws.AwsBindingStrategy;
 
 import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -238,12 +239,24 @@ public interface EurekaServerConfig {
      */
     long getRetentionTimeInMSInDeltaQueue();
 
+    /**
+     * Get the maximum number of changes for which the delta information
+     * should be cached. Clients which missed more changes than that have to
+     * do a full fetch of the registry.
+     *
+     * @return the number of changes, rounded up to a power of two.
+     */
+    int getRetentionCapacityInDeltaQueue();
+
     /**
      * Get the time interval with which the clean up task should wake up and
      * check for expired delta information.
      *
      * @return time in milliseconds.
+     * @deprecated expired delta information is now discarded when the deltas
+     * are read, so there is no clean up task anymore.
      */
+    @Deprecated
     long getDeltaRetentionTimerIntervalInMs();
 
     /**
@@ -302,6 +315,134 @@ public interface EurekaServerConfig {
      */
     boolean shouldUseReadOnlyResponseCache();
 
+    /**
+     * When the read only response cache is used, whether its entries are refreshed in the background as soon as
+     * they are invalidated by a registry change, rather than only every
+     * {@link #getResponseCacheUpdateIntervalMs()}. The periodic update still runs, for the changes which do not
+     * invalidate the cache, such as those of the remote regions.
+     *
+     * @return true to refresh the read only cache on invalidation
+     */
+    boolean shouldRefreshReadOnlyResponseCacheOnInvalidation();
+
+    /**
+     * Gets the minimum time between two background refreshes of the read only response cache, when it is
+     * refreshed on invalidation. The keys invalidated in between are refreshed together.
+     *
+     * @return time in milliseconds.
+     */
+    long getResponseCacheMinRefreshIntervalMs();
+
+    /**
+     * Gets the content codings the response cache payloads can be served with, in order of preference, as a
+     * comma separated list. A payload is only compressed with a coding once a client asks for it with that coding.
+     * The built in codings are "gzip" and "deflate".
+     *
+     * @return the content codings of the response cache payloads.
+     */
+    List<String> getResponseCacheContentEncodings();
+
+    /**
+     * Gets the level the response cache payloads are compressed with, from 0 (no compression) to 9 (best
+     * compression), or -1 for the default level of the codings.
+     *
+     * @return the compression level of the response cache payloads.
+     */
+    int getResponseCacheCompressionLevel();
+
+    /**
+     * Whether the response cache is warmed up before the server opens for traffic, and again in the background
+     * after the bulk changes of the registry, by generating the full registry and delta payloads, along with the
+     * payloads most requested recently, before the clients ask for them.
+     *
+     * @return true to warm up the response cache
+     */
+    boolean shouldWarmUpResponseCache();
+
+    /**
+     * Gets the number of the most requested payloads warmed up along with the full registry and delta ones.
+     *
+     * @return the number of payloads
+     */
+    int getResponseCacheWarmUpKeyCount();
+
+    /**
+     * Gets the minimum time between two background warm-ups of the response cache. The bulk changes in between
+     * are followed by a single warm-up.
+     *
+     * @return time in milliseconds.
+     */
+    long getResponseCacheWarmUpMinIntervalMs();
+
+    /**
+     * Gets the number of threads the payloads of all the applications are encoded with, split by application,
+     * when many instances have to be encoded at once. The number of processors caps it, and 1 encodes them
+     * on the requesting thread only.
+     *
+     * @return the number of encoding threads
+     */
+    int getResponseCacheEncodingParallelism();
+
+    /**
+     * Gets the number of instances to encode at once from which the payloads of all the applications are
+     * encoded in parallel. Below it, the overhead of splitting the work outweighs the gain.
+     *
+     * @return the number of instances
+     */
+    int getResponseCacheParallelEncodingThreshold();
+
+    /**
+     * Gets the maximum time a delta fetch asking to wait for the next change of the registry is held, so the
+     * clients watching the registry see its changes as soon as they are made. A longer wait asked for by the
+     * client is cut down to it, and 0 answers such fetches right away.
+     *
+     * @return time in milliseconds.
+     */
+    long getDeltaWatchMaxWaitMs();
+
+    /**
+     * Gets the maximum number of delta fetches held at the same time while waiting for a change of the registry.
+     * Each of them holds on to a request thread, so this has to stay well below the number of request threads
+     * of the container. The fetches beyond it are answered right away.
+     *
+     * @return the number of fetches.
+     */
+    int getDeltaWatchMaxWatchers();
+
+    /**
+     * Gets the maximum number of clients streaming the registry changes at the same time. Each of them holds on
+     * to a request thread for as long as it is connected, so this has to stay well below the number of request
+     * threads of the container. The clients beyond it are turned away, and 0 disables the change feed.
+     *
+     * @return the number of clients.
+     */
+    int getChangeFeedMaxSubscribers();
+
+    /**
+     * Gets the number of changes a client streaming the registry changes may fall behind the registry. A client
+     * reading the changes slower than they are made is told to start over with a full fetch of the registry
+     * once it is that far behind, rather than being sent changes it will never catch up with.
+     *
+     * @return the number of changes.
+     */
+    int getChangeFeedMaxLag();
+
+    /**
+     * Gets the interval at which a heartbeat is sent to the clients streaming the registry changes while the
+     * registry does not change, so they can tell a quiet registry from a broken connection.
+     *
+     * @return time in milliseconds.
+     */
+    long getChangeFeedHeartbeatIntervalMs();
+
+    /**
+     * Gets the time after which a stream of the registry changes is closed. The client reconnects from the last
+     * change it has seen, which spreads the streams over the servers again over time.
+     *
+     * @return time in milliseconds.
+     */
+    long getChangeFeedMaxStreamDurationMs();
+
     /**
      * Checks to see if the delta information can be served to client or not.
      * <p>
@@ -374,6 +515,29 @@ public interface EurekaServerConfig {
      */
     long getRegistrySyncRetryWaitMs();
 
+    /**
+     * Get the file the registry is periodically saved to, and restored from on startup before syncing with the
+     * peers. Restoring a recent file avoids pulling the whole registry from the peers instance by instance.
+     *
+     * @return the path of the registry snapshot file, or null if the registry is not saved
+     */
+    String getRegistrySnapshotFile();
+
+    /**
+     * Get the interval at which the registry is saved to {@link #getRegistrySnapshotFile()}.
+     *
+     * @return time in milliseconds
+     */
+    long getRegistrySnapshotIntervalMs();
+
+    /**
+     * Get the age beyond which the registry snapshot file is ignored on startup, as most of its leases would
+     * have expired anyway.
+     *
+     * @return time in milliseconds
+     */
+    long getRegistrySnapshotMaxAgeMs();
+
     /**
      * Get the maximum number of replication events that can be allowed to back
      * up in the replication pool. This replication pool is responsible for all
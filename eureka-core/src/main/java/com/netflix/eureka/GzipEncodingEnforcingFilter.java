@@ -1,5 +1,6 @@
 package com.netflix.eureka;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -13,22 +14,48 @@ import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.HttpHeaders;
 import java.io.IOException;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.netflix.eureka.registry.ContentEncodings;
+
 /**
  * Originally Eureka supported non-compressed responses only. For large registries it was extremely
  * inefficient, so gzip encoding was added. As nowadays all modern HTTP clients support gzip HTTP response
  * transparently, there is no longer need to maintain uncompressed content. By adding this filter, Eureka
  * server will accept only GET requests that explicitly support gzip encoding replies. In the coming minor release
  * non-compressed replies will be dropped altogether, so this filter will become required.
+ * <p>
+ * A request is accepted if its Accept-Encoding header allows any of the content codings the server compresses
+ * its payloads with (see {@link EurekaServerConfig#getResponseCacheContentEncodings()}), with a non zero quality
+ * value. A request without the header is served as if it asked for gzip.
  *
  * @author Tomasz Bak
  */
 @Singleton
 public class GzipEncodingEnforcingFilter implements Filter {
+
+    private List<String> contentEncodings;
+
+    @Inject
+    public GzipEncodingEnforcingFilter(EurekaServerContext server) {
+        this.contentEncodings = server.getServerConfig().getResponseCacheContentEncodings();
+    }
+
+    // for non-DI use
+    public GzipEncodingEnforcingFilter() {
+    }
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
+        if (contentEncodings == null) {
+            EurekaServerContext serverContext = (EurekaServerContext) filterConfig.getServletContext()
+                    .getAttribute(EurekaServerContext.class.getName());
+            contentEncodings = serverContext == null
+                    ? ContentEncodings.BUILT_IN
+                    : serverContext.getServerConfig().getResponseCacheContentEncodings();
+        }
     }
 
     @Override
@@ -40,7 +67,7 @@ public class GzipEncodingEnforcingFilter implements Filter {
                 chain.doFilter(addGzipAcceptEncoding(httpRequest), response);
                 return;
             }
-            if (!acceptEncoding.contains("gzip")) {
+            if (ContentEncodings.negotiate(acceptEncoding, contentEncodings) == null) {
                 ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_NOT_ACCEPTABLE);
                 return;
             }
@@ -0,0 +1,52 @@
+package com.netflix.eureka.cluster;
+
+import java.util.List;
+
+import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
+
+/**
+ * A single {@link ReplicationTask} carrying the replication of a bulk registration or cancellation. It is
+ * accepted, batched and retried as one task. When executed on its own it submits its instance tasks as one
+ * {@link com.netflix.eureka.cluster.protocol.ReplicationList}; when batched with other tasks,
+ * {@link ReplicationTaskProcessor} expands it into its instance tasks. Either way the per-instance responses
+ * are handled by the instance tasks themselves.
+ */
+class InstanceBatchReplicationTask extends ReplicationTask {
+
+    private final List<InstanceReplicationTask> instanceTasks;
+    private final HttpReplicationClient replicationClient;
+
+    private volatile EurekaHttpResponse<ReplicationListResponse> lastResponse;
+
+    InstanceBatchReplicationTask(String peerNodeName, Action action, List<InstanceReplicationTask> instanceTasks,
+                                 HttpReplicationClient replicationClient) {
+        super(peerNodeName, action);
+        this.instanceTasks = instanceTasks;
+        this.replicationClient = replicationClient;
+    }
+
+    @Override
+    public String getTaskName() {
+        return "batch[" + instanceTasks.size() + "]:" + action + '@' + peerNodeName;
+    }
+
+    public List<InstanceReplicationTask> getInstanceTasks() {
+        return instanceTasks;
+    }
+
+    @Override
+    public EurekaHttpResponse<ReplicationListResponse> execute() {
+        lastResponse = replicationClient.submitBatchUpdates(ReplicationTaskProcessor.createReplicationListOf(instanceTasks));
+        return lastResponse;
+    }
+
+    @Override
+    public void handleSuccess() {
+        EurekaHttpResponse<ReplicationListResponse> response = lastResponse;
+        if (response != null && response.getEntity() != null) {
+            ReplicationTaskProcessor.handleBatchResponse(instanceTasks, response.getEntity().getResponseList());
+        }
+    }
+}
@@ -18,9 +18,14 @@ package com.netflix.eureka.cluster;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.Pair;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.lease.Lease;
@@ -82,6 +87,8 @@ public class PeerEurekaNode {
 
     private final TaskDispatcher<String, ReplicationTask> batchingDispatcher;
     private final TaskDispatcher<String, ReplicationTask> nonBatchingDispatcher;
+    private final AtomicLong batchTaskSequence = new AtomicLong();
+    private final int batchSize;
 
     public PeerEurekaNode(PeerAwareInstanceRegistry registry, String targetHost, String serviceUrl, HttpReplicationClient replicationClient, EurekaServerConfig config) {
         this(registry, targetHost, serviceUrl, replicationClient, config, BATCH_SIZE, MAX_BATCHING_DELAY_MS, RETRY_SLEEP_TIME_MS, SERVER_UNAVAILABLE_SLEEP_TIME_MS);
@@ -98,9 +105,10 @@ public class PeerEurekaNode {
         this.serviceUrl = serviceUrl;
         this.config = config;
         this.maxProcessingDelayMs = config.getMaxTimeForReplication();
+        this.batchSize = batchSize;
 
         String batcherName = getBatcherName();
-        ReplicationTaskProcessor taskProcessor = new ReplicationTaskProcessor(targetHost, replicationClient);
+        ReplicationTaskProcessor taskProcessor = new ReplicationTaskProcessor(targetHost, replicationClient, batchSize);
         this.batchingDispatcher = TaskDispatchers.createBatchingTaskDispatcher(
                 batcherName,
                 config.getMaxElementsInPeerReplicationPool(),
@@ -135,15 +143,40 @@ public class PeerEurekaNode {
         long expiryTime = System.currentTimeMillis() + getLeaseRenewalOf(info);
         batchingDispatcher.process(
                 taskId("register", info),
-                new InstanceReplicationTask(targetHost, Action.Register, info, null, true) {
-                    public EurekaHttpResponse<Void> execute() {
-                        return replicationClient.register(info);
-                    }
-                },
+                registerTaskOf(info),
                 expiryTime
         );
     }
 
+    /**
+     * Sends the registration information of all the given instances to the peer node represented by this
+     * class, as a single replication task.
+     *
+     * @param infos
+     *            the instance information {@link InstanceInfo} of the instances registered with this node.
+     * @throws Exception
+     */
+    public void registerAll(final List<InstanceInfo> infos) throws Exception {
+        if (infos.isEmpty()) {
+            return;
+        }
+        List<InstanceReplicationTask> instanceTasks = new ArrayList<>(infos.size());
+        long leaseRenewal = Long.MAX_VALUE;
+        for (InstanceInfo info : infos) {
+            instanceTasks.add(registerTaskOf(info));
+            leaseRenewal = Math.min(leaseRenewal, getLeaseRenewalOf(info));
+        }
+        dispatchBatchTasks("registerAll", Action.Register, instanceTasks, System.currentTimeMillis() + leaseRenewal);
+    }
+
+    private InstanceReplicationTask registerTaskOf(final InstanceInfo info) {
+        return new InstanceReplicationTask(targetHost, Action.Register, info, null, true) {
+            public EurekaHttpResponse<Void> execute() {
+                return replicationClient.register(info);
+            }
+        };
+    }
+
     /**
      * Send the cancellation information of an instance to the node represented
      * by this class.
@@ -158,24 +191,47 @@ public class PeerEurekaNode {
         long expiryTime = System.currentTimeMillis() + maxProcessingDelayMs;
         batchingDispatcher.process(
                 taskId("cancel", appName, id),
-                new InstanceReplicationTask(targetHost, Action.Cancel, appName, id) {
-                    @Override
-                    public EurekaHttpResponse<Void> execute() {
-                        return replicationClient.cancel(appName, id);
-                    }
-
-                    @Override
-                    public void handleFailure(int statusCode, Object responseEntity) throws Throwable {
-                        super.handleFailure(statusCode, responseEntity);
-                        if (statusCode == 404) {
-                            logger.warn("{}: missing entry.", getTaskName());
-                        }
-                    }
-                },
+                cancelTaskOf(appName, id),
                 expiryTime
         );
     }
 
+    /**
+     * Send the cancellation information of all the given instances to the node represented by this class, as
+     * a single replication task.
+     *
+     * @param appNameIdPairs
+     *            the application name and the unique identifier of each instance.
+     * @throws Exception
+     */
+    public void cancelAll(final List<Pair<String, String>> appNameIdPairs) throws Exception {
+        if (appNameIdPairs.isEmpty()) {
+            return;
+        }
+        List<InstanceReplicationTask> instanceTasks = new ArrayList<>(appNameIdPairs.size());
+        for (Pair<String, String> appNameIdPair : appNameIdPairs) {
+            instanceTasks.add(cancelTaskOf(appNameIdPair.first(), appNameIdPair.second()));
+        }
+        dispatchBatchTasks("cancelAll", Action.Cancel, instanceTasks, System.currentTimeMillis() + maxProcessingDelayMs);
+    }
+
+    private InstanceReplicationTask cancelTaskOf(final String appName, final String id) {
+        return new InstanceReplicationTask(targetHost, Action.Cancel, appName, id) {
+            @Override
+            public EurekaHttpResponse<Void> execute() {
+                return replicationClient.cancel(appName, id);
+            }
+
+            @Override
+            public void handleFailure(int statusCode, Object responseEntity) throws Throwable {
+                super.handleFailure(statusCode, responseEntity);
+                if (statusCode == 404) {
+                    logger.warn("{}: missing entry.", getTaskName());
+                }
+            }
+        };
+    }
+
     /**
      * Send the heartbeat information of an instance to the node represented by
      * this class. If the instance does not exist the node, the instance
@@ -304,6 +360,15 @@ public class PeerEurekaNode {
                 expiryTime);
     }
 
+    /**
+     * Gets the latest registry delta of the peer eureka node, synchronously.
+     *
+     * @return the delta, if the response status is 200
+     */
+    public EurekaHttpResponse<Applications> getDelta() {
+        return replicationClient.getDelta();
+    }
+
     /**
      * Get the service Url of the peer eureka node.
      *
@@ -390,6 +455,28 @@ public class PeerEurekaNode {
         return taskId(requestType, info.getAppName(), info.getId());
     }
 
+    /**
+     * Batch tasks are never superseded by later ones, so each of them gets its own id.
+     */
+    /**
+     * Submits the instance tasks as batch tasks of at most the batch size each, so that no single
+     * replication request carries more instances than the peer accepts in one batch.
+     */
+    private void dispatchBatchTasks(String requestType, Action action, List<InstanceReplicationTask> instanceTasks, long expiryTime) {
+        for (int from = 0; from < instanceTasks.size(); from += batchSize) {
+            List<InstanceReplicationTask> chunk = instanceTasks.subList(from, Math.min(from + batchSize, instanceTasks.size()));
+            batchingDispatcher.process(
+                    batchTaskId(requestType),
+                    new InstanceBatchReplicationTask(targetHost, action, chunk, replicationClient),
+                    expiryTime
+            );
+        }
+    }
+
+    private String batchTaskId(String requestType) {
+        return requestType + '#' + batchTaskSequence.incrementAndGet();
+    }
+
     private static int getLeaseRenewalOf(InstanceInfo info) {
         return (info.getLeaseInfo() == null ? Lease.DEFAULT_DURATION_IN_SECS : info.getLeaseInfo().getRenewalIntervalInSecs()) * 1000;
     }
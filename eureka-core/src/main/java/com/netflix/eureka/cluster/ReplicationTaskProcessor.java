@@ -1,6 +1,7 @@
 package com.netflix.eureka.cluster;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.netflix.appinfo.InstanceInfo;
@@ -27,11 +28,18 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
 
     private final String peerId;
 
+    private final int maxBatchSize;
+
     private volatile long lastNetworkErrorTime;
 
     ReplicationTaskProcessor(String peerId, HttpReplicationClient replicationClient) {
+        this(peerId, replicationClient, Integer.MAX_VALUE);
+    }
+
+    ReplicationTaskProcessor(String peerId, HttpReplicationClient replicationClient, int maxBatchSize) {
         this.replicationClient = replicationClient;
         this.peerId = peerId;
+        this.maxBatchSize = maxBatchSize;
     }
 
     @Override
@@ -66,6 +74,23 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
 
     @Override
     public ProcessingResult process(List<ReplicationTask> tasks) {
+        tasks = expandBatchTasks(tasks);
+        if (tasks.size() <= maxBatchSize) {
+            return submit(tasks);
+        }
+        // Expanded batch tasks may take the list past the batch size, so it is sent in chunks. The chunks
+        // are submitted in order, and on the first failure the whole list is retried, which is safe as
+        // registrations and cancellations can be replayed.
+        for (int from = 0; from < tasks.size(); from += maxBatchSize) {
+            ProcessingResult result = submit(tasks.subList(from, Math.min(from + maxBatchSize, tasks.size())));
+            if (result != ProcessingResult.Success) {
+                return result;
+            }
+        }
+        return ProcessingResult.Success;
+    }
+
+    private ProcessingResult submit(List<? extends ReplicationTask> tasks) {
         ReplicationList list = createReplicationListOf(tasks);
         try {
             EurekaHttpResponse<ReplicationListResponse> response = replicationClient.submitBatchUpdates(list);
@@ -114,7 +139,7 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
         }
     }
 
-    private void handleBatchResponse(List<ReplicationTask> tasks, List<ReplicationInstanceResponse> responseList) {
+    static void handleBatchResponse(List<? extends ReplicationTask> tasks, List<ReplicationInstanceResponse> responseList) {
         if (tasks.size() != responseList.size()) {
             // This should ideally never happen unless there is a bug in the software.
             logger.error("Batch response size different from submitted task list ({} != {}); skipping response analysis", responseList.size(), tasks.size());
@@ -125,7 +150,7 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
         }
     }
 
-    private void handleBatchResponse(ReplicationTask task, ReplicationInstanceResponse response) {
+    private static void handleBatchResponse(ReplicationTask task, ReplicationInstanceResponse response) {
         int statusCode = response.getStatusCode();
         if (isSuccess(statusCode)) {
             task.handleSuccess();
@@ -139,7 +164,33 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
         }
     }
 
-    private ReplicationList createReplicationListOf(List<ReplicationTask> tasks) {
+    /**
+     * Replaces each {@link InstanceBatchReplicationTask} by its instance tasks, so there is one entry in the
+     * replication list, and one response, per instance task.
+     */
+    private static List<ReplicationTask> expandBatchTasks(List<ReplicationTask> tasks) {
+        boolean hasBatchTask = false;
+        for (ReplicationTask task : tasks) {
+            if (task instanceof InstanceBatchReplicationTask) {
+                hasBatchTask = true;
+                break;
+            }
+        }
+        if (!hasBatchTask) {
+            return tasks;
+        }
+        List<ReplicationTask> expanded = new ArrayList<>();
+        for (ReplicationTask task : tasks) {
+            if (task instanceof InstanceBatchReplicationTask) {
+                expanded.addAll(((InstanceBatchReplicationTask) task).getInstanceTasks());
+            } else {
+                expanded.add(task);
+            }
+        }
+        return expanded;
+    }
+
+    static ReplicationList createReplicationListOf(List<? extends ReplicationTask> tasks) {
         ReplicationList list = new ReplicationList();
         for (ReplicationTask task : tasks) {
             // Only InstanceReplicationTask are batched.
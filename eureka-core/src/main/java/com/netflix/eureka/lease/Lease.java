@@ -45,6 +45,8 @@ public class Lease<T> {
     // Make it volatile so that the expiration task would see this quicker
     private volatile long lastUpdateTimestamp;
     private long duration;
+    // Bucket of the lease in a LeaseExpiryIndex, changed under the lease monitor
+    volatile long expiryTick = LeaseExpiryIndex.UNSCHEDULED;
 
     public Lease(T r, int durationInSecs) {
         holder = r;
@@ -111,6 +113,13 @@ public class Lease<T> {
         return (evictionTimestamp > 0 || System.currentTimeMillis() > (lastUpdateTimestamp + duration + additionalLeaseMs));
     }
 
+    /**
+     * Gets the milliseconds since epoch after which the lease is expired, not accounting for cancellation.
+     */
+    long getExpiryTimestamp() {
+        return lastUpdateTimestamp + duration;
+    }
+
     /**
      * Gets the milliseconds since epoch when the lease was registered.
      *
@@ -130,6 +139,23 @@ public class Lease<T> {
         return lastUpdateTimestamp;
     }
 
+    /**
+     * Sets the value returned by {@link #getLastRenewalTimestamp()}, for a lease restored from a previous run of
+     * the server.
+     */
+    public void setLastRenewalTimestamp(long lastRenewalTimestamp) {
+        this.lastUpdateTimestamp = lastRenewalTimestamp;
+    }
+
+    /**
+     * Gets the duration of the lease in seconds, after which it expires if it is not renewed.
+     *
+     * @return the duration of the lease in seconds.
+     */
+    public int getDurationInSecs() {
+        return (int) (duration / 1000);
+    }
+
     /**
      * Gets the milliseconds since epoch when the lease was evicted.
      *
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.lease;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Indexes {@link Lease}s by the time they expire, so the expired ones can be found without looking at all the others.
+ *
+ * <p>
+ * Leases are kept in buckets of a fixed time span, keyed by the expiry timestamp of the lease (see
+ * {@link Lease#isExpired(long)}). A lease is {@link #schedule(Lease) rescheduled} every time it is renewed, but
+ * as renewals only ever push the expiry timestamp later, this leaves a lease in its bucket, and the renewal does
+ * not touch the index at all. Finding the expired leases visits only the buckets in the past, and the bucket
+ * holding the current time; a lease found there which was renewed in the meantime is moved then to the bucket
+ * of its current expiry timestamp, at most once per renewal interval rather than on every renewal.
+ * </p>
+ *
+ * @param <T> the lease holder type
+ */
+public class LeaseExpiryIndex<T> {
+
+    static final long UNSCHEDULED = 0;
+    static final long REMOVED = -1;
+
+    private final long tickMs;
+    private final ConcurrentSkipListMap<Long, Bucket<T>> buckets = new ConcurrentSkipListMap<Long, Bucket<T>>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param tickMs the time span covered by a single bucket
+     */
+    public LeaseExpiryIndex(long tickMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("The bucket time span must be positive: " + tickMs);
+        }
+        this.tickMs = tickMs;
+    }
+
+    /**
+     * Adds the lease to the index, or moves it to the bucket of its current expiry timestamp if that is earlier
+     * than the bucket it is in. A lease which was {@link #remove(Lease) removed} is not added back.
+     */
+    public void schedule(Lease<T> lease) {
+        long tick = tickOf(lease.getExpiryTimestamp());
+        long scheduledTick = lease.expiryTick;
+        // Covers the removed leases too; a lease in an earlier bucket is moved later on by getExpired
+        if (scheduledTick != UNSCHEDULED && scheduledTick <= tick) {
+            return;
+        }
+        synchronized (lease) {
+            long currentTick = lease.expiryTick;
+            if (currentTick == REMOVED || currentTick != UNSCHEDULED && currentTick <= tick) {
+                return;
+            }
+            if (currentTick == UNSCHEDULED) {
+                size.incrementAndGet();
+            } else {
+                removeFromBucket(currentTick, lease);
+            }
+            addToBucket(tick, lease);
+            lease.expiryTick = tick;
+        }
+    }
+
+    /**
+     * Removes the lease from the index for good.
+     */
+    public void remove(Lease<T> lease) {
+        synchronized (lease) {
+            long currentTick = lease.expiryTick;
+            if (currentTick == REMOVED) {
+                return;
+            }
+            if (currentTick != UNSCHEDULED) {
+                removeFromBucket(currentTick, lease);
+                size.decrementAndGet();
+            }
+            lease.expiryTick = REMOVED;
+        }
+    }
+
+    /**
+     * Finds the leases which are expired according to {@link Lease#isExpired(long)} and have a holder. The
+     * leases are left in the index, and the leases found in the due buckets which were renewed since are moved
+     * to the bucket of their current expiry timestamp.
+     *
+     * @param additionalLeaseMs any additional lease time to add to the lease evaluation in ms.
+     */
+    public List<Lease<T>> getExpired(long additionalLeaseMs) {
+        long now = System.currentTimeMillis();
+        long cutoffTick = tickOf(now - additionalLeaseMs);
+        long currentTick = tickOf(now);
+
+        List<Lease<T>> expired = new ArrayList<Lease<T>>();
+        ConcurrentNavigableMap<Long, Bucket<T>> dueBuckets = buckets.headMap(cutoffTick, true);
+        for (Map.Entry<Long, Bucket<T>> entry : dueBuckets.entrySet()) {
+            Bucket<T> bucket = entry.getValue();
+            for (Lease<T> lease : bucket.leases) {
+                if (lease.isExpired(additionalLeaseMs)) {
+                    if (lease.getHolder() != null) {
+                        expired.add(lease);
+                    }
+                } else {
+                    reschedule(entry.getKey(), lease);
+                }
+            }
+            // Empty buckets in the past are dropped; closing them first makes concurrent writers go elsewhere
+            if (entry.getKey() < currentTick && bucket.leases.isEmpty()) {
+                bucket.closed = true;
+                if (bucket.leases.isEmpty()) {
+                    buckets.remove(entry.getKey(), bucket);
+                } else {
+                    bucket.closed = false;
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return the number of leases in the index
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return the number of non-empty buckets in the index
+     */
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    private long tickOf(long timestamp) {
+        // Ticks start at 1, as 0 marks unscheduled leases
+        return Math.max(1, timestamp / tickMs + 1);
+    }
+
+    private void reschedule(long fromTick, Lease<T> lease) {
+        long tick = tickOf(lease.getExpiryTimestamp());
+        if (tick <= fromTick) {
+            // Not expired yet with the additional lease time, but due soon; it stays where it is
+            return;
+        }
+        synchronized (lease) {
+            if (lease.expiryTick != fromTick) {
+                return;
+            }
+            removeFromBucket(fromTick, lease);
+            addToBucket(tick, lease);
+            lease.expiryTick = tick;
+        }
+    }
+
+    private void addToBucket(long tick, Lease<T> lease) {
+        while (true) {
+            Bucket<T> bucket = buckets.get(tick);
+            if (bucket == null) {
+                Bucket<T> newBucket = new Bucket<T>();
+                bucket = buckets.putIfAbsent(tick, newBucket);
+                if (bucket == null) {
+                    bucket = newBucket;
+                }
+            }
+            bucket.leases.add(lease);
+            if (!bucket.closed) {
+                return;
+            }
+            // The bucket is being dropped as empty; back off until it is either dropped or reopened
+            bucket.leases.remove(lease);
+            Thread.yield();
+        }
+    }
+
+    private void removeFromBucket(long tick, Lease<T> lease) {
+        Bucket<T> bucket = buckets.get(tick);
+        if (bucket != null) {
+            bucket.leases.remove(lease);
+        }
+    }
+
+    private static final class Bucket<T> {
+        final Set<Lease<T>> leases = Collections.newSetFromMap(new ConcurrentHashMap<Lease<T>, Boolean>());
+        volatile boolean closed;
+    }
+}
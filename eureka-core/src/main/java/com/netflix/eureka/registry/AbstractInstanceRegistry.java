@@ -17,28 +17,32 @@
 package com.netflix.eureka.registry;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import com.google.common.cache.CacheBuilder;
 import com.netflix.appinfo.InstanceInfo;
@@ -51,6 +55,7 @@ import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.Pair;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.lease.Lease;
+import com.netflix.eureka.lease.LeaseExpiryIndex;
 import com.netflix.eureka.resources.ServerCodecs;
 import com.netflix.eureka.util.MeasuredRate;
 import com.netflix.servo.annotations.DataSourceType;
@@ -75,6 +80,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     private static final Logger logger = LoggerFactory.getLogger(AbstractInstanceRegistry.class);
 
     private static final String[] EMPTY_STR_ARRAY = new String[0];
+    private static final int RECENT_LEASE_EVENTS_CAPACITY = 1024;
     private final ConcurrentHashMap<String, Map<String, Lease<InstanceInfo>>> registry
             = new ConcurrentHashMap<String, Map<String, Lease<InstanceInfo>>>();
     protected Map<String, RemoteRegionRegistry> regionNameVSRemoteRegistry = new HashMap<String, RemoteRegionRegistry>();
@@ -83,17 +89,31 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             .expireAfterAccess(1, TimeUnit.HOURS)
             .<String, InstanceStatus>build().asMap();
 
-    // CircularQueues here for debugging/statistics purposes only
-    private final CircularQueue<Pair<Long, String>> recentRegisteredQueue;
-    private final CircularQueue<Pair<Long, String>> recentCanceledQueue;
-    private ConcurrentLinkedQueue<RecentlyChangedItem> recentlyChangedQueue = new ConcurrentLinkedQueue<RecentlyChangedItem>();
-
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    private final Lock read = readWriteLock.readLock();
-    private final Lock write = readWriteLock.writeLock();
+    // Here for debugging/statistics purposes only
+    private final RecentLeaseEvents recentRegistered = new RecentLeaseEvents(RECENT_LEASE_EVENTS_CAPACITY);
+    private final RecentLeaseEvents recentCanceled = new RecentLeaseEvents(RECENT_LEASE_EVENTS_CAPACITY);
+    private final DeltaJournal deltaJournal;
+    private final LeaseExpiryIndex<InstanceInfo> leaseExpiryIndex;
+    private final InstanceIndex instanceIndex = new InstanceIndex();
+
+    // Appends the changes to the delta journal along with the instance status count changes
+    private final InstanceStatusCounts statusCounts;
+
+    // Applications changed since the last registry snapshot, which are rebuilt on the next read
+    private final Set<String> changedApplications =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    // Counts the changes made to the registered instances outside of the delta journal, such as the overridden
+    // statuses stored on them, which the registry snapshot must account for too. The lease renewals are left out,
+    // so the applications only renewed are shared by the consecutive snapshots; their renewal timestamps are
+    // as of the last change to the application, while the single instance reads get the current ones
+    private final AtomicLong untrackedChanges = new AtomicLong();
+    private final Object snapshotLock = new Object();
+    private volatile RegistrySnapshot registrySnapshot = RegistrySnapshot.EMPTY;
+    private final RegistrySnapshotFile registrySnapshotFile;
+    // When the registry snapshot file the registry was restored from was written, or 0 if it was not restored
+    private volatile long restoredSnapshotTimestamp;
     protected final Object lock = new Object();
 
-    private Timer deltaRetentionTimer = new Timer("Eureka-DeltaRetentionTimer", true);
     private Timer evictionTimer = new Timer("Eureka-EvictionTimer", true);
     private volatile MeasuredRate renewsLastMin;
 
@@ -115,21 +135,34 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         this.serverConfig = serverConfig;
         this.clientConfig = clientConfig;
         this.serverCodecs = serverCodecs;
-        this.recentCanceledQueue = new CircularQueue<Pair<Long, String>>(1000);
-        this.recentRegisteredQueue = new CircularQueue<Pair<Long, String>>(1000);
-        this.deltaRetentionTimer.schedule(getDeltaRetentionTask(),
-                serverConfig.getDeltaRetentionTimerIntervalInMs(),
-                serverConfig.getDeltaRetentionTimerIntervalInMs());
-
+        this.deltaJournal = new DeltaJournal(serverConfig.getRetentionCapacityInDeltaQueue(),
+                serverConfig.getRetentionTimeInMSInDeltaQueue());
+        this.statusCounts = new InstanceStatusCounts(deltaJournal);
+        this.leaseExpiryIndex = new LeaseExpiryIndex<InstanceInfo>(
+                Math.max(1, serverConfig.getEvictionIntervalTimerInMs()));
+        String snapshotFileName = serverConfig.getRegistrySnapshotFile();
+        this.registrySnapshotFile = snapshotFileName == null
+                ? null
+                : new RegistrySnapshotFile(new File(snapshotFileName), serverCodecs.getFullJsonCodec());
     }
 
     @Override
     public synchronized void initializedResponseCache() {
         if (responseCache == null) {
-            responseCache = new ResponseCacheImpl(serverConfig, serverCodecs, this);
+            responseCache = new ResponseCacheImpl(serverConfig, serverCodecs, this, newPayloadCompressors());
         }
     }
 
+    /**
+     * Creates the compressors the response cache payloads are served with, in order of preference. These are the
+     * built in content codings listed by {@link EurekaServerConfig#getResponseCacheContentEncodings()}; a subclass
+     * can override this to serve the payloads with other codings as well.
+     */
+    protected List<PayloadCompressor> newPayloadCompressors() {
+        return ContentEncodings.builtInCompressors(serverConfig.getResponseCacheContentEncodings(),
+                serverConfig.getResponseCacheCompressionLevel());
+    }
+
     protected void initRemoteRegionRegistry() throws MalformedURLException {
         Map<String, String> remoteRegionUrlsWithName = serverConfig.getRemoteRegionUrlsWithName();
         if (remoteRegionUrlsWithName != null) {
@@ -169,10 +202,113 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     @Override
     public void clearRegistry() {
         overriddenInstanceStatusMap.clear();
-        recentCanceledQueue.clear();
-        recentRegisteredQueue.clear();
-        recentlyChangedQueue.clear();
+        recentCanceled.clear();
+        recentRegistered.clear();
+        statusCounts.clear();
+        for (Map<String, Lease<InstanceInfo>> leaseMap : registry.values()) {
+            for (Lease<InstanceInfo> lease : leaseMap.values()) {
+                leaseExpiryIndex.remove(lease);
+            }
+        }
         registry.clear();
+        instanceIndex.clear();
+        synchronized (snapshotLock) {
+            changedApplications.clear();
+            registrySnapshot = RegistrySnapshot.empty(deltaJournal.getLastSequence());
+        }
+    }
+
+    /**
+     * Saves the leases and the overridden statuses to {@link EurekaServerConfig#getRegistrySnapshotFile()}.
+     *
+     * @return the number of saved leases, or -1 if no snapshot file is configured
+     */
+    public int saveRegistrySnapshot() throws IOException {
+        if (registrySnapshotFile == null) {
+            return -1;
+        }
+        long startTime = System.currentTimeMillis();
+        List<Lease<InstanceInfo>> leases = new ArrayList<Lease<InstanceInfo>>();
+        for (Map<String, Lease<InstanceInfo>> leaseMap : registry.values()) {
+            leases.addAll(leaseMap.values());
+        }
+        int count = registrySnapshotFile.write(leases, new HashMap<String, InstanceStatus>(overriddenInstanceStatusMap));
+        logger.debug("Saved {} leases to the registry snapshot file {} in {} ms",
+                count, registrySnapshotFile.getFile(), System.currentTimeMillis() - startTime);
+        return count;
+    }
+
+    /**
+     * Registers the instances saved in {@link EurekaServerConfig#getRegistrySnapshotFile()}, along with their
+     * overridden statuses. The leases keep their saved duration and last renewal time, so they expire as they
+     * would have without the restart. Leases which have expired since the file was written are left out, and so
+     * is the whole file if it is older than {@link EurekaServerConfig#getRegistrySnapshotMaxAgeMs()}.
+     *
+     * @return the number of restored instances
+     */
+    public int restoreRegistrySnapshot() {
+        if (registrySnapshotFile == null) {
+            return 0;
+        }
+        long startTime = System.currentTimeMillis();
+        RegistrySnapshotFile.Contents contents;
+        try {
+            contents = registrySnapshotFile.read();
+        } catch (IOException e) {
+            logger.warn("Cannot read the registry snapshot file " + registrySnapshotFile.getFile(), e);
+            return 0;
+        }
+        if (contents == null) {
+            logger.info("No registry snapshot file at {}", registrySnapshotFile.getFile());
+            return 0;
+        }
+        long age = startTime - contents.getWrittenTimestamp();
+        if (age > serverConfig.getRegistrySnapshotMaxAgeMs()) {
+            logger.info("Ignoring the registry snapshot file {} written {} ms ago", registrySnapshotFile.getFile(), age);
+            return 0;
+        }
+        overriddenInstanceStatusMap.putAll(contents.getOverriddenStatuses());
+        int count = 0;
+        for (RegistrySnapshotFile.Entry entry : contents.getEntries()) {
+            InstanceInfo instanceInfo = entry.getInstanceInfo();
+            int durationInSecs = entry.getDurationInSecs();
+            // Same check as Lease#isExpired, as of now
+            if (entry.getLastRenewalTimestamp() + durationInSecs * 1000L < startTime) {
+                continue;
+            }
+            try {
+                register(instanceInfo, durationInSecs, true);
+                restoreLastRenewal(instanceInfo, entry.getLastRenewalTimestamp());
+                count++;
+            } catch (Throwable t) {
+                logger.error("During registry snapshot restore", t);
+            }
+        }
+        if (count > 0) {
+            restoredSnapshotTimestamp = contents.getWrittenTimestamp();
+        }
+        logger.info("Restored {} of {} instances from the registry snapshot file {} in {} ms",
+                count, contents.getEntries().size(), registrySnapshotFile.getFile(),
+                System.currentTimeMillis() - startTime);
+        return count;
+    }
+
+    private void restoreLastRenewal(InstanceInfo instanceInfo, long lastRenewalTimestamp) {
+        Map<String, Lease<InstanceInfo>> leaseMap = registry.get(instanceInfo.getAppName());
+        Lease<InstanceInfo> lease = leaseMap == null ? null : leaseMap.get(instanceInfo.getId());
+        if (lease != null) {
+            lease.setLastRenewalTimestamp(lastRenewalTimestamp);
+            leaseExpiryIndex.schedule(lease);
+            recordUntrackedChange(instanceInfo.getAppName());
+        }
+    }
+
+    /**
+     * @return when the registry snapshot file the registry was restored from was written, or 0 if it was not
+     * restored from one
+     */
+    protected long getRestoredSnapshotTimestamp() {
+        return restoredSnapshotTimestamp;
     }
 
     // for server info use
@@ -187,87 +323,123 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * @see com.netflix.eureka.lease.LeaseManager#register(java.lang.Object, int, boolean)
      */
     public void register(InstanceInfo r, int leaseDuration, boolean isReplication) {
-        try {
-            read.lock();
-            Map<String, Lease<InstanceInfo>> gMap = registry.get(r.getAppName());
-            REGISTER.increment(isReplication);
+        registerLease(r, leaseDuration, isReplication);
+        invalidateCache(r.getAppName(), r.getVIPAddress(), r.getSecureVipAddress());
+        logger.info("Registered instance {}/{} with status {} (replication={})",
+                r.getAppName(), r.getId(), r.getStatus(), isReplication);
+    }
+
+    /**
+     * Registers all the given instances, each with the lease duration found in its {@link LeaseInfo}, as
+     * {@link #register(InstanceInfo, int, boolean)} does, but invalidates the response cache once for all of
+     * them rather than once per instance.
+     */
+    public void registerAll(List<InstanceInfo> infos, boolean isReplication) {
+        Set<String> appNames = new HashSet<String>();
+        Set<String> vipAddresses = new HashSet<String>();
+        Set<String> secureVipAddresses = new HashSet<String>();
+        for (InstanceInfo info : infos) {
+            registerLease(info, leaseDurationOf(info), isReplication);
+            addCacheKeys(info, appNames, vipAddresses, secureVipAddresses);
+        }
+        if (!appNames.isEmpty()) {
+            responseCache.invalidate(appNames, vipAddresses, secureVipAddresses);
+        }
+        logger.info("Registered {} instances of {} (replication={})", infos.size(), appNames, isReplication);
+    }
+
+    /**
+     * @return the lease duration requested by the instance, or the default one if it did not request any
+     */
+    protected static int leaseDurationOf(InstanceInfo info) {
+        if (info.getLeaseInfo() != null && info.getLeaseInfo().getDurationInSecs() > 0) {
+            return info.getLeaseInfo().getDurationInSecs();
+        }
+        return Lease.DEFAULT_DURATION_IN_SECS;
+    }
+
+    private void registerLease(InstanceInfo r, int leaseDuration, boolean isReplication) {
+        KeySpace.intern(r.getAppName());
+        KeySpace.intern(r.getVIPAddress());
+        KeySpace.intern(r.getSecureVipAddress());
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(r.getAppName());
+        REGISTER.increment(isReplication);
+        if (gMap == null) {
+            final ConcurrentHashMap<String, Lease<InstanceInfo>> gNewMap =
+                    new ConcurrentHashMap<String, Lease<InstanceInfo>>();
+            gMap = registry.putIfAbsent(r.getAppName(), gNewMap);
             if (gMap == null) {
-                final ConcurrentHashMap<String, Lease<InstanceInfo>> gNewMap =
-                        new ConcurrentHashMap<String, Lease<InstanceInfo>>();
-                gMap = registry.putIfAbsent(r.getAppName(), gNewMap);
-                if (gMap == null) {
-                    gMap = gNewMap;
-                }
+                gMap = gNewMap;
             }
-            Lease<InstanceInfo> existingLease = gMap.get(r.getId());
-            // Retain the last dirty timestamp without overwriting it, if there is already a lease
-            if (existingLease != null && (existingLease.getHolder() != null)) {
-                Long existingLastDirtyTimestamp = existingLease.getHolder().getLastDirtyTimestamp();
-                Long registrationLastDirtyTimestamp = r.getLastDirtyTimestamp();
-                logger.debug("Existing lease found (existing={}, provided={}", existingLastDirtyTimestamp, registrationLastDirtyTimestamp);
-                if (existingLastDirtyTimestamp > registrationLastDirtyTimestamp) {
-                    logger.warn("There is an existing lease and the existing lease's dirty timestamp {} is " +
-                                    "greater than the one that is being registered {}",
-                            existingLastDirtyTimestamp,
-                            registrationLastDirtyTimestamp);
-                    r.setLastDirtyTimestamp(existingLastDirtyTimestamp);
-                }
-            } else {
-                // The lease does not exist and hence it is a new registration
-                synchronized (lock) {
-                    if (this.expectedNumberOfRenewsPerMin > 0) {
-                        // Since the client wants to cancel it, reduce the threshold
-                        // (1
-                        // for 30 seconds, 2 for a minute)
-                        this.expectedNumberOfRenewsPerMin = this.expectedNumberOfRenewsPerMin + 2;
-                        this.numberOfRenewsPerMinThreshold =
-                                (int) (this.expectedNumberOfRenewsPerMin * serverConfig.getRenewalPercentThreshold());
-                    }
-                }
-                logger.debug("No previous lease information found; it is new registration");
-            }
-            Lease<InstanceInfo> lease = new Lease<InstanceInfo>(r, leaseDuration);
-            if (existingLease != null) {
-                lease.setServiceUpTimestamp(existingLease.getServiceUpTimestamp());
-            }
-            gMap.put(r.getId(), lease);
-            synchronized (recentRegisteredQueue) {
-                recentRegisteredQueue.add(new Pair<Long, String>(
-                        System.currentTimeMillis(),
-                        r.getAppName() + "(" + r.getId() + ")"));
+        }
+        Lease<InstanceInfo> existingLease = gMap.get(r.getId());
+        // Retain the last dirty timestamp without overwriting it, if there is already a lease
+        if (existingLease != null && (existingLease.getHolder() != null)) {
+            Long existingLastDirtyTimestamp = existingLease.getHolder().getLastDirtyTimestamp();
+            Long registrationLastDirtyTimestamp = r.getLastDirtyTimestamp();
+            logger.debug("Existing lease found (existing={}, provided={}", existingLastDirtyTimestamp, registrationLastDirtyTimestamp);
+            if (existingLastDirtyTimestamp > registrationLastDirtyTimestamp) {
+                logger.warn("There is an existing lease and the existing lease's dirty timestamp {} is " +
+                                "greater than the one that is being registered {}",
+                        existingLastDirtyTimestamp,
+                        registrationLastDirtyTimestamp);
+                r.setLastDirtyTimestamp(existingLastDirtyTimestamp);
             }
-            // This is where the initial state transfer of overridden status happens
-            if (!InstanceStatus.UNKNOWN.equals(r.getOverriddenStatus())) {
-                logger.debug("Found overridden status {} for instance {}. Checking to see if needs to be add to the "
-                                + "overrides", r.getOverriddenStatus(), r.getId());
-                if (!overriddenInstanceStatusMap.containsKey(r.getId())) {
-                    logger.info("Not found overridden id {} and hence adding it", r.getId());
-                    overriddenInstanceStatusMap.put(r.getId(), r.getOverriddenStatus());
+        } else {
+            // The lease does not exist and hence it is a new registration
+            synchronized (lock) {
+                if (this.expectedNumberOfRenewsPerMin > 0) {
+                    // Since the client wants to cancel it, reduce the threshold
+                    // (1
+                    // for 30 seconds, 2 for a minute)
+                    this.expectedNumberOfRenewsPerMin = this.expectedNumberOfRenewsPerMin + 2;
+                    this.numberOfRenewsPerMinThreshold =
+                            (int) (this.expectedNumberOfRenewsPerMin * serverConfig.getRenewalPercentThreshold());
                 }
             }
-            InstanceStatus overriddenStatusFromMap = overriddenInstanceStatusMap.get(r.getId());
-            if (overriddenStatusFromMap != null) {
-                logger.info("Storing overridden status {} from map", overriddenStatusFromMap);
-                r.setOverriddenStatus(overriddenStatusFromMap);
+            logger.debug("No previous lease information found; it is new registration");
+        }
+        Lease<InstanceInfo> lease = new Lease<InstanceInfo>(r, leaseDuration);
+        if (existingLease != null) {
+            lease.setServiceUpTimestamp(existingLease.getServiceUpTimestamp());
+        }
+        recentRegistered.add(System.currentTimeMillis(), r.getAppName(), r.getId());
+        // This is where the initial state transfer of overridden status happens
+        if (!InstanceStatus.UNKNOWN.equals(r.getOverriddenStatus())) {
+            logger.debug("Found overridden status {} for instance {}. Checking to see if needs to be add to the "
+                            + "overrides", r.getOverriddenStatus(), r.getId());
+            if (!overriddenInstanceStatusMap.containsKey(r.getId())) {
+                logger.info("Not found overridden id {} and hence adding it", r.getId());
+                overriddenInstanceStatusMap.put(r.getId(), r.getOverriddenStatus());
             }
+        }
+        InstanceStatus overriddenStatusFromMap = overriddenInstanceStatusMap.get(r.getId());
+        if (overriddenStatusFromMap != null) {
+            logger.info("Storing overridden status {} from map", overriddenStatusFromMap);
+            r.setOverriddenStatus(overriddenStatusFromMap);
+        }
 
-            // Set the status based on the overridden status rules
-            InstanceStatus overriddenInstanceStatus = getOverriddenInstanceStatus(r, existingLease, isReplication);
-            r.setStatusWithoutDirty(overriddenInstanceStatus);
+        // Set the status based on the overridden status rules
+        InstanceStatus overriddenInstanceStatus = getOverriddenInstanceStatus(r, existingLease, isReplication);
+        r.setStatusWithoutDirty(overriddenInstanceStatus);
 
-            // If the lease is registered with UP status, set lease service up timestamp
-            if (InstanceStatus.UP.equals(r.getStatus())) {
-                lease.serviceUp();
-            }
-            r.setActionType(ActionType.ADDED);
-            recentlyChangedQueue.add(new RecentlyChangedItem(lease));
-            r.setLastUpdatedTimestamp();
-            invalidateCache(r.getAppName(), r.getVIPAddress(), r.getSecureVipAddress());
-            logger.info("Registered instance {}/{} with status {} (replication={})",
-                    r.getAppName(), r.getId(), r.getStatus(), isReplication);
-        } finally {
-            read.unlock();
+        // If the lease is registered with UP status, set lease service up timestamp
+        if (InstanceStatus.UP.equals(r.getStatus())) {
+            lease.serviceUp();
+        }
+        r.setActionType(ActionType.ADDED);
+        r.setLastUpdatedTimestamp();
+        Lease<InstanceInfo> replacedLease;
+        synchronized (gMap) {
+            replacedLease = gMap.put(r.getId(), lease);
+            instanceIndex.add(lease, replacedLease);
+            markChanged(lease);
+            statusCounts.register(lease, replacedLease);
         }
+        if (replacedLease != null) {
+            leaseExpiryIndex.remove(replacedLease);
+        }
+        leaseExpiryIndex.schedule(lease);
     }
 
     /**
@@ -295,44 +467,87 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * in the remote peers as valid cancellations, so self preservation mode would not kick-in.
      */
     protected boolean internalCancel(String appName, String id, boolean isReplication) {
-        try {
-            read.lock();
-            CANCEL.increment(isReplication);
-            Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
-            Lease<InstanceInfo> leaseToCancel = null;
-            if (gMap != null) {
-                leaseToCancel = gMap.remove(id);
-            }
-            synchronized (recentCanceledQueue) {
-                recentCanceledQueue.add(new Pair<Long, String>(System.currentTimeMillis(), appName + "(" + id + ")"));
-            }
-            InstanceStatus instanceStatus = overriddenInstanceStatusMap.remove(id);
-            if (instanceStatus != null) {
-                logger.debug("Removed instance id {} from the overridden map which has value {}", id, instanceStatus.name());
+        Lease<InstanceInfo> cancelledLease = cancelLease(appName, id, isReplication);
+        if (cancelledLease == null) {
+            return false;
+        }
+        InstanceInfo instanceInfo = cancelledLease.getHolder();
+        if (instanceInfo != null) {
+            invalidateCache(appName, instanceInfo.getVIPAddress(), instanceInfo.getSecureVipAddress());
+        } else {
+            invalidateCache(appName, null, null);
+        }
+        logger.info("Cancelled instance {}/{} (replication={})", appName, id, isReplication);
+        return true;
+    }
+
+    /**
+     * Cancels the registration of all the given instances, as {@link #cancel(String, String, boolean)} does, but
+     * invalidates the response cache once for all of them rather than once per instance.
+     *
+     * @param appNameIdPairs the application name and the unique identifier of each instance
+     * @return whether each instance was removed from the registry, in the order of the given instances
+     */
+    public boolean[] cancelAll(List<Pair<String, String>> appNameIdPairs, boolean isReplication) {
+        boolean[] cancelled = new boolean[appNameIdPairs.size()];
+        Set<String> appNames = new HashSet<String>();
+        Set<String> vipAddresses = new HashSet<String>();
+        Set<String> secureVipAddresses = new HashSet<String>();
+        for (int i = 0; i < cancelled.length; i++) {
+            Pair<String, String> appNameIdPair = appNameIdPairs.get(i);
+            Lease<InstanceInfo> cancelledLease = cancelLease(appNameIdPair.first(), appNameIdPair.second(), isReplication);
+            if (cancelledLease != null) {
+                cancelled[i] = true;
+                appNames.add(appNameIdPair.first());
+                if (cancelledLease.getHolder() != null) {
+                    addCacheKeys(cancelledLease.getHolder(), appNames, vipAddresses, secureVipAddresses);
+                }
             }
-            if (leaseToCancel == null) {
-                CANCEL_NOT_FOUND.increment(isReplication);
-                logger.warn("DS: Registry: cancel failed because Lease is not registered for: {}/{}", appName, id);
-                return false;
-            } else {
-                leaseToCancel.cancel();
-                InstanceInfo instanceInfo = leaseToCancel.getHolder();
-                String vip = null;
-                String svip = null;
-                if (instanceInfo != null) {
-                    instanceInfo.setActionType(ActionType.DELETED);
-                    recentlyChangedQueue.add(new RecentlyChangedItem(leaseToCancel));
-                    instanceInfo.setLastUpdatedTimestamp();
-                    vip = instanceInfo.getVIPAddress();
-                    svip = instanceInfo.getSecureVipAddress();
+        }
+        if (!appNames.isEmpty()) {
+            responseCache.invalidate(appNames, vipAddresses, secureVipAddresses);
+        }
+        logger.info("Cancelled instances of {} (replication={})", appNames, isReplication);
+        return cancelled;
+    }
+
+    /**
+     * @return the cancelled lease, or null if the instance is not registered
+     */
+    private Lease<InstanceInfo> cancelLease(String appName, String id, boolean isReplication) {
+        CANCEL.increment(isReplication);
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
+        Lease<InstanceInfo> leaseToCancel = null;
+        if (gMap != null) {
+            synchronized (gMap) {
+                leaseToCancel = gMap.remove(id);
+                if (leaseToCancel != null) {
+                    instanceIndex.remove(leaseToCancel);
                 }
-                invalidateCache(appName, vip, svip);
-                logger.info("Cancelled instance {}/{} (replication={})", appName, id, isReplication);
-                return true;
             }
-        } finally {
-            read.unlock();
         }
+        if (leaseToCancel != null) {
+            leaseExpiryIndex.remove(leaseToCancel);
+        }
+        recentCanceled.add(System.currentTimeMillis(), appName, id);
+        InstanceStatus instanceStatus = overriddenInstanceStatusMap.remove(id);
+        if (instanceStatus != null) {
+            logger.debug("Removed instance id {} from the overridden map which has value {}", id, instanceStatus.name());
+        }
+        if (leaseToCancel == null) {
+            CANCEL_NOT_FOUND.increment(isReplication);
+            logger.warn("DS: Registry: cancel failed because Lease is not registered for: {}/{}", appName, id);
+            return null;
+        }
+        leaseToCancel.cancel();
+        InstanceInfo instanceInfo = leaseToCancel.getHolder();
+        if (instanceInfo != null) {
+            instanceInfo.setActionType(ActionType.DELETED);
+            instanceInfo.setLastUpdatedTimestamp();
+            markChanged(leaseToCancel);
+            statusCounts.cancel(leaseToCancel);
+        }
+        return leaseToCancel;
     }
 
     /**
@@ -356,6 +571,10 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             InstanceInfo instanceInfo = leaseToRenew.getHolder();
             if (instanceInfo != null) {
                 // touchASGCache(instanceInfo.getASGName());
+                if (overriddenStatusOf(instanceInfo) != null) {
+                    // The override is read from the instance, so keep its map entry from expiring while in use
+                    overriddenInstanceStatusMap.get(id);
+                }
                 InstanceStatus overriddenInstanceStatus = this.getOverriddenInstanceStatus(
                         instanceInfo, leaseToRenew, isReplication);
                 if (overriddenInstanceStatus == InstanceStatus.UNKNOWN) {
@@ -374,14 +593,60 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                             "The instance status {} is different from overridden instance status {} for instance {}. "
                                     + "Hence setting the status to overridden status", args);
                     instanceInfo.setStatus(overriddenInstanceStatus);
+                    instanceInfo.setActionType(ActionType.MODIFIED);
+                    instanceInfo.setLastUpdatedTimestamp();
+                    recordStatusChange(leaseToRenew);
                 }
             }
             renewsLastMin.increment();
             leaseToRenew.renew();
+            leaseExpiryIndex.schedule(leaseToRenew);
             return true;
         }
     }
 
+    /**
+     * Renews the leases of all the given instances in a single pass, as {@link #renew(String, String, boolean)}
+     * does for each of them.
+     *
+     * @param appNameIdPairs the application name and the unique identifier of each instance
+     * @return whether each lease was renewed, in the order of the given instances
+     */
+    public boolean[] renewAll(List<Pair<String, String>> appNameIdPairs, boolean isReplication) {
+        boolean[] renewed = new boolean[appNameIdPairs.size()];
+        for (int i = 0; i < renewed.length; i++) {
+            Pair<String, String> appNameIdPair = appNameIdPairs.get(i);
+            renewed[i] = renew(appNameIdPair.first(), appNameIdPair.second(), isReplication);
+        }
+        return renewed;
+    }
+
+    /**
+     * Records a status change of a registered instance, so it goes into the deltas and the instance counts.
+     */
+    private void recordStatusChange(Lease<InstanceInfo> lease) {
+        markChanged(lease);
+        statusCounts.statusChanged(lease);
+    }
+
+    /**
+     * Marks the application of the lease for a rebuild in the next registry snapshot. The application is marked
+     * before the change is appended to the delta journal, so a reader which sees the new sequence number also
+     * sees the mark.
+     */
+    private void markChanged(Lease<InstanceInfo> lease) {
+        changedApplications.add(lease.getHolder().getAppName());
+    }
+
+    /**
+     * Marks the application of an instance changed outside of the delta journal for a rebuild in the next registry
+     * snapshot. As for {@link #markChanged(Lease)}, the application is marked before the change is counted.
+     */
+    private void recordUntrackedChange(String appName) {
+        changedApplications.add(appName);
+        untrackedChanges.incrementAndGet();
+    }
+
     /**
      * @deprecated this is expensive, try not to use. See if you can use
      * {@link #storeOverriddenStatusIfRequired(String, String, InstanceStatus)} instead.
@@ -406,7 +671,9 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             overriddenInstanceStatusMap.put(id, overriddenStatus);
             List<InstanceInfo> instanceInfo = this.getInstancesById(id, false);
             if ((instanceInfo != null) && (!instanceInfo.isEmpty())) {
-                instanceInfo.iterator().next().setOverriddenStatus(overriddenStatus);
+                InstanceInfo info = instanceInfo.iterator().next();
+                info.setOverriddenStatus(overriddenStatus);
+                recordUntrackedChange(info.getAppName());
                 logger.info(
                         "Setting the overridden status for instance id {} and the value is {} ",
                         id, overriddenStatus.name());
@@ -435,6 +702,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
             overriddenInstanceStatusMap.put(id, overriddenStatus);
             InstanceInfo instanceInfo = this.getInstanceByAppAndId(appName, id, false);
             instanceInfo.setOverriddenStatus(overriddenStatus);
+            recordUntrackedChange(instanceInfo.getAppName());
             logger.info("Set the overridden status for instance (appname:{}, id:{}} and the value is {} ",
                     appName, id, overriddenStatus.name());
         }
@@ -457,55 +725,51 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     public boolean statusUpdate(String appName, String id,
                                 InstanceStatus newStatus, String lastDirtyTimestamp,
                                 boolean isReplication) {
-        try {
-            read.lock();
-            STATUS_UPDATE.increment(isReplication);
-            Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
-            Lease<InstanceInfo> lease = null;
-            if (gMap != null) {
-                lease = gMap.get(id);
+        STATUS_UPDATE.increment(isReplication);
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
+        Lease<InstanceInfo> lease = null;
+        if (gMap != null) {
+            lease = gMap.get(id);
+        }
+        if (lease == null) {
+            return false;
+        } else {
+            lease.renew();
+            leaseExpiryIndex.schedule(lease);
+            InstanceInfo info = lease.getHolder();
+            // Lease is always created with its instance info object.
+            // This log statement is provided as a safeguard, in case this invariant is violated.
+            if (info == null) {
+                logger.error("Found Lease without a holder for instance id {}", id);
             }
-            if (lease == null) {
-                return false;
-            } else {
-                lease.renew();
-                InstanceInfo info = lease.getHolder();
-                // Lease is always created with its instance info object.
-                // This log statement is provided as a safeguard, in case this invariant is violated.
-                if (info == null) {
-                    logger.error("Found Lease without a holder for instance id {}", id);
+            if ((info != null) && !(info.getStatus().equals(newStatus))) {
+                // Mark service as UP if needed
+                if (InstanceStatus.UP.equals(newStatus)) {
+                    lease.serviceUp();
                 }
-                if ((info != null) && !(info.getStatus().equals(newStatus))) {
-                    // Mark service as UP if needed
-                    if (InstanceStatus.UP.equals(newStatus)) {
-                        lease.serviceUp();
-                    }
-                    // This is NAC overriden status
-                    overriddenInstanceStatusMap.put(id, newStatus);
-                    // Set it for transfer of overridden status to replica on
-                    // replica start up
-                    info.setOverriddenStatus(newStatus);
-                    long replicaDirtyTimestamp = 0;
-                    if (lastDirtyTimestamp != null) {
-                        replicaDirtyTimestamp = Long.valueOf(lastDirtyTimestamp);
-                    }
-                    // If the replication's dirty timestamp is more than the existing one, just update
-                    // it to the replica's.
-                    if (replicaDirtyTimestamp > info.getLastDirtyTimestamp()) {
-                        info.setLastDirtyTimestamp(replicaDirtyTimestamp);
-                        info.setStatusWithoutDirty(newStatus);
-                    } else {
-                        info.setStatus(newStatus);
-                    }
-                    info.setActionType(ActionType.MODIFIED);
-                    recentlyChangedQueue.add(new RecentlyChangedItem(lease));
-                    info.setLastUpdatedTimestamp();
-                    invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
+                // This is NAC overriden status
+                overriddenInstanceStatusMap.put(id, newStatus);
+                // Set it for transfer of overridden status to replica on
+                // replica start up
+                info.setOverriddenStatus(newStatus);
+                long replicaDirtyTimestamp = 0;
+                if (lastDirtyTimestamp != null) {
+                    replicaDirtyTimestamp = Long.valueOf(lastDirtyTimestamp);
                 }
-                return true;
+                // If the replication's dirty timestamp is more than the existing one, just update
+                // it to the replica's.
+                if (replicaDirtyTimestamp > info.getLastDirtyTimestamp()) {
+                    info.setLastDirtyTimestamp(replicaDirtyTimestamp);
+                    info.setStatusWithoutDirty(newStatus);
+                } else {
+                    info.setStatus(newStatus);
+                }
+                info.setActionType(ActionType.MODIFIED);
+                info.setLastUpdatedTimestamp();
+                recordStatusChange(lease);
+                invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
             }
-        } finally {
-            read.unlock();
+            return true;
         }
     }
 
@@ -525,48 +789,44 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                                         InstanceStatus newStatus,
                                         String lastDirtyTimestamp,
                                         boolean isReplication) {
-        try {
-            read.lock();
-            STATUS_OVERRIDE_DELETE.increment(isReplication);
-            Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
-            Lease<InstanceInfo> lease = null;
-            if (gMap != null) {
-                lease = gMap.get(id);
+        STATUS_OVERRIDE_DELETE.increment(isReplication);
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
+        Lease<InstanceInfo> lease = null;
+        if (gMap != null) {
+            lease = gMap.get(id);
+        }
+        if (lease == null) {
+            return false;
+        } else {
+            lease.renew();
+            leaseExpiryIndex.schedule(lease);
+            InstanceInfo info = lease.getHolder();
+
+            // Lease is always created with its instance info object.
+            // This log statement is provided as a safeguard, in case this invariant is violated.
+            if (info == null) {
+                logger.error("Found Lease without a holder for instance id {}", id);
             }
-            if (lease == null) {
-                return false;
-            } else {
-                lease.renew();
-                InstanceInfo info = lease.getHolder();
 
-                // Lease is always created with its instance info object.
-                // This log statement is provided as a safeguard, in case this invariant is violated.
-                if (info == null) {
-                    logger.error("Found Lease without a holder for instance id {}", id);
+            InstanceStatus currentOverride = overriddenInstanceStatusMap.remove(id);
+            if (currentOverride != null && info != null) {
+                info.setOverriddenStatus(InstanceStatus.UNKNOWN);
+                info.setStatus(newStatus);
+                long replicaDirtyTimestamp = 0;
+                if (lastDirtyTimestamp != null) {
+                    replicaDirtyTimestamp = Long.valueOf(lastDirtyTimestamp);
                 }
-
-                InstanceStatus currentOverride = overriddenInstanceStatusMap.remove(id);
-                if (currentOverride != null && info != null) {
-                    info.setOverriddenStatus(InstanceStatus.UNKNOWN);
-                    info.setStatus(newStatus);
-                    long replicaDirtyTimestamp = 0;
-                    if (lastDirtyTimestamp != null) {
-                        replicaDirtyTimestamp = Long.valueOf(lastDirtyTimestamp);
-                    }
-                    // If the replication's dirty timestamp is more than the existing one, just update
-                    // it to the replica's.
-                    if (replicaDirtyTimestamp > info.getLastDirtyTimestamp()) {
-                        info.setLastDirtyTimestamp(replicaDirtyTimestamp);
-                    }
-                    info.setActionType(ActionType.MODIFIED);
-                    recentlyChangedQueue.add(new RecentlyChangedItem(lease));
-                    info.setLastUpdatedTimestamp();
-                    invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
+                // If the replication's dirty timestamp is more than the existing one, just update
+                // it to the replica's.
+                if (replicaDirtyTimestamp > info.getLastDirtyTimestamp()) {
+                    info.setLastDirtyTimestamp(replicaDirtyTimestamp);
                 }
-                return true;
+                info.setActionType(ActionType.MODIFIED);
+                info.setLastUpdatedTimestamp();
+                recordStatusChange(lease);
+                invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
             }
-        } finally {
-            read.unlock();
+            return true;
         }
     }
 
@@ -590,19 +850,9 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
 
         // We collect first all expired items, to evict them in random order. For large eviction sets,
         // if we do not that, we might wipe out whole apps before self preservation kicks in. By randomizing it,
-        // the impact should be evenly distributed across all applications.
-        List<Lease<InstanceInfo>> expiredLeases = new ArrayList<>();
-        for (Entry<String, Map<String, Lease<InstanceInfo>>> groupEntry : registry.entrySet()) {
-            Map<String, Lease<InstanceInfo>> leaseMap = groupEntry.getValue();
-            if (leaseMap != null) {
-                for (Entry<String, Lease<InstanceInfo>> leaseEntry : leaseMap.entrySet()) {
-                    Lease<InstanceInfo> lease = leaseEntry.getValue();
-                    if (lease.isExpired(additionalLeaseMs) && lease.getHolder() != null) {
-                        expiredLeases.add(lease);
-                    }
-                }
-            }
-        }
+        // the impact should be evenly distributed across all applications. The expiry index only visits
+        // the leases due by now, instead of the whole registry.
+        List<Lease<InstanceInfo>> expiredLeases = leaseExpiryIndex.getExpired(additionalLeaseMs);
 
         boolean experimental = "true".equalsIgnoreCase(serverConfig.getExperimental("evict.cancel.disabled"));
 
@@ -633,6 +883,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                     cancel(appName, id, false);
                 }
             }
+            // A mass expiry, as when leaving self preservation, invalidates most of the cache at once
+            responseCache.warmUpLater();
         }
     }
 
@@ -642,7 +894,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * if specified in this client configuration.
      *
      * @param appName the application name of the application
-     * @return the application
+     * @return the application, which is read only
      *
      * @see com.netflix.discovery.shared.LookupService#getApplication(java.lang.String)
      */
@@ -659,22 +911,13 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * @param includeRemoteRegion true, if we need to include applications from remote regions
      *                            as indicated by the region {@link URL} by this property
      *                            {@link EurekaServerConfig#getRemoteRegionUrls()}, false otherwise
-     * @return the application
+     * @return the application, shared with the other readers of the registry snapshot, so read only
      */
     @Override
     public Application getApplication(String appName, boolean includeRemoteRegion) {
-        Application app = null;
-
-        Map<String, Lease<InstanceInfo>> leaseMap = registry.get(appName);
+        Application app = getRegistrySnapshot().getApplication(appName);
 
-        if (leaseMap != null && leaseMap.size() > 0) {
-            for (Entry<String, Lease<InstanceInfo>> entry : leaseMap.entrySet()) {
-                if (app == null) {
-                    app = new Application(appName);
-                }
-                app.addInstance(decorateInstanceInfo(entry.getValue()));
-            }
-        } else if (includeRemoteRegion) {
+        if (app == null && includeRemoteRegion) {
             for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
                 Application application = remoteRegistry.getApplication(appName);
                 if (application != null) {
@@ -688,7 +931,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     /**
      * Get all applications in this instance registry, falling back to other regions if allowed in the Eureka config.
      *
-     * @return the list of all known applications
+     * @return the list of all known applications, whose local applications are read only
      *
      * @see com.netflix.discovery.shared.LookupService#getApplications()
      */
@@ -711,7 +954,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
 
     /**
      * Returns applications including instances from local region only. <br/>
-     * Same as calling {@link #getApplicationsFromMultipleRegions(String[])} with an empty array.
+     * Same as calling {@link #getApplicationsFromMultipleRegions(String[])} with an empty array, so the
+     * applications are shared with the other readers of the registry snapshot, and are read only.
      */
     @Override
     public Applications getApplicationsFromLocalRegionOnly() {
@@ -733,7 +977,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      *                      included.
      *
      * @return The applications with instances from the passed remote regions as well as local region. The instances
-     * from remote regions can be only for certain whitelisted apps as explained above.
+     * from remote regions can be only for certain whitelisted apps as explained above. The local applications are
+     * shared with the other readers of the registry snapshot, and are read only.
      */
     public Applications getApplicationsFromMultipleRegions(String[] remoteRegions) {
 
@@ -747,50 +992,122 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         } else {
             GET_ALL_CACHE_MISS.increment();
         }
+        RegistrySnapshot snapshot = getRegistrySnapshot();
+        if (!includeRemoteRegion) {
+            return snapshot.getApplications();
+        }
+
+        // The local applications are shared with the snapshot, so the ones receiving remote instances are copied
+        Map<String, List<InstanceInfo>> remoteInstancesByApp = new LinkedHashMap<String, List<InstanceInfo>>();
+        for (String remoteRegion : remoteRegions) {
+            RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
+            if (null != remoteRegistry) {
+                Applications remoteApps = remoteRegistry.getApplications();
+                for (Application application : remoteApps.getRegisteredApplications()) {
+                    if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
+                        logger.info("Application {}  fetched from the remote region {}",
+                                application.getName(), remoteRegion);
+
+                        String appName = application.getName().toUpperCase(Locale.ROOT);
+                        List<InstanceInfo> remoteInstances = remoteInstancesByApp.get(appName);
+                        if (remoteInstances == null) {
+                            remoteInstances = new ArrayList<InstanceInfo>();
+                            remoteInstancesByApp.put(appName, remoteInstances);
+                        }
+                        remoteInstances.addAll(application.getInstances());
+                    } else {
+                        logger.debug("Application {} not fetched from the remote region {} as there exists a "
+                                        + "whitelist and this app is not in the whitelist.",
+                                application.getName(), remoteRegion);
+                    }
+                }
+            } else {
+                logger.warn("No remote registry available for the remote region {}", remoteRegion);
+            }
+        }
+
         Applications apps = new Applications();
         apps.setVersion(1L);
-        for (Entry<String, Map<String, Lease<InstanceInfo>>> entry : registry.entrySet()) {
-            Application app = null;
-
-            if (entry.getValue() != null) {
-                for (Entry<String, Lease<InstanceInfo>> stringLeaseEntry : entry.getValue().entrySet()) {
-                    Lease<InstanceInfo> lease = stringLeaseEntry.getValue();
-                    if (app == null) {
-                        app = new Application(lease.getHolder().getAppName());
-                    }
-                    app.addInstance(decorateInstanceInfo(lease));
+        TreeMap<String, AtomicInteger> instanceCountMap = new TreeMap<String, AtomicInteger>();
+        snapshot.addInstanceCounts(instanceCountMap);
+        for (Application app : snapshot.getApplicationList()) {
+            List<InstanceInfo> remoteInstances = remoteInstancesByApp.remove(app.getName().toUpperCase(Locale.ROOT));
+            if (remoteInstances == null) {
+                apps.addApplication(app);
+            } else {
+                Application mergedApp = new Application(app.getName());
+                for (InstanceInfo instanceInfo : app.getInstancesAsIsFromEureka()) {
+                    mergedApp.addInstance(instanceInfo);
                 }
+                for (InstanceInfo instanceInfo : remoteInstances) {
+                    mergedApp.addInstance(instanceInfo);
+                }
+                addInstanceCounts(app, instanceCountMap, -1);
+                addInstanceCounts(mergedApp, instanceCountMap, 1);
+                apps.addApplication(mergedApp);
+            }
+        }
+        for (Entry<String, List<InstanceInfo>> entry : remoteInstancesByApp.entrySet()) {
+            Application remoteApp = new Application(entry.getKey());
+            for (InstanceInfo instanceInfo : entry.getValue()) {
+                remoteApp.addInstance(instanceInfo);
+            }
+            addInstanceCounts(remoteApp, instanceCountMap, 1);
+            apps.addApplication(remoteApp);
+        }
+        apps.setAppsHashCode(Applications.getReconcileHashCode(instanceCountMap));
+        return apps;
+    }
+
+    /**
+     * Gets the instances which have the given address among their VIP or secure VIP addresses, grouped by
+     * application. Only the matching instances are looked at in the local region. Instances from the remote
+     * regions are included, unless {@link EurekaServerConfig#disableTransparentFallbackToOtherRegion()} is set,
+     * the same way as in {@link #getApplications()}.
+     *
+     * @param vipAddress the VIP address to look for
+     * @param secure true to look among the secure VIP addresses
+     * @return the matching instances
+     */
+    public Applications getApplicationsForVip(String vipAddress, boolean secure) {
+        RegistrySnapshot snapshot = getRegistrySnapshot();
+        Applications apps = new Applications();
+        for (Lease<InstanceInfo> lease : instanceIndex.getByVip(vipAddress, secure)) {
+            String appName = lease.getHolder().getAppName();
+            Application snapshotApp = snapshot.getApplication(appName);
+            // Leases registered after the snapshot was taken are left for the next one
+            InstanceInfo instanceInfo = snapshotApp == null ? null : snapshotApp.getByInstanceId(lease.getHolder().getId());
+            if (instanceInfo == null) {
+                continue;
             }
-            if (app != null) {
+            Application app = apps.getRegisteredApplications(appName);
+            if (app == null) {
+                app = new Application(appName);
                 apps.addApplication(app);
             }
+            app.addInstance(instanceInfo);
         }
-        if (includeRemoteRegion) {
-            for (String remoteRegion : remoteRegions) {
+        if (!serverConfig.disableTransparentFallbackToOtherRegion()) {
+            for (String remoteRegion : allKnownRemoteRegions) {
                 RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
-                if (null != remoteRegistry) {
-                    Applications remoteApps = remoteRegistry.getApplications();
-                    for (Application application : remoteApps.getRegisteredApplications()) {
-                        if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
-                            logger.info("Application {}  fetched from the remote region {}",
-                                    application.getName(), remoteRegion);
-
-                            Application appInstanceTillNow = apps.getRegisteredApplications(application.getName());
-                            if (appInstanceTillNow == null) {
-                                appInstanceTillNow = new Application(application.getName());
-                                apps.addApplication(appInstanceTillNow);
-                            }
-                            for (InstanceInfo instanceInfo : application.getInstances()) {
-                                appInstanceTillNow.addInstance(instanceInfo);
+                if (null == remoteRegistry) {
+                    continue;
+                }
+                for (Application application : remoteRegistry.getApplications().getRegisteredApplications()) {
+                    if (!shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
+                        continue;
+                    }
+                    for (InstanceInfo instanceInfo : application.getInstances()) {
+                        String vipAddresses = secure ? instanceInfo.getSecureVipAddress() : instanceInfo.getVIPAddress();
+                        if (Arrays.asList(InstanceIndex.splitVips(vipAddresses)).contains(vipAddress)) {
+                            Application app = apps.getRegisteredApplications(application.getName());
+                            if (app == null) {
+                                app = new Application(application.getName());
+                                apps.addApplication(app);
                             }
-                        } else {
-                            logger.debug("Application {} not fetched from the remote region {} as there exists a "
-                                            + "whitelist and this app is not in the whitelist.",
-                                    application.getName(), remoteRegion);
+                            app.addInstance(instanceInfo);
                         }
                     }
-                } else {
-                    logger.warn("No remote registry available for the remote region {}", remoteRegion);
                 }
             }
         }
@@ -812,7 +1129,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * @param includeRemoteRegion true, if we need to include applications from remote regions
      *                            as indicated by the region {@link URL} by this property
      *                            {@link EurekaServerConfig#getRemoteRegionUrls()}, false otherwise
-     * @return applications
+     * @return applications, whose local applications are read only
      *
      * @deprecated Use {@link #getApplicationsFromMultipleRegions(String[])} instead. This method has a flawed behavior
      * of transparently falling back to a remote region if no instances for an app is available locally. The new
@@ -821,41 +1138,30 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     @Deprecated
     public Applications getApplications(boolean includeRemoteRegion) {
         GET_ALL_CACHE_MISS.increment();
+        RegistrySnapshot snapshot = getRegistrySnapshot();
+        if (!includeRemoteRegion || regionNameVSRemoteRegistry.isEmpty()) {
+            return snapshot.getApplications();
+        }
         Applications apps = new Applications();
         apps.setVersion(1L);
-        for (Entry<String, Map<String, Lease<InstanceInfo>>> entry : registry.entrySet()) {
-            Application app = null;
-
-            if (entry.getValue() != null) {
-                for (Entry<String, Lease<InstanceInfo>> stringLeaseEntry : entry.getValue().entrySet()) {
-
-                    Lease<InstanceInfo> lease = stringLeaseEntry.getValue();
-
-                    if (app == null) {
-                        app = new Application(lease.getHolder().getAppName());
-                    }
-
-                    app.addInstance(decorateInstanceInfo(lease));
-                }
-            }
-            if (app != null) {
-                apps.addApplication(app);
-            }
+        TreeMap<String, AtomicInteger> instanceCountMap = new TreeMap<String, AtomicInteger>();
+        snapshot.addInstanceCounts(instanceCountMap);
+        for (Application app : snapshot.getApplicationList()) {
+            apps.addApplication(app);
         }
-        if (includeRemoteRegion) {
-            for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
-                Applications applications = remoteRegistry.getApplications();
-                for (Application application : applications
-                        .getRegisteredApplications()) {
-                    Application appInLocalRegistry = apps
-                            .getRegisteredApplications(application.getName());
-                    if (appInLocalRegistry == null) {
-                        apps.addApplication(application);
-                    }
+        for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
+            Applications applications = remoteRegistry.getApplications();
+            for (Application application : applications
+                    .getRegisteredApplications()) {
+                Application appInLocalRegistry = apps
+                        .getRegisteredApplications(application.getName());
+                if (appInLocalRegistry == null) {
+                    apps.addApplication(application);
+                    addInstanceCounts(application, instanceCountMap);
                 }
             }
         }
-        apps.setAppsHashCode(apps.getReconcileHashCode());
+        apps.setAppsHashCode(Applications.getReconcileHashCode(instanceCountMap));
         return apps;
     }
 
@@ -876,54 +1182,37 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         GET_ALL_CACHE_MISS_DELTA.increment();
         Applications apps = new Applications();
         apps.setVersion(responseCache.getVersionDelta().get());
-        Map<String, Application> applicationInstancesMap = new HashMap<String, Application>();
-        try {
-            write.lock();
-            Iterator<RecentlyChangedItem> iter = this.recentlyChangedQueue.iterator();
-            logger.debug("The number of elements in the delta queue is :"
-                    + this.recentlyChangedQueue.size());
-            while (iter.hasNext()) {
-                Lease<InstanceInfo> lease = iter.next().getLeaseInfo();
-                InstanceInfo instanceInfo = lease.getHolder();
-                Object[] args = {instanceInfo.getId(),
-                        instanceInfo.getStatus().name(),
-                        instanceInfo.getActionType().name()};
-                logger.debug(
-                        "The instance id %s is found with status %s and actiontype %s",
-                        args);
-                Application app = applicationInstancesMap.get(instanceInfo
-                        .getAppName());
-                if (app == null) {
-                    app = new Application(instanceInfo.getAppName());
-                    applicationInstancesMap.put(instanceInfo.getAppName(), app);
-                    apps.addApplication(app);
-                }
-                app.addInstance(decorateInstanceInfo(lease));
-            }
-
-            boolean disableTransparentFallback = serverConfig.disableTransparentFallbackToOtherRegion();
+        boolean disableTransparentFallback = serverConfig.disableTransparentFallbackToOtherRegion();
 
-            if (!disableTransparentFallback) {
-                Applications allAppsInLocalRegion = getApplications(false);
+        // The instance counts describe the registry as of the last journal change they account for
+        InstanceStatusCounts.Snapshot counts = statusCounts.getSnapshot();
+        addDeltaJournalSnapshot(apps, deltaJournal.snapshot(counts.getSequence()));
+        TreeMap<String, AtomicInteger> instanceCountMap = new TreeMap<String, AtomicInteger>();
+        counts.addTo(instanceCountMap);
 
-                for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
-                    Applications applications = remoteRegistry.getApplicationDeltas();
-                    for (Application application : applications.getRegisteredApplications()) {
-                        Application appInLocalRegistry =
-                                allAppsInLocalRegion.getRegisteredApplications(application.getName());
-                        if (appInLocalRegistry == null) {
-                            apps.addApplication(application);
-                        }
+        if (!disableTransparentFallback) {
+            // Same remote applications as in getApplications(true)
+            Set<String> countedRemoteApps = new HashSet<String>();
+            for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
+                for (Application application : remoteRegistry.getApplications().getRegisteredApplications()) {
+                    if (!isRegisteredLocally(application.getName()) && countedRemoteApps.add(application.getName())) {
+                        addInstanceCounts(application, instanceCountMap);
+                    }
+                }
+                Applications applications = remoteRegistry.getApplicationDeltas();
+                if (applications == null) {
+                    continue;
+                }
+                for (Application application : applications.getRegisteredApplications()) {
+                    if (!isRegisteredLocally(application.getName())) {
+                        apps.addApplication(application);
                     }
                 }
             }
-
-            Applications allApps = getApplications(!disableTransparentFallback);
-            apps.setAppsHashCode(allApps.getReconcileHashCode());
-            return apps;
-        } finally {
-            write.unlock();
         }
+
+        apps.setAppsHashCode(Applications.getReconcileHashCode(instanceCountMap));
+        return apps;
     }
 
     /**
@@ -959,57 +1248,128 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
 
         Applications apps = new Applications();
         apps.setVersion(responseCache.getVersionDeltaWithRegions().get());
-        Map<String, Application> applicationInstancesMap = new HashMap<String, Application>();
-        try {
-            write.lock();
-            Iterator<RecentlyChangedItem> iter = this.recentlyChangedQueue.iterator();
-            logger.debug("The number of elements in the delta queue is :" + this.recentlyChangedQueue.size());
-            while (iter.hasNext()) {
-                Lease<InstanceInfo> lease = iter.next().getLeaseInfo();
-                InstanceInfo instanceInfo = lease.getHolder();
-                Object[] args = {instanceInfo.getId(),
-                        instanceInfo.getStatus().name(),
-                        instanceInfo.getActionType().name()};
-                logger.debug("The instance id %s is found with status %s and actiontype %s", args);
-                Application app = applicationInstancesMap.get(instanceInfo.getAppName());
-                if (app == null) {
-                    app = new Application(instanceInfo.getAppName());
-                    applicationInstancesMap.put(instanceInfo.getAppName(), app);
-                    apps.addApplication(app);
-                }
-                app.addInstance(decorateInstanceInfo(lease));
-            }
 
-            if (includeRemoteRegion) {
-                for (String remoteRegion : remoteRegions) {
-                    RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
-                    if (null != remoteRegistry) {
-                        Applications remoteAppsDelta = remoteRegistry.getApplicationDeltas();
-                        if (null != remoteAppsDelta) {
-                            for (Application application : remoteAppsDelta.getRegisteredApplications()) {
-                                if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
-                                    Application appInstanceTillNow =
-                                            apps.getRegisteredApplications(application.getName());
-                                    if (appInstanceTillNow == null) {
-                                        appInstanceTillNow = new Application(application.getName());
-                                        apps.addApplication(appInstanceTillNow);
-                                    }
-                                    for (InstanceInfo instanceInfo : application.getInstances()) {
-                                        appInstanceTillNow.addInstance(instanceInfo);
-                                    }
+        // The instance counts describe the registry as of the last journal change they account for
+        InstanceStatusCounts.Snapshot counts = statusCounts.getSnapshot();
+        addDeltaJournalSnapshot(apps, deltaJournal.snapshot(counts.getSequence()));
+        TreeMap<String, AtomicInteger> instanceCountMap = new TreeMap<String, AtomicInteger>();
+        counts.addTo(instanceCountMap);
+
+        if (includeRemoteRegion) {
+            for (String remoteRegion : remoteRegions) {
+                RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
+                if (null != remoteRegistry) {
+                    // Same remote instances as in getApplicationsFromMultipleRegions(remoteRegions)
+                    for (Application application : remoteRegistry.getApplications().getRegisteredApplications()) {
+                        if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
+                            addInstanceCounts(application, instanceCountMap);
+                        }
+                    }
+                    Applications remoteAppsDelta = remoteRegistry.getApplicationDeltas();
+                    if (null != remoteAppsDelta) {
+                        for (Application application : remoteAppsDelta.getRegisteredApplications()) {
+                            if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
+                                Application appInstanceTillNow =
+                                        apps.getRegisteredApplications(application.getName());
+                                if (appInstanceTillNow == null) {
+                                    appInstanceTillNow = new Application(application.getName());
+                                    apps.addApplication(appInstanceTillNow);
+                                }
+                                for (InstanceInfo instanceInfo : application.getInstances()) {
+                                    appInstanceTillNow.addInstance(instanceInfo);
                                 }
                             }
                         }
                     }
                 }
             }
+        }
+
+        apps.setAppsHashCode(Applications.getReconcileHashCode(instanceCountMap));
+        return apps;
+    }
 
-            Applications allApps = getApplicationsFromMultipleRegions(remoteRegions);
-            apps.setAppsHashCode(allApps.getReconcileHashCode());
-            return apps;
-        } finally {
-            write.unlock();
+    private boolean isRegisteredLocally(String appName) {
+        Map<String, Lease<InstanceInfo>> leaseMap = registry.get(appName.toUpperCase(Locale.ROOT));
+        return leaseMap != null && !leaseMap.isEmpty();
+    }
+
+    private static void addInstanceCounts(Application application, TreeMap<String, AtomicInteger> instanceCountMap) {
+        addInstanceCounts(application, instanceCountMap, 1);
+    }
+
+    /**
+     * Adds (or with a negative delta, takes away) the instances of the application to the instance count map.
+     * Statuses whose count drops to zero are removed, as they would not be listed in the map otherwise.
+     */
+    private static void addInstanceCounts(Application application, TreeMap<String, AtomicInteger> instanceCountMap,
+                                          int delta) {
+        for (InstanceInfo info : application.getInstancesAsIsFromEureka()) {
+            AtomicInteger instanceCount = instanceCountMap.get(info.getStatus().name());
+            if (instanceCount == null) {
+                instanceCount = new AtomicInteger(0);
+                instanceCountMap.put(info.getStatus().name(), instanceCount);
+            }
+            if (instanceCount.addAndGet(delta) == 0) {
+                instanceCountMap.remove(info.getStatus().name());
+            }
+        }
+    }
+
+    private void addDeltaJournalSnapshot(Applications apps, DeltaJournal.Snapshot snapshot) {
+        Map<String, Application> applicationInstancesMap = new HashMap<String, Application>();
+        int count = 0;
+        for (DeltaJournal.ChangeRecord record : snapshot) {
+            InstanceInfo instanceInfo = record.getInstanceInfo();
+            if (logger.isDebugEnabled()) {
+                logger.debug("The instance id {} is found with status {} and actiontype {}",
+                        instanceInfo.getId(), instanceInfo.getStatus().name(), instanceInfo.getActionType().name());
+            }
+            Application app = applicationInstancesMap.get(instanceInfo.getAppName());
+            if (app == null) {
+                app = new Application(instanceInfo.getAppName());
+                applicationInstancesMap.put(instanceInfo.getAppName(), app);
+                apps.addApplication(app);
+            }
+            app.addInstance(decorateInstanceInfo(instanceInfo, record.getLease()));
+            count++;
         }
+        logger.debug("The number of elements in the delta queue is : {}", count);
+    }
+
+    @Override
+    public DeltaJournal.Snapshot getChangesSince(long sequence) {
+        DeltaJournal.Snapshot snapshot = deltaJournal.snapshotSince(sequence);
+        if (snapshot == null) {
+            if (sequence > deltaJournal.getLastSequence()) {
+                logger.debug("Sequence {} is ahead of the delta journal; a full fetch is required", sequence);
+            } else {
+                DELTA_JOURNAL_OVERRUN.increment();
+                logger.debug("Changes since sequence {} are no longer retained; a full fetch is required", sequence);
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public long getLastChangeSequence() {
+        return deltaJournal.getLastSequence();
+    }
+
+    @Override
+    public String getChangeIncarnation() {
+        return deltaJournal.getIncarnation();
+    }
+
+    @Override
+    public Pair<Long, Applications> getApplicationsFromLocalRegionWithChangeSequence() {
+        RegistrySnapshot snapshot = getRegistrySnapshot();
+        return new Pair<Long, Applications>(snapshot.getVersion(), snapshot.getApplications());
+    }
+
+    @Override
+    public boolean awaitChangeAfter(long sequence, long timeoutMs) throws InterruptedException {
+        return deltaJournal.awaitChangeAfter(sequence, timeoutMs);
     }
 
     /**
@@ -1024,6 +1384,16 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         return this.getInstanceByAppAndId(appName, id, true);
     }
 
+    @Override
+    public InstanceInfo getRegisteredInstance(String appName, String id) {
+        Map<String, Lease<InstanceInfo>> leaseMap = registry.get(appName);
+        Lease<InstanceInfo> lease = leaseMap == null ? null : leaseMap.get(id);
+        if (lease != null && (!isLeaseExpirationEnabled() || !lease.isExpired())) {
+            return lease.getHolder();
+        }
+        return null;
+    }
+
     /**
      * Gets the {@link InstanceInfo} information.
      *
@@ -1082,22 +1452,11 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     public List<InstanceInfo> getInstancesById(String id, boolean includeRemoteRegions) {
         List<InstanceInfo> list = new ArrayList<InstanceInfo>();
 
-        for (Iterator<Entry<String, Map<String, Lease<InstanceInfo>>>> iter =
-                     registry.entrySet().iterator(); iter.hasNext(); ) {
-
-            Map<String, Lease<InstanceInfo>> leaseMap = iter.next().getValue();
-            if (leaseMap != null) {
-                Lease<InstanceInfo> lease = leaseMap.get(id);
-
-                if (lease == null || (isLeaseExpirationEnabled() && lease.isExpired())) {
-                    continue;
-                }
-
-                if (list == Collections.EMPTY_LIST) {
-                    list = new ArrayList<InstanceInfo>();
-                }
-                list.add(decorateInstanceInfo(lease));
+        for (Lease<InstanceInfo> lease : instanceIndex.getById(id)) {
+            if (isLeaseExpirationEnabled() && lease.isExpired()) {
+                continue;
             }
+            list.add(decorateInstanceInfo(lease));
         }
         if (list.isEmpty() && includeRemoteRegions) {
             for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
@@ -1114,9 +1473,60 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         return list;
     }
 
+    /**
+     * Gets the registry snapshot, bringing it up to date with the delta journal and the untracked changes first
+     * if needed. This only takes a few volatile reads when nothing changed since the last snapshot; otherwise
+     * the applications which changed are rebuilt, once for all the readers waiting on the new version.
+     */
+    RegistrySnapshot getRegistrySnapshot() {
+        RegistrySnapshot snapshot = registrySnapshot;
+        if (snapshot.getVersion() >= deltaJournal.getLastSequence()
+                && snapshot.getUntrackedChanges() >= untrackedChanges.get()) {
+            return snapshot;
+        }
+        synchronized (snapshotLock) {
+            snapshot = registrySnapshot;
+            long untracked = untrackedChanges.get();
+            long version = deltaJournal.getLastSequence();
+            if (snapshot.getVersion() >= version && snapshot.getUntrackedChanges() >= untracked) {
+                return snapshot;
+            }
+            Map<String, Application> rebuiltApplications = new HashMap<String, Application>();
+            for (Iterator<String> it = changedApplications.iterator(); it.hasNext(); ) {
+                String appName = it.next();
+                it.remove();
+                rebuiltApplications.put(appName, buildApplication(appName));
+            }
+            snapshot = snapshot.update(version, untracked, rebuiltApplications);
+            registrySnapshot = snapshot;
+            return snapshot;
+        }
+    }
+
+    /**
+     * @return an application holding decorated copies of the registered instances, or null if there are none
+     */
+    private Application buildApplication(String appName) {
+        Map<String, Lease<InstanceInfo>> leaseMap = registry.get(appName);
+        if (leaseMap == null || leaseMap.isEmpty()) {
+            return null;
+        }
+        Application app = null;
+        for (Lease<InstanceInfo> lease : leaseMap.values()) {
+            if (app == null) {
+                app = new Application(appName);
+            }
+            // The copy is taken after the decoration, which stays visible on the holder as it used to
+            app.addInstance(new InstanceInfo(decorateInstanceInfo(lease)));
+        }
+        return app;
+    }
+
     private InstanceInfo decorateInstanceInfo(Lease<InstanceInfo> lease) {
-        InstanceInfo info = lease.getHolder();
+        return decorateInstanceInfo(lease.getHolder(), lease);
+    }
 
+    private static InstanceInfo decorateInstanceInfo(InstanceInfo info, Lease<InstanceInfo> lease) {
         // client app settings
         int renewalInterval = LeaseInfo.DEFAULT_LEASE_RENEWAL_INTERVAL;
         int leaseDuration = LeaseInfo.DEFAULT_LEASE_DURATION;
@@ -1175,15 +1585,13 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      */
     @Override
     public List<Pair<Long, String>> getLastNRegisteredInstances() {
-        List<Pair<Long, String>> list = new ArrayList<Pair<Long, String>>();
+        return recentRegistered.getLatest();
+    }
 
-        synchronized (recentRegisteredQueue) {
-            for (Pair<Long, String> aRecentRegisteredQueue : recentRegisteredQueue) {
-                list.add(aRecentRegisteredQueue);
-            }
-        }
-        Collections.reverse(list);
-        return list;
+    @Override
+    public List<Pair<Long, String>> getLastNRegisteredInstances(@Nullable String appName,
+                                                                long fromTimestamp, long toTimestamp) {
+        return recentRegistered.getLatest(appName, fromTimestamp, toTimestamp);
     }
 
     /**
@@ -1193,14 +1601,13 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      */
     @Override
     public List<Pair<Long, String>> getLastNCanceledInstances() {
-        List<Pair<Long, String>> list = new ArrayList<Pair<Long, String>>();
-        synchronized (recentCanceledQueue) {
-            for (Pair<Long, String> aRecentCanceledQueue : recentCanceledQueue) {
-                list.add(aRecentCanceledQueue);
-            }
-        }
-        Collections.reverse(list);
-        return list;
+        return recentCanceled.getLatest();
+    }
+
+    @Override
+    public List<Pair<Long, String>> getLastNCanceledInstances(@Nullable String appName,
+                                                              long fromTimestamp, long toTimestamp) {
+        return recentCanceled.getLatest(appName, fromTimestamp, toTimestamp);
     }
 
     private void invalidateCache(String appName, @Nullable String vipAddress, @Nullable String secureVipAddress) {
@@ -1208,21 +1615,14 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         responseCache.invalidate(appName, vipAddress, secureVipAddress);
     }
 
-    private static final class RecentlyChangedItem {
-        private long lastUpdateTime;
-        private Lease<InstanceInfo> leaseInfo;
-
-        public RecentlyChangedItem(Lease<InstanceInfo> lease) {
-            this.leaseInfo = lease;
-            lastUpdateTime = System.currentTimeMillis();
+    private static void addCacheKeys(InstanceInfo info, Set<String> appNames, Set<String> vipAddresses,
+                                     Set<String> secureVipAddresses) {
+        appNames.add(info.getAppName());
+        if (info.getVIPAddress() != null) {
+            vipAddresses.add(info.getVIPAddress());
         }
-
-        public long getLastUpdateTime() {
-            return this.lastUpdateTime;
-        }
-
-        public Lease<InstanceInfo> getLeaseInfo() {
-            return this.leaseInfo;
+        if (info.getSecureVipAddress() != null) {
+            secureVipAddresses.add(info.getSecureVipAddress());
         }
     }
 
@@ -1242,8 +1642,10 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      */
     @Override
     public void shutdown() {
-        deltaRetentionTimer.cancel();
         evictionTimer.cancel();
+        if (responseCache != null) {
+            responseCache.stop();
+        }
     }
 
     @com.netflix.servo.annotations.Monitor(name = "numOfElementsinInstanceCache", description = "Number of overrides in the instance Cache", type = DataSourceType.GAUGE)
@@ -1295,30 +1697,16 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
 
     }
 
-    private class CircularQueue<E> extends ConcurrentLinkedQueue<E> {
-        private int size = 0;
-
-        public CircularQueue(int size) {
-            this.size = size;
-        }
-
-        @Override
-        public boolean add(E e) {
-            this.makeSpaceIfNotAvailable();
-            return super.add(e);
-
-        }
-
-        private void makeSpaceIfNotAvailable() {
-            if (this.size() == size) {
-                this.remove();
-            }
-        }
-
-        public boolean offer(E e) {
-            this.makeSpaceIfNotAvailable();
-            return super.offer(e);
-        }
+    /**
+     * Gets the instance specific override set for the instance. The override is kept both in
+     * {@link #overriddenInstanceStatusMap} and on the registered {@link InstanceInfo} itself, which is read
+     * here, as the map lookup is comparatively costly for the renewal hot path.
+     *
+     * @return the override, or null if there is none
+     */
+    protected static InstanceStatus overriddenStatusOf(InstanceInfo r) {
+        InstanceStatus overridden = r.getOverriddenStatus();
+        return overridden == InstanceStatus.UNKNOWN ? null : overridden;
     }
 
     // FIXME this should really be part of peerAware registry as it has knowledge of replication ...
@@ -1326,22 +1714,4 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     protected abstract InstanceInfo.InstanceStatus getOverriddenInstanceStatus(InstanceInfo r,
                                                                                Lease<InstanceInfo> existingLease,
                                                                                boolean isReplication);
-    private TimerTask getDeltaRetentionTask() {
-        return new TimerTask() {
-
-            @Override
-            public void run() {
-                Iterator<RecentlyChangedItem> it = recentlyChangedQueue.iterator();
-                while (it.hasNext()) {
-                    if (it.next().getLastUpdateTime() <
-                            System.currentTimeMillis() - serverConfig.getRetentionTimeInMSInDeltaQueue()) {
-                        it.remove();
-                    } else {
-                        break;
-                    }
-                }
-            }
-
-        };
-    }
 }
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.converters.wrappers.EncoderWrapper;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.eureka.resources.ServerCodecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Encodes the payload of all the applications out of pre-encoded per application fragments, so a change to one
+ * application only re-encodes that application, rather than the whole registry.
+ *
+ * <p>
+ * A payload is split into the envelope (the part before the applications and the part after them, which carry
+ * the version and the apps hash code) and the application fragments, joined by a separator. As the codecs
+ * are pluggable, this layout is not hard coded, but found out from the encoder itself, by encoding a few
+ * probe payloads and comparing them. The payloads and fragments are kept as the UTF-8 bytes the encoder streams
+ * out, so a payload is joined straight into its final form. An encoder whose payloads do not split that way is not supported, in
+ * which case {@link #encode(Key.KeyType, EurekaAccept, String[], Applications)} returns null.
+ * </p>
+ *
+ * <p>
+ * The {@link Application} objects of the registry are never modified once published (see
+ * {@link RegistrySnapshot}), and the ones which did not change are shared by the consecutive versions of the
+ * registry, so a fragment is reused as long as it was encoded from the very same object. The fragments are kept
+ * per set of remote regions, as the payloads with remote regions hold other objects for the same application
+ * names, which would otherwise evict the fragments of the local payload on every encoding, and back.
+ * </p>
+ *
+ * <p>
+ * When many instances have to be encoded at once, as for the first payload of a large registry, the fragments
+ * are encoded in parallel on the given pool, split by application, and then joined in the registry order, so the
+ * payload is the same as the one encoded on a single thread.
+ * </p>
+ */
+class ApplicationFragments {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationFragments.class);
+
+    private static final String PROBE_HASH_CODE = "";
+    private static final long PROBE_VERSION = 1L;
+
+    private final ServerCodecs serverCodecs;
+    private final PayloadBuffers buffers;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final Map<String, Encoding> encodings = new HashMap<String, Encoding>();
+
+    ApplicationFragments(ServerCodecs serverCodecs) {
+        this(serverCodecs, null, Integer.MAX_VALUE);
+    }
+
+    ApplicationFragments(ServerCodecs serverCodecs, ForkJoinPool pool, int parallelThreshold) {
+        this(serverCodecs, new PayloadBuffers(PayloadBuffers.DEFAULT_POOL_SIZE), pool, parallelThreshold);
+    }
+
+    /**
+     * @param buffers the buffers to encode the payloads and their fragments into
+     * @param pool the pool to encode the fragments on, or null to encode them on the calling thread only
+     * @param parallelThreshold the number of instances to encode at once from which they are encoded in parallel
+     */
+    ApplicationFragments(ServerCodecs serverCodecs, PayloadBuffers buffers, ForkJoinPool pool, int parallelThreshold) {
+        this.serverCodecs = serverCodecs;
+        this.buffers = buffers;
+        this.pool = pool;
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+    }
+
+    /**
+     * @param regions the remote regions the applications include, sorted, or null for the local ones only
+     * @return the encoded applications, exactly as the encoder for the given type and accept would produce them
+     * in UTF-8, or null if that encoder does not support encoding them from fragments
+     */
+    byte[] encode(Key.KeyType type, EurekaAccept accept, @Nullable String[] regions, Applications apps)
+            throws Exception {
+        return encodingOf(type, accept, regions).encode(apps);
+    }
+
+    private synchronized Encoding encodingOf(Key.KeyType type, EurekaAccept accept, @Nullable String[] regions) {
+        String name = type.name() + '-' + accept.name() + (regions == null ? "" : Arrays.toString(regions));
+        Encoding encoding = encodings.get(name);
+        if (encoding == null) {
+            encoding = new Encoding(name, serverCodecs.getEncoder(type, accept), buffers, pool, parallelThreshold);
+            encodings.put(name, encoding);
+        }
+        return encoding;
+    }
+
+    private static Applications applicationsOf(String appsHashCode, long version, Application... apps) {
+        Applications applications = new Applications();
+        for (Application app : apps) {
+            applications.addApplication(app);
+        }
+        applications.setAppsHashCode(appsHashCode);
+        applications.setVersion(version);
+        return applications;
+    }
+
+    private static int commonPrefixLength(byte[] a, byte[] b) {
+        int max = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < max && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * The fragments and the layout of the payloads of one encoder.
+     */
+    private static final class Encoding {
+
+        private final String name;
+        private final EncoderWrapper encoder;
+        private final PayloadBuffers buffers;
+        private final ForkJoinPool pool;
+        private final int parallelThreshold;
+        private final Application probe = new Application("EUREKA-FRAGMENT-PROBE-A");
+
+        private boolean initialized;
+        private Envelope probeEnvelope;
+        private byte[] probeFragment;
+        private byte[] separator;
+
+        // Replaced as a whole on every encoding, which also drops the applications no longer registered
+        private volatile Map<String, Fragment> fragments = Collections.emptyMap();
+
+        Encoding(String name, EncoderWrapper encoder, PayloadBuffers buffers, ForkJoinPool pool, int parallelThreshold) {
+            this.name = name;
+            this.encoder = encoder;
+            this.buffers = buffers;
+            this.pool = pool;
+            this.parallelThreshold = parallelThreshold;
+        }
+
+        byte[] encode(Applications apps) throws Exception {
+            if (!initialize()) {
+                return null;
+            }
+            Envelope envelope = envelopeOf(apps.getAppsHashCode(), apps.getVersion() == null ? 0 : apps.getVersion());
+            if (envelope == null) {
+                return null;
+            }
+
+            List<Application> registered = apps.getRegisteredApplications();
+            Map<String, Fragment> current = fragments;
+            Fragment[] joined = new Fragment[registered.size()];
+            List<Application> changed = new ArrayList<Application>();
+            int changedInstanceCount = 0;
+            for (int i = 0; i < joined.length; i++) {
+                Application app = registered.get(i);
+                Fragment fragment = current.get(app.getName());
+                if (fragment == null || fragment.application != app) {
+                    changed.add(app);
+                    changedInstanceCount += app.size();
+                } else {
+                    joined[i] = fragment;
+                }
+            }
+
+            byte[][] encoded;
+            // Once the pool is shut down, along with the response cache, the fragments are encoded on this thread
+            if (pool != null && !pool.isShutdown() && changed.size() > 1 && changedInstanceCount >= parallelThreshold) {
+                encoded = fragmentsInParallelOf(changed, changedInstanceCount);
+            } else {
+                encoded = fragmentsOf(changed);
+            }
+            if (encoded == null) {
+                return null;
+            }
+
+            Map<String, Fragment> updated = new HashMap<String, Fragment>(joined.length * 4 / 3 + 1);
+            PayloadBuffers.Buffer buffer = buffers.acquire();
+            try {
+                buffer.write(envelope.head, 0, envelope.head.length);
+                for (int i = 0, c = 0; i < joined.length; i++) {
+                    Fragment fragment = joined[i];
+                    if (fragment == null) {
+                        fragment = new Fragment(registered.get(i), encoded[c++]);
+                    }
+                    updated.put(fragment.application.getName(), fragment);
+                    if (i > 0) {
+                        buffer.write(separator, 0, separator.length);
+                    }
+                    buffer.write(fragment.bytes, 0, fragment.bytes.length);
+                }
+                buffer.write(envelope.tail, 0, envelope.tail.length);
+                fragments = updated;
+                logger.debug("Encoded {} of {} application fragments for {}", changed.size(), registered.size(), name);
+                return buffer.toByteArray();
+            } finally {
+                buffers.release(buffer);
+            }
+        }
+
+        /**
+         * @return the fragments of the given applications, in the same order, or null if any of them cannot be
+         * encoded as a fragment
+         */
+        private byte[][] fragmentsOf(List<Application> changed) throws Exception {
+            byte[][] encoded = new byte[changed.size()][];
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = fragmentOf(changed.get(i));
+                if (encoded[i] == null) {
+                    return null;
+                }
+            }
+            return encoded;
+        }
+
+        private byte[][] fragmentsInParallelOf(List<Application> changed, int instanceCount) throws Exception {
+            // A few tasks per thread evens out the applications of very different sizes
+            int grain = Math.max(1, instanceCount / (pool.getParallelism() * 4));
+            FragmentTask task = new FragmentTask(changed, new byte[changed.size()][], 0, changed.size(), grain);
+            try {
+                pool.invoke(task);
+            } catch (EncodingFailure e) {
+                throw e.cause;
+            }
+            for (byte[] fragment : task.encoded) {
+                if (fragment == null) {
+                    return null;
+                }
+            }
+            return task.encoded;
+        }
+
+        /**
+         * Finds out the payload layout from the probe payloads, and checks that two fragments joined by the
+         * separator give the same payload as the encoder.
+         */
+        private synchronized boolean initialize() throws Exception {
+            if (initialized) {
+                return probeFragment != null;
+            }
+            initialized = true;
+            Application otherProbe = new Application("EUREKA-FRAGMENT-PROBE-B");
+            probeEnvelope = envelopeOf(PROBE_HASH_CODE, PROBE_VERSION);
+            if (probeEnvelope == null) {
+                logger.info("The {} payloads cannot be encoded from application fragments", name);
+                return false;
+            }
+            byte[] fragment = fragmentOf(probe);
+            byte[] otherFragment = fragmentOf(otherProbe);
+            byte[] both = encoded(applicationsOf(PROBE_HASH_CODE, PROBE_VERSION, probe, otherProbe));
+            int separatorStart = probeEnvelope.head.length + (fragment == null ? 0 : fragment.length);
+            int separatorEnd = both.length - probeEnvelope.tail.length
+                    - (otherFragment == null ? 0 : otherFragment.length);
+            if (fragment == null || otherFragment == null || separatorStart > separatorEnd
+                    || !PayloadBuffers.regionMatches(both, both.length, 0, probeEnvelope.head)
+                    || !PayloadBuffers.regionMatches(both, both.length, probeEnvelope.head.length, fragment)
+                    || !PayloadBuffers.regionMatches(both, both.length, separatorEnd, otherFragment)
+                    || !PayloadBuffers.regionMatches(both, both.length, both.length - probeEnvelope.tail.length,
+                    probeEnvelope.tail)) {
+                logger.info("The {} payloads cannot be encoded from application fragments", name);
+                return false;
+            }
+            separator = Arrays.copyOfRange(both, separatorStart, separatorEnd);
+            probeFragment = fragment;
+            return true;
+        }
+
+        /**
+         * Splits the payload of no applications at the point the applications go, found as the longest common
+         * prefix with the payload of a single probe application. Whatever bytes a fragment shares with the
+         * rest of the payload at that point are consistently accounted to the same side, so the fragments still
+         * join up.
+         */
+        private Envelope envelopeOf(String appsHashCode, long version) throws Exception {
+            byte[] empty = encoded(applicationsOf(appsHashCode, version));
+            byte[] single = encoded(applicationsOf(appsHashCode, version, probe));
+            int split = commonPrefixLength(empty, single);
+            Envelope envelope = new Envelope(Arrays.copyOfRange(empty, 0, split),
+                    Arrays.copyOfRange(empty, split, empty.length));
+            int tailStart = single.length - envelope.tail.length;
+            if (tailStart < split || !PayloadBuffers.regionMatches(single, single.length, tailStart, envelope.tail)) {
+                return null;
+            }
+            if (probeFragment != null && (tailStart != split + probeFragment.length
+                    || !PayloadBuffers.regionMatches(single, single.length, split, probeFragment))) {
+                return null;
+            }
+            return envelope;
+        }
+
+        private byte[] fragmentOf(Application app) throws Exception {
+            PayloadBuffers.Buffer buffer = buffers.acquire();
+            try {
+                encoder.encode(applicationsOf(PROBE_HASH_CODE, PROBE_VERSION, app), buffer);
+                int end = buffer.size() - probeEnvelope.tail.length;
+                if (end < probeEnvelope.head.length
+                        || !buffer.startsWith(probeEnvelope.head) || !buffer.endsWith(probeEnvelope.tail)) {
+                    return null;
+                }
+                return buffer.copyOfRange(probeEnvelope.head.length, end);
+            } finally {
+                buffers.release(buffer);
+            }
+        }
+
+        private byte[] encoded(Applications apps) throws Exception {
+            PayloadBuffers.Buffer buffer = buffers.acquire();
+            try {
+                encoder.encode(apps, buffer);
+                return buffer.toByteArray();
+            } finally {
+                buffers.release(buffer);
+            }
+        }
+
+        /**
+         * Encodes the fragments of a range of the applications, split in halves as long as they have more
+         * instances than the grain.
+         */
+        private final class FragmentTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final List<Application> changed;
+            private final byte[][] encoded;
+            private final int from;
+            private final int to;
+            private final int grain;
+
+            FragmentTask(List<Application> changed, byte[][] encoded, int from, int to, int grain) {
+                this.changed = changed;
+                this.encoded = encoded;
+                this.from = from;
+                this.to = to;
+                this.grain = grain;
+            }
+
+            @Override
+            protected void compute() {
+                int instanceCount = 0;
+                for (int i = from; i < to && instanceCount <= grain; i++) {
+                    instanceCount += changed.get(i).size();
+                }
+                if (to - from > 1 && instanceCount > grain) {
+                    int middle = (from + to) >>> 1;
+                    ForkJoinTask.invokeAll(new FragmentTask(changed, encoded, from, middle, grain),
+                            new FragmentTask(changed, encoded, middle, to, grain));
+                    return;
+                }
+                try {
+                    for (int i = from; i < to; i++) {
+                        // A null fragment is caught once all the tasks are done
+                        encoded[i] = fragmentOf(changed.get(i));
+                    }
+                } catch (Exception e) {
+                    throw new EncodingFailure(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Carries the checked exceptions of the encoders out of the fork join tasks.
+     */
+    private static final class EncodingFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final Exception cause;
+
+        EncodingFailure(Exception cause) {
+            super(cause);
+            this.cause = cause;
+        }
+    }
+
+    private static final class Envelope {
+        private final byte[] head;
+        private final byte[] tail;
+
+        Envelope(byte[] head, byte[] tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+    }
+
+    private static final class Fragment {
+        private final Application application;
+        private final byte[] bytes;
+
+        Fragment(Application application, byte[] bytes) {
+            this.application = application;
+            this.bytes = bytes;
+        }
+    }
+}
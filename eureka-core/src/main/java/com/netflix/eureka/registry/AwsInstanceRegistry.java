@@ -79,7 +79,7 @@ public class AwsInstanceRegistry extends PeerAwareInstanceRegistryImpl {
             return r.getStatus();
         }
         // Overrides are the status like OUT_OF_SERVICE and UP set by NAC
-        InstanceInfo.InstanceStatus overridden = overriddenInstanceStatusMap.get(r.getId());
+        InstanceInfo.InstanceStatus overridden = overriddenStatusOf(r);
         // If there are instance specific overrides, then they win - otherwise the ASG status
         if (overridden != null) {
             logger.debug("The instance specific override for instance {} and the value is {}",
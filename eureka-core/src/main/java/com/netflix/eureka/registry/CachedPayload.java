@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.hash.Hashing;
+import com.netflix.servo.monitor.Stopwatch;
+import com.netflix.servo.monitor.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A payload of the {@link ResponseCache}, in both compressed and uncompressed form.
+ *
+ * <p>
+ * The payload is kept as UTF-8 bytes, which are written to the responses as they are, along with the entity
+ * tags of each form, so serving a cached payload does not need any encoding or copying. The payload is only
+ * compressed with a content coding the first time it is asked for with that coding, so the payloads no client
+ * asks for compressed, or with a given coding, are never compressed with it.
+ * </p>
+ */
+public class CachedPayload {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedPayload.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte[] payload;
+    private final List<PayloadCompressor> compressors;
+    private final List<String> contentEncodings;
+    private final Timer compressTimer;
+    private final AtomicReferenceArray<byte[]> compressed;
+    private final String eTag;
+    // Set once loaded into the cache, before being published
+    private ResponseCacheStats.TypeStats typeStats;
+
+    /**
+     * @param payload the payload in UTF-8, which is kept as it is, so must not be modified afterwards
+     * @param compressors the compressors of the configured content codings, in order of preference
+     * @param contentEncodings the names of the codings of the compressors, in the same order
+     * @param compressTimer the timer of the compressions
+     */
+    CachedPayload(byte[] payload, List<PayloadCompressor> compressors, List<String> contentEncodings,
+                  Timer compressTimer) {
+        this.payload = payload;
+        this.compressors = compressors;
+        this.contentEncodings = contentEncodings;
+        this.compressTimer = compressTimer;
+        this.compressed = new AtomicReferenceArray<byte[]>(compressors.size());
+        this.eTag = this.payload.length > 0 ? Hashing.murmur3_128().hashBytes(this.payload).toString() : null;
+    }
+
+    void setTypeStats(ResponseCacheStats.TypeStats typeStats) {
+        this.typeStats = typeStats;
+    }
+
+    public String getPayload() {
+        return new String(payload, UTF_8);
+    }
+
+    /**
+     * @return the uncompressed payload in UTF-8, which must not be modified
+     */
+    public byte[] getPayloadBytes() {
+        return payload;
+    }
+
+    /**
+     * @return the payload compressed with gzip, which must not be modified, or null if the payload is empty,
+     * gzip is not one of the configured content codings or the payload could not be compressed
+     */
+    public byte[] getGzipped() {
+        return getCompressed(ContentEncodings.GZIP);
+    }
+
+    /**
+     * Gets the payload compressed with the given content coding, compressing it on the first call.
+     *
+     * @return the compressed payload, which must not be modified, or null if the payload is empty, the coding is
+     * not one of the configured ones or the payload could not be compressed
+     */
+    @Nullable
+    public byte[] getCompressed(String encoding) {
+        int index = contentEncodings.indexOf(encoding);
+        if (index < 0 || isEmpty()) {
+            return null;
+        }
+        byte[] result = compressed.get(index);
+        if (result == null) {
+            // Concurrent first requests may compress it more than once, which leaves the same bytes
+            Stopwatch tracer = compressTimer.start();
+            try {
+                result = compressors.get(index).compress(payload);
+            } catch (RuntimeException e) {
+                // Served uncompressed instead; a later request tries again
+                logger.error("Cannot compress a payload of " + payload.length + " bytes with " + encoding, e);
+                return null;
+            } finally {
+                tracer.stop();
+            }
+            if (compressed.compareAndSet(index, null, result) && typeStats != null) {
+                typeStats.recordCompression(result.length);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the total size of the compressed forms of the payload created so far
+     */
+    public long getCompressedSize() {
+        long size = 0;
+        for (int i = 0; i < compressed.length(); i++) {
+            byte[] forEncoding = compressed.get(i);
+            if (forEncoding != null) {
+                size += forEncoding.length;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @param acceptEncoding the Accept-Encoding header of the request, or null if it has none
+     * @return the content coding to serve the payload with, or null to serve it uncompressed
+     */
+    public String selectEncoding(@Nullable String acceptEncoding) {
+        if (isEmpty()) {
+            return null;
+        }
+        return ContentEncodings.negotiate(acceptEncoding, contentEncodings);
+    }
+
+    public boolean isEmpty() {
+        return payload.length == 0;
+    }
+
+    /**
+     * @return the entity tag of the uncompressed or the gzip compressed payload, quoted as in an ETag header,
+     * or null for an empty payload
+     */
+    public String getETag(boolean compressed) {
+        return getETag(compressed ? ContentEncodings.GZIP : null);
+    }
+
+    /**
+     * @param encoding the content coding of the payload, or null for the uncompressed one
+     * @return the entity tag of the payload with the given coding, quoted as in an ETag header, or null for an
+     * empty payload
+     */
+    public String getETag(@Nullable String encoding) {
+        if (eTag == null) {
+            return null;
+        }
+        return encoding == null ? '"' + eTag + '"' : '"' + eTag + '-' + encoding + '"';
+    }
+}
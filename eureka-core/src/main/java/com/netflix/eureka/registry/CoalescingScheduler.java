@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs tasks on a background thread shared by all of them when asked to, coalescing the runs of a task asked for
+ * while one is pending into it, with two runs of a task at least its minimum interval apart. This bounds how
+ * often each task runs when it is asked for continuously, as the response cache background work is on each change
+ * of the registry, and keeps all of that work on a single thread.
+ */
+class CoalescingScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingScheduler.class);
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * @param threadName the name of the thread running the tasks
+     */
+    CoalescingScheduler(final String threadName) {
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @param name the name of the task, for the logs
+     * @param minIntervalMs the minimum time between the start of two runs of the task
+     * @param task the task to run
+     * @return the handle to ask for runs of the task with
+     */
+    CoalescedTask newTask(String name, long minIntervalMs, Runnable task) {
+        return new CoalescedTask(name, minIntervalMs, task);
+    }
+
+    /**
+     * Stops the thread running the tasks, interrupting a run in progress. The runs asked for from then on are
+     * ignored.
+     */
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A task of the scheduler, whose runs are coalesced.
+     */
+    final class CoalescedTask {
+
+        private final String name;
+        private final long minIntervalMs;
+        private final Runnable task;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final Runnable runTask = new Runnable() {
+            @Override
+            public void run() {
+                // Cleared first, so the runs asked for from now on schedule the next one
+                scheduled.set(false);
+                lastRunTime = System.currentTimeMillis();
+                try {
+                    task.run();
+                } catch (Throwable th) {
+                    logger.error("Error while running " + name, th);
+                }
+            }
+        };
+
+        // Only written by the scheduler thread
+        private volatile long lastRunTime;
+
+        private CoalescedTask(String name, long minIntervalMs, Runnable task) {
+            this.name = name;
+            this.minIntervalMs = minIntervalMs;
+            this.task = task;
+        }
+
+        /**
+         * Schedules a run of the task, unless one is pending already.
+         */
+        void schedule() {
+            if (executor.isShutdown()) {
+                return;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                long delay = Math.max(0, lastRunTime + minIntervalMs - System.currentTimeMillis());
+                try {
+                    executor.schedule(runTask, delay, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    logger.debug("Not running {} as it is stopped", name);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The content codings of the response cache payloads, and their negotiation against the Accept-Encoding header
+ * of the requests.
+ */
+public final class ContentEncodings {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentEncodings.class);
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * The content codings the server compresses its payloads with out of the box, in order of preference.
+     */
+    public static final List<String> BUILT_IN = Collections.unmodifiableList(Arrays.asList(GZIP, DEFLATE));
+
+    private static final String ANY = "*";
+    private static final String QUALITY_PREFIX = "q=";
+
+    private ContentEncodings() {
+    }
+
+    /**
+     * @param encodings the codings to compress with, in order of preference
+     * @param level the compression level, from 0 to 9, or -1 for the default one
+     * @return the compressors of the given built in codings; the others are left out
+     */
+    public static List<PayloadCompressor> builtInCompressors(List<String> encodings, int level) {
+        List<PayloadCompressor> compressors = new ArrayList<>(encodings.size());
+        for (String encoding : encodings) {
+            if (GZIP.equals(encoding)) {
+                compressors.add(DeflaterPayloadCompressor.gzip(level));
+            } else if (DEFLATE.equals(encoding)) {
+                compressors.add(DeflaterPayloadCompressor.deflate(level));
+            } else {
+                logger.warn("Unsupported response cache content encoding {}; ignoring it", encoding);
+            }
+        }
+        return compressors;
+    }
+
+    /**
+     * Picks the content coding to serve a request with, among the given ones. The coding with the highest quality
+     * value in the Accept-Encoding header wins, and the codings of equal quality are ranked in the given order.
+     *
+     * @param acceptEncoding the Accept-Encoding header of the request, or null if it has none
+     * @param available the codings the payload can be served with, in order of preference
+     * @return the coding to serve the request with, or null to serve it uncompressed
+     */
+    @Nullable
+    public static String negotiate(@Nullable String acceptEncoding, List<String> available) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        String[] accepted = acceptEncoding.split(",");
+        String best = null;
+        float bestQuality = 0;
+        for (String encoding : available) {
+            float quality = qualityOf(encoding, accepted);
+            if (quality > bestQuality) {
+                best = encoding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the quality value the header gives to the coding, either by name or through "*", or 0 if it does
+     * not accept it
+     */
+    private static float qualityOf(String encoding, String[] accepted) {
+        float anyQuality = 0;
+        for (String entry : accepted) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim();
+            float quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith(QUALITY_PREFIX)) {
+                    try {
+                        quality = Float.parseFloat(parameter.substring(QUALITY_PREFIX.length()));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (encoding.equalsIgnoreCase(name)) {
+                return quality;
+            }
+            if (ANY.equals(name)) {
+                anyQuality = quality;
+            }
+        }
+        return anyQuality;
+    }
+}
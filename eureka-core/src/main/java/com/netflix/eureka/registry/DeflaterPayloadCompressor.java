@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the payloads with the JDK {@link Deflater}, in the gzip or in the deflate (zlib) format.
+ *
+ * <p>
+ * The deflaters are pooled, rather than created per payload as {@link java.util.zip.GZIPOutputStream} does, as
+ * each one holds native memory until it is ended or finalized. The payload is compressed in a single pass
+ * straight into the returned array, which only needs to be trimmed to size at the end.
+ * </p>
+ */
+public class DeflaterPayloadCompressor implements PayloadCompressor {
+
+    private static final int DEFAULT_POOL_SIZE = 8;
+
+    // The header of GZIPOutputStream: magic number, deflate method, no flags, no modification time, no extra
+    // flags and no operating system
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int GZIP_TRAILER_LENGTH = 8;
+
+    private final String encoding;
+    private final int level;
+    private final boolean gzip;
+    private final BlockingQueue<Deflater> deflaters;
+
+    private DeflaterPayloadCompressor(String encoding, int level, boolean gzip, int poolSize) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        this.encoding = encoding;
+        this.level = level;
+        this.gzip = gzip;
+        this.deflaters = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * @param level the compression level, from 0 to 9, or -1 for the default one
+     */
+    public static DeflaterPayloadCompressor gzip(int level) {
+        return new DeflaterPayloadCompressor(ContentEncodings.GZIP, level, true, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @param level the compression level, from 0 to 9, or -1 for the default one
+     */
+    public static DeflaterPayloadCompressor deflate(int level) {
+        return new DeflaterPayloadCompressor(ContentEncodings.DEFLATE, level, false, DEFAULT_POOL_SIZE);
+    }
+
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public byte[] compress(byte[] payload) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            // The gzip format has its own header and trailer around the raw deflate data
+            deflater = new Deflater(level, gzip);
+        }
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+
+            byte[] out = new byte[payload.length / 4 + 64];
+            int length = 0;
+            if (gzip) {
+                System.arraycopy(GZIP_HEADER, 0, out, 0, GZIP_HEADER.length);
+                length = GZIP_HEADER.length;
+            }
+            while (!deflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            if (gzip) {
+                if (length + GZIP_TRAILER_LENGTH > out.length) {
+                    out = Arrays.copyOf(out, length + GZIP_TRAILER_LENGTH);
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                writeIntLE(out, length, (int) crc.getValue());
+                writeIntLE(out, length + 4, payload.length);
+                length += GZIP_TRAILER_LENGTH;
+            }
+            return length == out.length ? out : Arrays.copyOf(out, length);
+        } finally {
+            deflater.reset();
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    private static void writeIntLE(byte[] out, int offset, int value) {
+        out[offset] = (byte) value;
+        out[offset + 1] = (byte) (value >> 8);
+        out[offset + 2] = (byte) (value >> 16);
+        out[offset + 3] = (byte) (value >> 24);
+    }
+}
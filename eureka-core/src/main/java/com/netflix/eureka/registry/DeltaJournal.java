@@ -0,0 +1,351 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.eureka.lease.Lease;
+
+/**
+ * A fixed-capacity journal of the registry changes, from which the delta payloads are built.
+ *
+ * <p>
+ * Every change is recorded with a monotonically increasing sequence number into a ring buffer, so the memory
+ * used by the journal is bounded by its capacity, and the changes following a given sequence number are
+ * found in time proportional to their count. Writers only contend on the sequence counter and never wait for
+ * the readers. Besides the capacity, the changes are retained for a limited time only; both limits are
+ * applied when the journal is read, so no cleanup task is needed.
+ * </p>
+ *
+ * <p>
+ * A reader takes a {@link Snapshot}, which is bounded by the last sequence number at the time it was taken.
+ * Each record keeps a copy of the {@link InstanceInfo} taken at the time of the change, so a snapshot describes
+ * the registry as it was at that point, even if the instance is modified later on.
+ * </p>
+ *
+ * <p>
+ * Readers following the changes as they are made can wait for the next one with
+ * {@link #awaitChangeAfter(long, long)}. The writers only take the monitor the readers wait on while some of
+ * them are waiting.
+ * </p>
+ *
+ * <p>
+ * The sequence numbers start over with each journal, so each journal has its own incarnation id, which tells
+ * the readers holding on to a sequence number whether it was issued by this journal.
+ * </p>
+ */
+public class DeltaJournal {
+
+    private final int capacity;
+    private final int mask;
+    private final long retentionTimeMs;
+    private final AtomicReferenceArray<ChangeRecord> records;
+    private final AtomicLong lastSequence = new AtomicLong(0);
+    private final String incarnation = UUID.randomUUID().toString();
+
+    /**
+     * Sequence number of the last change dropped because of the retention time or {@link #clear()}.
+     */
+    private final AtomicLong droppedSequence = new AtomicLong(0);
+
+    private final Object appendMonitor = new Object();
+    private volatile int waiters;
+
+    public DeltaJournal(int capacity, long retentionTimeMs) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The delta journal capacity must be positive: " + capacity);
+        }
+        int highestOneBit = Integer.highestOneBit(capacity);
+        this.capacity = highestOneBit == capacity ? capacity : highestOneBit << 1;
+        this.mask = this.capacity - 1;
+        this.retentionTimeMs = retentionTimeMs;
+        this.records = new AtomicReferenceArray<ChangeRecord>(this.capacity);
+    }
+
+    /**
+     * Records the current state of the lease holder as a change.
+     *
+     * @return the sequence number of the change
+     */
+    public long append(Lease<InstanceInfo> lease) {
+        // The copy is taken before the sequence number is claimed, so a failure cannot leave a claimed sequence
+        // number without a record, which the readers would wait for forever
+        InstanceInfo instanceInfo = new InstanceInfo(lease.getHolder());
+        long sequence = lastSequence.incrementAndGet();
+        ChangeRecord record = new ChangeRecord(sequence, lease, instanceInfo);
+        int index = (int) (sequence & mask);
+        while (true) {
+            ChangeRecord current = records.get(index);
+            // A writer which lapped this one around the ring has already published a later change here
+            if (current != null && current.getSequence() > sequence) {
+                break;
+            }
+            if (records.compareAndSet(index, current, record)) {
+                break;
+            }
+        }
+        if (waiters > 0) {
+            synchronized (appendMonitor) {
+                appendMonitor.notifyAll();
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Waits until a change following the given sequence number is recorded.
+     *
+     * @return true if there is such a change, or false if none was recorded within the timeout
+     */
+    public boolean awaitChangeAfter(long sequence, long timeoutMs) throws InterruptedException {
+        if (lastSequence.get() > sequence) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (appendMonitor) {
+            waiters++;
+            try {
+                long remaining = timeoutMs;
+                while (lastSequence.get() <= sequence && remaining > 0) {
+                    appendMonitor.wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+                return lastSequence.get() > sequence;
+            } finally {
+                waiters--;
+            }
+        }
+    }
+
+    /**
+     * @return the sequence number of the last recorded change, or 0 if there was none
+     */
+    public long getLastSequence() {
+        return lastSequence.get();
+    }
+
+    /**
+     * @return the id of this journal, which the sequence numbers are relative to
+     */
+    public String getIncarnation() {
+        return incarnation;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Takes a snapshot of all the changes which are still retained.
+     */
+    public Snapshot snapshot() {
+        return snapshot(lastSequence.get());
+    }
+
+    /**
+     * Takes a snapshot of the changes which are still retained, up to the given sequence number.
+     */
+    public Snapshot snapshot(long lastSequence) {
+        return collect(firstRetained(lastSequence) - 1, lastSequence, false);
+    }
+
+    /**
+     * Takes a snapshot of the changes following the given sequence number.
+     *
+     * @return the snapshot, or null if some of the requested changes are no longer retained, or the sequence
+     * number is ahead of this journal, in which case the caller has to start over with the full registry
+     */
+    public Snapshot snapshotSince(long sequence) {
+        long last = lastSequence.get();
+        if (sequence > last) {
+            return null;
+        }
+        if (sequence == last) {
+            return new Snapshot(last, last, new ChangeRecord[0]);
+        }
+        if (sequence < firstRetained(last) - 1) {
+            return null;
+        }
+        return collect(sequence, last, true);
+    }
+
+    /**
+     * @return true if any change was recorded after the given snapshot had been taken
+     */
+    public boolean hasChangedSince(Snapshot snapshot) {
+        return lastSequence.get() != snapshot.getLastSequence();
+    }
+
+    /**
+     * Drops all the changes recorded so far. Sequence numbers are not reset.
+     */
+    public void clear() {
+        advanceDroppedSequence(lastSequence.get());
+    }
+
+    private long firstRetained(long last) {
+        long first = Math.max(droppedSequence.get(), last - capacity) + 1;
+        if (retentionTimeMs > 0) {
+            long cutoff = System.currentTimeMillis() - retentionTimeMs;
+            long expired = first - 1;
+            for (long sequence = first; sequence <= last; sequence++) {
+                ChangeRecord record = awaitRecord(sequence);
+                if (record != null && record.getTimestamp() >= cutoff) {
+                    break;
+                }
+                expired = sequence;
+            }
+            if (expired >= first) {
+                advanceDroppedSequence(expired);
+                first = expired + 1;
+            }
+        }
+        return first;
+    }
+
+    private void advanceDroppedSequence(long sequence) {
+        long current;
+        while ((current = droppedSequence.get()) < sequence) {
+            if (droppedSequence.compareAndSet(current, sequence)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Copies the records in the (from, to] range. Records may get overwritten while they are copied, if the
+     * writers lap the reader around the ring. The lost records are skipped, unless the snapshot has to be
+     * complete, in which case null is returned.
+     */
+    private Snapshot collect(long from, long to, boolean complete) {
+        int count = (int) Math.max(0, to - from);
+        ChangeRecord[] copy = new ChangeRecord[count];
+        int copied = 0;
+        for (long sequence = from + 1; sequence <= to; sequence++) {
+            ChangeRecord record = awaitRecord(sequence);
+            if (record != null) {
+                copy[copied++] = record;
+            } else if (complete) {
+                return null;
+            }
+        }
+        if (copied < count) {
+            copy = Arrays.copyOf(copy, copied);
+        }
+        return new Snapshot(from, to, copy);
+    }
+
+    /**
+     * @return the record with the given sequence number, or null if it has already been overwritten
+     */
+    private ChangeRecord awaitRecord(long sequence) {
+        int index = (int) (sequence & mask);
+        while (true) {
+            ChangeRecord record = records.get(index);
+            if (record != null && record.getSequence() >= sequence) {
+                return record.getSequence() == sequence ? record : null;
+            }
+            // The sequence number was taken, but the writer has not published the record yet
+            Thread.yield();
+        }
+    }
+
+    /**
+     * An immutable list of consecutive changes.
+     */
+    public static final class Snapshot implements Iterable<ChangeRecord> {
+        private final long afterSequence;
+        private final long lastSequence;
+        private final ChangeRecord[] records;
+
+        private Snapshot(long afterSequence, long lastSequence, ChangeRecord[] records) {
+            this.afterSequence = afterSequence;
+            this.lastSequence = lastSequence;
+            this.records = records;
+        }
+
+        /**
+         * @return the sequence number the snapshot starts after
+         */
+        public long getAfterSequence() {
+            return afterSequence;
+        }
+
+        /**
+         * @return the sequence number of the last change in the snapshot, after which the next snapshot
+         * should be requested
+         */
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        public int size() {
+            return records.length;
+        }
+
+        @Override
+        public Iterator<ChangeRecord> iterator() {
+            return Arrays.asList(records).iterator();
+        }
+    }
+
+    /**
+     * A change of a single instance.
+     */
+    public static final class ChangeRecord {
+        private final long sequence;
+        private final long timestamp;
+        private final Lease<InstanceInfo> lease;
+        private final InstanceInfo instanceInfo;
+
+        ChangeRecord(long sequence, Lease<InstanceInfo> lease, InstanceInfo instanceInfo) {
+            this.sequence = sequence;
+            this.lease = lease;
+            this.instanceInfo = instanceInfo;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public ActionType getActionType() {
+            return instanceInfo.getActionType();
+        }
+
+        public Lease<InstanceInfo> getLease() {
+            return lease;
+        }
+
+        /**
+         * @return a copy of the lease holder, as it was when the change was recorded
+         */
+        public InstanceInfo getInstanceInfo() {
+            return instanceInfo;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.lease.Lease;
+
+/**
+ * Secondary indexes of the registry leases, by instance id and by VIP and secure VIP address, so these lookups
+ * cost in proportion to their result rather than to the registry size.
+ *
+ * <p>
+ * The registry updates the indexes together with its application maps, under the monitor of the application map,
+ * so for any given instance the indexes follow the same order of changes as the registry. Reads are not blocking
+ * and weakly consistent, like those of the registry itself. The keys a lease was indexed with are remembered, as
+ * the lease holder may be modified in place before it is replaced.
+ * </p>
+ */
+class InstanceIndex {
+
+    private final ConcurrentHashMap<String, Entries> byId = new ConcurrentHashMap<String, Entries>();
+    private final ConcurrentHashMap<String, Entries> byVip = new ConcurrentHashMap<String, Entries>();
+    private final ConcurrentHashMap<String, Entries> bySecureVip = new ConcurrentHashMap<String, Entries>();
+    private final ConcurrentHashMap<Lease<InstanceInfo>, IndexKeys> keysByLease =
+            new ConcurrentHashMap<Lease<InstanceInfo>, IndexKeys>();
+
+    /**
+     * Indexes the newly registered lease, replacing the given one if any.
+     */
+    void add(Lease<InstanceInfo> lease, Lease<InstanceInfo> replacedLease) {
+        if (replacedLease != null) {
+            remove(replacedLease);
+        }
+        InstanceInfo info = lease.getHolder();
+        if (info == null) {
+            return;
+        }
+        IndexKeys keys = new IndexKeys(info);
+        keysByLease.put(lease, keys);
+        add(byId, keys.id, lease);
+        for (String vip : keys.vips) {
+            add(byVip, vip, lease);
+        }
+        for (String svip : keys.secureVips) {
+            add(bySecureVip, svip, lease);
+        }
+    }
+
+    void remove(Lease<InstanceInfo> lease) {
+        IndexKeys keys = keysByLease.remove(lease);
+        if (keys == null) {
+            return;
+        }
+        remove(byId, keys.id, lease);
+        for (String vip : keys.vips) {
+            remove(byVip, vip, lease);
+        }
+        for (String svip : keys.secureVips) {
+            remove(bySecureVip, svip, lease);
+        }
+    }
+
+    void clear() {
+        keysByLease.clear();
+        byId.clear();
+        byVip.clear();
+        bySecureVip.clear();
+    }
+
+    /**
+     * @return the leases of the instances with the given id, one per application using it
+     */
+    Collection<Lease<InstanceInfo>> getById(String id) {
+        return get(byId, id);
+    }
+
+    /**
+     * @return the leases of the instances which have the given address among their VIP or secure VIP addresses
+     */
+    Collection<Lease<InstanceInfo>> getByVip(String vipAddress, boolean secure) {
+        return get(secure ? bySecureVip : byVip, vipAddress);
+    }
+
+    /**
+     * Splits a comma separated list of VIP addresses, the same way VIP queries always matched them.
+     */
+    static String[] splitVips(String vipAddresses) {
+        return vipAddresses == null ? new String[0] : vipAddresses.split(",");
+    }
+
+    private static Collection<Lease<InstanceInfo>> get(ConcurrentHashMap<String, Entries> index, String key) {
+        Entries entries = index.get(key);
+        if (entries == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(entries.leases);
+    }
+
+    private static void add(ConcurrentHashMap<String, Entries> index, String key, Lease<InstanceInfo> lease) {
+        while (true) {
+            Entries entries = index.get(key);
+            if (entries == null) {
+                Entries newEntries = new Entries();
+                entries = index.putIfAbsent(key, newEntries);
+                if (entries == null) {
+                    entries = newEntries;
+                }
+            }
+            synchronized (entries) {
+                // Retry if the entries got empty and were dropped in the meantime
+                if (!entries.removed) {
+                    entries.leases.add(lease);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void remove(ConcurrentHashMap<String, Entries> index, String key, Lease<InstanceInfo> lease) {
+        Entries entries = index.get(key);
+        if (entries == null) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.leases.remove(lease) && entries.leases.isEmpty()) {
+                entries.removed = true;
+                index.remove(key, entries);
+            }
+        }
+    }
+
+    private static final class IndexKeys {
+        final String id;
+        final String[] vips;
+        final String[] secureVips;
+
+        IndexKeys(InstanceInfo info) {
+            this.id = info.getId();
+            this.vips = splitVips(info.getVIPAddress());
+            this.secureVips = splitVips(info.getSecureVipAddress());
+        }
+    }
+
+    private static final class Entries {
+        final Set<Lease<InstanceInfo>> leases =
+                Collections.newSetFromMap(new ConcurrentHashMap<Lease<InstanceInfo>, Boolean>());
+        boolean removed;
+    }
+}
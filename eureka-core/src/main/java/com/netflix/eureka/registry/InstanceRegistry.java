@@ -9,10 +9,19 @@ import com.netflix.discovery.shared.LookupService;
 import com.netflix.discovery.shared.Pair;
 import com.netflix.eureka.lease.LeaseManager;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Map;
 
 /**
+ * The registry of the instances of this server.
+ *
+ * <p>
+ * The local applications handed out by the getters are those of a registry snapshot, which is shared by all its
+ * readers, so they are read only: changing an {@link Applications} or {@link Application} they return throws an
+ * {@link UnsupportedOperationException}. A caller needing to change them builds its own copy.
+ * </p>
+ *
  * @author Tomasz Bak
  */
 public interface InstanceRegistry extends LeaseManager<InstanceInfo>, LookupService<String> {
@@ -34,8 +43,14 @@ public interface InstanceRegistry extends LeaseManager<InstanceInfo>, LookupServ
 
     Map<String, InstanceStatus> overriddenInstanceStatusesSnapshot();
 
+    /**
+     * @return the applications of the local region, which are read only
+     */
     Applications getApplicationsFromLocalRegionOnly();
 
+    /**
+     * @return a new list of the applications, sorted by name, which are read only
+     */
     List<Application> getSortedApplications();
 
     /**
@@ -45,7 +60,7 @@ public interface InstanceRegistry extends LeaseManager<InstanceInfo>, LookupServ
      * @param includeRemoteRegion true, if we need to include applications from remote regions
      *                            as indicated by the region {@link java.net.URL} by this property
      *                            {@link com.netflix.eureka.EurekaServerConfig#getRemoteRegionUrls()}, false otherwise
-     * @return the application
+     * @return the application, which is read only
      */
     Application getApplication(String appName, boolean includeRemoteRegion);
 
@@ -70,6 +85,54 @@ public interface InstanceRegistry extends LeaseManager<InstanceInfo>, LookupServ
      */
     InstanceInfo getInstanceByAppAndId(String appName, String id, boolean includeRemoteRegions);
 
+    /**
+     * Gets the {@link InstanceInfo} of a registered instance as it is held by the local registry, without
+     * filling in its lease information, for the request paths which only look at the instance state.
+     *
+     * @param appName the application name of the instance.
+     * @param id the unique identifier of the instance.
+     * @return the instance, or null if it is not registered or its lease expired.
+     */
+    InstanceInfo getRegisteredInstance(String appName, String id);
+
+    /**
+     * Gets the registry changes which followed the given sequence number, in the order they happened.
+     *
+     * @param sequence the sequence number of the last change known to the caller, as returned by
+     *                 {@link DeltaJournal.Snapshot#getLastSequence()} or {@link #getLastChangeSequence()}
+     * @return the changes, or null if some of them are no longer retained, or the sequence number is ahead of
+     * this registry, in which case the caller has to do a full fetch of the registry
+     */
+    DeltaJournal.Snapshot getChangesSince(long sequence);
+
+    /**
+     * @return the sequence number of the last change of the registry
+     */
+    long getLastChangeSequence();
+
+    /**
+     * @return the id of this incarnation of the registry; the change sequence numbers are only meaningful along
+     * with it, as they start over with each incarnation
+     */
+    String getChangeIncarnation();
+
+    /**
+     * Gets the applications of the local region, along with the sequence number of the last change they account
+     * for, so the changes following them can be requested with {@link #getChangesSince(long)}.
+     *
+     * @return the sequence number, and the applications, which are shared and must not be modified
+     */
+    Pair<Long, Applications> getApplicationsFromLocalRegionWithChangeSequence();
+
+    /**
+     * Waits until the registry changes after the given sequence number.
+     *
+     * @param sequence the sequence number of the last change known to the caller
+     * @param timeoutMs the maximum time to wait
+     * @return true if the registry changed, or false if it did not within the timeout
+     */
+    boolean awaitChangeAfter(long sequence, long timeoutMs) throws InterruptedException;
+
     void clearRegistry();
 
     void initializedResponseCache();
@@ -84,8 +147,30 @@ public interface InstanceRegistry extends LeaseManager<InstanceInfo>, LookupServ
 
     List<Pair<Long, String>> getLastNRegisteredInstances();
 
+    /**
+     * Gets the most recent registrations of an application, or of all the applications, within a time range.
+     *
+     * @param appName the application name, or null for all the applications.
+     * @param fromTimestamp the earliest registration timestamp included.
+     * @param toTimestamp the latest registration timestamp included.
+     * @return the registration timestamps and instances, the most recent first.
+     */
+    List<Pair<Long, String>> getLastNRegisteredInstances(@Nullable String appName,
+                                                         long fromTimestamp, long toTimestamp);
+
     List<Pair<Long, String>> getLastNCanceledInstances();
 
+    /**
+     * Gets the most recent cancellations of an application, or of all the applications, within a time range.
+     *
+     * @param appName the application name, or null for all the applications.
+     * @param fromTimestamp the earliest cancellation timestamp included.
+     * @param toTimestamp the latest cancellation timestamp included.
+     * @return the cancellation timestamps and instances, the most recent first.
+     */
+    List<Pair<Long, String>> getLastNCanceledInstances(@Nullable String appName,
+                                                       long fromTimestamp, long toTimestamp);
+
     /**
      * Checks whether lease expiration is enabled.
      * @return true if enabled
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.eureka.lease.Lease;
+
+/**
+ * Counts the registered instances by status, so the reconcile hash code of the registry
+ * (see {@link Applications#getReconcileHashCode()}) is available without walking it.
+ *
+ * <p>
+ * Each change of the counts is appended to the {@link DeltaJournal} in the same step, and each {@link Snapshot}
+ * carries the sequence number of the last change it accounts for. The changes do not take any lock, so the
+ * writers only contend on the counters of the statuses they change and on the journal sequence. Instead, the
+ * snapshots are taken as with a seqlock: the changes count themselves in and out, and a reader only keeps the
+ * counts and the journal sequence it read while no change was in progress and none started.
+ * </p>
+ */
+class InstanceStatusCounts {
+
+    private static final InstanceStatus[] STATUSES_BY_NAME = InstanceStatus.values();
+
+    static {
+        // The reconcile hash code lists the statuses in their name order
+        Arrays.sort(STATUSES_BY_NAME, new Comparator<InstanceStatus>() {
+            @Override
+            public int compare(InstanceStatus first, InstanceStatus second) {
+                return first.name().compareTo(second.name());
+            }
+        });
+    }
+
+    private final DeltaJournal deltaJournal;
+    // Each map update is paired with the matching counter updates, so the counts add up once the changes are done
+    private final ConcurrentMap<Lease<InstanceInfo>, InstanceStatus> countedStatuses =
+            new ConcurrentHashMap<Lease<InstanceInfo>, InstanceStatus>();
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(InstanceStatus.values().length);
+    private final AtomicLong startedChanges = new AtomicLong();
+    private final AtomicLong completedChanges = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(0, 0, new int[InstanceStatus.values().length]);
+
+    /**
+     * @param deltaJournal the journal the changes are appended to
+     */
+    InstanceStatusCounts(DeltaJournal deltaJournal) {
+        this.deltaJournal = deltaJournal;
+    }
+
+    /**
+     * Starts counting the lease, in place of the one it replaced, if any, and appends it to the journal.
+     */
+    void register(Lease<InstanceInfo> lease, Lease<InstanceInfo> replacedLease) {
+        startedChanges.incrementAndGet();
+        try {
+            if (replacedLease != null) {
+                uncount(replacedLease);
+            }
+            count(lease);
+            deltaJournal.append(lease);
+        } finally {
+            completedChanges.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the lease under the current status of its holder, if it is counted at all, and appends it to the
+     * journal.
+     */
+    void statusChanged(Lease<InstanceInfo> lease) {
+        startedChanges.incrementAndGet();
+        try {
+            InstanceInfo info = lease.getHolder();
+            if (info != null) {
+                InstanceStatus status = info.getStatus();
+                InstanceStatus previous = countedStatuses.replace(lease, status);
+                if (previous != null) {
+                    counts.decrementAndGet(previous.ordinal());
+                    counts.incrementAndGet(status.ordinal());
+                }
+            }
+            deltaJournal.append(lease);
+        } finally {
+            completedChanges.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops counting the lease, and appends it to the journal.
+     */
+    void cancel(Lease<InstanceInfo> lease) {
+        startedChanges.incrementAndGet();
+        try {
+            uncount(lease);
+            deltaJournal.append(lease);
+        } finally {
+            completedChanges.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops counting all the leases, and drops the changes of the journal.
+     */
+    void clear() {
+        startedChanges.incrementAndGet();
+        try {
+            deltaJournal.clear();
+            for (Lease<InstanceInfo> lease : countedStatuses.keySet()) {
+                uncount(lease);
+            }
+        } finally {
+            completedChanges.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the counts as of the last change appended to the journal, which waits for the changes in progress
+     */
+    Snapshot getSnapshot() {
+        while (true) {
+            // Completed first, so that equal values mean no change was in progress when started was read
+            long completed = completedChanges.get();
+            long started = startedChanges.get();
+            Snapshot last = snapshot;
+            if (last.changes == started && started == completed) {
+                return last;
+            }
+            if (started == completed) {
+                int[] current = new int[counts.length()];
+                for (int i = 0; i < current.length; i++) {
+                    current[i] = counts.get(i);
+                }
+                long sequence = deltaJournal.getLastSequence();
+                if (startedChanges.get() == started) {
+                    Snapshot result = new Snapshot(started, sequence, current);
+                    snapshot = result;
+                    return result;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Adds counts indexed by {@link InstanceStatus#ordinal()} to an instance count map, as populated by
+     * {@link Applications#populateInstanceCountMap(TreeMap)}.
+     */
+    static void addCounts(int[] counts, TreeMap<String, AtomicInteger> instanceCountMap) {
+        for (InstanceStatus status : STATUSES_BY_NAME) {
+            int count = counts[status.ordinal()];
+            if (count > 0) {
+                AtomicInteger instanceCount = instanceCountMap.get(status.name());
+                if (instanceCount == null) {
+                    instanceCountMap.put(status.name(), new AtomicInteger(count));
+                } else {
+                    instanceCount.addAndGet(count);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the reconcile hash code for counts indexed by {@link InstanceStatus#ordinal()}
+     */
+    static String reconcileHashCode(int[] counts) {
+        StringBuilder sb = new StringBuilder();
+        for (InstanceStatus status : STATUSES_BY_NAME) {
+            int count = counts[status.ordinal()];
+            if (count > 0) {
+                sb.append(status.name()).append('_').append(count).append('_');
+            }
+        }
+        return sb.toString();
+    }
+
+    private void count(Lease<InstanceInfo> lease) {
+        InstanceInfo info = lease.getHolder();
+        if (info != null) {
+            InstanceStatus status = info.getStatus();
+            InstanceStatus previous = countedStatuses.put(lease, status);
+            counts.incrementAndGet(status.ordinal());
+            if (previous != null) {
+                counts.decrementAndGet(previous.ordinal());
+            }
+        }
+    }
+
+    private void uncount(Lease<InstanceInfo> lease) {
+        InstanceStatus status = countedStatuses.remove(lease);
+        if (status != null) {
+            counts.decrementAndGet(status.ordinal());
+        }
+    }
+
+    /**
+     * Instance counts by status, as of a given {@link DeltaJournal} sequence number.
+     */
+    static final class Snapshot {
+        // The number of changes started when the snapshot was taken, which tells whether it is still current
+        private final long changes;
+        private final long sequence;
+        private final int[] counts;
+
+        private Snapshot(long changes, long sequence, int[] counts) {
+            this.changes = changes;
+            this.sequence = sequence;
+            this.counts = counts;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        int getCount(InstanceStatus status) {
+            return counts[status.ordinal()];
+        }
+
+        /**
+         * Adds the counts to an instance count map, as populated by
+         * {@link Applications#populateInstanceCountMap(TreeMap)}.
+         */
+        void addTo(TreeMap<String, AtomicInteger> instanceCountMap) {
+            addCounts(counts, instanceCountMap);
+        }
+
+        /**
+         * @return the reconcile hash code of the counted instances, built in O(#statuses)
+         */
+        String getReconcileHashCode() {
+            return reconcileHashCode(counts);
+        }
+    }
+}
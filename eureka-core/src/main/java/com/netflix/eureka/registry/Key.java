@@ -6,6 +6,23 @@ import com.netflix.eureka.Version;
 import javax.annotation.Nullable;
 import java.util.Arrays;
 
+/**
+ * The key of a {@link ResponseCache} payload.
+ *
+ * <p>
+ * Its enums, together with the id of its region set, are packed into a single long, so keys are compared and
+ * hashed without going through the enum names or the regions; the name is compared by value, and the regions
+ * are still compared by value when the ids are equal, as the ids past the interned region sets are shared. The
+ * keys without regions are best obtained with {@link #of(EntityType, String, KeyType, Version, EurekaAccept)},
+ * which returns their canonical instance for the interned names rather than building a new one, so the lookups
+ * of those keys mostly end on the reference comparison.
+ * </p>
+ *
+ * <p>
+ * A key may also be of a {@link RegistryView} of its payload, which is not packed, but is interned so it is
+ * compared by reference.
+ * </p>
+ */
 public class Key {
 
     public enum KeyType {
@@ -23,23 +40,64 @@ public class Key {
     private final String[] regions;
     private final KeyType requestType;
     private final Version requestVersion;
-    private final String hashKey;
     private final EntityType entityType;
     private final EurekaAccept eurekaAccept;
+    private final RegistryView view;
+    private final long packed;
+    private final int hash;
+    private volatile String hashKey;
 
     public Key(EntityType entityType, String entityName, KeyType type, Version v, EurekaAccept eurekaAccept) {
         this(entityType, entityName, type, v, eurekaAccept, null);
     }
 
     public Key(EntityType entityType, String entityName, KeyType type, Version v, EurekaAccept eurekaAccept, @Nullable String[] regions) {
+        this(entityType, entityName, type, v, eurekaAccept, regions, RegistryView.ALL);
+    }
+
+    public Key(EntityType entityType, String entityName, KeyType type, Version v, EurekaAccept eurekaAccept,
+               @Nullable String[] regions, RegistryView view) {
         this.regions = regions;
+        this.view = view;
         this.entityType = entityType;
         this.entityName = entityName;
         this.requestType = type;
         this.requestVersion = v;
         this.eurekaAccept = eurekaAccept;
-        hashKey = this.entityType + this.entityName + (null != this.regions ? Arrays.toString(this.regions) : "")
-                + requestType.name() + requestVersion.name() + this.eurekaAccept.name();
+        this.packed = KeySpace.pack(entityType, type, v, eurekaAccept, KeySpace.regionsId(regions));
+        int packedHash = 31 * (int) (packed ^ (packed >>> 32)) + (entityName == null ? 0 : entityName.hashCode());
+        int regionsHash = 31 * packedHash + Arrays.hashCode(regions);
+        this.hash = view.isAll() ? regionsHash : 31 * regionsHash + view.getId();
+    }
+
+    /**
+     * @return the canonical key without regions for the given values
+     */
+    public static Key of(EntityType entityType, String entityName, KeyType type, Version v, EurekaAccept eurekaAccept) {
+        return KeySpace.canonical(entityType, entityName, type, v, eurekaAccept);
+    }
+
+    /**
+     * @return the canonical key for the given values if there are no regions, or else a new one
+     */
+    public static Key of(EntityType entityType, String entityName, KeyType type, Version v, EurekaAccept eurekaAccept,
+                         @Nullable String[] regions) {
+        if (regions == null) {
+            return of(entityType, entityName, type, v, eurekaAccept);
+        }
+        return new Key(entityType, entityName, type, v, eurekaAccept, regions);
+    }
+
+    /**
+     * @return the canonical key for the given values if there are no regions and the view is of the whole
+     * registry, or else a new one
+     */
+    public static Key of(EntityType entityType, String entityName, KeyType type, Version v, EurekaAccept eurekaAccept,
+                         @Nullable String[] regions, RegistryView view) {
+        if (view.isAll()) {
+            return of(entityType, entityName, type, v, eurekaAccept, regions);
+        }
+        return new Key(entityType, entityName, type, v, eurekaAccept, regions, view);
     }
 
     public String getName() {
@@ -47,7 +105,14 @@ public class Key {
     }
 
     public String getHashKey() {
-        return hashKey;
+        String result = hashKey;
+        if (result == null) {
+            result = this.entityType + this.entityName + (null != this.regions ? Arrays.toString(this.regions) : "")
+                    + requestType.name() + requestVersion.name() + this.eurekaAccept.name()
+                    + (view.isAll() ? "" : view.toString());
+            hashKey = result;
+        }
+        return result;
     }
 
     public KeyType getType() {
@@ -66,6 +131,14 @@ public class Key {
         return entityType;
     }
 
+    public RegistryView getView() {
+        return view;
+    }
+
+    public boolean hasView() {
+        return !view.isAll();
+    }
+
     public boolean hasRegions() {
         return null != regions && regions.length != 0;
     }
@@ -75,22 +148,35 @@ public class Key {
     }
 
     public Key cloneWithoutRegions() {
-        return new Key(entityType, entityName, requestType, requestVersion, eurekaAccept);
+        return of(entityType, entityName, requestType, requestVersion, eurekaAccept, null, view);
+    }
+
+    /**
+     * @return the canonical key of the same payload without regions, of the whole registry
+     */
+    public Key cloneWithoutRegionsAndView() {
+        return of(entityType, entityName, requestType, requestVersion, eurekaAccept);
     }
 
     @Override
     public int hashCode() {
-        String hashKey = getHashKey();
-        return hashKey.hashCode();
+        return hash;
     }
 
     @Override
     public boolean equals(Object other) {
-        if (other instanceof Key) {
-            return getHashKey().equals(((Key) other).getHashKey());
-        } else {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Key)) {
             return false;
         }
+        Key otherKey = (Key) other;
+        // The region ids are unique only up to the interned region sets, so equal ids still compare the values
+        return packed == otherKey.packed
+                && (entityName == null ? otherKey.entityName == null : entityName.equals(otherKey.entityName))
+                && Arrays.equals(regions, otherKey.regions)
+                && view == otherKey.view;
     }
 
     public String toStringCompact() {
@@ -99,6 +185,9 @@ public class Key {
         if(regions != null) {
             sb.append(", regions=").append(Arrays.toString(regions));
         }
+        if (hasView()) {
+            sb.append(", view=").append(view);
+        }
         sb.append('}');
         return sb.toString();
     }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.eureka.Version;
+
+/**
+ * The ids of the region sets of the response cache keys, and the canonical instances of the keys without regions
+ * of the registered names, so that the keys of the requests and of the cache invalidations are looked up rather
+ * than built anew.
+ *
+ * <p>
+ * Only the names of the full and delta registry payloads, and the names registered with {@link #intern(String)},
+ * which the registry does for the names of the applications and VIPs of the instances it registers, get canonical
+ * keys, up to {@link #MAX_NAMES}; the keys of any other name, such as the ones clients make up, are built per call. The names take no part in the ids, so
+ * a key compares the same whether its name is interned or not. The region sets are interned up to
+ * {@link #MAX_REGION_SETS}, and the ones past that compare by regions.
+ * </p>
+ */
+final class KeySpace {
+
+    static final int MAX_NAMES = 1 << 16;
+    static final int MAX_REGION_SETS = (1 << 15) - 1;
+
+    static final int NO_ID = 0;
+    // The id of the region sets past the maximum, which compare by regions
+    static final int UNINTERNED_REGIONS = MAX_REGION_SETS + 1;
+
+    private static final int ORDINAL_BITS = 4;
+    private static final int REGIONS_ID_SHIFT = 4 * ORDINAL_BITS;
+
+    private static final int KEY_TYPES = Key.KeyType.values().length;
+    private static final int VERSIONS = Version.values().length;
+    private static final int ACCEPTS = EurekaAccept.values().length;
+    private static final int SLOTS = Key.EntityType.values().length * KEY_TYPES * VERSIONS * ACCEPTS;
+
+    private static final ConcurrentMap<String, AtomicReferenceArray<Key>> names =
+            new ConcurrentHashMap<String, AtomicReferenceArray<Key>>();
+
+    private static final ConcurrentMap<List<String>, Integer> regionSets = new ConcurrentHashMap<List<String>, Integer>();
+    private static final AtomicInteger lastRegionsId = new AtomicInteger();
+
+    static {
+        // The most requested names of all, which no registration interns
+        intern(ResponseCacheImpl.ALL_APPS);
+        intern(ResponseCacheImpl.ALL_APPS_DELTA);
+    }
+
+    private KeySpace() {
+    }
+
+    /**
+     * Gives the name canonical keys, unless it has them already or the maximum is reached.
+     */
+    static void intern(@Nullable String entityName) {
+        if (entityName == null || names.containsKey(entityName) || names.size() >= MAX_NAMES) {
+            return;
+        }
+        names.putIfAbsent(entityName, new AtomicReferenceArray<Key>(SLOTS));
+    }
+
+    /**
+     * @return the canonical key without regions, or a new one if its name is not interned
+     */
+    static Key canonical(Key.EntityType entityType, String entityName, Key.KeyType type, Version version,
+                         EurekaAccept eurekaAccept) {
+        AtomicReferenceArray<Key> keys = entityName == null ? null : names.get(entityName);
+        if (keys == null) {
+            return new Key(entityType, entityName, type, version, eurekaAccept, null);
+        }
+        int slot = ((entityType.ordinal() * KEY_TYPES + type.ordinal()) * VERSIONS + version.ordinal()) * ACCEPTS
+                + eurekaAccept.ordinal();
+        Key key = keys.get(slot);
+        if (key == null) {
+            keys.compareAndSet(slot, null, new Key(entityType, entityName, type, version, eurekaAccept, null));
+            key = keys.get(slot);
+        }
+        return key;
+    }
+
+    /**
+     * @return the id of the region set, {@link #NO_ID} if there are no regions, or {@link #UNINTERNED_REGIONS}
+     * if the region set is past the maximum
+     */
+    static int regionsId(@Nullable String[] regions) {
+        if (regions == null || regions.length == 0) {
+            return NO_ID;
+        }
+        Integer id = regionSets.get(Arrays.asList(regions));
+        if (id == null) {
+            if (regionSets.size() >= MAX_REGION_SETS) {
+                return UNINTERNED_REGIONS;
+            }
+            List<String> copy = Collections.unmodifiableList(new ArrayList<String>(Arrays.asList(regions)));
+            Integer newId = lastRegionsId.incrementAndGet();
+            id = regionSets.putIfAbsent(copy, newId);
+            if (id == null) {
+                id = newId;
+            }
+        }
+        return id;
+    }
+
+    static long pack(Key.EntityType entityType, Key.KeyType type, Version version, EurekaAccept eurekaAccept,
+                     int regionsId) {
+        return entityType.ordinal()
+                | type.ordinal() << ORDINAL_BITS
+                | version.ordinal() << 2 * ORDINAL_BITS
+                | eurekaAccept.ordinal() << 3 * ORDINAL_BITS
+                | (long) regionsId << REGIONS_ID_SHIFT;
+    }
+}
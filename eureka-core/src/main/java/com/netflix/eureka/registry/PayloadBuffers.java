@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The buffers the payloads are encoded into, pooled so that encoding a payload does not grow a new buffer up to
+ * the size of the payload every time, nor go through an intermediate {@link String} of it.
+ *
+ * <p>
+ * The buffers grown past {@link #MAX_RETAINED_CAPACITY} are dropped rather than pooled, so a few very large
+ * payloads do not pin their memory for good.
+ * </p>
+ */
+final class PayloadBuffers {
+
+    static final int DEFAULT_POOL_SIZE = 8;
+    static final int MAX_RETAINED_CAPACITY = 32 * 1024 * 1024;
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final BlockingQueue<Buffer> buffers;
+
+    PayloadBuffers(int poolSize) {
+        this.buffers = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * @return an empty buffer, which is to be given back with {@link #release(Buffer)} once done with
+     */
+    Buffer acquire() {
+        Buffer buffer = buffers.poll();
+        return buffer == null ? new Buffer(INITIAL_CAPACITY) : buffer;
+    }
+
+    void release(Buffer buffer) {
+        if (buffer.capacity() <= MAX_RETAINED_CAPACITY) {
+            buffer.reset();
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * @return whether the first length bytes of the array have the given region at the given offset
+     */
+    static boolean regionMatches(byte[] bytes, int length, int offset, byte[] region) {
+        if (offset < 0 || offset + region.length > length) {
+            return false;
+        }
+        for (int i = 0; i < region.length; i++) {
+            if (bytes[offset + i] != region[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A byte array output stream whose content is copied out only once, to the exact size of the payload.
+     */
+    static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer(int size) {
+            super(size);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        /**
+         * @return whether the content starts with the given bytes
+         */
+        boolean startsWith(byte[] prefix) {
+            return regionMatches(buf, count, 0, prefix);
+        }
+
+        /**
+         * @return whether the content ends with the given bytes
+         */
+        boolean endsWith(byte[] suffix) {
+            return regionMatches(buf, count, count - suffix.length, suffix);
+        }
+
+        /**
+         * @return a copy of the content from the given offset up to the given one
+         */
+        byte[] copyOfRange(int from, int to) {
+            return Arrays.copyOfRange(buf, from, to);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+/**
+ * A content coding the response cache payloads can be served with, such as gzip.
+ *
+ * <p>
+ * A payload is compressed the first time a client asks for it with the coding, and kept compressed in the cache
+ * from then on, so implementations must be thread safe and always produce the same output for the same payload.
+ * </p>
+ */
+public interface PayloadCompressor {
+
+    /**
+     * @return the name of the content coding, as in the Accept-Encoding and Content-Encoding headers
+     */
+    String getEncoding();
+
+    /**
+     * @param payload the uncompressed payload, which must not be modified
+     * @return the compressed payload
+     */
+    byte[] compress(byte[] payload);
+}
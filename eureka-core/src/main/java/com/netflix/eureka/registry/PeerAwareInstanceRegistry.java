@@ -18,6 +18,7 @@ package com.netflix.eureka.registry;
 
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Pair;
 import com.netflix.eureka.cluster.PeerEurekaNodes;
 import com.netflix.eureka.resources.ASGResource;
 
@@ -51,5 +52,28 @@ public interface PeerAwareInstanceRegistry extends InstanceRegistry {
 
      void register(InstanceInfo info, boolean isReplication);
 
+     /**
+      * Registers all the given instances and replicates them to the peer eureka nodes as a single task per node.
+      */
+     void registerAll(List<InstanceInfo> infos, boolean isReplication);
+
+     /**
+      * Cancels the given instances and replicates the cancellations to the peer eureka nodes as a single task
+      * per node.
+      *
+      * @param appNameIdPairs the application name and the unique identifier of each instance
+      * @return whether each instance was cancelled, in the order of the given instances
+      */
+     boolean[] cancelAll(List<Pair<String, String>> appNameIdPairs, boolean isReplication);
+
+     /**
+      * Renews the leases of the given instances. Each renewal is replicated to the peer eureka nodes as a single
+      * heartbeat, which the replication batches with the other tasks anyway.
+      *
+      * @param appNameIdPairs the application name and the unique identifier of each instance
+      * @return whether each lease was renewed, in the order of the given instances
+      */
+     boolean[] renewAll(List<Pair<String, String>> appNameIdPairs, boolean isReplication);
+
      void statusUpdate(final String asgName, final ASGResource.ASGStatus newStatus, final boolean isReplication);
 }
@@ -23,6 +23,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import com.netflix.appinfo.AmazonInfo;
 import com.netflix.appinfo.AmazonInfo.MetaDataKey;
@@ -30,12 +31,15 @@ import com.netflix.appinfo.ApplicationInfoManager;
 import com.netflix.appinfo.DataCenterInfo;
 import com.netflix.appinfo.DataCenterInfo.Name;
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.appinfo.LeaseInfo;
 import com.netflix.discovery.EurekaClient;
 import com.netflix.discovery.EurekaClientConfig;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.Pair;
+import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.eureka.resources.CurrentRequestVersion;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.Version;
@@ -48,7 +52,6 @@ import com.netflix.eureka.util.MeasuredRate;
 import com.netflix.servo.DefaultMonitorRegistry;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.monitor.Monitors;
-import com.netflix.servo.monitor.Stopwatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -133,6 +136,7 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
         this.peerEurekaNodes = peerEurekaNodes;
         initializedResponseCache();
         scheduleRenewalThresholdUpdateTask();
+        scheduleRegistrySnapshotTask();
         initRemoteRegionRegistry();
 
         try {
@@ -152,6 +156,11 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
         } catch (Throwable t) {
             logger.error("Cannot shutdown monitor registry", t);
         }
+        try {
+            saveRegistrySnapshot();
+        } catch (Throwable t) {
+            logger.error("Cannot save the registry snapshot", t);
+        }
         try {
         peerEurekaNodes.shutdown();
         } catch (Throwable t) {
@@ -177,18 +186,54 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
                 serverConfig.getRenewalThresholdUpdateIntervalMs());
     }
 
+    /**
+     * Schedule the task that saves the registry to {@link EurekaServerConfig#getRegistrySnapshotFile()}
+     * periodically, if configured.
+     */
+    private void scheduleRegistrySnapshotTask() {
+        if (serverConfig.getRegistrySnapshotFile() == null) {
+            return;
+        }
+        timer.schedule(new TimerTask() {
+                           @Override
+                           public void run() {
+                               try {
+                                   saveRegistrySnapshot();
+                               } catch (Throwable t) {
+                                   logger.error("Cannot save the registry snapshot", t);
+                               }
+                           }
+                       }, serverConfig.getRegistrySnapshotIntervalMs(),
+                serverConfig.getRegistrySnapshotIntervalMs());
+    }
+
     /**
      * Populates the registry information from a peer eureka node. This
      * operation fails over to other nodes until the list is exhausted if the
      * communication fails.
+     *
+     * <p>
+     * If the registry could be restored from {@link EurekaServerConfig#getRegistrySnapshotFile()}, it catches
+     * up with the changes made since from the delta of a peer, if the delta goes back to when the file was
+     * written. Otherwise the peer registry is only used to catch up with the instances which changed since,
+     * and it is not waited for if it is empty.
+     * </p>
      */
     @Override
     public int syncUp() {
+        int restoredCount = restoreRegistrySnapshot();
+        if (restoredCount > 0 && catchUpWithPeerDelta(getRestoredSnapshotTimestamp())) {
+            return (int) getLocalRegistrySize();
+        }
+
         // Copy entire entry from neighboring DS node
         int count = 0;
 
         for (int i = 0; ((i < serverConfig.getRegistrySyncRetries()) && (count == 0)); i++) {
             if (i > 0) {
+                if (restoredCount > 0) {
+                    break;
+                }
                 try {
                     Thread.sleep(serverConfig.getRegistrySyncRetryWaitMs());
                 } catch (InterruptedException e) {
@@ -200,7 +245,7 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
             for (Application app : apps.getRegisteredApplications()) {
                 for (InstanceInfo instance : app.getInstances()) {
                     try {
-                        if (isRegisterable(instance)) {
+                        if (isRegisterable(instance) && (restoredCount == 0 || isNewerThanRegistered(instance))) {
                             register(instance, instance.getLeaseInfo().getDurationInSecs(), true);
                             count++;
                         }
@@ -210,7 +255,66 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
                 }
             }
         }
-        return count;
+        return restoredCount > 0 ? (int) getLocalRegistrySize() : count;
+    }
+
+    /**
+     * Applies the latest delta of the first peer which returns one to the restored registry. The deltas are
+     * retained for {@link EurekaServerConfig#getRetentionTimeInMSInDeltaQueue()}, so they only hold all the
+     * changes made since the registry snapshot file was written if it was written within that time.
+     *
+     * @return true if the registry caught up with a peer delta
+     */
+    private boolean catchUpWithPeerDelta(long snapshotTimestamp) {
+        if (peerEurekaNodes == null
+                || System.currentTimeMillis() - snapshotTimestamp >= serverConfig.getRetentionTimeInMSInDeltaQueue()) {
+            return false;
+        }
+        for (PeerEurekaNode node : peerEurekaNodes.getPeerEurekaNodes()) {
+            Applications delta;
+            try {
+                EurekaHttpResponse<Applications> httpResponse = node.getDelta();
+                if (httpResponse.getStatusCode() != 200 || httpResponse.getEntity() == null) {
+                    logger.info("No delta from the peer {} to catch up with, status {}",
+                            node.getServiceUrl(), httpResponse.getStatusCode());
+                    continue;
+                }
+                delta = httpResponse.getEntity();
+            } catch (Throwable t) {
+                logger.warn("Cannot get the delta of the peer " + node.getServiceUrl() + " to catch up with", t);
+                continue;
+            }
+            int count = 0;
+            for (Application app : delta.getRegisteredApplications()) {
+                for (InstanceInfo instance : app.getInstances()) {
+                    try {
+                        if (instance.getActionType() == ActionType.DELETED) {
+                            if (internalCancel(instance.getAppName(), instance.getId(), true)) {
+                                count++;
+                            }
+                        } else if (isRegisterable(instance) && isNewerThanRegistered(instance)) {
+                            register(instance, instance.getLeaseInfo().getDurationInSecs(), true);
+                            count++;
+                        }
+                    } catch (Throwable t) {
+                        logger.error("During the catch up with the peer delta", t);
+                    }
+                }
+            }
+            logger.info("Caught up with {} changes from the delta of the peer {}", count, node.getServiceUrl());
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isNewerThanRegistered(InstanceInfo instance) {
+        InstanceInfo registered = getInstanceByAppAndId(instance.getAppName(), instance.getId(), false);
+        if (registered == null) {
+            return true;
+        }
+        Long registeredTimestamp = registered.getLastDirtyTimestamp();
+        Long peerTimestamp = instance.getLastDirtyTimestamp();
+        return peerTimestamp != null && (registeredTimestamp == null || registeredTimestamp < peerTimestamp);
     }
 
     @Override
@@ -231,6 +335,9 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
             logger.info("Priming AWS connections for all replicas..");
             primeAwsReplicas(applicationInfoManager);
         }
+        if (serverConfig.shouldWarmUpResponseCache() && responseCache != null) {
+            responseCache.warmUp();
+        }
         logger.info("Changing status to UP");
         applicationInfoManager.setInstanceStatus(InstanceStatus.UP);
         super.postInit();
@@ -383,14 +490,41 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
      */
     @Override
     public void register(final InstanceInfo info, final boolean isReplication) {
-        int leaseDuration = Lease.DEFAULT_DURATION_IN_SECS;
-        if (info.getLeaseInfo() != null && info.getLeaseInfo().getDurationInSecs() > 0) {
-            leaseDuration = info.getLeaseInfo().getDurationInSecs();
-        }
-        super.register(info, leaseDuration, isReplication);
+        super.register(info, leaseDurationOf(info), isReplication);
         replicateToPeers(Action.Register, info.getAppName(), info.getId(), info, null, isReplication);
     }
 
+    @Override
+    public void registerAll(final List<InstanceInfo> infos, final boolean isReplication) {
+        super.registerAll(infos, isReplication);
+        replicateBatchToPeers(Action.Register, infos, null, isReplication);
+    }
+
+    @Override
+    public boolean[] cancelAll(final List<Pair<String, String>> appNameIdPairs, final boolean isReplication) {
+        boolean[] cancelled = super.cancelAll(appNameIdPairs, isReplication);
+        List<Pair<String, String>> cancelledPairs = new ArrayList<Pair<String, String>>();
+        for (int i = 0; i < cancelled.length; i++) {
+            if (cancelled[i]) {
+                cancelledPairs.add(appNameIdPairs.get(i));
+            }
+        }
+        if (!cancelledPairs.isEmpty()) {
+            replicateBatchToPeers(Action.Cancel, null, cancelledPairs, isReplication);
+            synchronized (lock) {
+                for (int i = 0; i < cancelledPairs.size(); i++) {
+                    if (this.expectedNumberOfRenewsPerMin > 0) {
+                        // Same as for a single cancel (1 for 30 seconds, 2 for a minute), for each instance
+                        this.expectedNumberOfRenewsPerMin = this.expectedNumberOfRenewsPerMin - 2;
+                        this.numberOfRenewsPerMinThreshold =
+                                (int) (this.expectedNumberOfRenewsPerMin * serverConfig.getRenewalPercentThreshold());
+                    }
+                }
+            }
+        }
+        return cancelled;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -598,7 +732,8 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
     private void replicateToPeers(Action action, String appName, String id,
                                   InstanceInfo info /* optional */,
                                   InstanceStatus newStatus /* optional */, boolean isReplication) {
-        Stopwatch tracer = action.getTimer().start();
+        // Timed without a Stopwatch, which would be allocated on every heartbeat
+        long startNanos = System.nanoTime();
         try {
             if (isReplication) {
                 numberOfReplicationsLastMin.increment();
@@ -616,7 +751,47 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
                 replicateInstanceActionsToPeers(action, appName, id, info, newStatus, node);
             }
         } finally {
-            tracer.stop();
+            action.getTimer().record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Replicates a bulk registration or cancellation to the peer eureka nodes as a single task per node,
+     * except for replication traffic to this node.
+     */
+    private void replicateBatchToPeers(Action action, List<InstanceInfo> infos /* register */,
+                                       List<Pair<String, String>> appNameIdPairs /* cancel */, boolean isReplication) {
+        long startNanos = System.nanoTime();
+        try {
+            if (isReplication) {
+                int count = action == Action.Register ? infos.size() : appNameIdPairs.size();
+                for (int i = 0; i < count; i++) {
+                    numberOfReplicationsLastMin.increment();
+                }
+            }
+            // If it is a replication already, do not replicate again as this will create a poison replication
+            if (peerEurekaNodes == Collections.EMPTY_LIST || isReplication) {
+                return;
+            }
+
+            for (final PeerEurekaNode node : peerEurekaNodes.getPeerEurekaNodes()) {
+                // If the url represents this host, do not replicate to yourself.
+                if (peerEurekaNodes.isThisMe(node.getServiceUrl())) {
+                    continue;
+                }
+                try {
+                    CurrentRequestVersion.set(Version.V2);
+                    if (action == Action.Register) {
+                        node.registerAll(infos);
+                    } else {
+                        node.cancelAll(appNameIdPairs);
+                    }
+                } catch (Throwable t) {
+                    logger.error("Cannot replicate information to {} for action {}", node.getServiceUrl(), action.name(), t);
+                }
+            }
+        } finally {
+            action.getTimer().record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -695,7 +870,7 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
             return r.getStatus();
         }
         // Overrides are the status like OUT_OF_SERVICE and UP set by NAC
-        InstanceInfo.InstanceStatus overridden = overriddenInstanceStatusMap.get(r.getId());
+        InstanceInfo.InstanceStatus overridden = overriddenStatusOf(r);
         // If there are instance specific overrides, then they win - otherwise the ASG status
         if (overridden != null) {
             logger.debug("The instance specific override for instance {} and the value is {}",
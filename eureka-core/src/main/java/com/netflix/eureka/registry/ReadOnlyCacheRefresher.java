@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Refreshes the keys of the read only response cache in the background as soon as they are invalidated, rather
+ * than on the next run of the periodic cache update.
+ *
+ * <p>
+ * The invalidated keys are collected in a set, and refreshed by a single background thread, so a key invalidated
+ * several times before the thread gets to it is only refreshed once, and the payloads are never generated on the
+ * request threads. The refresh rounds are run by the given {@link CoalescingScheduler}, so two rounds are at
+ * least the given minimum interval apart, and the refresher shares its thread with the other response cache
+ * background work.
+ * </p>
+ */
+abstract class ReadOnlyCacheRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadOnlyCacheRefresher.class);
+
+    private final Set<Key> pending = Collections.newSetFromMap(new ConcurrentHashMap<Key, Boolean>());
+    private final CoalescingScheduler.CoalescedTask refreshTask;
+
+    /**
+     * @param scheduler the scheduler of the refresh rounds, which the owner of the refresher stops
+     * @param minIntervalMs the minimum time between the start of two refresh rounds
+     */
+    ReadOnlyCacheRefresher(CoalescingScheduler scheduler, long minIntervalMs) {
+        this.refreshTask = scheduler.newTask("the read only cache refresh", minIntervalMs, new Runnable() {
+            @Override
+            public void run() {
+                refreshPending();
+            }
+        });
+    }
+
+    /**
+     * Refreshes the given key of the read only cache from the read write one.
+     */
+    protected abstract void refresh(Key key);
+
+    /**
+     * Schedules the refresh of the given keys, in the next refresh round.
+     */
+    void refreshLater(Collection<Key> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        pending.addAll(keys);
+        refreshTask.schedule();
+    }
+
+    private void refreshPending() {
+        Iterator<Key> it = pending.iterator();
+        while (it.hasNext()) {
+            Key key = it.next();
+            it.remove();
+            try {
+                refresh(key);
+            } catch (Throwable th) {
+                logger.error("Error while refreshing the client cache for key " + key.toStringCompact(), th);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.netflix.discovery.shared.Pair;
+
+/**
+ * A fixed size history of the most recent lease events (registrations or cancellations) of the registry, kept
+ * for the status page only.
+ *
+ * <p>
+ * The events are written to a ring buffer without locking: a writer claims the next sequence number, and fills
+ * in the slot it maps to. Each slot carries the sequence number of the event it holds, which is cleared while
+ * the slot is being written, so a reader can tell a complete event from one being overwritten, and skips the
+ * latter. The timestamps are kept as primitives, and the application names and instance ids are interned, so
+ * the history holds on to a single copy of each.
+ * </p>
+ */
+class RecentLeaseEvents {
+
+    private static final long WRITING = -1;
+    private static final Interner<String> NAMES = Interners.newWeakInterner();
+
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray timestamps;
+    private final AtomicReferenceArray<String> appNames;
+    private final AtomicReferenceArray<String> ids;
+
+    // The events with lower sequence numbers were cleared
+    private volatile long firstSequence;
+
+    /**
+     * @param capacity the number of events kept, rounded up to a power of two
+     */
+    RecentLeaseEvents(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.timestamps = new AtomicLongArray(size);
+        this.appNames = new AtomicReferenceArray<String>(size);
+        this.ids = new AtomicReferenceArray<String>(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, WRITING);
+        }
+    }
+
+    void add(long timestamp, String appName, String id) {
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) sequence & mask;
+        sequences.set(slot, WRITING);
+        timestamps.set(slot, timestamp);
+        appNames.set(slot, NAMES.intern(appName));
+        ids.set(slot, NAMES.intern(id));
+        sequences.set(slot, sequence);
+    }
+
+    /**
+     * @return all the events, the most recent first, as pairs of the event timestamp and {@code appName(id)}
+     */
+    List<Pair<Long, String>> getLatest() {
+        return getLatest(null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param appName the application to get the events of, or null for all of them
+     * @param fromTimestamp the earliest event timestamp included
+     * @param toTimestamp the latest event timestamp included
+     * @return the matching events, the most recent first, as pairs of the event timestamp and {@code appName(id)}
+     */
+    List<Pair<Long, String>> getLatest(@Nullable String appName, long fromTimestamp, long toTimestamp) {
+        long last = nextSequence.get() - 1;
+        long first = Math.max(firstSequence, last - mask);
+        List<Pair<Long, String>> events = new ArrayList<Pair<Long, String>>();
+        for (long sequence = last; sequence >= first; sequence--) {
+            int slot = (int) sequence & mask;
+            if (sequences.get(slot) != sequence) {
+                // Being written, or already overwritten by a later event
+                continue;
+            }
+            long timestamp = timestamps.get(slot);
+            String eventAppName = appNames.get(slot);
+            String id = ids.get(slot);
+            if (sequences.get(slot) != sequence) {
+                continue;
+            }
+            if (timestamp < fromTimestamp || timestamp > toTimestamp
+                    || appName != null && !appName.equalsIgnoreCase(eventAppName)) {
+                continue;
+            }
+            events.add(new Pair<Long, String>(timestamp, eventAppName + '(' + id + ')'));
+        }
+        return events;
+    }
+
+    /**
+     * Drops the events added so far.
+     */
+    void clear() {
+        firstSequence = nextSequence.get();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.base.Throwables;
+import com.netflix.discovery.shared.Applications;
+
+/**
+ * The registry reads the response cache payloads are encoded from, shared by all the formats of a payload.
+ *
+ * <p>
+ * A change to the registry starts a new generation. Within a generation, each source of a payload (all the
+ * applications, the delta, a VIP address, with a given set of remote regions) is read from the registry once,
+ * by whichever loader asks for it first, while the loaders of the other formats asking for it meanwhile wait for
+ * that read rather than doing their own. As the payloads of the remote regions are not invalidated when those
+ * change, a generation is also retired once older than the given maximum age.
+ * </p>
+ */
+class RegistryGenerations {
+
+    private final long maxAgeMs;
+    private final AtomicReference<Generation> current = new AtomicReference<Generation>();
+
+    private final AtomicLong generationCount = new AtomicLong();
+    private final AtomicLong readCount = new AtomicLong();
+
+    RegistryGenerations(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * @param source the name of what the reader reads, which is read once per generation
+     * @param reader reads the applications from the registry; they are shared by all the callers of the
+     * generation, so must not be modified
+     */
+    Applications get(String source, Callable<Applications> reader) throws Exception {
+        Generation generation = currentGeneration();
+        FutureTask<Applications> read = generation.reads.get(source);
+        if (read == null) {
+            FutureTask<Applications> newRead = new FutureTask<Applications>(reader);
+            read = generation.reads.putIfAbsent(source, newRead);
+            if (read == null) {
+                read = newRead;
+                readCount.incrementAndGet();
+                newRead.run();
+            }
+        }
+        try {
+            return read.get();
+        } catch (ExecutionException e) {
+            // Not kept, so the next caller reads again
+            generation.reads.remove(source, read);
+            Throwables.propagateIfPossible(e.getCause(), Exception.class);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a new generation, on the next {@link #get(String, Callable)}.
+     */
+    void nextGeneration() {
+        current.set(null);
+    }
+
+    /**
+     * @return the number of generations started so far
+     */
+    long getGenerationCount() {
+        return generationCount.get();
+    }
+
+    /**
+     * @return the number of registry reads done so far
+     */
+    long getReadCount() {
+        return readCount.get();
+    }
+
+    private Generation currentGeneration() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            Generation generation = current.get();
+            if (generation != null && now - generation.startTime < maxAgeMs) {
+                return generation;
+            }
+            Generation next = new Generation(now);
+            if (current.compareAndSet(generation, next)) {
+                generationCount.incrementAndGet();
+                return next;
+            }
+        }
+    }
+
+    private static final class Generation {
+        private final long startTime;
+        private final ConcurrentMap<String, FutureTask<Applications>> reads =
+                new ConcurrentHashMap<String, FutureTask<Applications>>();
+
+        Generation(long startTime) {
+            this.startTime = startTime;
+        }
+    }
+}
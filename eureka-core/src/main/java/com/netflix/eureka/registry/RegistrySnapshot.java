@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+
+/**
+ * An immutable view of the local registry, as of a given {@link DeltaJournal} sequence number, and of a given
+ * number of the changes made to the registered instances outside of the journal.
+ *
+ * <p>
+ * The applications are spread over a fixed number of segments, and a new version only copies the segments
+ * of the applications which changed since the previous one, sharing everything else with it. The
+ * {@link Application} objects and the instances they hold are never modified once published, so they are
+ * handed out to the readers as they are. The applications are made read only; the instances must not be
+ * modified by the readers either.
+ * </p>
+ */
+final class RegistrySnapshot {
+
+    private static final int SEGMENT_COUNT = 64;
+
+    static final RegistrySnapshot EMPTY = empty(0);
+
+    private final long version;
+    private final long untrackedChanges;
+    private final Map<String, Entry>[] segments;
+    private final int[] statusCounts;
+    private final int applicationCount;
+    private volatile Applications applications;
+
+    private RegistrySnapshot(long version, long untrackedChanges, Map<String, Entry>[] segments, int[] statusCounts,
+                             int applicationCount) {
+        this.version = version;
+        this.untrackedChanges = untrackedChanges;
+        this.segments = segments;
+        this.statusCounts = statusCounts;
+        this.applicationCount = applicationCount;
+    }
+
+    static RegistrySnapshot empty(long version) {
+        Map<String, Entry>[] segments = newSegmentArray();
+        Map<String, Entry> emptySegment = Collections.emptyMap();
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = emptySegment;
+        }
+        return new RegistrySnapshot(version, 0, segments, new int[InstanceStatus.values().length], 0);
+    }
+
+    /**
+     * @return the sequence number of the last change this snapshot accounts for
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of changes made outside of the delta journal this snapshot accounts for
+     */
+    long getUntrackedChanges() {
+        return untrackedChanges;
+    }
+
+    int getApplicationCount() {
+        return applicationCount;
+    }
+
+    /**
+     * @return the application registered under the exact given name, or null if there is none
+     */
+    Application getApplication(String appName) {
+        Entry entry = segments[segmentOf(appName)].get(appName);
+        return entry == null ? null : entry.application;
+    }
+
+    List<Application> getApplicationList() {
+        List<Application> list = new ArrayList<Application>(applicationCount);
+        for (Map<String, Entry> segment : segments) {
+            for (Entry entry : segment.values()) {
+                list.add(entry.application);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Adds the instance counts of all the applications to an instance count map, as populated by
+     * {@link Applications#populateInstanceCountMap(TreeMap)}.
+     */
+    void addInstanceCounts(TreeMap<String, AtomicInteger> instanceCountMap) {
+        InstanceStatusCounts.addCounts(statusCounts, instanceCountMap);
+    }
+
+    String getReconcileHashCode() {
+        return InstanceStatusCounts.reconcileHashCode(statusCounts);
+    }
+
+    /**
+     * Gets all the applications, built once per snapshot on first use. The result is shared by all the
+     * readers of this snapshot, and must not be modified.
+     */
+    Applications getApplications() {
+        Applications result = applications;
+        if (result == null) {
+            synchronized (this) {
+                result = applications;
+                if (result == null) {
+                    result = new Applications();
+                    for (Application app : getApplicationList()) {
+                        result.addApplication(app);
+                    }
+                    result.setVersion(1L);
+                    result.setAppsHashCode(getReconcileHashCode());
+                    result.makeReadOnly();
+                    applications = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the next version of the registry, with the given applications replaced. The segments which do
+     * not hold any of them are shared with this snapshot. The given applications are made read only.
+     *
+     * @param changedApplications the rebuilt applications by name; a null value removes the application
+     */
+    RegistrySnapshot update(long newVersion, long newUntrackedChanges, Map<String, Application> changedApplications) {
+        Map<String, Entry>[] newSegments = segments.clone();
+        boolean[] copied = new boolean[SEGMENT_COUNT];
+        int[] newStatusCounts = statusCounts.clone();
+        int newApplicationCount = applicationCount;
+        for (Map.Entry<String, Application> change : changedApplications.entrySet()) {
+            String appName = change.getKey();
+            int segmentIndex = segmentOf(appName);
+            if (!copied[segmentIndex]) {
+                newSegments[segmentIndex] = new HashMap<String, Entry>(newSegments[segmentIndex]);
+                copied[segmentIndex] = true;
+            }
+            Entry previous;
+            if (change.getValue() == null) {
+                previous = newSegments[segmentIndex].remove(appName);
+            } else {
+                change.getValue().makeReadOnly();
+                Entry entry = new Entry(change.getValue());
+                previous = newSegments[segmentIndex].put(appName, entry);
+                entry.addTo(newStatusCounts, 1);
+                newApplicationCount++;
+            }
+            if (previous != null) {
+                previous.addTo(newStatusCounts, -1);
+                newApplicationCount--;
+            }
+        }
+        return new RegistrySnapshot(newVersion, newUntrackedChanges, newSegments, newStatusCounts, newApplicationCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Entry>[] newSegmentArray() {
+        // Generic arrays cannot be created, and the array never holds anything but segments
+        return (Map<String, Entry>[]) new Map<?, ?>[SEGMENT_COUNT];
+    }
+
+    private static int segmentOf(String appName) {
+        int hash = appName.hashCode();
+        return (hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1);
+    }
+
+    private static final class Entry {
+        private final Application application;
+        private final int[] statusCounts = new int[InstanceStatus.values().length];
+
+        Entry(Application application) {
+            this.application = application;
+            for (InstanceInfo info : application.getInstancesAsIsFromEureka()) {
+                statusCounts[info.getStatus().ordinal()]++;
+            }
+        }
+
+        void addTo(int[] counts, int sign) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += sign * statusCounts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.converters.wrappers.CodecWrapper;
+import com.netflix.eureka.lease.Lease;
+
+/**
+ * Reads and writes the registry snapshot file, from which a restarted server restores its registry before
+ * catching up with its peers.
+ *
+ * <p>
+ * The file starts with a header (magic number, format version, time it was written), followed by
+ * length-prefixed lease records, each holding the last renewal timestamp and the duration of the lease and the
+ * holder encoded with the given codec, and ends with the overridden instance statuses. A new file is written
+ * next to the current one and moved over it, so a crash while writing leaves the previous file intact. The file
+ * is read whole into a heap buffer.
+ * </p>
+ */
+class RegistrySnapshotFile {
+
+    private static final int MAGIC = 0x45524B53;
+    private static final int FORMAT_VERSION = 2;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final CodecWrapper codec;
+
+    RegistrySnapshotFile(File file, CodecWrapper codec) {
+        this.file = file;
+        this.codec = codec;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of leases written
+     */
+    int write(List<Lease<InstanceInfo>> leases, Map<String, InstanceStatus> overriddenStatuses)
+            throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create the directory of the registry snapshot file " + file);
+        }
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(leases.size());
+            for (Lease<InstanceInfo> lease : leases) {
+                byte[] encoded = codec.encode(lease.getHolder()).getBytes(UTF_8);
+                out.writeLong(lease.getLastRenewalTimestamp());
+                out.writeInt(lease.getDurationInSecs());
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+            out.writeInt(overriddenStatuses.size());
+            for (Map.Entry<String, InstanceStatus> entry : overriddenStatuses.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue().name());
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return leases.size();
+    }
+
+    /**
+     * @return the file contents, or null if there is no file
+     * @throws IOException if the file cannot be read or is corrupted
+     */
+    Contents read() throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Truncated registry snapshot file: " + file);
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a registry snapshot file: " + file);
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported registry snapshot file version " + formatVersion + ": " + file);
+            }
+            long writtenTimestamp = buffer.getLong();
+            int leaseCount = buffer.getInt();
+            List<Entry> entries = new ArrayList<Entry>(leaseCount);
+            for (int i = 0; i < leaseCount; i++) {
+                long lastRenewalTimestamp = buffer.getLong();
+                int durationInSecs = buffer.getInt();
+                byte[] encoded = new byte[buffer.getInt()];
+                buffer.get(encoded);
+                InstanceInfo instanceInfo = codec.decode(new String(encoded, UTF_8), InstanceInfo.class);
+                entries.add(new Entry(instanceInfo, lastRenewalTimestamp, durationInSecs));
+            }
+            int overrideCount = buffer.getInt();
+            Map<String, InstanceStatus> overriddenStatuses = new HashMap<String, InstanceStatus>(overrideCount);
+            for (int i = 0; i < overrideCount; i++) {
+                String id = readUTF(buffer);
+                overriddenStatuses.put(id, InstanceStatus.toEnum(readUTF(buffer)));
+            }
+            return new Contents(writtenTimestamp, entries, overriddenStatuses);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Truncated registry snapshot file: " + file, e);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link DataOutputStream#writeUTF(String)}; the ids and statuses are plain ASCII.
+     */
+    private static String readUTF(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    static final class Contents {
+        private final long writtenTimestamp;
+        private final List<Entry> entries;
+        private final Map<String, InstanceStatus> overriddenStatuses;
+
+        private Contents(long writtenTimestamp, List<Entry> entries, Map<String, InstanceStatus> overriddenStatuses) {
+            this.writtenTimestamp = writtenTimestamp;
+            this.entries = entries;
+            this.overriddenStatuses = overriddenStatuses;
+        }
+
+        long getWrittenTimestamp() {
+            return writtenTimestamp;
+        }
+
+        List<Entry> getEntries() {
+            return entries;
+        }
+
+        Map<String, InstanceStatus> getOverriddenStatuses() {
+            return overriddenStatuses;
+        }
+    }
+
+    static final class Entry {
+        private final InstanceInfo instanceInfo;
+        private final long lastRenewalTimestamp;
+        private final int durationInSecs;
+
+        private Entry(InstanceInfo instanceInfo, long lastRenewalTimestamp, int durationInSecs) {
+            this.instanceInfo = instanceInfo;
+            this.lastRenewalTimestamp = lastRenewalTimestamp;
+            this.durationInSecs = durationInSecs;
+        }
+
+        InstanceInfo getInstanceInfo() {
+            return instanceInfo;
+        }
+
+        /**
+         * @return the value of {@link Lease#getLastRenewalTimestamp()} when the file was written
+         */
+        long getLastRenewalTimestamp() {
+            return lastRenewalTimestamp;
+        }
+
+        /**
+         * @return the value of {@link Lease#getDurationInSecs()} when the file was written
+         */
+        int getDurationInSecs() {
+            return durationInSecs;
+        }
+    }
+}
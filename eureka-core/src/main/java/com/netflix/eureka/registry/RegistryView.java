@@ -0,0 +1,316 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.appinfo.AmazonInfo;
+import com.netflix.appinfo.DataCenterInfo;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.appinfo.InstanceInfo.PortType;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+
+/**
+ * The instances of a registry payload a client asks for, by status and zone, and how much of each instance it
+ * is sent, so that the clients needing only some of the instances, and only how to reach them, do not download
+ * and decode the whole registry.
+ *
+ * <p>
+ * The views are part of the {@link Key} of their payloads. As the zones are named by the clients, the views are
+ * interned up to {@link #MAX_VIEWS}, which bounds the payloads cached for them; the views past that are handed
+ * out uninterned, and their payloads are built per request, and never cached.
+ * </p>
+ */
+public final class RegistryView {
+
+    static final int MAX_VIEWS = 1024;
+
+    // The id of the views past the maximum, the payloads of which are not cached
+    private static final int UNCACHED_ID = -1;
+
+    // The metadata key the zone of the instances outside of Amazon is read from
+    static final String ZONE_METADATA_KEY = "zone";
+
+    private static final AmazonInfo.MetaDataKey[] PROJECTED_AMAZON_KEYS = {
+            AmazonInfo.MetaDataKey.instanceId, AmazonInfo.MetaDataKey.availabilityZone
+    };
+
+    /**
+     * How much of each instance is sent, named in the requests by {@link #getParamValue()}.
+     */
+    public enum Projection {
+        /**
+         * The instances as they are registered.
+         */
+        FULL("full"),
+        /**
+         * Only what it takes to reach the instances: their ids, host, addresses, ports, VIP addresses, status and
+         * zone, without their metadata, lease or URLs.
+         */
+        ENDPOINTS("endpoints");
+
+        private final String paramValue;
+
+        Projection(String paramValue) {
+            this.paramValue = paramValue;
+        }
+
+        /**
+         * @return the value of the <em>projection</em> request parameter naming this projection
+         */
+        public String getParamValue() {
+            return paramValue;
+        }
+
+        /**
+         * @param paramValue the value of the <em>projection</em> request parameter, in any case
+         * @return the projection of the given value, {@link #FULL} if there is none, or null if it is unknown
+         */
+        @Nullable
+        public static Projection fromString(@Nullable String paramValue) {
+            if (paramValue == null || paramValue.isEmpty()) {
+                return FULL;
+            }
+            for (Projection projection : values()) {
+                if (projection.paramValue.equalsIgnoreCase(paramValue)) {
+                    return projection;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final ConcurrentMap<List<Object>, RegistryView> views = new ConcurrentHashMap<List<Object>, RegistryView>();
+    private static final AtomicInteger lastViewId = new AtomicInteger();
+
+    /**
+     * The view of the whole registry.
+     */
+    public static final RegistryView ALL = new RegistryView(0, null, null, Projection.FULL);
+
+    private final int id;
+    private final InstanceStatus status;
+    private final String zone;
+    private final Projection projection;
+
+    private RegistryView(int id, @Nullable InstanceStatus status, @Nullable String zone, Projection projection) {
+        this.id = id;
+        this.status = status;
+        this.zone = zone;
+        this.projection = projection;
+    }
+
+    /**
+     * @param status the status of the instances in the view, or null for all of them
+     * @param zone the zone of the instances in the view, or null for all of them
+     * @param projection how much of each instance is sent
+     * @return the view, which is not {@link #isCached() cached} if there are already {@link #MAX_VIEWS} views
+     * and it is not one of them
+     */
+    public static RegistryView of(@Nullable InstanceStatus status, @Nullable String zone, Projection projection) {
+        if (zone != null && zone.isEmpty()) {
+            zone = null;
+        }
+        if (status == null && zone == null && projection == Projection.FULL) {
+            return ALL;
+        }
+        List<Object> values = Collections.unmodifiableList(Arrays.<Object>asList(status, zone, projection));
+        RegistryView view = views.get(values);
+        if (view == null) {
+            if (views.size() >= MAX_VIEWS) {
+                return uncached(status, zone, projection);
+            }
+            RegistryView newView = new RegistryView(lastViewId.incrementAndGet(), status, zone, projection);
+            view = views.putIfAbsent(values, newView);
+            if (view == null) {
+                view = newView;
+            }
+        }
+        return view;
+    }
+
+    /**
+     * @return a view the payloads of which are built per request
+     */
+    static RegistryView uncached(@Nullable InstanceStatus status, @Nullable String zone, Projection projection) {
+        return new RegistryView(UNCACHED_ID, status, zone, projection);
+    }
+
+    /**
+     * @param status the name of the status of the instances in the view, if any
+     * @param zone the zone of the instances in the view, if any
+     * @param projection the name of the {@link Projection}, if any
+     * @return the view of the given request parameters, or null if they are not valid
+     */
+    @Nullable
+    public static RegistryView fromParams(@Nullable String status, @Nullable String zone, @Nullable String projection) {
+        InstanceStatus instanceStatus = null;
+        if (status != null && !status.isEmpty()) {
+            try {
+                instanceStatus = InstanceStatus.valueOf(status.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        Projection parsedProjection = Projection.fromString(projection);
+        if (parsedProjection == null) {
+            return null;
+        }
+        return of(instanceStatus, zone, parsedProjection);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    @Nullable
+    public InstanceStatus getStatus() {
+        return status;
+    }
+
+    @Nullable
+    public String getZone() {
+        return zone;
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * @return whether the payloads of this view are cached, which is the case of the first {@link #MAX_VIEWS} views
+     */
+    public boolean isCached() {
+        return id != UNCACHED_ID;
+    }
+
+    /**
+     * @return whether the instance is in the view
+     */
+    public boolean matches(InstanceInfo instance) {
+        if (status != null && instance.getStatus() != status) {
+            return false;
+        }
+        return zone == null || zone.equals(zoneOf(instance));
+    }
+
+    /**
+     * @return the applications in the view, leaving out those none of the instances of which are in it. The given
+     * applications are left as they are, as they are shared by the payloads of all the views.
+     */
+    public Applications apply(Applications apps) {
+        if (isAll()) {
+            return apps;
+        }
+        Applications result = new Applications();
+        for (Application app : apps.getRegisteredApplications()) {
+            Application viewed = apply(app);
+            if (viewed.size() > 0) {
+                result.addApplication(viewed);
+            }
+        }
+        result.setVersion(apps.getVersion());
+        result.setAppsHashCode(result.getReconcileHashCode());
+        return result;
+    }
+
+    /**
+     * @return the application with only its instances in the view
+     */
+    public Application apply(Application app) {
+        if (isAll()) {
+            return app;
+        }
+        Application result = new Application(app.getName());
+        for (InstanceInfo instance : app.getInstancesAsIsFromEureka()) {
+            if (matches(instance)) {
+                result.addInstance(project(instance));
+            }
+        }
+        return result;
+    }
+
+    private InstanceInfo project(InstanceInfo instance) {
+        if (projection == Projection.FULL) {
+            return instance;
+        }
+        InstanceInfo.Builder builder = InstanceInfo.Builder.newBuilder()
+                .setInstanceId(instance.getInstanceId())
+                .setAppName(instance.getAppName())
+                .setHostName(instance.getHostName())
+                .setIPAddr(instance.getIPAddr())
+                .setPort(instance.getPort())
+                .enablePort(PortType.UNSECURE, instance.isPortEnabled(PortType.UNSECURE))
+                .setSecurePort(instance.getSecurePort())
+                .enablePort(PortType.SECURE, instance.isPortEnabled(PortType.SECURE))
+                .setVIPAddressDeser(instance.getVIPAddress())
+                .setSecureVIPAddressDeser(instance.getSecureVipAddress())
+                .setStatus(instance.getStatus())
+                .setActionType(instance.getActionType())
+                .setLastUpdatedTimestamp(instance.getLastUpdatedTimestamp());
+        if (instance.getLastDirtyTimestamp() != null) {
+            builder.setLastDirtyTimestamp(instance.getLastDirtyTimestamp());
+        }
+
+        DataCenterInfo dataCenterInfo = instance.getDataCenterInfo();
+        if (dataCenterInfo instanceof AmazonInfo) {
+            AmazonInfo amazonInfo = (AmazonInfo) dataCenterInfo;
+            AmazonInfo.Builder amazonBuilder = AmazonInfo.Builder.newBuilder();
+            for (AmazonInfo.MetaDataKey key : PROJECTED_AMAZON_KEYS) {
+                String value = amazonInfo.get(key);
+                if (value != null) {
+                    amazonBuilder.addMetadata(key, value);
+                }
+            }
+            builder.setDataCenterInfo(amazonBuilder.build());
+        } else {
+            builder.setDataCenterInfo(dataCenterInfo);
+            String instanceZone = instance.getMetadata().get(ZONE_METADATA_KEY);
+            if (instanceZone != null) {
+                builder.add(ZONE_METADATA_KEY, instanceZone);
+            }
+        }
+        return builder.build();
+    }
+
+    @Nullable
+    private static String zoneOf(InstanceInfo instance) {
+        DataCenterInfo dataCenterInfo = instance.getDataCenterInfo();
+        if (dataCenterInfo instanceof AmazonInfo) {
+            return ((AmazonInfo) dataCenterInfo).get(AmazonInfo.MetaDataKey.availabilityZone);
+        }
+        return instance.getMetadata().get(ZONE_METADATA_KEY);
+    }
+
+    @Override
+    public String toString() {
+        return "{status=" + status + ", zone=" + zone + ", projection=" + projection.getParamValue() + '}';
+    }
+}
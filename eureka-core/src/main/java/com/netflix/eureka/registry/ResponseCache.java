@@ -1,6 +1,8 @@
 package com.netflix.eureka.registry;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -10,6 +12,12 @@ public interface ResponseCache {
 
     void invalidate(String appName, @Nullable String vipAddress, @Nullable String secureVipAddress);
 
+    /**
+     * Invalidates the cached information of all the given applications and VIPs at once, invalidating the
+     * information about all the applications only once, rather than once per application.
+     */
+    void invalidate(Collection<String> appNames, Collection<String> vipAddresses, Collection<String> secureVipAddresses);
+
     AtomicLong getVersionDelta();
 
     AtomicLong getVersionDeltaWithRegions();
@@ -35,4 +43,54 @@ public interface ResponseCache {
      * @return compressed payload which contains information about the applications.
      */
     byte[] getGZIP(Key key);
+
+    /**
+     * Get the cached information about applications in both uncompressed and compressed form, ready to be written
+     * to the response as it is.
+     *
+     * @param key the key for which the cached information needs to be obtained.
+     * @return the cached information, or null if there is no information for the key.
+     */
+    CachedPayload getValue(Key key);
+
+    /**
+     * Waits for the cached information of the given key to be other than the given one, as once it is generated
+     * again after a change to the registry, for at most the given time.
+     *
+     * <p>
+     * The number of requests waiting at the same time is limited, so the wait may end right away.
+     * </p>
+     *
+     * @param key the key for which the cached information needs to be obtained.
+     * @param seen the cached information the caller already has.
+     * @param timeoutMs the maximum time to wait, in milliseconds.
+     * @return the cached information as of the end of the wait, which is the given one if it did not change.
+     */
+    CachedPayload awaitChange(Key key, CachedPayload seen, long timeoutMs);
+
+    /**
+     * Get the statistics of the cache, for diagnostics: its size, and the cumulative counts of hits, misses, loads
+     * and removals, with the payload sizes and generation times, by entity type and key type.
+     *
+     * @return the statistics, as nested maps of numbers
+     */
+    Map<String, Object> getStats();
+
+    /**
+     * Generates the payloads most likely to be requested, so the first requests for them do not all wait for
+     * them to be generated. This is done before the server opens for traffic.
+     */
+    void warmUp();
+
+    /**
+     * Schedules a {@link #warmUp()} in the background, if enabled, as is done after the bulk changes of the
+     * registry.
+     */
+    void warmUpLater();
+
+    /**
+     * Stops the background threads of the cache, on the shutdown of the server. The cache still serves the
+     * requests made afterwards, generating the payloads on the requesting threads.
+     */
+    void stop();
 }
@@ -17,31 +17,37 @@
 package com.netflix.eureka.registry;
 
 import javax.annotation.Nullable;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.zip.GZIPOutputStream;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Supplier;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
 import com.netflix.appinfo.EurekaAccept;
-import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.converters.wrappers.EncoderWrapper;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
@@ -65,10 +71,12 @@ import org.slf4j.LoggerFactory;
  * The cache is maintained in compressed and non-compressed form for three
  * categories of requests - all applications, delta changes and for individual
  * applications. The compressed form is probably the most efficient in terms of
- * network traffic especially when querying all applications.
+ * network traffic especially when querying all applications. It is kept for each
+ * of the configured content codings the payload is asked for with (see {@link PayloadCompressor}).
  *
  * The cache also maintains separate pay load for <em>JSON</em> and <em>XML</em>
- * formats and for multiple versions too.
+ * formats and for multiple versions too. The payloads of all these formats are encoded from a single registry
+ * read per registry change, shared by the formats loaded for that change (see {@link RegistryGenerations}).
  * </p>
  *
  * @author Karthik Ranganathan, Greg Kim
@@ -84,7 +92,23 @@ public class ResponseCacheImpl implements ResponseCache {
     private static final AtomicLong versionDeltaLegacy = new AtomicLong(0);
     private static final AtomicLong versionDeltaWithRegionsLegacy = new AtomicLong(0);
 
-    private static final String EMPTY_PAYLOAD = "";
+    // values() copies the array on each call
+    private static final Key.KeyType[] KEY_TYPES = Key.KeyType.values();
+    private static final Version[] VERSIONS = Version.values();
+    private static final EurekaAccept[] EUREKA_ACCEPTS = EurekaAccept.values();
+
+    // The most keys whose requests are counted, to pick the keys to warm up
+    private static final int MAX_TRACKED_KEYS = 10000;
+
+    private static final Comparator<Map.Entry<Key, Long>> BY_REQUEST_COUNT =
+            new Comparator<Map.Entry<Key, Long>>() {
+                @Override
+                public int compare(Map.Entry<Key, Long> first, Map.Entry<Key, Long> second) {
+                    return second.getValue().compareTo(first.getValue());
+                }
+            };
+
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
     private final java.util.Timer timer = new java.util.Timer("Eureka-CacheFillTimer", true);
     private final AtomicLong versionDelta = new AtomicLong(0);
     private final AtomicLong versionDeltaWithRegions = new AtomicLong(0);
@@ -97,61 +121,136 @@ public class ResponseCacheImpl implements ResponseCache {
     private final Timer serializeViptimer = Monitors.newTimer("serialize-one-vip");
     private final Timer compressPayloadTimer = Monitors.newTimer("compress-payload");
 
+    // Time from the invalidation of a read only cache entry to its refresh, by kind of payload
+    private final Timer staleAllAppsTimer = Monitors.newTimer("stale-all");
+    private final Timer staleDeltaAppsTimer = Monitors.newTimer("stale-all-delta");
+    private final Timer staleOneAppTimer = Monitors.newTimer("stale-one");
+    private final Timer staleVipTimer = Monitors.newTimer("stale-one-vip");
+
     /**
-     * This map holds mapping of keys without regions to a list of keys with region (provided by clients)
+     * This map holds mapping of keys without regions to the keys with region (provided by clients)
      * Since, during invalidation, triggered by a change in registry for local region, we do not know the regions
      * requested by clients, we use this mapping to get all the keys with regions to be invalidated.
      * If we do not do this, any cached user requests containing region keys will not be invalidated and will stick
      * around till expiry. Github issue: https://github.com/Netflix/eureka/issues/118
+     * The keys of the {@link RegistryView}s of a payload are mapped the same way.
      */
-    private final Multimap<Key, Key> regionSpecificKeys =
-            Multimaps.newListMultimap(new ConcurrentHashMap<Key, Collection<Key>>(), new Supplier<List<Key>>() {
-                @Override
-                public List<Key> get() {
-                    return new CopyOnWriteArrayList<Key>();
-                }
-            });
+    private final ConcurrentMap<Key, Set<Key>> regionSpecificKeys = new ConcurrentHashMap<Key, Set<Key>>();
 
-    private final ConcurrentMap<Key, Value> readOnlyCacheMap = new ConcurrentHashMap<Key, Value>();
+    private final ConcurrentMap<Key, CachedPayload> readOnlyCacheMap = new ConcurrentHashMap<Key, CachedPayload>();
+    // When the read only cache entries were first invalidated since their last refresh
+    private final ConcurrentMap<Key, Long> staleSince = new ConcurrentHashMap<Key, Long>();
 
-    private final LoadingCache<Key, Value> readWriteCacheMap;
+    private final LoadingCache<Key, CachedPayload> readWriteCacheMap;
     private final boolean shouldUseReadOnlyResponseCache;
+    private final boolean shouldRefreshReadOnlyCacheOnInvalidation;
+    private final ReadOnlyCacheRefresher readOnlyCacheRefresher;
     private final AbstractInstanceRegistry registry;
     private final EurekaServerConfig serverConfig;
     private final ServerCodecs serverCodecs;
+    private final List<PayloadCompressor> compressors;
+    private final List<String> contentEncodings;
+    private final PayloadBuffers payloadBuffers = new PayloadBuffers(PayloadBuffers.DEFAULT_POOL_SIZE);
+    // Null when the payloads are encoded on the requesting threads only
+    private final ForkJoinPool encodingPool;
+    private final ApplicationFragments applicationFragments;
+    private final RegistryGenerations registryGenerations;
+    private final AtomicLong payloadLoads = new AtomicLong();
+    private final ResponseCacheStats stats = new ResponseCacheStats();
+    // Request counts of the keys without regions, halved on each warm-up so they reflect the recent requests
+    private final ConcurrentMap<Key, AtomicLong> requestCounts = new ConcurrentHashMap<Key, AtomicLong>();
+    // Runs the read only cache refreshes and the warm-ups on one background thread, or null if neither is enabled
+    private final CoalescingScheduler backgroundScheduler;
+    // Warms up the cache in the background after the bulk changes of the registry, coalescing the warm-ups asked
+    // for while one is pending
+    private final CoalescingScheduler.CoalescedTask cacheWarmer;
+    private final ResponseCacheWatchers watchers;
 
-    ResponseCacheImpl(EurekaServerConfig serverConfig, ServerCodecs serverCodecs, AbstractInstanceRegistry registry) {
+    ResponseCacheImpl(EurekaServerConfig serverConfig, ServerCodecs serverCodecs, AbstractInstanceRegistry registry,
+                      List<PayloadCompressor> compressors) {
         this.serverConfig = serverConfig;
+        this.compressors = new ArrayList<PayloadCompressor>(compressors);
+        this.contentEncodings = new ArrayList<String>(compressors.size());
+        for (PayloadCompressor compressor : compressors) {
+            contentEncodings.add(compressor.getEncoding());
+        }
         this.serverCodecs = serverCodecs;
+        this.encodingPool = newEncodingPool(serverConfig.getResponseCacheEncodingParallelism());
+        this.applicationFragments = new ApplicationFragments(serverCodecs, payloadBuffers, encodingPool,
+                serverConfig.getResponseCacheParallelEncodingThreshold());
         this.shouldUseReadOnlyResponseCache = serverConfig.shouldUseReadOnlyResponseCache();
         this.registry = registry;
+        this.watchers = new ResponseCacheWatchers(serverConfig.getDeltaWatchMaxWatchers());
 
         long responseCacheUpdateIntervalMs = serverConfig.getResponseCacheUpdateIntervalMs();
+        this.registryGenerations = new RegistryGenerations(responseCacheUpdateIntervalMs);
         this.readWriteCacheMap =
                 CacheBuilder.newBuilder().initialCapacity(1000)
                         .expireAfterWrite(serverConfig.getResponseCacheAutoExpirationInSeconds(), TimeUnit.SECONDS)
-                        .removalListener(new RemovalListener<Key, Value>() {
+                        .removalListener(new RemovalListener<Key, CachedPayload>() {
                             @Override
-                            public void onRemoval(RemovalNotification<Key, Value> notification) {
+                            public void onRemoval(RemovalNotification<Key, CachedPayload> notification) {
                                 Key removedKey = notification.getKey();
-                                if (removedKey.hasRegions()) {
-                                    Key cloneWithNoRegions = removedKey.cloneWithoutRegions();
-                                    regionSpecificKeys.remove(cloneWithNoRegions, removedKey);
+                                stats.of(removedKey).recordRemoval(notification.getCause());
+                                if (removedKey.hasRegions() || removedKey.hasView()) {
+                                    Set<Key> keysWithRegions = regionSpecificKeys.get(removedKey.cloneWithoutRegionsAndView());
+                                    if (keysWithRegions != null) {
+                                        keysWithRegions.remove(removedKey);
+                                    }
                                 }
                             }
                         })
-                        .build(new CacheLoader<Key, Value>() {
+                        .build(new CacheLoader<Key, CachedPayload>() {
                             @Override
-                            public Value load(Key key) throws Exception {
-                                if (key.hasRegions()) {
-                                    Key cloneWithNoRegions = key.cloneWithoutRegions();
-                                    regionSpecificKeys.put(cloneWithNoRegions, key);
+                            public CachedPayload load(Key key) throws Exception {
+                                if (key.hasRegions() || key.hasView()) {
+                                    keysWithRegionsOf(key.cloneWithoutRegionsAndView()).add(key);
                                 }
-                                Value value = generatePayload(key);
+                                ResponseCacheStats.TypeStats typeStats = stats.of(key);
+                                long startTime = System.currentTimeMillis();
+                                CachedPayload value;
+                                try {
+                                    value = generatePayload(key);
+                                } catch (Exception e) {
+                                    typeStats.recordLoadFailure();
+                                    throw e;
+                                }
+                                typeStats.recordLoad(System.currentTimeMillis() - startTime, value.getPayloadBytes().length);
+                                value.setTypeStats(typeStats);
                                 return value;
                             }
                         });
 
+        this.shouldRefreshReadOnlyCacheOnInvalidation = serverConfig.shouldRefreshReadOnlyResponseCacheOnInvalidation();
+        this.backgroundScheduler = shouldUseReadOnlyResponseCache || serverConfig.shouldWarmUpResponseCache()
+                ? new CoalescingScheduler("Eureka-CacheBackground")
+                : null;
+        if (shouldUseReadOnlyResponseCache) {
+            this.readOnlyCacheRefresher = new ReadOnlyCacheRefresher(backgroundScheduler,
+                    serverConfig.getResponseCacheMinRefreshIntervalMs()) {
+                @Override
+                protected void refresh(Key key) {
+                    if (refreshReadOnlyCache(key)) {
+                        watchers.signalChange();
+                    }
+                }
+            };
+        } else {
+            this.readOnlyCacheRefresher = null;
+        }
+
+        if (serverConfig.shouldWarmUpResponseCache()) {
+            this.cacheWarmer = backgroundScheduler.newTask("the response cache warm-up",
+                    serverConfig.getResponseCacheWarmUpMinIntervalMs(), new Runnable() {
+                @Override
+                public void run() {
+                    warmUp();
+                }
+            });
+        } else {
+            this.cacheWarmer = null;
+        }
+
         if (shouldUseReadOnlyResponseCache) {
             timer.schedule(getCacheUpdateTask(),
                     new Date(((System.currentTimeMillis() / responseCacheUpdateIntervalMs) * responseCacheUpdateIntervalMs)
@@ -171,26 +270,63 @@ public class ResponseCacheImpl implements ResponseCache {
             @Override
             public void run() {
                 logger.debug("Updating the client cache from response cache");
+                boolean changed = false;
                 for (Key key : readOnlyCacheMap.keySet()) {
                     if (logger.isDebugEnabled()) {
                         Object[] args = {key.getEntityType(), key.getName(), key.getVersion(), key.getType()};
                         logger.debug("Updating the client cache from response cache for key : {} {} {} {}", args);
                     }
                     try {
-                        CurrentRequestVersion.set(key.getVersion());
-                        Value cacheValue = readWriteCacheMap.get(key);
-                        Value currentCacheValue = readOnlyCacheMap.get(key);
-                        if (cacheValue != currentCacheValue) {
-                            readOnlyCacheMap.put(key, cacheValue);
-                        }
+                        changed |= refreshReadOnlyCache(key);
                     } catch (Throwable th) {
                         logger.error("Error while updating the client cache from response cache", th);
                     }
                 }
+                if (changed) {
+                    watchers.signalChange();
+                }
             }
         };
     }
 
+    /**
+     * @return true if the read only cache now serves a new payload for the key
+     */
+    private boolean refreshReadOnlyCache(Key key) {
+        Long invalidationTime = staleSince.remove(key);
+        CurrentRequestVersion.set(key.getVersion());
+        CachedPayload cacheValue;
+        try {
+            cacheValue = readWriteCacheMap.getUnchecked(key);
+        } catch (RuntimeException e) {
+            if (invalidationTime != null) {
+                staleSince.putIfAbsent(key, invalidationTime);
+            }
+            throw e;
+        }
+        CachedPayload currentCacheValue = readOnlyCacheMap.get(key);
+        boolean changed = cacheValue != currentCacheValue;
+        if (changed) {
+            readOnlyCacheMap.put(key, cacheValue);
+        }
+        if (invalidationTime != null) {
+            staleTimerOf(key).record(System.currentTimeMillis() - invalidationTime, TimeUnit.MILLISECONDS);
+        }
+        return changed;
+    }
+
+    private Timer staleTimerOf(Key key) {
+        switch (key.getEntityType()) {
+            case Application:
+                if (ALL_APPS.equals(key.getName())) {
+                    return staleAllAppsTimer;
+                }
+                return ALL_APPS_DELTA.equals(key.getName()) ? staleDeltaAppsTimer : staleOneAppTimer;
+            default:
+                return staleVipTimer;
+        }
+    }
+
     /**
      * Get the cached information about applications.
      *
@@ -209,8 +345,8 @@ public class ResponseCacheImpl implements ResponseCache {
 
     @VisibleForTesting
     String get(final Key key, boolean useReadOnlyCache) {
-        Value payload = getValue(key, useReadOnlyCache);
-        if (payload == null || payload.getPayload().equals(EMPTY_PAYLOAD)) {
+        CachedPayload payload = getValue(key, useReadOnlyCache);
+        if (payload == null || payload.isEmpty()) {
             return null;
         } else {
             return payload.getPayload();
@@ -227,13 +363,65 @@ public class ResponseCacheImpl implements ResponseCache {
      *         applications.
      */
     public byte[] getGZIP(Key key) {
-        Value payload = getValue(key, shouldUseReadOnlyResponseCache);
+        CachedPayload payload = getValue(key, shouldUseReadOnlyResponseCache);
         if (payload == null) {
             return null;
         }
         return payload.getGzipped();
     }
 
+    @Override
+    public CachedPayload getValue(Key key) {
+        CachedPayload payload = getValue(key, shouldUseReadOnlyResponseCache);
+        if (payload == null || payload.isEmpty()) {
+            return null;
+        }
+        return payload;
+    }
+
+    @Override
+    public CachedPayload awaitChange(Key key, CachedPayload seen, long timeoutMs) {
+        if (timeoutMs <= 0 || !watchers.enter()) {
+            return seen;
+        }
+        try {
+            if (shouldUseReadOnlyResponseCache && staleSince.containsKey(key)) {
+                // Invalidated while nobody was watching, so not refreshed until the next periodic update
+                readOnlyCacheRefresher.refreshLater(Collections.singletonList(key));
+            }
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (true) {
+                // Read before the payload, so a change made after the payload is read is not missed
+                long changeCount = watchers.getChangeCount();
+                CachedPayload value = currentValue(key);
+                if (value != seen) {
+                    return value;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !watchers.await(changeCount, remaining)) {
+                    return seen;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return seen;
+        } finally {
+            watchers.exit();
+        }
+    }
+
+    /**
+     * Same as {@link #getValue(Key)}, without counting a request, as the payload the waiting requests wait for is
+     * looked up again after every change.
+     */
+    private CachedPayload currentValue(Key key) {
+        CachedPayload payload = shouldUseReadOnlyResponseCache ? readOnlyCacheMap.get(key) : readWriteCacheMap.getIfPresent(key);
+        if (payload == null) {
+            return getValue(key);
+        }
+        return payload.isEmpty() ? null : payload;
+    }
+
     /**
      * Invalidate the cache of a particular application.
      *
@@ -241,24 +429,43 @@ public class ResponseCacheImpl implements ResponseCache {
      */
     @Override
     public void invalidate(String appName, @Nullable String vipAddress, @Nullable String secureVipAddress) {
-        for (Key.KeyType type : Key.KeyType.values()) {
-            for (Version v : Version.values()) {
-                invalidate(
-                        new Key(Key.EntityType.Application, appName, type, v, EurekaAccept.full),
-                        new Key(Key.EntityType.Application, appName, type, v, EurekaAccept.compact),
-                        new Key(Key.EntityType.Application, ALL_APPS, type, v, EurekaAccept.full),
-                        new Key(Key.EntityType.Application, ALL_APPS, type, v, EurekaAccept.compact),
-                        new Key(Key.EntityType.Application, ALL_APPS_DELTA, type, v, EurekaAccept.full),
-                        new Key(Key.EntityType.Application, ALL_APPS_DELTA, type, v, EurekaAccept.compact)
-                );
+        registryGenerations.nextGeneration();
+        List<Key> staleKeys = new ArrayList<Key>();
+        for (Key.KeyType type : KEY_TYPES) {
+            for (Version v : VERSIONS) {
+                invalidateApplicationKeys(appName, type, v, staleKeys);
+                invalidateAllApplicationsKeys(type, v, staleKeys);
                 if (null != vipAddress) {
-                    invalidate(new Key(Key.EntityType.VIP, vipAddress, type, v, EurekaAccept.full));
+                    invalidateKey(Key.of(Key.EntityType.VIP, vipAddress, type, v, EurekaAccept.full), staleKeys);
                 }
                 if (null != secureVipAddress) {
-                    invalidate(new Key(Key.EntityType.SVIP, secureVipAddress, type, v, EurekaAccept.full));
+                    invalidateKey(Key.of(Key.EntityType.SVIP, secureVipAddress, type, v, EurekaAccept.full), staleKeys);
                 }
             }
         }
+        refreshLater(staleKeys);
+    }
+
+    @Override
+    public void invalidate(Collection<String> appNames, Collection<String> vipAddresses, Collection<String> secureVipAddresses) {
+        registryGenerations.nextGeneration();
+        List<Key> staleKeys = new ArrayList<Key>();
+        for (Key.KeyType type : KEY_TYPES) {
+            for (Version v : VERSIONS) {
+                for (String appName : appNames) {
+                    invalidateApplicationKeys(appName, type, v, staleKeys);
+                }
+                invalidateAllApplicationsKeys(type, v, staleKeys);
+                for (String vipAddress : vipAddresses) {
+                    invalidateKey(Key.of(Key.EntityType.VIP, vipAddress, type, v, EurekaAccept.full), staleKeys);
+                }
+                for (String secureVipAddress : secureVipAddresses) {
+                    invalidateKey(Key.of(Key.EntityType.SVIP, secureVipAddress, type, v, EurekaAccept.full), staleKeys);
+                }
+            }
+        }
+        refreshLater(staleKeys);
+        warmUpLater();
     }
 
     /**
@@ -267,22 +474,97 @@ public class ResponseCacheImpl implements ResponseCache {
      * @param keys the list of keys for which the cache information needs to be invalidated.
      */
     public void invalidate(Key... keys) {
+        registryGenerations.nextGeneration();
+        List<Key> staleKeys = new ArrayList<Key>();
         for (Key key : keys) {
+            invalidateKey(key, staleKeys);
+        }
+        refreshLater(staleKeys);
+    }
+
+    private void invalidateApplicationKeys(String appName, Key.KeyType type, Version v, List<Key> staleKeys) {
+        for (EurekaAccept accept : EUREKA_ACCEPTS) {
+            invalidateKey(Key.of(Key.EntityType.Application, appName, type, v, accept), staleKeys);
+        }
+    }
+
+    private void invalidateAllApplicationsKeys(Key.KeyType type, Version v, List<Key> staleKeys) {
+        for (EurekaAccept accept : EUREKA_ACCEPTS) {
+            invalidateKey(Key.of(Key.EntityType.Application, ALL_APPS, type, v, accept), staleKeys);
+            invalidateKey(Key.of(Key.EntityType.Application, ALL_APPS_DELTA, type, v, accept), staleKeys);
+        }
+    }
+
+    /**
+     * Invalidates the key, along with the keys of the same payload with remote regions or views.
+     */
+    private void invalidateKey(Key key, List<Key> staleKeys) {
+        if (logger.isDebugEnabled()) {
             logger.debug("Invalidating the response cache key : {} {} {} {}, {}",
                     key.getEntityType(), key.getName(), key.getVersion(), key.getType(), key.getEurekaAccept());
+        }
 
-            readWriteCacheMap.invalidate(key);
-            Collection<Key> keysWithRegions = regionSpecificKeys.get(key);
-            if (null != keysWithRegions && !keysWithRegions.isEmpty()) {
-                for (Key keysWithRegion : keysWithRegions) {
+        readWriteCacheMap.invalidate(key);
+        markStale(key, staleKeys);
+        Set<Key> keysWithRegions = regionSpecificKeys.get(key);
+        if (null != keysWithRegions) {
+            for (Key keysWithRegion : keysWithRegions) {
+                if (logger.isDebugEnabled()) {
                     logger.debug("Invalidating the response cache key : {} {} {} {} {}",
                             key.getEntityType(), key.getName(), key.getVersion(), key.getType(), key.getEurekaAccept());
-                    readWriteCacheMap.invalidate(keysWithRegion);
                 }
+                readWriteCacheMap.invalidate(keysWithRegion);
+                markStale(keysWithRegion, staleKeys);
             }
         }
     }
 
+    private void refreshLater(List<Key> staleKeys) {
+        if (!shouldUseReadOnlyResponseCache) {
+            // The new payloads are generated as soon as they are asked for, otherwise once the read only cache is
+            // refreshed, which signals the change itself
+            watchers.signalChange();
+        } else if (shouldRefreshReadOnlyCacheOnInvalidation) {
+            readOnlyCacheRefresher.refreshLater(staleKeys);
+        } else if (watchers.getWatcherCount() > 0) {
+            // The deltas being watched are refreshed right away anyway, rather than holding the watchers until
+            // the next periodic update
+            List<Key> watchedKeys = new ArrayList<Key>();
+            for (Key key : staleKeys) {
+                if (ALL_APPS_DELTA.equals(key.getName())) {
+                    watchedKeys.add(key);
+                }
+            }
+            readOnlyCacheRefresher.refreshLater(watchedKeys);
+        }
+    }
+
+    /**
+     * The keys with regions or views of a key without them. The sets are never removed from the index, so a key loaded
+     * while its set is being emptied is never added to a set no longer in the index.
+     */
+    private Set<Key> keysWithRegionsOf(Key keyWithoutRegions) {
+        Set<Key> keys = regionSpecificKeys.get(keyWithoutRegions);
+        if (keys == null) {
+            Set<Key> newKeys = Collections.newSetFromMap(new ConcurrentHashMap<Key, Boolean>());
+            keys = regionSpecificKeys.putIfAbsent(keyWithoutRegions, newKeys);
+            if (keys == null) {
+                keys = newKeys;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Records when an entry of the read only cache was invalidated, as it is only refreshed later on.
+     */
+    private void markStale(Key key, List<Key> staleKeys) {
+        if (shouldUseReadOnlyResponseCache && readOnlyCacheMap.containsKey(key)) {
+            staleSince.putIfAbsent(key, System.currentTimeMillis());
+            staleKeys.add(key);
+        }
+    }
+
     /**
      * Gets the version number of the cached data.
      *
@@ -327,6 +609,109 @@ public class ResponseCacheImpl implements ResponseCache {
         return versionDeltaWithRegionsLegacy;
     }
 
+    /**
+     * Generates the payloads of the full registry and its delta, in the formats of the current clients, along with
+     * the payloads requested the most recently, into the read write cache and the read only one if it is used.
+     */
+    @Override
+    public void warmUp() {
+        long startTime = System.currentTimeMillis();
+        List<Key> keys = getKeysToWarmUp();
+        // The warm-up may run on a thread of the caller, such as the one opening the registry for traffic
+        Version previousVersion = CurrentRequestVersion.get();
+        try {
+            for (Key key : keys) {
+                try {
+                    if (shouldUseReadOnlyResponseCache) {
+                        refreshReadOnlyCache(key);
+                    } else {
+                        CurrentRequestVersion.set(key.getVersion());
+                        readWriteCacheMap.getUnchecked(key);
+                    }
+                } catch (Throwable th) {
+                    logger.warn("Cannot warm up the response cache for key " + key.toStringCompact(), th);
+                }
+            }
+        } finally {
+            CurrentRequestVersion.set(previousVersion);
+        }
+        logger.info("Warmed up {} response cache entries in {} ms", keys.size(), System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public void stop() {
+        timer.cancel();
+        if (backgroundScheduler != null) {
+            backgroundScheduler.stop();
+        }
+        if (encodingPool != null) {
+            encodingPool.shutdown();
+        }
+    }
+
+    @Override
+    public void warmUpLater() {
+        if (cacheWarmer != null) {
+            cacheWarmer.schedule();
+        }
+    }
+
+    @VisibleForTesting
+    List<Key> getKeysToWarmUp() {
+        Set<Key> keys = new LinkedHashSet<Key>();
+        for (Key.KeyType type : KEY_TYPES) {
+            keys.add(Key.of(Key.EntityType.Application, ALL_APPS, type, Version.V2, EurekaAccept.full));
+            if (!serverConfig.shouldDisableDelta()) {
+                keys.add(Key.of(Key.EntityType.Application, ALL_APPS_DELTA, type, Version.V2, EurekaAccept.full));
+            }
+        }
+        // Copied, as the counts keep changing while sorted
+        List<Map.Entry<Key, Long>> counts = new ArrayList<Map.Entry<Key, Long>>(requestCounts.size());
+        for (Map.Entry<Key, AtomicLong> count : requestCounts.entrySet()) {
+            counts.add(new AbstractMap.SimpleImmutableEntry<Key, Long>(count.getKey(), count.getValue().get()));
+        }
+        Collections.sort(counts, BY_REQUEST_COUNT);
+        int mostRequested = 0;
+        for (Map.Entry<Key, Long> count : counts) {
+            if (mostRequested == serverConfig.getResponseCacheWarmUpKeyCount()) {
+                break;
+            }
+            if (count.getValue() > 0 && keys.add(count.getKey())) {
+                mostRequested++;
+            }
+        }
+
+        // Halved, so the counts follow the changes of the requests, and the keys no longer requested go away
+        Iterator<AtomicLong> it = requestCounts.values().iterator();
+        while (it.hasNext()) {
+            AtomicLong count = it.next();
+            long halved = count.get() / 2;
+            count.set(halved);
+            if (halved == 0) {
+                it.remove();
+            }
+        }
+        return new ArrayList<Key>(keys);
+    }
+
+    private void recordRequest(Key key) {
+        if (key.hasRegions()) {
+            return;
+        }
+        AtomicLong count = requestCounts.get(key);
+        if (count == null) {
+            if (requestCounts.size() >= MAX_TRACKED_KEYS) {
+                return;
+            }
+            AtomicLong newCount = new AtomicLong();
+            count = requestCounts.putIfAbsent(key, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+    }
+
     /**
      * Get the number of items in the response cache.
      *
@@ -337,23 +722,102 @@ public class ResponseCacheImpl implements ResponseCache {
         return readWriteCacheMap.asMap().size();
     }
 
+    /**
+     * Get the number of payloads generated, which used to be the number of registry reads.
+     */
+    @Monitor(name = "responseCachePayloadLoads", description = "Number of response cache payloads generated",
+            type = DataSourceType.COUNTER)
+    public long getPayloadLoads() {
+        return payloadLoads.get();
+    }
+
+    /**
+     * Get the number of registry reads the payloads were generated from, which is at most one per payload
+     * source and change generation, whatever the number of formats.
+     */
+    @Monitor(name = "responseCacheRegistryReads", description = "Number of registry reads for the response cache payloads",
+            type = DataSourceType.COUNTER)
+    public long getRegistryReads() {
+        return registryGenerations.getReadCount();
+    }
+
+    /**
+     * Get how long the oldest stale entry of the read only cache has been diverging from the read write cache,
+     * that is the time since its first invalidation not yet followed by a refresh.
+     */
+    @Monitor(name = "responseCacheReadOnlyStaleness", description = "Age in ms of the oldest stale read only cache entry",
+            type = DataSourceType.GAUGE)
+    public long getReadOnlyStalenessMs() {
+        long oldest = Long.MAX_VALUE;
+        for (Long invalidationTime : staleSince.values()) {
+            oldest = Math.min(oldest, invalidationTime);
+        }
+        return oldest == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long payloadBytes = 0;
+        long compressedBytes = 0;
+        for (CachedPayload value : readWriteCacheMap.asMap().values()) {
+            payloadBytes += value.getPayloadBytes().length;
+            compressedBytes += value.getCompressedSize();
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", getCurrentSize());
+        result.put("payloadBytes", payloadBytes);
+        result.put("compressedBytes", compressedBytes);
+        result.put("readOnlyEntries", readOnlyCacheMap.size());
+        result.put("readOnlyStaleEntries", staleSince.size());
+        result.put("readOnlyStalenessMs", getReadOnlyStalenessMs());
+        result.put("payloadLoads", getPayloadLoads());
+        result.put("registryReads", getRegistryReads());
+        result.put("generations", getGenerations());
+        result.put("watchers", getWatcherCount());
+        result.put("byType", stats.snapshot());
+        return result;
+    }
+
+    /**
+     * Get the number of requests waiting for a payload to change.
+     */
+    @Monitor(name = "responseCacheWatchers", description = "Number of requests waiting for a payload to change",
+            type = DataSourceType.GAUGE)
+    public int getWatcherCount() {
+        return watchers.getWatcherCount();
+    }
+
+    /**
+     * Get the number of registry change generations the payloads were generated for.
+     */
+    @Monitor(name = "responseCacheGenerations", description = "Number of registry generations of the response cache",
+            type = DataSourceType.COUNTER)
+    public long getGenerations() {
+        return registryGenerations.getGenerationCount();
+    }
+
     /**
      * Get the payload in both compressed and uncompressed form.
      */
     @VisibleForTesting
-    Value getValue(final Key key, boolean useReadOnlyCache) {
-        Value payload = null;
+    CachedPayload getValue(final Key key, boolean useReadOnlyCache) {
+        CachedPayload payload = null;
         try {
+            if (!key.getView().isCached()) {
+                return generatePayload(key);
+            }
+            recordRequest(key);
             if (useReadOnlyCache) {
-                final Value currentPayload = readOnlyCacheMap.get(key);
+                final CachedPayload currentPayload = readOnlyCacheMap.get(key);
                 if (currentPayload != null) {
+                    stats.of(key).recordHit();
                     payload = currentPayload;
                 } else {
-                    payload = readWriteCacheMap.get(key);
+                    payload = getReadWriteValue(key);
                     readOnlyCacheMap.put(key, payload);
                 }
             } else {
-                payload = readWriteCacheMap.get(key);
+                payload = getReadWriteValue(key);
             }
         } catch (Throwable t) {
             logger.error("Cannot get value for key :" + key, t);
@@ -361,17 +825,45 @@ public class ResponseCacheImpl implements ResponseCache {
         return payload;
     }
 
+    private CachedPayload getReadWriteValue(Key key) throws ExecutionException {
+        CachedPayload payload = readWriteCacheMap.getIfPresent(key);
+        if (payload != null) {
+            stats.of(key).recordHit();
+            return payload;
+        }
+        stats.of(key).recordMiss();
+        return readWriteCacheMap.get(key);
+    }
+
+    /**
+     * @return the pool the payloads of all the applications are encoded on, or null to encode them on the
+     * requesting thread only
+     */
+    private static ForkJoinPool newEncodingPool(int parallelism) {
+        int threads = Math.min(parallelism, Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            return null;
+        }
+        return new ForkJoinPool(threads, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("Eureka-PayloadEncoder-" + thread.getPoolIndex());
+                return thread;
+            }
+        }, null, false);
+    }
+
     /**
      * Generate pay load with both JSON and XML formats for all applications.
      */
-    private String getPayLoad(Key key, Applications apps) {
-        EncoderWrapper encoderWrapper = serverCodecs.getEncoder(key.getType(), key.getEurekaAccept());
-        String result;
+    private byte[] getPayLoad(Key key, Applications apps) {
+        byte[] result;
         try {
-            result = encoderWrapper.encode(apps);
+            result = encode(key, apps);
         } catch (Exception e) {
             logger.error("Failed to encode the payload for all apps", e);
-            return "";
+            return EMPTY_PAYLOAD;
         }
         if(logger.isDebugEnabled()) {
             logger.debug("New application cache entry {} with apps hashcode {}", key.toStringCompact(), apps.getAppsHashCode());
@@ -379,30 +871,70 @@ public class ResponseCacheImpl implements ResponseCache {
         return result;
     }
 
+    /**
+     * Generate pay load for all applications out of the application fragments, re-encoding only the applications
+     * which changed since the last time. Falls back to encoding all of them if the encoder does not allow it, or
+     * if the key is of a view of the registry.
+     */
+    private byte[] getAllAppsPayLoad(Key key, Applications apps) {
+        if (key.hasView()) {
+            // The fragments are of the whole applications, so the views are encoded as a whole
+            return getPayLoad(key, key.getView().apply(apps));
+        }
+        try {
+            byte[] result = applicationFragments.encode(key.getType(), key.getEurekaAccept(), key.getRegions(), apps);
+            if (result != null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("New application cache entry {} with apps hashcode {}",
+                            key.toStringCompact(), apps.getAppsHashCode());
+                }
+                return result;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to encode the payload for all apps from application fragments", e);
+        }
+        return getPayLoad(key, apps);
+    }
+
     /**
      * Generate pay load with both JSON and XML formats for a given application.
      */
-    private String getPayLoad(Key key, Application app) {
+    private byte[] getPayLoad(Key key, Application app) {
         if (app == null) {
             return EMPTY_PAYLOAD;
         }
 
-        EncoderWrapper encoderWrapper = serverCodecs.getEncoder(key.getType(), key.getEurekaAccept());
         try {
-            return encoderWrapper.encode(app);
+            return encode(key, app);
         } catch (Exception e) {
             logger.error("Failed to encode the payload for application {}", app.getName(), e);
-            return "";
+            return EMPTY_PAYLOAD;
+        }
+    }
+
+    /**
+     * Streams the entity straight into a pooled buffer, rather than encoding it to a string first, so the only
+     * copy of the payload made is the one that is cached.
+     */
+    private byte[] encode(Key key, Object entity) throws IOException {
+        EncoderWrapper encoderWrapper = serverCodecs.getEncoder(key.getType(), key.getEurekaAccept());
+        PayloadBuffers.Buffer buffer = payloadBuffers.acquire();
+        try {
+            encoderWrapper.encode(entity, buffer);
+            return buffer.toByteArray();
+        } finally {
+            payloadBuffers.release(buffer);
         }
     }
 
     /*
      * Generate pay load for the given key.
      */
-    private Value generatePayload(Key key) {
+    private CachedPayload generatePayload(final Key key) throws Exception {
+        payloadLoads.incrementAndGet();
         Stopwatch tracer = null;
         try {
-            String payload;
+            byte[] payload;
             switch (key.getEntityType()) {
                 case Application:
                     boolean isRemoteRegionRequested = key.hasRegions();
@@ -410,40 +942,65 @@ public class ResponseCacheImpl implements ResponseCache {
                     if (ALL_APPS.equals(key.getName())) {
                         if (isRemoteRegionRequested) {
                             tracer = serializeAllAppsWithRemoteRegionTimer.start();
-                            payload = getPayLoad(key, registry.getApplicationsFromMultipleRegions(key.getRegions()));
+                            payload = getAllAppsPayLoad(key, readRegistry(key, new Callable<Applications>() {
+                                @Override
+                                public Applications call() {
+                                    return registry.getApplicationsFromMultipleRegions(key.getRegions());
+                                }
+                            }));
                         } else {
                             tracer = serializeAllAppsTimer.start();
-                            payload = getPayLoad(key, registry.getApplications());
+                            payload = getAllAppsPayLoad(key, readRegistry(key, new Callable<Applications>() {
+                                @Override
+                                public Applications call() {
+                                    return registry.getApplications();
+                                }
+                            }));
                         }
                     } else if (ALL_APPS_DELTA.equals(key.getName())) {
                         if (isRemoteRegionRequested) {
                             tracer = serializeDeltaAppsWithRemoteRegionTimer.start();
-                            versionDeltaWithRegions.incrementAndGet();
-                            versionDeltaWithRegionsLegacy.incrementAndGet();
-                            payload = getPayLoad(key,
-                                    registry.getApplicationDeltasFromMultipleRegions(key.getRegions()));
+                            payload = getPayLoad(key, readRegistry(key, new Callable<Applications>() {
+                                @Override
+                                public Applications call() {
+                                    versionDeltaWithRegions.incrementAndGet();
+                                    versionDeltaWithRegionsLegacy.incrementAndGet();
+                                    return registry.getApplicationDeltasFromMultipleRegions(key.getRegions());
+                                }
+                            }));
                         } else {
                             tracer = serializeDeltaAppsTimer.start();
-                            versionDelta.incrementAndGet();
-                            versionDeltaLegacy.incrementAndGet();
-                            payload = getPayLoad(key, registry.getApplicationDeltas());
+                            payload = getPayLoad(key, readRegistry(key, new Callable<Applications>() {
+                                @Override
+                                public Applications call() {
+                                    versionDelta.incrementAndGet();
+                                    versionDeltaLegacy.incrementAndGet();
+                                    return registry.getApplicationDeltas();
+                                }
+                            }));
                         }
                     } else {
                         tracer = serializeOneApptimer.start();
-                        payload = getPayLoad(key, registry.getApplication(key.getName()));
+                        Application app = registry.getApplication(key.getName());
+                        payload = getPayLoad(key, app == null ? null : key.getView().apply(app));
                     }
                     break;
                 case VIP:
                 case SVIP:
                     tracer = serializeViptimer.start();
-                    payload = getPayLoad(key, getApplicationsForVip(key, registry));
+                    payload = getPayLoad(key, key.getView().apply(readRegistry(key, new Callable<Applications>() {
+                        @Override
+                        public Applications call() {
+                            return getApplicationsForVip(key, registry);
+                        }
+                    })));
                     break;
                 default:
                     logger.error("Unidentified entity type: " + key.getEntityType() + " found in the cache key.");
-                    payload = "";
+                    payload = EMPTY_PAYLOAD;
                     break;
             }
-            return new Value(payload);
+            return new CachedPayload(payload, compressors, contentEncodings, compressPayloadTimer);
         } finally {
             if (tracer != null) {
                 tracer.stop();
@@ -451,40 +1008,31 @@ public class ResponseCacheImpl implements ResponseCache {
         }
     }
 
+    /**
+     * Reads the applications of a payload from the registry, once per change generation for all the formats
+     * of the payload, as the format does not change what is read.
+     */
+    private Applications readRegistry(Key key, Callable<Applications> reader) throws Exception {
+        String source = key.getEntityType().name() + ':' + key.getName()
+                + (key.hasRegions() ? Arrays.toString(key.getRegions()) : "");
+        return registryGenerations.get(source, reader);
+    }
+
     private static Applications getApplicationsForVip(Key key, AbstractInstanceRegistry registry) {
         Object[] args = {key.getEntityType(), key.getName(), key.getVersion(), key.getType()};
         logger.debug(
                 "Retrieving applications from registry for key : {} {} {} {}",
                 args);
-        Applications toReturn = new Applications();
-        Applications applications = registry.getApplications();
-        for (Application application : applications.getRegisteredApplications()) {
-            Application appToAdd = null;
-            for (InstanceInfo instanceInfo : application.getInstances()) {
-                String vipAddress;
-                if (Key.EntityType.VIP.equals(key.getEntityType())) {
-                    vipAddress = instanceInfo.getVIPAddress();
-                } else if (Key.EntityType.SVIP.equals(key.getEntityType())) {
-                    vipAddress = instanceInfo.getSecureVipAddress();
-                } else {
-                    // should not happen, but just in case.
-                    continue;
-                }
-
-                if (null != vipAddress) {
-                    String[] vipAddresses = vipAddress.split(",");
-                    Arrays.sort(vipAddresses);
-                    if (Arrays.binarySearch(vipAddresses, key.getName()) >= 0) {
-                        if (null == appToAdd) {
-                            appToAdd = new Application(application.getName());
-                            toReturn.addApplication(appToAdd);
-                        }
-                        appToAdd.addInstance(instanceInfo);
-                    }
-                }
-            }
+        Applications toReturn;
+        if (Key.EntityType.VIP.equals(key.getEntityType())) {
+            toReturn = registry.getApplicationsForVip(key.getName(), false);
+        } else if (Key.EntityType.SVIP.equals(key.getEntityType())) {
+            toReturn = registry.getApplicationsForVip(key.getName(), true);
+        } else {
+            // should not happen, but just in case.
+            toReturn = new Applications();
+            toReturn.setAppsHashCode(toReturn.getReconcileHashCode());
         }
-        toReturn.setAppsHashCode(toReturn.getReconcileHashCode());
         args = new Object[]{key.getEntityType(), key.getName(), key.getVersion(), key.getType(),
                 toReturn.getReconcileHashCode()};
         logger.debug(
@@ -492,49 +1040,4 @@ public class ResponseCacheImpl implements ResponseCache {
                 args);
         return toReturn;
     }
-
-    /**
-     * The class that stores payload in both compressed and uncompressed form.
-     *
-     */
-    public class Value {
-        private final String payload;
-        private byte[] gzipped;
-
-        public Value(String payload) {
-            this.payload = payload;
-            if (!EMPTY_PAYLOAD.equals(payload)) {
-                Stopwatch tracer = compressPayloadTimer.start();
-                try {
-                    ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                    GZIPOutputStream out = new GZIPOutputStream(bos);
-                    byte[] rawBytes = payload.getBytes();
-                    out.write(rawBytes);
-                    // Finish creation of gzip file
-                    out.finish();
-                    out.close();
-                    bos.close();
-                    gzipped = bos.toByteArray();
-                } catch (IOException e) {
-                    gzipped = null;
-                } finally {
-                    if (tracer != null) {
-                        tracer.stop();
-                    }
-                }
-            } else {
-                gzipped = null;
-            }
-        }
-
-        public String getPayload() {
-            return payload;
-        }
-
-        public byte[] getGzipped() {
-            return gzipped;
-        }
-
-    }
-
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.cache.RemovalCause;
+import com.netflix.eureka.util.StripedCounter;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.BasicDistributionSummary;
+import com.netflix.servo.monitor.BucketConfig;
+import com.netflix.servo.monitor.BucketTimer;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.monitor.Monitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The statistics of the response cache, by entity type and key type of the payloads.
+ *
+ * <p>
+ * Each kind of payload is published to Servo as "responseCache.&lt;entity type&gt;.&lt;key type&gt;", with the
+ * counts of its requests served from the cache (hits) or not (misses), of its loads and of its removals from the
+ * cache by cause, along with the distributions of its payload sizes and generation times. The same counts,
+ * cumulative since startup, are in the {@link #snapshot()} of the diagnostic endpoint.
+ * </p>
+ */
+class ResponseCacheStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheStats.class);
+
+    // Upper bounds of the generation time buckets, in milliseconds
+    private static final long[] GENERATION_TIME_BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    private static final Key.EntityType[] ENTITY_TYPES = Key.EntityType.values();
+    private static final Key.KeyType[] KEY_TYPES = Key.KeyType.values();
+
+    private final TypeStats[] stats = new TypeStats[ENTITY_TYPES.length * KEY_TYPES.length];
+
+    ResponseCacheStats() {
+        for (Key.EntityType entityType : ENTITY_TYPES) {
+            for (Key.KeyType keyType : KEY_TYPES) {
+                String name = "responseCache." + entityType.name() + '.' + keyType.name();
+                TypeStats typeStats = new TypeStats(name);
+                stats[indexOf(entityType, keyType)] = typeStats;
+                try {
+                    Monitors.registerObject(name, typeStats);
+                } catch (Throwable e) {
+                    logger.warn("Cannot register the JMX monitor for the response cache statistics " + name, e);
+                }
+            }
+        }
+    }
+
+    TypeStats of(Key key) {
+        return stats[indexOf(key.getEntityType(), key.getType())];
+    }
+
+    /**
+     * @return the cumulative statistics of each kind of payload, by entity type then key type
+     */
+    Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Key.EntityType entityType : ENTITY_TYPES) {
+            Map<String, Object> byKeyType = new LinkedHashMap<>();
+            for (Key.KeyType keyType : KEY_TYPES) {
+                byKeyType.put(keyType.name(), stats[indexOf(entityType, keyType)].snapshot());
+            }
+            result.put(entityType.name(), byKeyType);
+        }
+        return result;
+    }
+
+    private static int indexOf(Key.EntityType entityType, Key.KeyType keyType) {
+        return entityType.ordinal() * KEY_TYPES.length + keyType.ordinal();
+    }
+
+    /**
+     * The statistics of one kind of payload.
+     */
+    public static class TypeStats {
+
+        private final StripedCounter hits = new StripedCounter();
+        private final StripedCounter misses = new StripedCounter();
+        private final AtomicLong loads = new AtomicLong();
+        private final AtomicLong loadFailures = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+        private final AtomicLong expirations = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        private final AtomicLong totalGenerationTimeMs = new AtomicLong();
+        private final AtomicLong maxGenerationTimeMs = new AtomicLong();
+        // The last bucket counts the generations longer than the last bound
+        private final AtomicLongArray generationTimeCounts = new AtomicLongArray(GENERATION_TIME_BUCKETS.length + 1);
+        private final AtomicLong maxPayloadSize = new AtomicLong();
+
+        private final BucketTimer generationTime;
+        private final BasicDistributionSummary payloadSize;
+        private final BasicDistributionSummary compressedSize;
+
+        TypeStats(String name) {
+            this.generationTime = new BucketTimer(MonitorConfig.builder(name + ".generationTime").build(),
+                    new BucketConfig.Builder()
+                            .withTimeUnit(TimeUnit.MILLISECONDS)
+                            .withBuckets(GENERATION_TIME_BUCKETS)
+                            .build());
+            this.payloadSize = new BasicDistributionSummary(MonitorConfig.builder(name + ".payloadSize").build());
+            this.compressedSize = new BasicDistributionSummary(MonitorConfig.builder(name + ".compressedSize").build());
+        }
+
+        void recordHit() {
+            hits.increment();
+        }
+
+        void recordMiss() {
+            misses.increment();
+        }
+
+        void recordLoad(long generationTimeMs, int size) {
+            loads.incrementAndGet();
+            generationTime.record(generationTimeMs, TimeUnit.MILLISECONDS);
+            totalGenerationTimeMs.addAndGet(generationTimeMs);
+            updateMax(maxGenerationTimeMs, generationTimeMs);
+            generationTimeCounts.incrementAndGet(bucketOf(generationTimeMs));
+            payloadSize.record(size);
+            updateMax(maxPayloadSize, size);
+        }
+
+        void recordLoadFailure() {
+            loadFailures.incrementAndGet();
+        }
+
+        void recordCompression(int size) {
+            compressedSize.record(size);
+        }
+
+        void recordRemoval(RemovalCause cause) {
+            switch (cause) {
+                case EXPLICIT:
+                    invalidations.incrementAndGet();
+                    break;
+                case EXPIRED:
+                    expirations.incrementAndGet();
+                    break;
+                case REPLACED:
+                    break;
+                default:
+                    evictions.incrementAndGet();
+            }
+        }
+
+        @Monitor(name = "hits", description = "Number of requests served from the response cache",
+                type = DataSourceType.COUNTER)
+        public long getHits() {
+            return hits.get();
+        }
+
+        @Monitor(name = "misses", description = "Number of requests which had to wait for the payload to be generated",
+                type = DataSourceType.COUNTER)
+        public long getMisses() {
+            return misses.get();
+        }
+
+        @Monitor(name = "loads", description = "Number of payloads generated", type = DataSourceType.COUNTER)
+        public long getLoads() {
+            return loads.get();
+        }
+
+        @Monitor(name = "loadFailures", description = "Number of payloads which failed to be generated",
+                type = DataSourceType.COUNTER)
+        public long getLoadFailures() {
+            return loadFailures.get();
+        }
+
+        @Monitor(name = "invalidations", description = "Number of payloads removed by a registry change",
+                type = DataSourceType.COUNTER)
+        public long getInvalidations() {
+            return invalidations.get();
+        }
+
+        @Monitor(name = "expirations", description = "Number of payloads removed as they expired",
+                type = DataSourceType.COUNTER)
+        public long getExpirations() {
+            return expirations.get();
+        }
+
+        @Monitor(name = "evictions", description = "Number of payloads evicted for any other reason",
+                type = DataSourceType.COUNTER)
+        public long getEvictions() {
+            return evictions.get();
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("hits", hits.get());
+            result.put("misses", misses.get());
+            long loadCount = loads.get();
+            result.put("loads", loadCount);
+            result.put("loadFailures", loadFailures.get());
+            result.put("invalidations", invalidations.get());
+            result.put("expirations", expirations.get());
+            result.put("evictions", evictions.get());
+            result.put("meanGenerationTimeMs", loadCount == 0 ? 0 : totalGenerationTimeMs.get() / loadCount);
+            result.put("maxGenerationTimeMs", maxGenerationTimeMs.get());
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < GENERATION_TIME_BUCKETS.length; i++) {
+                histogram.put("le" + GENERATION_TIME_BUCKETS[i], generationTimeCounts.get(i));
+            }
+            histogram.put("gt" + GENERATION_TIME_BUCKETS[GENERATION_TIME_BUCKETS.length - 1],
+                    generationTimeCounts.get(GENERATION_TIME_BUCKETS.length));
+            result.put("generationTimeMs", histogram);
+            result.put("maxPayloadSize", maxPayloadSize.get());
+            return result;
+        }
+
+        private static int bucketOf(long generationTimeMs) {
+            for (int i = 0; i < GENERATION_TIME_BUCKETS.length; i++) {
+                if (generationTimeMs <= GENERATION_TIME_BUCKETS[i]) {
+                    return i;
+                }
+            }
+            return GENERATION_TIME_BUCKETS.length;
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+    }
+}
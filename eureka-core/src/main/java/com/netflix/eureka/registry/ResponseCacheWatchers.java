@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.registry;
+
+/**
+ * The requests waiting for a response cache payload to change, as the long polling delta fetches do.
+ *
+ * <p>
+ * Every change to the payloads served wakes up all the waiting requests at once, each of which then checks
+ * whether the payload it waits for is among those that changed. As every waiting request holds on to a request
+ * thread, no more than the given number of them wait at the same time; the others are answered right away.
+ * </p>
+ */
+class ResponseCacheWatchers {
+
+    private final int maxWatchers;
+    private final Object lock = new Object();
+
+    // Guarded by the lock
+    private long changeCount;
+    private int watcherCount;
+
+    ResponseCacheWatchers(int maxWatchers) {
+        this.maxWatchers = maxWatchers;
+    }
+
+    /**
+     * @return true if the caller may wait, in which case it has to call {@link #exit()} once done
+     */
+    boolean enter() {
+        synchronized (lock) {
+            if (watcherCount >= maxWatchers) {
+                return false;
+            }
+            watcherCount++;
+            return true;
+        }
+    }
+
+    void exit() {
+        synchronized (lock) {
+            watcherCount--;
+        }
+    }
+
+    /**
+     * @return the number of changes so far, to be read before checking the payload waited for
+     */
+    long getChangeCount() {
+        synchronized (lock) {
+            return changeCount;
+        }
+    }
+
+    /**
+     * Waits for a change after the given number of changes, for at most the given time.
+     *
+     * @return true if there was a change, false if the time expired first
+     */
+    boolean await(long seenChangeCount, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (lock) {
+            while (changeCount == seenChangeCount) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                lock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Wakes up all the waiting requests, to be called once a change to the payloads can be served.
+     */
+    void signalChange() {
+        synchronized (lock) {
+            changeCount++;
+            if (watcherCount > 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    int getWatcherCount() {
+        synchronized (lock) {
+            return watcherCount;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.netflix.eureka.resources;
 
+import javax.annotation.Nullable;
 import javax.ws.rs.core.Response;
 
 import com.netflix.appinfo.EurekaAccept;
@@ -23,7 +24,9 @@ import com.netflix.eureka.EurekaServerContext;
 import com.netflix.eureka.EurekaServerContextHolder;
 import com.netflix.eureka.Version;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import com.netflix.eureka.registry.RegistryView;
 import com.netflix.eureka.registry.ResponseCache;
+import com.netflix.eureka.registry.CachedPayload;
 import com.netflix.eureka.registry.Key;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,8 +52,16 @@ abstract class AbstractVIPResource {
         this(EurekaServerContextHolder.getInstance().getServerContext());
     }
 
+    /**
+     * @param view the view of the instances with the VIP address to return, or null if the request parameters of
+     *             the view are not valid
+     */
     protected Response getVipResponse(String version, String entityName, String acceptHeader,
-                                      EurekaAccept eurekaAccept, Key.EntityType entityType) {
+                                      EurekaAccept eurekaAccept, Key.EntityType entityType, String ifNoneMatch,
+                                      @Nullable RegistryView view) {
+        if (view == null) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
         if (!registry.shouldAllowAccess(false)) {
             return Response.status(Response.Status.FORBIDDEN).build();
         }
@@ -60,19 +71,21 @@ abstract class AbstractVIPResource {
             keyType = Key.KeyType.XML;
         }
 
-        Key cacheKey = new Key(
+        Key cacheKey = Key.of(
                 entityType,
                 entityName,
                 keyType,
                 CurrentRequestVersion.get(),
-                eurekaAccept
+                eurekaAccept,
+                null,
+                view
         );
 
-        String payLoad = responseCache.get(cacheKey);
+        CachedPayload payLoad = responseCache.getValue(cacheKey);
 
         if (payLoad != null) {
             logger.debug("Found: {}", entityName);
-            return Response.ok(payLoad).build();
+            return CachedPayloads.ok(payLoad, null, null, ifNoneMatch).build();
         } else {
             logger.debug("Not Found: {}", entityName);
             return Response.status(Response.Status.NOT_FOUND).build();
@@ -23,6 +23,8 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -33,9 +35,11 @@ import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.UniqueIdentifier;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import com.netflix.eureka.registry.RegistryView;
 import com.netflix.eureka.Version;
 import com.netflix.eureka.cluster.PeerEurekaNode;
 import com.netflix.eureka.registry.ResponseCache;
+import com.netflix.eureka.registry.CachedPayload;
 import com.netflix.eureka.registry.Key.KeyType;
 import com.netflix.eureka.registry.Key;
 import com.netflix.eureka.util.EurekaMonitors;
@@ -79,13 +83,31 @@ public class ApplicationResource {
      * @param acceptHeader
      *            the accept header of the request to indicate whether to serve
      *            JSON or XML data.
+     * @param ifNoneMatch
+     *            the entity tag of the payload the client already has, if any,
+     *            which it is not sent again.
+     * @param status
+     *            the status of the instances to return, if not all of them.
+     * @param zone
+     *            the zone of the instances to return, if not all of them.
+     * @param projection
+     *            how much of each instance to return, see
+     *            {@link RegistryView.Projection}.
      * @return the response containing information about a particular
      *         application.
      */
     @GET
     public Response getApplication(@PathParam("version") String version,
                                    @HeaderParam("Accept") final String acceptHeader,
-                                   @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept) {
+                                   @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
+                                   @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                   @QueryParam("status") String status,
+                                   @QueryParam("zone") String zone,
+                                   @QueryParam("projection") String projection) {
+        RegistryView view = RegistryView.fromParams(status, zone, projection);
+        if (view == null) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
         if (!registry.shouldAllowAccess(false)) {
             return Response.status(Status.FORBIDDEN).build();
         }
@@ -98,19 +120,21 @@ public class ApplicationResource {
             keyType = Key.KeyType.XML;
         }
 
-        Key cacheKey = new Key(
+        Key cacheKey = Key.of(
                 Key.EntityType.Application,
                 appName,
                 keyType,
                 CurrentRequestVersion.get(),
-                EurekaAccept.fromString(eurekaAccept)
+                EurekaAccept.fromString(eurekaAccept),
+                null,
+                view
         );
 
-        String payLoad = responseCache.get(cacheKey);
+        CachedPayload payLoad = responseCache.getValue(cacheKey);
 
         if (payLoad != null) {
             logger.debug("Found: {}", appName);
-            return Response.ok(payLoad).build();
+            return CachedPayloads.ok(payLoad, null, null, ifNoneMatch).build();
         } else {
             logger.debug("Not Found: {}", appName);
             return Response.status(Status.NOT_FOUND).build();
@@ -144,15 +168,30 @@ public class ApplicationResource {
     public Response addInstance(InstanceInfo info,
                                 @HeaderParam(PeerEurekaNode.HEADER_REPLICATION) String isReplication) {
         logger.debug("Registering instance {} (replication={})", info.getId(), isReplication);
-        // validate that the instanceinfo contains all the necessary required fields
+        String validationError = validateRegistration(info, appName, serverConfig);
+        if (validationError != null) {
+            return Response.status(400).entity(validationError).build();
+        }
+
+        registry.register(info, "true".equals(isReplication));
+        return Response.status(204).build();  // 204 to be backwards compatible
+    }
+
+    /**
+     * Checks that the instanceinfo contains all the necessary required fields, and fills in the id of its
+     * {@link AmazonInfo} if it is missing.
+     *
+     * @return the reason why the registration is rejected, or null if it is valid
+     */
+    static String validateRegistration(InstanceInfo info, String appName, EurekaServerConfig serverConfig) {
         if (isBlank(info.getId())) {
-            return Response.status(400).entity("Missing instanceId").build();
+            return "Missing instanceId";
         } else if (isBlank(info.getHostName())) {
-            return Response.status(400).entity("Missing hostname").build();
+            return "Missing hostname";
         } else if (isBlank(info.getAppName())) {
-            return Response.status(400).entity("Missing appName").build();
+            return "Missing appName";
         } else if (!appName.equals(info.getAppName())) {
-            return Response.status(400).entity("Mismatched appName, expecting " + appName + " but was " + info.getAppName()).build();
+            return "Mismatched appName, expecting " + appName + " but was " + info.getAppName();
         }
 
         // handle cases where clients may be registering with bad DataCenterInfo with missing data
@@ -162,8 +201,7 @@ public class ApplicationResource {
             if (isBlank(dataCenterInfoId)) {
                 boolean experimental = "true".equalsIgnoreCase(serverConfig.getExperimental("registration.validation.dataCenterInfoId"));
                 if (experimental) {
-                    String entity = "DataCenterInfo of type " + dataCenterInfo.getClass() + " must contain a valid id";
-                    return Response.status(400).entity(entity).build();
+                    return "DataCenterInfo of type " + dataCenterInfo.getClass() + " must contain a valid id";
                 } else if (dataCenterInfo instanceof AmazonInfo) {
                     AmazonInfo amazonInfo = (AmazonInfo) dataCenterInfo;
                     String effectiveId = amazonInfo.get(AmazonInfo.MetaDataKey.instanceId);
@@ -175,9 +213,7 @@ public class ApplicationResource {
                 }
             }
         }
-
-        registry.register(info, "true".equals(isReplication));
-        return Response.status(204).build();  // 204 to be backwards compatible
+        return null;
     }
 
     /**
@@ -189,7 +225,7 @@ public class ApplicationResource {
         return appName;
     }
 
-    private boolean isBlank(String str) {
+    private static boolean isBlank(String str) {
         return str == null || str.isEmpty();
     }
 }
@@ -18,31 +18,47 @@ package com.netflix.eureka.resources;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import com.netflix.appinfo.EurekaAccept;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.shared.Pair;
+import com.netflix.discovery.shared.transport.HeartbeatBatchRequest;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
+import com.netflix.discovery.shared.transport.InstanceBatchRequest;
+import com.netflix.discovery.shared.transport.InstanceBatchResponse;
 import com.netflix.eureka.EurekaServerContext;
 import com.netflix.eureka.EurekaServerContextHolder;
 import com.netflix.eureka.registry.AbstractInstanceRegistry;
 import com.netflix.eureka.EurekaServerConfig;
+import com.netflix.eureka.cluster.PeerEurekaNode;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import com.netflix.eureka.registry.RegistryView;
 import com.netflix.eureka.Version;
 import com.netflix.eureka.registry.ResponseCache;
 import com.netflix.eureka.registry.Key.KeyType;
 import com.netflix.eureka.registry.ResponseCacheImpl;
+import com.netflix.eureka.registry.CachedPayload;
 import com.netflix.eureka.registry.Key;
 import com.netflix.eureka.util.EurekaMonitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A <em>jersey</em> resource that handles request related to all
@@ -54,11 +70,10 @@ import com.netflix.eureka.util.EurekaMonitors;
 @Path("/{version}/apps")
 @Produces({"application/xml", "application/json"})
 public class ApplicationsResource {
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationsResource.class);
+
     private static final String HEADER_ACCEPT = "Accept";
     private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
-    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
-    private static final String HEADER_CONTENT_TYPE = "Content-Type";
-    private static final String HEADER_GZIP_VALUE = "gzip";
     private static final String HEADER_JSON_VALUE = "json";
 
     private final EurekaServerConfig serverConfig;
@@ -99,12 +114,16 @@ public class ApplicationsResource {
      *
      * @param version the version of the request.
      * @param acceptHeader the accept header to indicate whether to serve JSON or XML data.
-     * @param acceptEncoding the accept header to indicate whether to serve compressed or uncompressed data.
+     * @param acceptEncoding the accept header to indicate whether to serve compressed or uncompressed data, and with which content coding.
      * @param eurekaAccept an eureka accept extension, see {@link com.netflix.appinfo.EurekaAccept}
+     * @param ifNoneMatch the entity tag of the payload the client already has, if any, which it is not sent again
      * @param uriInfo the {@link java.net.URI} information of the request made.
      * @param regionsStr A comma separated list of remote regions from which the instances will also be returned.
      *                   The applications returned from the remote region can be limited to the applications
      *                   returned by {@link EurekaServerConfig#getRemoteRegionAppWhitelist(String)}
+     * @param status the status of the instances to return, if not all of them
+     * @param zone the zone of the instances to return, if not all of them
+     * @param projection how much of each instance to return, see {@link RegistryView.Projection}
      *
      * @return a response containing information about all {@link com.netflix.discovery.shared.Applications}
      *         from the {@link AbstractInstanceRegistry}.
@@ -114,8 +133,16 @@ public class ApplicationsResource {
                                   @HeaderParam(HEADER_ACCEPT) String acceptHeader,
                                   @HeaderParam(HEADER_ACCEPT_ENCODING) String acceptEncoding,
                                   @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
+                                  @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
                                   @Context UriInfo uriInfo,
-                                  @Nullable @QueryParam("regions") String regionsStr) {
+                                  @Nullable @QueryParam("regions") String regionsStr,
+                                  @Nullable @QueryParam("status") String status,
+                                  @Nullable @QueryParam("zone") String zone,
+                                  @Nullable @QueryParam("projection") String projection) {
+        RegistryView view = RegistryView.fromParams(status, zone, projection);
+        if (view == null) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
 
         boolean isRemoteRegionRequested = null != regionsStr && !regionsStr.isEmpty();
         String[] regions = null;
@@ -141,22 +168,12 @@ public class ApplicationsResource {
             returnMediaType = MediaType.APPLICATION_XML;
         }
 
-        Key cacheKey = new Key(Key.EntityType.Application,
+        Key cacheKey = Key.of(Key.EntityType.Application,
                 ResponseCacheImpl.ALL_APPS,
-                keyType, CurrentRequestVersion.get(), EurekaAccept.fromString(eurekaAccept), regions
+                keyType, CurrentRequestVersion.get(), EurekaAccept.fromString(eurekaAccept), regions, view
         );
 
-        Response response;
-        if (acceptEncoding != null && acceptEncoding.contains(HEADER_GZIP_VALUE)) {
-            response = Response.ok(responseCache.getGZIP(cacheKey))
-                    .header(HEADER_CONTENT_ENCODING, HEADER_GZIP_VALUE)
-                    .header(HEADER_CONTENT_TYPE, returnMediaType)
-                    .build();
-        } else {
-            response = Response.ok(responseCache.get(cacheKey))
-                    .build();
-        }
-        return response;
+        return CachedPayloads.ok(responseCache.getValue(cacheKey), acceptEncoding, returnMediaType, ifNoneMatch).build();
     }
 
     /**
@@ -181,8 +198,12 @@ public class ApplicationsResource {
      *
      * @param version the version of the request.
      * @param acceptHeader the accept header to indicate whether to serve  JSON or XML data.
-     * @param acceptEncoding the accept header to indicate whether to serve compressed or uncompressed data.
+     * @param acceptEncoding the accept header to indicate whether to serve compressed or uncompressed data, and with which content coding.
      * @param eurekaAccept an eureka accept extension, see {@link com.netflix.appinfo.EurekaAccept}
+     * @param ifNoneMatch the entity tag of the payload the client already has, if any, which it is not sent again
+     * @param waitMs how long to wait for the delta to be other than the one the client already has, before
+     *               answering that it is not modified; the wait is limited by
+     *               {@link EurekaServerConfig#getDeltaWatchMaxWaitMs()}
      * @param uriInfo  the {@link java.net.URI} information of the request made.
      * @return response containing the delta information of the
      *         {@link AbstractInstanceRegistry}.
@@ -194,6 +215,8 @@ public class ApplicationsResource {
             @HeaderParam(HEADER_ACCEPT) String acceptHeader,
             @HeaderParam(HEADER_ACCEPT_ENCODING) String acceptEncoding,
             @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @QueryParam("waitMs") long waitMs,
             @Context UriInfo uriInfo, @Nullable @QueryParam("regions") String regionsStr) {
 
         boolean isRemoteRegionRequested = null != regionsStr && !regionsStr.isEmpty();
@@ -221,20 +244,145 @@ public class ApplicationsResource {
             returnMediaType = MediaType.APPLICATION_XML;
         }
 
-        Key cacheKey = new Key(Key.EntityType.Application,
+        Key cacheKey = Key.of(Key.EntityType.Application,
                 ResponseCacheImpl.ALL_APPS_DELTA,
                 keyType, CurrentRequestVersion.get(), EurekaAccept.fromString(eurekaAccept), regions
         );
 
-        if (acceptEncoding != null
-                && acceptEncoding.contains(HEADER_GZIP_VALUE)) {
-            return Response.ok(responseCache.getGZIP(cacheKey))
-                    .header(HEADER_CONTENT_ENCODING, HEADER_GZIP_VALUE)
-                    .header(HEADER_CONTENT_TYPE, returnMediaType)
-                    .build();
-        } else {
-            return Response.ok(responseCache.get(cacheKey))
-                    .build();
+        CachedPayload value = responseCache.getValue(cacheKey);
+        long deadline = System.currentTimeMillis() + Math.min(waitMs, serverConfig.getDeltaWatchMaxWaitMs());
+        while (value != null && CachedPayloads.isNotModified(value, acceptEncoding, ifNoneMatch)) {
+            // Held until the delta is generated again after a change, which may be the same as before
+            CachedPayload changed = responseCache.awaitChange(cacheKey, value, deadline - System.currentTimeMillis());
+            if (changed == value) {
+                break;
+            }
+            value = changed;
+        }
+        return CachedPayloads.ok(value, acceptEncoding, returnMediaType, ifNoneMatch).build();
+    }
+
+    /**
+     * Registers all the instances of a {@link InstanceBatchRequest} at once. Each instance is validated as a
+     * single registration would be, and the valid ones are registered together, with a single response cache
+     * invalidation and a single replication task per peer node.
+     *
+     * @return the outcome of each registration, in the order of the request items
+     */
+    @Path("batch/register")
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response registerAll(InstanceBatchRequest batchRequest,
+                                @HeaderParam(PeerEurekaNode.HEADER_REPLICATION) String isReplication) {
+        List<InstanceBatchRequest.Item> items = batchRequest.getItems();
+        logger.debug("Registering {} instances (replication={})", items.size(), isReplication);
+        InstanceBatchResponse batchResponse = new InstanceBatchResponse();
+        List<InstanceInfo> validInstances = new ArrayList<>(items.size());
+        for (InstanceBatchRequest.Item item : items) {
+            InstanceInfo info = item.getInstanceInfo();
+            String validationError;
+            if (info == null) {
+                validationError = "Missing instanceInfo";
+            } else {
+                String appName = item.getAppName() == null ? info.getAppName() : item.getAppName().toUpperCase();
+                validationError = ApplicationResource.validateRegistration(info, appName == null ? "" : appName, serverConfig);
+            }
+            if (validationError == null) {
+                validInstances.add(info);
+                batchResponse.addResponse(new InstanceBatchResponse.ItemResponse(204, null));
+            } else {
+                batchResponse.addResponse(new InstanceBatchResponse.ItemResponse(400, validationError));
+            }
+        }
+        if (!validInstances.isEmpty()) {
+            registry.registerAll(validInstances, "true".equals(isReplication));
+        }
+        return Response.ok(batchResponse).build();
+    }
+
+    /**
+     * Cancels all the instances of a {@link InstanceBatchRequest} at once, with a single response cache
+     * invalidation and a single replication task per peer node.
+     *
+     * @return the outcome of each cancellation, in the order of the request items
+     */
+    @Path("batch/cancel")
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response cancelAll(InstanceBatchRequest batchRequest,
+                              @HeaderParam(PeerEurekaNode.HEADER_REPLICATION) String isReplication) {
+        List<InstanceBatchRequest.Item> items = batchRequest.getItems();
+        logger.debug("Cancelling {} instances (replication={})", items.size(), isReplication);
+        List<Pair<String, String>> appNameIdPairs = new ArrayList<>(items.size());
+        for (InstanceBatchRequest.Item item : items) {
+            if (item.getAppName() != null && item.getId() != null) {
+                appNameIdPairs.add(new Pair<String, String>(item.getAppName().toUpperCase(), item.getId()));
+            }
+        }
+        boolean[] cancelled = registry.cancelAll(appNameIdPairs, "true".equals(isReplication));
+
+        InstanceBatchResponse batchResponse = new InstanceBatchResponse();
+        int cancelledIndex = 0;
+        for (InstanceBatchRequest.Item item : items) {
+            if (item.getAppName() == null || item.getId() == null) {
+                batchResponse.addResponse(new InstanceBatchResponse.ItemResponse(400, "Missing appName or id"));
+            } else if (cancelled[cancelledIndex++]) {
+                batchResponse.addResponse(new InstanceBatchResponse.ItemResponse(200, null));
+            } else {
+                batchResponse.addResponse(new InstanceBatchResponse.ItemResponse(404, null));
+            }
+        }
+        return Response.ok(batchResponse).build();
+    }
+
+    /**
+     * Renews the leases of all the instances of a {@link HeartbeatBatchRequest} at once, for the hosts running
+     * several instances. Each heartbeat is handled as a single heartbeat from a client would be, without going
+     * through the request dispatch for each of them.
+     *
+     * @return the heartbeats which failed; the instances reported with a 404 status code have to register again
+     */
+    @Path("batch/renew")
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response renewAll(HeartbeatBatchRequest batchRequest) {
+        List<HeartbeatBatchRequest.Item> items = batchRequest.getItems();
+        logger.debug("Renewing {} instances", items.size());
+        List<Pair<String, String>> appNameIdPairs = new ArrayList<>(items.size());
+        for (HeartbeatBatchRequest.Item item : items) {
+            if (item.getAppName() != null && item.getId() != null) {
+                appNameIdPairs.add(new Pair<String, String>(item.getAppName().toUpperCase(), item.getId()));
+            }
+        }
+        boolean[] renewed = registry.renewAll(appNameIdPairs, false);
+
+        boolean syncWhenTimestampDiffers = serverConfig.shouldSyncWhenTimestampDiffers();
+        HeartbeatBatchResponse batchResponse = new HeartbeatBatchResponse();
+        int renewedIndex = 0;
+        for (HeartbeatBatchRequest.Item item : items) {
+            if (item.getAppName() == null || item.getId() == null) {
+                batchResponse.addFailure(new HeartbeatBatchResponse.Failure(item.getAppName(), item.getId(), 400));
+            } else if (!renewed[renewedIndex++]) {
+                batchResponse.addFailure(new HeartbeatBatchResponse.Failure(item.getAppName(), item.getId(), 404));
+            } else if (syncWhenTimestampDiffers && isDirtierThanRegistered(item)) {
+                batchResponse.addFailure(new HeartbeatBatchResponse.Failure(item.getAppName(), item.getId(), 404));
+            }
+        }
+        return Response.ok(batchResponse).build();
+    }
+
+    /**
+     * Same check as the one of a single heartbeat from a client: an instance which changed after the registry last
+     * heard of it has to register again.
+     */
+    private boolean isDirtierThanRegistered(HeartbeatBatchRequest.Item item) {
+        if (item.getLastDirtyTimestamp() == null) {
+            return false;
         }
+        InstanceInfo registered = registry.getRegisteredInstance(item.getAppName().toUpperCase(), item.getId());
+        return registered != null && item.getLastDirtyTimestamp() > registered.getLastDirtyTimestamp();
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.resources;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import com.netflix.eureka.registry.CachedPayload;
+
+/**
+ * Builds the responses serving {@link com.netflix.eureka.registry.ResponseCache} payloads. The payload bytes
+ * are the response entity as they are, so they are written out without being encoded or copied per request, and
+ * the content length is the length of the cached array.
+ *
+ * <p>
+ * A compressed payload is served with the content coding negotiated from the Accept-Encoding header of the
+ * request, among those the response cache is configured with, and is compressed on the first request asking for
+ * that coding. The Content-Encoding header is only set when there is a compressed body to serve; a payload that
+ * could not be compressed is served uncompressed instead.
+ * </p>
+ *
+ * <p>
+ * The entity tag of a payload is a hash of its bytes, so a client whose {@code If-None-Match} header holds the tag
+ * of the payload it already has is answered with 304 (Not Modified) and no entity instead, whichever server of
+ * the cluster it asks.
+ * </p>
+ */
+final class CachedPayloads {
+
+    private static final String WEAK_PREFIX = "W/";
+    private static final String ANY = "*";
+
+    private CachedPayloads() {
+    }
+
+    /**
+     * @param value the cached value, or null if there is none
+     * @param acceptEncoding the Accept-Encoding header of the request, or null to serve the payload uncompressed
+     * @param mediaType the content type of a compressed response, or null to have it negotiated; the content
+     *                  type of an uncompressed response is always negotiated
+     * @param ifNoneMatch the If-None-Match header of the request, or null if it has none
+     */
+    static Response.ResponseBuilder ok(@Nullable CachedPayload value, @Nullable String acceptEncoding,
+                                       @Nullable String mediaType, @Nullable String ifNoneMatch) {
+        if (value == null) {
+            return Response.ok();
+        }
+        String encoding = value.selectEncoding(acceptEncoding);
+        byte[] compressed = encoding == null ? null : value.getCompressed(encoding);
+        if (compressed == null) {
+            // Served uncompressed, and tagged so, when the payload could not be compressed
+            encoding = null;
+        }
+        String eTag = value.getETag(encoding);
+        if (eTag != null && matches(ifNoneMatch, eTag)) {
+            return Response.status(Response.Status.NOT_MODIFIED).header(HttpHeaders.ETAG, eTag);
+        }
+        Response.ResponseBuilder builder;
+        if (compressed != null) {
+            builder = Response.ok(compressed).header(HttpHeaders.CONTENT_ENCODING, encoding);
+            if (mediaType != null) {
+                builder.header(HttpHeaders.CONTENT_TYPE, mediaType);
+            }
+        } else {
+            builder = Response.ok(value.getPayloadBytes());
+        }
+        return builder.header(HttpHeaders.ETAG, eTag);
+    }
+
+    /**
+     * @return true if the value would be answered with 304 (Not Modified)
+     */
+    static boolean isNotModified(CachedPayload value, @Nullable String acceptEncoding, @Nullable String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String eTag = value.getETag(servedEncoding(value, acceptEncoding));
+        return eTag != null && matches(ifNoneMatch, eTag);
+    }
+
+    /**
+     * @return the content coding the value is served with, or null if it is served uncompressed
+     */
+    private static String servedEncoding(CachedPayload value, @Nullable String acceptEncoding) {
+        String encoding = value.selectEncoding(acceptEncoding);
+        if (encoding == null || value.getCompressed(encoding) == null) {
+            return null;
+        }
+        return encoding;
+    }
+
+    /**
+     * Matches the entity tags of an If-None-Match header against the given one, with the weak comparison the
+     * header calls for.
+     */
+    static boolean matches(@Nullable String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(WEAK_PREFIX)) {
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (ANY.equals(tag) || eTag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
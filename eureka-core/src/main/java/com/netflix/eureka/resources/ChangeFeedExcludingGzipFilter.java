@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.resources;
+
+import javax.ws.rs.core.PathSegment;
+import java.util.List;
+
+import com.netflix.discovery.shared.transport.RegistryChangeEvent;
+import com.sun.jersey.api.container.filter.GZIPContentEncodingFilter;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+
+/**
+ * The <em>jersey</em> {@link GZIPContentEncodingFilter}, except that it leaves the responses of the
+ * {@link ChangeFeedResource} uncompressed, as a compressed stream would hold each change back until the
+ * compressor flushes it.
+ */
+public class ChangeFeedExcludingGzipFilter extends GZIPContentEncodingFilter {
+
+    @Override
+    public ContainerResponse filter(ContainerRequest request, ContainerResponse response) {
+        if (isChangeFeedPath(request.getPathSegments())) {
+            return response;
+        }
+        return super.filter(request, response);
+    }
+
+    /**
+     * @return true for the path of the {@link ChangeFeedResource}, which is the version followed by
+     * {@link RegistryChangeEvent#URL_PATH}
+     */
+    static boolean isChangeFeedPath(List<PathSegment> segments) {
+        int size = segments.size();
+        // A trailing slash leaves an empty last segment
+        if (size == 3 && segments.get(2).getPath().isEmpty()) {
+            size = 2;
+        }
+        return size == 2 && RegistryChangeEvent.URL_PATH.equals(segments.get(1).getPath());
+    }
+}
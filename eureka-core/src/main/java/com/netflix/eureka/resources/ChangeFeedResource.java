@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.resources;
+
+import javax.inject.Inject;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import com.netflix.discovery.shared.transport.RegistryChangeEvent;
+import com.netflix.eureka.EurekaServerConfig;
+import com.netflix.eureka.EurekaServerContext;
+import com.netflix.eureka.EurekaServerContextHolder;
+import com.netflix.eureka.Version;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+
+/**
+ * A <em>jersey</em> resource streaming the changes of the registry of this server as they are made, as an
+ * alternative to polling the deltas. See {@link ChangeFeedStream} for the stream itself.
+ *
+ * <p>
+ * The resource is kept out of the <em>apps</em> path, whose responses are compressed as a whole before they
+ * are sent, and its responses are left uncompressed by {@link ChangeFeedExcludingGzipFilter}, so each change
+ * leaves the server as soon as it is written.
+ * </p>
+ */
+@Path("/{version}/" + RegistryChangeEvent.URL_PATH)
+@Produces(RegistryChangeEvent.MEDIA_TYPE)
+public class ChangeFeedResource {
+
+    private final EurekaServerConfig serverConfig;
+    private final PeerAwareInstanceRegistry registry;
+
+    @Inject
+    ChangeFeedResource(EurekaServerContext eurekaServer) {
+        this.serverConfig = eurekaServer.getServerConfig();
+        this.registry = eurekaServer.getRegistry();
+    }
+
+    public ChangeFeedResource() {
+        this(EurekaServerContextHolder.getInstance().getServerContext());
+    }
+
+    /**
+     * Streams the changes of the registry, until the stream has been open for
+     * {@link EurekaServerConfig#getChangeFeedMaxStreamDurationMs()}, or the client falls behind.
+     *
+     * @param version the version of the request.
+     * @param since the sequence number of the last change the client has seen on a previous stream from this
+     *              server; without it, the stream opens with a snapshot of the registry
+     * @param incarnation the incarnation id of the server the previous stream came from
+     * @return a response streaming the changes, or a response with status 503 if too many clients are
+     *         streaming the changes already, which the stream also checks once it is written.
+     */
+    @GET
+    public Response streamChanges(@PathParam("version") String version,
+                                  @QueryParam("since") @DefaultValue("-1") long since,
+                                  @QueryParam("incarnation") String incarnation) {
+        if (serverConfig.shouldDisableDelta() || !registry.shouldAllowAccess(false)) {
+            return Response.status(Status.FORBIDDEN).build();
+        }
+        CurrentRequestVersion.set(Version.toEnum(version));
+        // Only a fast path; the slot is reserved when the stream is written
+        int maxSubscribers = serverConfig.getChangeFeedMaxSubscribers();
+        if (ChangeFeedStream.getSubscriberCount() >= maxSubscribers) {
+            return Response.status(Status.SERVICE_UNAVAILABLE).build();
+        }
+        ChangeFeedStream stream = new ChangeFeedStream(
+                registry,
+                since,
+                incarnation,
+                maxSubscribers,
+                serverConfig.getChangeFeedMaxLag(),
+                serverConfig.getChangeFeedHeartbeatIntervalMs(),
+                serverConfig.getChangeFeedMaxStreamDurationMs()
+        );
+        return Response.ok(stream, RegistryChangeEvent.MEDIA_TYPE).build();
+    }
+}
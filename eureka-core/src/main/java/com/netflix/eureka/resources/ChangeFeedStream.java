@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.eureka.resources;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.Pair;
+import com.netflix.discovery.shared.transport.RegistryChangeEvent;
+import com.netflix.eureka.registry.DeltaJournal;
+import com.netflix.eureka.registry.DeltaJournal.ChangeRecord;
+import com.netflix.eureka.registry.InstanceRegistry;
+import com.netflix.eureka.util.EurekaMonitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams the changes of the registry to a single client, as they are recorded in the change journal of the
+ * registry, one {@link RegistryChangeEvent} per line.
+ *
+ * <p>
+ * The journal is the only buffer shared by all the clients; each of them only holds on to the position it
+ * has reached in it. A client reading slower than the registry changes is slowed down by the blocking writes
+ * to its connection, and it is told to resync, and the stream is closed, as soon as it falls more than the
+ * given number of changes behind, or the changes it has not seen yet are dropped from the journal. A client
+ * never waits for another one, and the registry never waits for any of them.
+ * </p>
+ *
+ * <p>
+ * A new stream opens with a snapshot of the local registry, taken along with the sequence number of the last
+ * change it accounts for, and goes on with the changes following it, so no change is lost between the two.
+ * The sequence numbers are those of the journal of this server incarnation, so a stream can only be resumed
+ * with the incarnation id it was opened with; the client is told to resync otherwise.
+ * </p>
+ *
+ * <p>
+ * The number of concurrent streams is capped; a slot is reserved when Jersey starts writing the stream, and
+ * released once it has been written, so a stream which is never written, as when the client goes away before
+ * the response is sent, holds no slot.
+ * </p>
+ */
+class ChangeFeedStream implements StreamingOutput {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedStream.class);
+
+    private static final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final InstanceRegistry registry;
+    private final long since;
+    private final String incarnation;
+    private final int maxSubscribers;
+    private final int maxLag;
+    private final long heartbeatIntervalMs;
+    private final long maxDurationMs;
+
+    /**
+     * @param since the sequence number of the last change the client has seen, or a negative value to start
+     *              from the current state of the registry
+     * @param incarnation the incarnation id of the server the sequence number comes from
+     * @param maxSubscribers the maximum number of streams written at the same time
+     */
+    ChangeFeedStream(InstanceRegistry registry, long since, String incarnation, int maxSubscribers, int maxLag,
+                     long heartbeatIntervalMs, long maxDurationMs) {
+        this.registry = registry;
+        this.since = since;
+        this.incarnation = incarnation;
+        this.maxSubscribers = maxSubscribers;
+        this.maxLag = maxLag;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    static int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Reserves a subscriber slot.
+     *
+     * @return false if the given number of subscribers is reached already
+     */
+    private static boolean tryReserve(int maxSubscribers) {
+        while (true) {
+            int count = subscriberCount.get();
+            if (count >= maxSubscribers) {
+                return false;
+            }
+            if (subscriberCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reserves a subscriber slot, streams the changes, and releases the slot.
+     *
+     * @throws WebApplicationException with status 503 if too many clients are streaming the changes already,
+     * which is thrown before anything is written, so the response goes out with that status
+     */
+    @Override
+    public void write(OutputStream output) throws IOException {
+        if (!tryReserve(maxSubscribers)) {
+            throw new WebApplicationException(Status.SERVICE_UNAVAILABLE);
+        }
+        try {
+            stream(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            logger.debug("The change feed subscriber went away", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private void stream(Writer writer) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + maxDurationMs;
+        String currentIncarnation = registry.getChangeIncarnation();
+        long sequence;
+        if (since < 0) {
+            Pair<Long, Applications> snapshot = registry.getApplicationsFromLocalRegionWithChangeSequence();
+            sequence = snapshot.first();
+            writeLine(writer, RegistryChangeEvent.snapshotOf(sequence, snapshot.second(), currentIncarnation));
+        } else if (!currentIncarnation.equals(incarnation) || since > registry.getLastChangeSequence()) {
+            // The client comes from another server, or from before a restart of this one
+            resync(writer);
+            return;
+        } else {
+            sequence = since;
+            writeLine(writer, RegistryChangeEvent.heartbeatOf(sequence, currentIncarnation));
+        }
+        writer.flush();
+        while (true) {
+            DeltaJournal.Snapshot changes = registry.getChangesSince(sequence);
+            if (changes == null) {
+                resync(writer);
+                return;
+            }
+            for (ChangeRecord record : changes) {
+                if (registry.getLastChangeSequence() - record.getSequence() > maxLag) {
+                    resync(writer);
+                    return;
+                }
+                writeLine(writer, RegistryChangeEvent.changeOf(record.getSequence(), record.getInstanceInfo()));
+            }
+            sequence = changes.getLastSequence();
+            writer.flush();
+
+            long waitMs = Math.min(heartbeatIntervalMs, deadline - System.currentTimeMillis());
+            if (waitMs <= 0) {
+                return;
+            }
+            if (!registry.awaitChangeAfter(sequence, waitMs)) {
+                writeLine(writer, RegistryChangeEvent.heartbeatOf(sequence));
+                writer.flush();
+            }
+        }
+    }
+
+    private void resync(Writer writer) throws IOException {
+        EurekaMonitors.CHANGE_FEED_RESYNC.increment();
+        writeLine(writer, RegistryChangeEvent.resyncOf(registry.getLastChangeSequence()));
+        writer.flush();
+    }
+
+    private static void writeLine(Writer writer, RegistryChangeEvent event) throws IOException {
+        event.writeLine(writer);
+        writer.write('\n');
+    }
+}
@@ -293,9 +293,10 @@ public class InstanceResource {
 
     private Response validateDirtyTimestamp(Long lastDirtyTimestamp,
                                             boolean isReplication) {
-        InstanceInfo appInfo = registry.getInstanceByAppAndId(app.getName(), id, false);
+        // Called on every renewal, so the lease information is only filled in for the conflict response
+        InstanceInfo appInfo = registry.getRegisteredInstance(app.getName(), id);
         if (appInfo != null) {
-            if ((lastDirtyTimestamp != null) && (!lastDirtyTimestamp.equals(appInfo.getLastDirtyTimestamp()))) {
+            if ((lastDirtyTimestamp != null) && (lastDirtyTimestamp.longValue() != appInfo.getLastDirtyTimestamp())) {
                 Object[] args = {id, appInfo.getLastDirtyTimestamp(), lastDirtyTimestamp, isReplication};
 
                 if (lastDirtyTimestamp > appInfo.getLastDirtyTimestamp()) {
@@ -312,7 +313,8 @@ public class InstanceResource {
                                 "Time to sync, since the last dirty timestamp differs -"
                                         + " ReplicationInstance id : {},Registry : {} Incoming: {} Replication: {}",
                                 args);
-                        return Response.status(Status.CONFLICT).entity(appInfo).build();
+                        InstanceInfo conflicting = registry.getInstanceByAppAndId(app.getName(), id, false);
+                        return Response.status(Status.CONFLICT).entity(conflicting != null ? conflicting : appInfo).build();
                     } else {
                         return Response.ok().build();
                     }
@@ -1,5 +1,6 @@
 package com.netflix.eureka.resources;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.eureka.EurekaServerContext;
@@ -11,6 +12,9 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Map;
 
 /**
@@ -19,6 +23,10 @@ import java.util.Map;
 @Produces("application/json")
 @Path("/serverinfo")
 public class ServerInfoResource {
+    // Leaves the response stream to the container to close
+    private static final ObjectMapper OBJECT_MAPPER =
+            new ObjectMapper().configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
     private final PeerAwareInstanceRegistry registry;
 
     @Inject
@@ -35,8 +43,31 @@ public class ServerInfoResource {
     public Response getOverrides() throws Exception {
         Map<String, InstanceInfo.InstanceStatus> result = registry.overriddenInstanceStatusesSnapshot();
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        String responseStr = objectMapper.writeValueAsString(result);
-        return Response.ok(responseStr).build();
+        return Response.ok(jsonOf(result)).build();
+    }
+
+    /**
+     * Dumps the statistics of the response cache: its size, how far the read only cache is behind the read write
+     * one, and the cumulative hits, misses, loads, removals, payload sizes and generation times of each kind of
+     * payload.
+     */
+    @GET
+    @Path("responsecache")
+    public Response getResponseCacheStats() throws Exception {
+        Map<String, Object> result = registry.getResponseCache().getStats();
+
+        return Response.ok(jsonOf(result)).build();
+    }
+
+    /**
+     * Streams the result straight to the response, rather than writing it to a string first.
+     */
+    private static StreamingOutput jsonOf(final Object result) {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                OBJECT_MAPPER.writeValue(output, result);
+            }
+        };
     }
 }
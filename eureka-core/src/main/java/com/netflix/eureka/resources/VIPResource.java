@@ -20,6 +20,7 @@ import com.netflix.appinfo.EurekaAccept;
 import com.netflix.eureka.EurekaServerContext;
 import com.netflix.eureka.EurekaServerContextHolder;
 import com.netflix.eureka.registry.Key;
+import com.netflix.eureka.registry.RegistryView;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
@@ -27,6 +28,8 @@ import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 /**
@@ -53,9 +56,14 @@ public class VIPResource extends AbstractVIPResource {
     public Response statusUpdate(@PathParam("version") String version,
                                  @PathParam("vipAddress") String vipAddress,
                                  @HeaderParam("Accept") final String acceptHeader,
-                                 @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept) {
+                                 @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
+                                 @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                 @QueryParam("status") String status,
+                                 @QueryParam("zone") String zone,
+                                 @QueryParam("projection") String projection) {
         return getVipResponse(version, vipAddress, acceptHeader,
-                EurekaAccept.fromString(eurekaAccept), Key.EntityType.VIP);
+                EurekaAccept.fromString(eurekaAccept), Key.EntityType.VIP, ifNoneMatch,
+                RegistryView.fromParams(status, zone, projection));
     }
 
 }
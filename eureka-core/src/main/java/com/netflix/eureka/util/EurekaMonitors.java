@@ -16,8 +16,6 @@
 
 package com.netflix.eureka.util;
 
-import java.util.concurrent.atomic.AtomicLong;
-
 import com.netflix.appinfo.AmazonInfo;
 import com.netflix.appinfo.AmazonInfo.MetaDataKey;
 import com.netflix.appinfo.ApplicationInfoManager;
@@ -50,6 +48,10 @@ public enum EurekaMonitors {
     GET_ALL_WITH_REMOTE_REGIONS_CACHE_MISS_DELTA("getAllWithRemoteRegionCacheMissDeltaCounter",
             "Number of total registry queries for delta with remote region seen since startup"),
     GET_ALL_DELTA("getAllDeltaCounter", "Number of total deltas since startup"),
+    DELTA_JOURNAL_OVERRUN("deltaJournalOverrunCounter",
+            "Number of change requests which fell off the delta journal and require a full fetch"),
+    CHANGE_FEED_RESYNC("changeFeedResyncCounter",
+            "Number of change feed subscribers which fell behind the registry and were told to resync"),
     GET_ALL_DELTA_WITH_REMOTE_REGIONS("getAllDeltaWithRemoteRegionCounter",
             "Number of total deltas with remote regions since startup"),
     GET_ALL("getAllCounter", "Number of total registry queries seen since startup"),
@@ -87,11 +89,10 @@ public enum EurekaMonitors {
         }
     }
 
-    @com.netflix.servo.annotations.Monitor(name = "count", type = DataSourceType.COUNTER)
-    private final AtomicLong counter = new AtomicLong();
+    // Striped, as some of the counters are incremented on every heartbeat
+    private final StripedCounter counter = new StripedCounter();
 
-    @com.netflix.servo.annotations.Monitor(name = "count-minus-replication", type = DataSourceType.COUNTER)
-    private final AtomicLong myZoneCounter = new AtomicLong();
+    private final StripedCounter myZoneCounter = new StripedCounter();
 
     /**
      * Increment the counter for the given statistic.
@@ -109,10 +110,10 @@ public enum EurekaMonitors {
      *            true if this a replication, false otherwise.
      */
     public void increment(boolean isReplication) {
-        counter.incrementAndGet();
+        counter.increment();
 
         if (!isReplication) {
-            myZoneCounter.incrementAndGet();
+            myZoneCounter.increment();
         }
     }
 
@@ -150,6 +151,7 @@ public enum EurekaMonitors {
      * @return the long value representing the number of times this statistic
      *         has occurred.
      */
+    @com.netflix.servo.annotations.Monitor(name = "count", type = DataSourceType.COUNTER)
     public long getCount() {
         return counter.get();
     }
@@ -161,6 +163,7 @@ public enum EurekaMonitors {
      * @return the long value representing the number of times this statistic
      *         has occurred.
      */
+    @com.netflix.servo.annotations.Monitor(name = "count-minus-replication", type = DataSourceType.COUNTER)
     public long getZoneSpecificCount() {
         return myZoneCounter.get();
     }
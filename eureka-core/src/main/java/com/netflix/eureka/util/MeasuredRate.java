@@ -31,7 +31,7 @@ public class MeasuredRate {
     private static final Logger logger = LoggerFactory
             .getLogger(MeasuredRate.class);
     private final AtomicLong lastBucket = new AtomicLong(0);
-    private final AtomicLong currentBucket = new AtomicLong(0);
+    private final StripedCounter currentBucket = new StripedCounter();
     private final long sampleInterval;
     private Timer timer = new Timer("Eureka-MeasureRateTimer", true);
 
@@ -47,7 +47,7 @@ public class MeasuredRate {
             public void run() {
                 try {
                     // Zero out the current bucket.
-                    lastBucket.set(currentBucket.getAndSet(0));
+                    lastBucket.set(currentBucket.getAndReset());
                 } catch (Throwable e) {
                     logger.error("Cannot reset the Measured Rate", e);
                 }
@@ -66,6 +66,6 @@ public class MeasuredRate {
      * Increments the count in the current sample interval.
      */
     public void increment() {
-        currentBucket.incrementAndGet();
+        currentBucket.increment();
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.netflix.eureka.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter for the request hot paths, which spreads the increments over a number of stripes picked by thread
+ * id, so the threads serving requests on different cores do not contend on a single memory location. The
+ * stripes are padded to a cache line each. Reading the counter sums the stripes, and is meant to be far less
+ * frequent than incrementing it.
+ */
+public class StripedCounter {
+
+    // 8 longs make 64 bytes, so each stripe sits on its own cache line
+    private static final int PADDING_SHIFT = 3;
+    private static final int MAX_STRIPES = 64;
+
+    private final int stripeMask;
+    private final AtomicLongArray cells;
+
+    public StripedCounter() {
+        int stripes = 1;
+        int wanted = Math.min(MAX_STRIPES, 2 * Runtime.getRuntime().availableProcessors());
+        while (stripes < wanted) {
+            stripes <<= 1;
+        }
+        this.stripeMask = stripes - 1;
+        this.cells = new AtomicLongArray(stripes << PADDING_SHIFT);
+    }
+
+    public void increment() {
+        cells.incrementAndGet(cellOfCurrentThread());
+    }
+
+    public void add(long delta) {
+        cells.addAndGet(cellOfCurrentThread(), delta);
+    }
+
+    /**
+     * @return the sum of the stripes; increments made concurrently may or may not be included
+     */
+    public long get() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += 1 << PADDING_SHIFT) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the counter to zero, returning the count it had. An increment made concurrently is counted either
+     * in the returned value or after the reset, never lost.
+     */
+    public long getAndReset() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += 1 << PADDING_SHIFT) {
+            sum += cells.getAndSet(i, 0);
+        }
+        return sum;
+    }
+
+    private int cellOfCurrentThread() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash ^ (hash >>> 16)) & stripeMask) << PADDING_SHIFT;
+    }
+}
@@ -60,7 +60,6 @@ public class AbstractTester {
         ConfigurationManager.getConfigInstance().clearProperty("eureka.remoteRegion.global.appWhiteList");
         ConfigurationManager.getConfigInstance().setProperty("eureka.responseCacheAutoExpirationInSeconds", "10");
         ConfigurationManager.getConfigInstance().clearProperty("eureka.remoteRegion." + REMOTE_REGION_NAME + ".appWhiteList");
-        ConfigurationManager.getConfigInstance().setProperty("eureka.deltaRetentionTimerIntervalInMs", "600000");
         ConfigurationManager.getConfigInstance().setProperty("eureka.remoteRegion.registryFetchIntervalInSeconds", "5");
         populateRemoteRegistryAtStartup();
         mockRemoteEurekaServer = newMockRemoteServer();
@@ -119,7 +118,6 @@ public class AbstractTester {
         remoteRegionApps.clear();
         remoteRegionAppsDelta.clear();
         ConfigurationManager.getConfigInstance().clearProperty("eureka.remoteRegionUrls");
-        ConfigurationManager.getConfigInstance().clearProperty("eureka.deltaRetentionTimerIntervalInMs");
     }
 
     private static Application createRemoteApps() {
@@ -1,10 +1,13 @@
 package com.netflix.eureka.cluster;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.shared.Pair;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
@@ -72,6 +75,52 @@ public class PeerEurekaNodeTest {
         assertThat(replicationInstance.getAction(), is(equalTo(Action.Cancel)));
     }
 
+    @Test
+    public void testRegisterAllIsReplicatedAsOneTask() throws Exception {
+        InstanceInfo otherInstanceInfo = ClusterSampleData.newInstanceInfo(2);
+        createPeerEurekaNode().registerAll(Arrays.asList(instanceInfo, otherInstanceInfo));
+
+        List<ReplicationInstance> replications = expectBatchRequest(2);
+        assertThat(replications.get(0).getId(), is(equalTo(instanceInfo.getId())));
+        assertThat(replications.get(1).getId(), is(equalTo(otherInstanceInfo.getId())));
+        for (ReplicationInstance replicationInstance : replications) {
+            assertThat(replicationInstance.getAction(), is(equalTo(Action.Register)));
+        }
+    }
+
+    @Test
+    public void testRegisterAllIsSplitAtBatchSize() throws Exception {
+        httpReplicationClient.withNetworkStatusCode(200, 200);
+        List<InstanceInfo> infos = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE + 1; i++) {
+            infos.add(ClusterSampleData.newInstanceInfo(i % BATCH_SIZE));
+        }
+        createPeerEurekaNode().registerAll(infos);
+
+        int replicated = 0;
+        while (replicated < infos.size()) {
+            HandledRequest handledRequest = httpReplicationClient.nextHandledRequest(30, TimeUnit.SECONDS);
+            assertThat(handledRequest, is(notNullValue()));
+            int size = ((ReplicationList) handledRequest.getData()).getReplicationList().size();
+            assertThat(size <= BATCH_SIZE, is(true));
+            replicated += size;
+        }
+        assertThat(replicated, is(equalTo(infos.size())));
+    }
+
+    @Test
+    public void testCancelAllIsReplicatedAsOneTask() throws Exception {
+        InstanceInfo otherInstanceInfo = ClusterSampleData.newInstanceInfo(2);
+        createPeerEurekaNode().cancelAll(Arrays.asList(
+                new Pair<String, String>(instanceInfo.getAppName(), instanceInfo.getId()),
+                new Pair<String, String>(otherInstanceInfo.getAppName(), otherInstanceInfo.getId())
+        ));
+
+        for (ReplicationInstance replicationInstance : expectBatchRequest(2)) {
+            assertThat(replicationInstance.getAction(), is(equalTo(Action.Cancel)));
+        }
+    }
+
     @Test
     public void testHeartbeatBatchReplication() throws Throwable {
         createPeerEurekaNode().heartbeat(instanceInfo.getAppName(), instanceInfo.getId(), instanceInfo, null, false);
@@ -158,6 +207,10 @@ public class PeerEurekaNodeTest {
     }
 
     private ReplicationInstance expectSingleBatchRequest() throws InterruptedException {
+        return expectBatchRequest(1).get(0);
+    }
+
+    private List<ReplicationInstance> expectBatchRequest(int size) throws InterruptedException {
         HandledRequest handledRequest = httpReplicationClient.nextHandledRequest(30, TimeUnit.SECONDS);
         assertThat(handledRequest, is(notNullValue()));
         assertThat(handledRequest.getRequestType(), is(equalTo(RequestType.Batch)));
@@ -166,7 +219,7 @@ public class PeerEurekaNodeTest {
         assertThat(data, is(instanceOf(ReplicationList.class)));
 
         List<ReplicationInstance> replications = ((ReplicationList) data).getReplicationList();
-        assertThat(replications.size(), is(equalTo(1)));
-        return replications.get(0);
+        assertThat(replications.size(), is(equalTo(size)));
+        return replications;
     }
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package com.netflix.eureka.cluster;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.cluster.TestableHttpReplicationClient.HandledRequest;
 import com.netflix.eureka.cluster.TestableInstanceReplicationTask.ProcessingState;
+import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
 import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
 import org.junit.Before;
@@ -106,4 +111,52 @@ public class ReplicationTaskProcessorTest {
         assertThat(status, is(ProcessingResult.Success));
         assertThat(task.getProcessingState(), is(ProcessingState.Failed));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBatchTaskExecution() throws Exception {
+        List<InstanceReplicationTask> instanceTasks = instanceTasksOf(3);
+        InstanceBatchReplicationTask task = new InstanceBatchReplicationTask("peerId#test", Action.Register, instanceTasks, replicationClient);
+
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(200);
+        ProcessingResult status = replicationTaskProcessor.process(task);
+
+        assertThat(status, is(ProcessingResult.Success));
+        assertThat(nextBatchSize(), is(3));
+        for (InstanceReplicationTask instanceTask : instanceTasks) {
+            assertThat(((TestableInstanceReplicationTask) instanceTask).getProcessingState(), is(ProcessingState.Finished));
+        }
+    }
+
+    @Test
+    public void testExpandedBatchTasksAreSplitAtBatchSize() throws Exception {
+        replicationTaskProcessor = new ReplicationTaskProcessor("peerId#test", replicationClient, 2);
+        List<InstanceReplicationTask> instanceTasks = instanceTasksOf(5);
+        InstanceBatchReplicationTask task = new InstanceBatchReplicationTask("peerId#test", Action.Register, instanceTasks, replicationClient);
+
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(200, 200, 200);
+        ProcessingResult status = replicationTaskProcessor.process(Collections.<ReplicationTask>singletonList(task));
+
+        assertThat(status, is(ProcessingResult.Success));
+        assertThat(nextBatchSize(), is(2));
+        assertThat(nextBatchSize(), is(2));
+        assertThat(nextBatchSize(), is(1));
+        for (InstanceReplicationTask instanceTask : instanceTasks) {
+            assertThat(((TestableInstanceReplicationTask) instanceTask).getProcessingState(), is(ProcessingState.Finished));
+        }
+    }
+
+    private static List<InstanceReplicationTask> instanceTasksOf(int count) {
+        List<InstanceReplicationTask> instanceTasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            instanceTasks.add(aReplicationTask().withAction(Action.Register).build());
+        }
+        return instanceTasks;
+    }
+
+    private int nextBatchSize() throws InterruptedException {
+        HandledRequest handledRequest = replicationClient.nextHandledRequest(1, TimeUnit.SECONDS);
+        return ((ReplicationList) handledRequest.getData()).getReplicationList().size();
+    }
+}
@@ -14,6 +14,8 @@ import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
+import com.netflix.discovery.shared.transport.InstanceBatchResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
@@ -78,6 +80,21 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
         return EurekaHttpResponse.status(networkStatusCodes[callCounter.getAndIncrement()]);
     }
 
+    @Override
+    public EurekaHttpResponse<InstanceBatchResponse> registerAll(List<InstanceInfo> infos) {
+        throw new IllegalStateException("method not supported");
+    }
+
+    @Override
+    public EurekaHttpResponse<InstanceBatchResponse> cancelAll(List<InstanceInfo> infos) {
+        throw new IllegalStateException("method not supported");
+    }
+
+    @Override
+    public EurekaHttpResponse<HeartbeatBatchResponse> sendHeartBeats(List<InstanceInfo> infos) {
+        throw new IllegalStateException("method not supported");
+    }
+
     @Override
     public EurekaHttpResponse<InstanceInfo> sendHeartBeat(String appName, String id, InstanceInfo info, InstanceStatus overriddenStatus) {
         handledRequests.add(new HandledRequest(RequestType.Heartbeat, instanceInfoFromPeer));
@@ -123,6 +140,26 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
         throw new IllegalStateException("method not supported");
     }
 
+    @Override
+    public EurekaHttpResponse<Applications> getApplicationsIfModified(String eTag, String... regions) {
+        throw new IllegalStateException("method not supported");
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaIfModified(String eTag, String... regions) {
+        throw new IllegalStateException("method not supported");
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> watchDelta(String eTag, long waitMs, String... regions) {
+        throw new IllegalStateException("method not supported");
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getVipIfModified(String vipAddress, String eTag, String... regions) {
+        throw new IllegalStateException("method not supported");
+    }
+
     @Override
     public EurekaHttpResponse<Application> getApplication(String appName) {
         throw new IllegalStateException("method not supported");
@@ -154,7 +191,9 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
         }
 
         List<ReplicationInstanceResponse> responseList = new ArrayList<>();
-        responseList.add(new ReplicationInstanceResponse(batchStatusCode, instanceInfoFromPeer));
+        for (int i = 0; i < replicationList.getReplicationList().size(); i++) {
+            responseList.add(new ReplicationInstanceResponse(batchStatusCode, instanceInfoFromPeer));
+        }
         ReplicationListResponse replicationListResponse = new ReplicationListResponse(responseList);
 
         handledRequests.add(new HandledRequest(RequestType.Batch, replicationList));
@@ -0,0 +1,81 @@
+package com.netflix.eureka.lease;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LeaseExpiryIndexTest {
+
+    private final LeaseExpiryIndex<String> index = new LeaseExpiryIndex<>(10);
+
+    @Test
+    public void testFindsOnlyExpiredLeases() throws Exception {
+        Lease<String> expiring = new Lease<>("expiring", 0);
+        Lease<String> alive = new Lease<>("alive", 90);
+        index.schedule(expiring);
+        index.schedule(alive);
+        Thread.sleep(20);
+
+        assertThat(index.size(), is(equalTo(2)));
+        assertThat(index.getExpired(0), is(equalTo(Collections.singletonList(expiring))));
+        // Eviction is up to the caller, so the expired lease stays in the index
+        assertThat(index.getExpired(0), is(equalTo(Collections.singletonList(expiring))));
+    }
+
+    @Test
+    public void testAdditionalLeaseTimeDelaysExpiry() throws Exception {
+        Lease<String> expiring = new Lease<>("expiring", 0);
+        index.schedule(expiring);
+        Thread.sleep(20);
+
+        assertThat(index.getExpired(60 * 1000).isEmpty(), is(true));
+        assertThat(index.getExpired(0).size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testRenewedLeaseIsMovedToLaterBucketWhenDue() throws Exception {
+        Lease<String> lease = new Lease<>("renewed", 1);
+        index.schedule(lease);
+        long tick = lease.expiryTick;
+
+        lease.renew();
+        index.schedule(lease);
+
+        // The renewal leaves the lease where it is
+        assertThat(lease.expiryTick, is(equalTo(tick)));
+        assertThat(index.size(), is(equalTo(1)));
+        // Expiring within 1.5s before the renewal, and within 2s after
+        assertThat(index.getExpired(-1500).isEmpty(), is(true));
+        assertThat(lease.expiryTick > tick, is(true));
+        assertThat(index.getExpired(-2500).size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testRemovedLeaseIsNotScheduledAgain() throws Exception {
+        Lease<String> lease = new Lease<>("cancelled", 0);
+        index.schedule(lease);
+        index.remove(lease);
+
+        lease.renew();
+        index.schedule(lease);
+        Thread.sleep(20);
+
+        assertThat(index.size(), is(equalTo(0)));
+        assertThat(index.getExpired(-60 * 1000).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testEmptyBucketsInThePastAreDropped() throws Exception {
+        Lease<String> lease = new Lease<>("cancelled", 0);
+        index.schedule(lease);
+        index.remove(lease);
+        Thread.sleep(20);
+
+        index.getExpired(0);
+        assertThat(index.getBucketCount(), is(equalTo(0)));
+    }
+}
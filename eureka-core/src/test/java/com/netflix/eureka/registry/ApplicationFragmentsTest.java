@@ -0,0 +1,149 @@
+package com.netflix.eureka.registry;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.converters.wrappers.CodecWrapper;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.resources.DefaultServerCodecs;
+import com.netflix.eureka.resources.ServerCodecs;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class ApplicationFragmentsTest {
+
+    private final Applications apps = InstanceInfoGenerator.newBuilder(6, 3).build().toApplications();
+
+    @Test
+    public void testDefaultCodecsEncodeFromFragments() throws Exception {
+        verifyEncodesAsCodecs(DefaultServerCodecs.builder().build());
+    }
+
+    @Test
+    public void testOtherCodecsEncodeFromFragments() throws Exception {
+        verifyEncodesAsCodecs(DefaultServerCodecs.builder()
+                .withFullJsonCodec(CodecWrappers.getCodec(CodecWrappers.JacksonJson.class))
+                .withFullXmlCodec(CodecWrappers.getCodec(CodecWrappers.JacksonXml.class))
+                .build());
+    }
+
+    @Test
+    public void testFragmentsEncodedInParallelAreJoinedInOrder() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            verifyEncodesAsCodecs(DefaultServerCodecs.builder().build(),
+                    InstanceInfoGenerator.newBuilder(200, 40).build().toApplications(), pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnsupportedCodecIsNotEncodedFromFragments() throws Exception {
+        // Leaves out the applications element when there are no applications
+        ServerCodecs codecs = DefaultServerCodecs.builder()
+                .withFullJsonCodec(CodecWrappers.getCodec(CodecWrappers.XStreamJson.class))
+                .build();
+        ApplicationFragments fragments = new ApplicationFragments(codecs);
+
+        assertThat(fragments.encode(Key.KeyType.JSON, EurekaAccept.full, null, apps), is(nullValue()));
+    }
+
+    @Test
+    public void testRemoteRegionPayloadsDoNotEvictTheLocalFragments() throws Exception {
+        CodecWrapper codec = spy(CodecWrappers.getCodec(CodecWrappers.JacksonJson.class));
+        ServerCodecs codecs = DefaultServerCodecs.builder().withFullJsonCodec(codec).build();
+        ApplicationFragments fragments = new ApplicationFragments(codecs);
+        apps.setAppsHashCode(apps.getReconcileHashCode());
+        apps.setVersion(1L);
+        // The same application names, with other objects, as when the remote region instances are merged in
+        Applications withRemoteRegion = new Applications();
+        for (Application app : apps.getRegisteredApplications()) {
+            withRemoteRegion.addApplication(copyOf(app));
+        }
+        withRemoteRegion.setAppsHashCode(withRemoteRegion.getReconcileHashCode());
+        withRemoteRegion.setVersion(1L);
+        fragments.encode(Key.KeyType.JSON, EurekaAccept.full, null, apps);
+        fragments.encode(Key.KeyType.JSON, EurekaAccept.full, new String[]{"us-west-2"}, withRemoteRegion);
+        reset(codec);
+
+        byte[] encoded = fragments.encode(Key.KeyType.JSON, EurekaAccept.full, null, apps);
+        assertThat(new String(encoded, StandardCharsets.UTF_8),
+                is(equalTo(codecs.getEncoder(Key.KeyType.JSON, EurekaAccept.full).encode(apps))));
+        // Only the envelope is encoded again, none of the local applications
+        ArgumentCaptor<Applications> captor = ArgumentCaptor.forClass(Applications.class);
+        verify(codec, atLeast(0)).encode(captor.capture(), any(OutputStream.class));
+        for (Applications encodedApps : captor.getAllValues()) {
+            for (Application app : encodedApps.getRegisteredApplications()) {
+                assertThat(apps.getRegisteredApplications(app.getName()), is(not(sameInstance(app))));
+            }
+        }
+    }
+
+    private void verifyEncodesAsCodecs(ServerCodecs codecs) throws Exception {
+        verifyEncodesAsCodecs(codecs, apps, null);
+    }
+
+    private static void verifyEncodesAsCodecs(ServerCodecs codecs, Applications apps, ForkJoinPool pool)
+            throws Exception {
+        // Encodes any two applications or more in parallel
+        ApplicationFragments fragments = new ApplicationFragments(codecs, pool, 1);
+        for (Key.KeyType type : Key.KeyType.values()) {
+            for (EurekaAccept accept : EurekaAccept.values()) {
+                apps.setAppsHashCode(apps.getReconcileHashCode());
+                apps.setVersion(1L);
+                assertThat(new String(fragments.encode(type, accept, null, apps), StandardCharsets.UTF_8),
+                        is(equalTo(codecs.getEncoder(type, accept).encode(apps))));
+
+                // A changed application is a new object, as in the registry snapshots
+                Applications changed = withFirstApplicationDown(apps);
+                assertThat(new String(fragments.encode(type, accept, null, changed), StandardCharsets.UTF_8),
+                        is(equalTo(codecs.getEncoder(type, accept).encode(changed))));
+            }
+        }
+    }
+
+    private static Application copyOf(Application app) {
+        Application copy = new Application(app.getName());
+        for (InstanceInfo instance : app.getInstances()) {
+            copy.addInstance(new InstanceInfo(instance));
+        }
+        return copy;
+    }
+
+    private static Applications withFirstApplicationDown(Applications apps) {
+        List<Application> registered = apps.getRegisteredApplications();
+        Applications result = new Applications();
+        Application first = new Application(registered.get(0).getName());
+        for (InstanceInfo instance : registered.get(0).getInstances()) {
+            first.addInstance(new InstanceInfo.Builder(new InstanceInfo(instance)).setStatus(InstanceStatus.DOWN).build());
+        }
+        result.addApplication(first);
+        for (Application app : registered.subList(1, registered.size())) {
+            result.addApplication(app);
+        }
+        result.setAppsHashCode(result.getReconcileHashCode());
+        result.setVersion(2L);
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+package com.netflix.eureka.registry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DeflaterPayloadCompressorTest {
+
+    private static final int OS_INDEX = 9;
+
+    private final byte[] payload = newPayload();
+
+    @Test
+    public void testGzipMatchesGzipOutputStream() throws Exception {
+        DeflaterPayloadCompressor compressor = DeflaterPayloadCompressor.gzip(-1);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bos)) {
+            out.write(payload);
+        }
+        byte[] expected = bos.toByteArray();
+        // Twice, the second time with a pooled deflater
+        for (int i = 0; i < 2; i++) {
+            byte[] compressed = compressor.compress(payload);
+            // The operating system field of the header depends on the JDK version
+            compressed[OS_INDEX] = expected[OS_INDEX];
+            assertThat(compressed, is(equalTo(expected)));
+        }
+        assertThat(inflate(new GZIPInputStream(new ByteArrayInputStream(compressor.compress(payload)))),
+                is(equalTo(payload)));
+    }
+
+    @Test
+    public void testDeflateWithEachLevel() throws Exception {
+        for (int level = -1; level <= 9; level++) {
+            byte[] compressed = DeflaterPayloadCompressor.deflate(level).compress(payload);
+            assertThat(inflate(new InflaterInputStream(new ByteArrayInputStream(compressed))), is(equalTo(payload)));
+        }
+    }
+
+    @Test
+    public void testCompressesEmptyAndIncompressiblePayloads() throws Exception {
+        byte[] random = new byte[10000];
+        new Random(1).nextBytes(random);
+        for (byte[] input : Arrays.asList(new byte[0], random)) {
+            byte[] compressed = DeflaterPayloadCompressor.gzip(9).compress(input);
+            assertThat(inflate(new GZIPInputStream(new ByteArrayInputStream(compressed))), is(equalTo(input)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidLevel() throws Exception {
+        DeflaterPayloadCompressor.gzip(10);
+    }
+
+    @Test
+    public void testNegotiatesByQualityThenPreference() throws Exception {
+        assertThat(ContentEncodings.negotiate("gzip, deflate", ContentEncodings.BUILT_IN), is(equalTo("gzip")));
+        assertThat(ContentEncodings.negotiate("deflate, gzip", ContentEncodings.BUILT_IN), is(equalTo("gzip")));
+        assertThat(ContentEncodings.negotiate("gzip;q=0.5, deflate", ContentEncodings.BUILT_IN), is(equalTo("deflate")));
+        assertThat(ContentEncodings.negotiate("GZIP", ContentEncodings.BUILT_IN), is(equalTo("gzip")));
+        assertThat(ContentEncodings.negotiate("*", ContentEncodings.BUILT_IN), is(equalTo("gzip")));
+        assertThat(ContentEncodings.negotiate("gzip;q=0, *", ContentEncodings.BUILT_IN), is(equalTo("deflate")));
+        assertThat(ContentEncodings.negotiate("gzip", Collections.singletonList("deflate")), is(nullValue()));
+        assertThat(ContentEncodings.negotiate("identity", ContentEncodings.BUILT_IN), is(nullValue()));
+        assertThat(ContentEncodings.negotiate(null, ContentEncodings.BUILT_IN), is(nullValue()));
+    }
+
+    private static byte[] newPayload() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("{\"instanceId\":\"i-").append(i).append("\",\"status\":\"UP\"},");
+        }
+        return sb.toString().getBytes();
+    }
+
+    private static byte[] inflate(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,137 @@
+package com.netflix.eureka.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.lease.Lease;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DeltaJournalTest {
+
+    private static final long RETENTION_TIME_MS = 60 * 1000;
+
+    private final DeltaJournal journal = new DeltaJournal(4, RETENTION_TIME_MS);
+
+    @Test
+    public void testCapacityIsRoundedUpToPowerOfTwo() throws Exception {
+        assertThat(new DeltaJournal(5, RETENTION_TIME_MS).getCapacity(), is(equalTo(8)));
+        assertThat(new DeltaJournal(8, RETENTION_TIME_MS).getCapacity(), is(equalTo(8)));
+    }
+
+    @Test
+    public void testSnapshotDoesNotSeeLaterAppends() throws Exception {
+        List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(3, 1).build().toInstanceList();
+
+        journal.append(new Lease<InstanceInfo>(instances.get(0), 90));
+        journal.append(new Lease<InstanceInfo>(instances.get(1), 90));
+        DeltaJournal.Snapshot snapshot = journal.snapshot();
+        assertThat(journal.hasChangedSince(snapshot), is(false));
+
+        journal.append(new Lease<InstanceInfo>(instances.get(2), 90));
+
+        assertThat(journal.hasChangedSince(snapshot), is(true));
+        assertThat(idsOf(snapshot), is(equalTo(idsOf(instances.subList(0, 2)))));
+        assertThat(idsOf(journal.snapshot()), is(equalTo(idsOf(instances))));
+    }
+
+    @Test
+    public void testSnapshotSinceReturnsOnlyMissedChanges() throws Exception {
+        List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(3, 1).build().toInstanceList();
+
+        long first = journal.append(new Lease<InstanceInfo>(instances.get(0), 90));
+        journal.append(new Lease<InstanceInfo>(instances.get(1), 90));
+        long last = journal.append(new Lease<InstanceInfo>(instances.get(2), 90));
+
+        DeltaJournal.Snapshot snapshot = journal.snapshotSince(first);
+        assertThat(idsOf(snapshot), is(equalTo(idsOf(instances.subList(1, 3)))));
+        assertThat(snapshot.getAfterSequence(), is(equalTo(first)));
+        assertThat(snapshot.getLastSequence(), is(equalTo(last)));
+
+        assertThat(journal.snapshotSince(last).size(), is(equalTo(0)));
+        assertThat(journal.snapshotSince(last + 1), is(nullValue()));
+    }
+
+    @Test
+    public void testSnapshotSinceOverwrittenSequenceRequiresFullFetch() throws Exception {
+        List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(6, 1).build().toInstanceList();
+        for (InstanceInfo instance : instances) {
+            journal.append(new Lease<InstanceInfo>(instance, 90));
+        }
+
+        // Changes 3 to 6 are retained, so a client knowing change 2 can catch up, but one knowing change 1 cannot
+        assertThat(journal.snapshotSince(1), is(nullValue()));
+        assertThat(idsOf(journal.snapshotSince(2)), is(equalTo(idsOf(instances.subList(2, 6)))));
+        assertThat(idsOf(journal.snapshot()), is(equalTo(idsOf(instances.subList(2, 6)))));
+    }
+
+    @Test
+    public void testExpiredChangesAreNotRetained() throws Exception {
+        DeltaJournal shortJournal = new DeltaJournal(4, 1);
+        long sequence = shortJournal.append(new Lease<InstanceInfo>(InstanceInfoGenerator.takeOne(), 90));
+        Thread.sleep(10);
+
+        assertThat(shortJournal.snapshot().size(), is(equalTo(0)));
+        assertThat(shortJournal.snapshotSince(sequence - 1), is(nullValue()));
+        assertThat(shortJournal.snapshotSince(sequence).size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testRecordKeepsInstanceStateFromTheTimeOfChange() throws Exception {
+        InstanceInfo instance = InstanceInfoGenerator.takeOne();
+        instance.setStatus(InstanceStatus.UP);
+
+        journal.append(new Lease<InstanceInfo>(instance, 90));
+        instance.setStatus(InstanceStatus.OUT_OF_SERVICE);
+
+        DeltaJournal.ChangeRecord record = journal.snapshot().iterator().next();
+        assertThat(record.getInstanceInfo().getStatus(), is(equalTo(InstanceStatus.UP)));
+    }
+
+    @Test
+    public void testClearKeepsSequenceNumbers() throws Exception {
+        long sequence = journal.append(new Lease<InstanceInfo>(InstanceInfoGenerator.takeOne(), 90));
+        journal.clear();
+
+        assertThat(journal.snapshot().size(), is(equalTo(0)));
+        assertThat(journal.snapshotSince(sequence - 1), is(nullValue()));
+        assertThat(journal.getLastSequence(), is(equalTo(sequence)));
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedAppendDoesNotBlockReaders() throws Exception {
+        try {
+            journal.append(new Lease<InstanceInfo>(null, 90));
+        } catch (NullPointerException expected) {
+        }
+        InstanceInfo instance = InstanceInfoGenerator.takeOne();
+        long sequence = journal.append(new Lease<InstanceInfo>(instance, 90));
+
+        assertThat(sequence, is(equalTo(1L)));
+        assertThat(idsOf(journal.snapshotSince(0)), is(equalTo(idsOf(Collections.singletonList(instance)))));
+    }
+
+    private static List<String> idsOf(DeltaJournal.Snapshot snapshot) {
+        List<String> ids = new ArrayList<>();
+        for (DeltaJournal.ChangeRecord record : snapshot) {
+            ids.add(record.getInstanceInfo().getId());
+        }
+        return ids;
+    }
+
+    private static List<String> idsOf(List<InstanceInfo> instances) {
+        List<String> ids = new ArrayList<>();
+        for (InstanceInfo instance : instances) {
+            ids.add(instance.getId());
+        }
+        return ids;
+    }
+}
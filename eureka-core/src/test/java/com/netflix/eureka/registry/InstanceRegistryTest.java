@@ -14,6 +14,7 @@ import org.junit.Test;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
@@ -152,6 +153,160 @@ public class InstanceRegistryTest extends AbstractTester {
         verifyLocalInstanceStatus(myInstance.getId(), InstanceStatus.UP);
     }
 
+    @Test
+    public void testGetChangesSince() throws Exception {
+        long sequence = registry.getLastChangeSequence();
+        InstanceInfo myInstance = createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME);
+        registerInstanceLocally(myInstance);
+        registry.statusUpdate(LOCAL_REGION_APP_NAME, myInstance.getId(), InstanceStatus.OUT_OF_SERVICE, null, false);
+
+        DeltaJournal.Snapshot changes = registry.getChangesSince(sequence);
+        assertThat(changes.size(), is(equalTo(2)));
+        assertThat(changes.getLastSequence(), is(equalTo(registry.getLastChangeSequence())));
+
+        registry.clearRegistry();
+        assertThat(registry.getChangesSince(sequence), is(nullValue()));
+    }
+
+    @Test
+    public void testDeltaHashCodeFollowsStatusChanges() throws Exception {
+        InstanceInfo myInstance = createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME);
+        registerInstanceLocally(myInstance);
+        registerInstanceLocally(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME));
+        verifyDeltaHashCode("UP_3_");
+
+        registry.statusUpdate(LOCAL_REGION_APP_NAME, myInstance.getId(), InstanceStatus.OUT_OF_SERVICE, null, false);
+        verifyDeltaHashCode("OUT_OF_SERVICE_1_UP_2_");
+
+        // Registering again keeps the overridden status, and does not count the instance twice
+        registry.register(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME), 10000000, false);
+        verifyDeltaHashCode("OUT_OF_SERVICE_1_UP_2_");
+
+        registry.cancel(LOCAL_REGION_APP_NAME, myInstance.getId(), false);
+        verifyDeltaHashCode("UP_2_");
+    }
+
+    @Test
+    public void testVipAndIdLookupsFollowRegistrations() throws Exception {
+        InstanceInfo myInstance = new InstanceInfo.Builder(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME))
+                .setVIPAddress("vipA,vipB").setSecureVIPAddress("svipA").build();
+        registerInstanceLocally(myInstance);
+
+        assertThat(instanceCountOf(registry.getApplicationsForVip("vipB", false)), is(equalTo(1)));
+        assertThat(instanceCountOf(registry.getApplicationsForVip("svipA", true)), is(equalTo(1)));
+        assertThat(instanceCountOf(registry.getApplicationsForVip("vipA", true)), is(equalTo(0)));
+        assertThat(registry.getInstancesById(myInstance.getId(), false).size(), is(equalTo(1)));
+
+        // Registering again with another VIP address replaces the previous one
+        registry.register(new InstanceInfo.Builder(myInstance).setVIPAddress("vipC").build(), 10000000, false);
+        assertThat(instanceCountOf(registry.getApplicationsForVip("vipA", false)), is(equalTo(0)));
+        assertThat(instanceCountOf(registry.getApplicationsForVip("vipC", false)), is(equalTo(1)));
+
+        registry.cancel(LOCAL_REGION_APP_NAME, myInstance.getId(), false);
+        assertThat(instanceCountOf(registry.getApplicationsForVip("vipC", false)), is(equalTo(0)));
+        assertThat(registry.getInstancesById(myInstance.getId(), false).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRegistrySnapshotRebuildsOnlyChangedApps() throws Exception {
+        InstanceInfo myInstance = createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME);
+        registerInstanceLocally(myInstance);
+        InstanceInfo otherInstance = new InstanceInfo.Builder(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME))
+                .setAppName("OtherApp").build();
+        registerInstanceLocally(otherInstance);
+
+        RegistrySnapshot snapshot = registry.getRegistrySnapshot();
+        assertThat(registry.getRegistrySnapshot() == snapshot, is(true));
+        assertThat(registry.getApplicationsFromLocalRegionOnly() == snapshot.getApplications(), is(true));
+        Application myApp = snapshot.getApplication(LOCAL_REGION_APP_NAME);
+        Application otherApp = snapshot.getApplication(otherInstance.getAppName());
+
+        registry.statusUpdate(LOCAL_REGION_APP_NAME, myInstance.getId(), InstanceStatus.OUT_OF_SERVICE, null, false);
+
+        RegistrySnapshot nextSnapshot = registry.getRegistrySnapshot();
+        assertThat(nextSnapshot.getVersion() > snapshot.getVersion(), is(true));
+        assertThat(nextSnapshot.getApplication(otherInstance.getAppName()) == otherApp, is(true));
+        assertThat(nextSnapshot.getApplication(LOCAL_REGION_APP_NAME) == myApp, is(false));
+        assertThat(registry.getApplication(LOCAL_REGION_APP_NAME, false).getByInstanceId(myInstance.getId()).getStatus(),
+                is(equalTo(InstanceStatus.OUT_OF_SERVICE)));
+        // The previous version is left as it was
+        assertThat(myApp.getByInstanceId(myInstance.getId()).getStatus(), is(equalTo(InstanceStatus.UP)));
+        assertThat(snapshot.getReconcileHashCode(), is(equalTo("UP_2_")));
+        assertThat(nextSnapshot.getReconcileHashCode(), is(equalTo("OUT_OF_SERVICE_1_UP_1_")));
+
+        registry.cancel(otherInstance.getAppName(), otherInstance.getId(), false);
+        assertThat(registry.getRegistrySnapshot().getApplication(otherInstance.getAppName()), is(nullValue()));
+        assertThat(registry.getRegistrySnapshot().getApplicationCount(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testRegistrySnapshotFollowsTheChangesOutsideOfTheDeltaJournal() throws Exception {
+        registry.openForTraffic(serverContext.getApplicationInfoManager(), 1);
+        InstanceInfo myInstance = createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME);
+        registerInstanceLocally(myInstance);
+        RegistrySnapshot snapshot = registry.getRegistrySnapshot();
+        long renewalTimestamp = snapshot.getApplication(LOCAL_REGION_APP_NAME)
+                .getByInstanceId(myInstance.getId()).getLeaseInfo().getRenewalTimestamp();
+
+        Thread.sleep(2);
+        registry.renew(LOCAL_REGION_APP_NAME, myInstance.getId(), true);
+        // The single instance reads have the current renewal timestamp, the snapshot keeps its application
+        assertThat(registry.getInstanceByAppAndId(LOCAL_REGION_APP_NAME, myInstance.getId(), false)
+                .getLeaseInfo().getRenewalTimestamp() > renewalTimestamp, is(true));
+        assertThat(registry.getRegistrySnapshot() == snapshot, is(true));
+
+        registry.storeOverriddenStatusIfRequired(LOCAL_REGION_APP_NAME, myInstance.getId(), InstanceStatus.OUT_OF_SERVICE);
+        InstanceInfo overridden = registry.getRegistrySnapshot().getApplication(LOCAL_REGION_APP_NAME)
+                .getByInstanceId(myInstance.getId());
+        assertThat(overridden.getOverriddenStatus(), is(equalTo(InstanceStatus.OUT_OF_SERVICE)));
+
+        // Neither change goes into the deltas
+        assertThat(registry.getRegistrySnapshot().getVersion(), is(equalTo(snapshot.getVersion())));
+    }
+
+    @Test
+    public void testRenewalsReuseTheApplicationsOfThePreviousSnapshot() throws Exception {
+        registry.openForTraffic(serverContext.getApplicationInfoManager(), 1);
+        InstanceInfo myInstance = createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME);
+        registerInstanceLocally(myInstance);
+        InstanceInfo otherInstance = new InstanceInfo.Builder(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME))
+                .setAppName("OtherApp").build();
+        registerInstanceLocally(otherInstance);
+        RegistrySnapshot snapshot = registry.getRegistrySnapshot();
+        Applications apps = registry.getApplicationsFromLocalRegionOnly();
+
+        registry.renew(LOCAL_REGION_APP_NAME, myInstance.getId(), false);
+        registry.renew(otherInstance.getAppName(), otherInstance.getId(), false);
+
+        assertThat(registry.getRegistrySnapshot() == snapshot, is(true));
+        assertThat(registry.getApplicationsFromLocalRegionOnly() == apps, is(true));
+        assertThat(registry.getApplication(LOCAL_REGION_APP_NAME, false)
+                == snapshot.getApplication(LOCAL_REGION_APP_NAME), is(true));
+        assertThat(registry.getApplication(otherInstance.getAppName(), false)
+                == snapshot.getApplication(otherInstance.getAppName()), is(true));
+    }
+
+    @Test
+    public void testRegistrySnapshotApplicationsAreReadOnly() throws Exception {
+        InstanceInfo myInstance = createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME);
+        registerInstanceLocally(myInstance);
+
+        Applications apps = registry.getApplicationsFromLocalRegionOnly();
+        try {
+            apps.addApplication(new Application("OtherApp"));
+            Assert.fail("The shared applications were modified");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+        Application app = registry.getApplication(LOCAL_REGION_APP_NAME, false);
+        try {
+            app.removeInstance(app.getByInstanceId(myInstance.getId()));
+            Assert.fail("The shared application was modified");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
     @Test
     public void testEvictionTaskCompensationTime() throws Exception {
         long evictionTaskPeriodNanos = serverConfig.getEvictionIntervalTimerInMs() * 1000000;
@@ -170,6 +325,20 @@ public class InstanceRegistryTest extends AbstractTester {
         assertThat(testTask.getCompensationTimeMs(), is(0l));
     }
 
+    private void verifyDeltaHashCode(String expected) {
+        assertThat(registry.getApplicationsFromAllRemoteRegions().getAppsHashCode(), is(equalTo(expected)));
+        assertThat(registry.getApplicationDeltasFromMultipleRegions(null).getAppsHashCode(), is(equalTo(expected)));
+        assertThat(registry.getApplicationDeltas().getAppsHashCode(), is(equalTo(expected)));
+    }
+
+    private static int instanceCountOf(Applications applications) {
+        int count = 0;
+        for (Application application : applications.getRegisteredApplications()) {
+            count += application.getInstances().size();
+        }
+        return count;
+    }
+
     private void verifyLocalInstanceStatus(String id, InstanceStatus status) {
         InstanceInfo instanceInfo = registry.getApplication(LOCAL_REGION_APP_NAME).getByInstanceId(id);
         assertThat("InstanceInfo with id " + id + " not found", instanceInfo, is(notNullValue()));
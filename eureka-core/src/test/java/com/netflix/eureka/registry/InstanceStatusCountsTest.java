@@ -0,0 +1,109 @@
+package com.netflix.eureka.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.lease.Lease;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class InstanceStatusCountsTest {
+
+    private static final int THREADS = 4;
+    private static final int LEASES_PER_THREAD = 2000;
+
+    private final DeltaJournal journal = new DeltaJournal(1024, 60 * 1000);
+    private final InstanceStatusCounts counts = new InstanceStatusCounts(journal);
+
+    @Test
+    public void testCountsFollowTheChanges() throws Exception {
+        List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(2, 1).build().toInstanceList();
+        Lease<InstanceInfo> first = new Lease<InstanceInfo>(instances.get(0), 90);
+        Lease<InstanceInfo> second = new Lease<InstanceInfo>(instances.get(1), 90);
+        first.getHolder().setStatusWithoutDirty(InstanceStatus.UP);
+        second.getHolder().setStatusWithoutDirty(InstanceStatus.UP);
+
+        counts.register(first, null);
+        counts.register(second, null);
+        second.getHolder().setStatusWithoutDirty(InstanceStatus.DOWN);
+        counts.statusChanged(second);
+        InstanceStatusCounts.Snapshot snapshot = counts.getSnapshot();
+        assertThat(snapshot.getSequence(), is(equalTo(3L)));
+        assertThat(snapshot.getReconcileHashCode(), is(equalTo("DOWN_1_UP_1_")));
+        assertThat(counts.getSnapshot(), is(sameInstance(snapshot)));
+
+        Lease<InstanceInfo> replacement = new Lease<InstanceInfo>(instances.get(0), 90);
+        counts.register(replacement, first);
+        counts.cancel(second);
+        snapshot = counts.getSnapshot();
+        assertThat(snapshot.getSequence(), is(equalTo(5L)));
+        assertThat(snapshot.getReconcileHashCode(), is(equalTo("UP_1_")));
+
+        counts.clear();
+        assertThat(counts.getSnapshot().getReconcileHashCode(), is(equalTo("")));
+    }
+
+    @Test
+    public void testSnapshotsAreConsistentWithTheJournalUnderConcurrentChanges() throws Exception {
+        final List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(THREADS * LEASES_PER_THREAD, 1)
+                .build().toInstanceList();
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<String> inconsistencies = new ArrayList<>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (done.getCount() > 0) {
+                    InstanceStatusCounts.Snapshot snapshot = counts.getSnapshot();
+                    // Only registrations are appended, so each one counts an instance
+                    long total = 0;
+                    for (InstanceStatus status : InstanceStatus.values()) {
+                        total += snapshot.getCount(status);
+                    }
+                    if (total != snapshot.getSequence()) {
+                        inconsistencies.add(total + " instances counted as of change " + snapshot.getSequence());
+                        return;
+                    }
+                }
+            }
+        });
+        reader.start();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t * LEASES_PER_THREAD;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = offset; i < offset + LEASES_PER_THREAD; i++) {
+                            counts.register(new Lease<InstanceInfo>(instances.get(i), 90), null);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            done.countDown();
+            reader.join();
+        }
+        assertThat(inconsistencies.toString(), inconsistencies.isEmpty(), is(true));
+        assertThat(counts.getSnapshot().getSequence(), is(equalTo((long) THREADS * LEASES_PER_THREAD)));
+    }
+}
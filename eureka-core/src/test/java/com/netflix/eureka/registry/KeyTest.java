@@ -0,0 +1,126 @@
+package com.netflix.eureka.registry;
+
+import java.util.Locale;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.Version;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class KeyTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        // As the registry does for the names of the instances it registers
+        KeySpace.intern("myApp");
+        KeySpace.intern("myVip");
+    }
+
+    @Test
+    public void testKeysWithoutRegionsAreCanonical() throws Exception {
+        Key key = Key.of(Key.EntityType.VIP, "myVip", Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+
+        assertThat(Key.of(Key.EntityType.VIP, "myVip", Key.KeyType.JSON, Version.V2, EurekaAccept.full), is(sameInstance(key)));
+        assertThat(Key.of(Key.EntityType.VIP, "myVip", Key.KeyType.JSON, Version.V2, EurekaAccept.full, null), is(sameInstance(key)));
+        assertThat(key.cloneWithoutRegions(), is(sameInstance(key)));
+        assertThat(Key.of(Key.EntityType.SVIP, "myVip", Key.KeyType.JSON, Version.V2, EurekaAccept.full), is(not(key)));
+        assertThat(Key.of(Key.EntityType.VIP, "myVip", Key.KeyType.XML, Version.V2, EurekaAccept.full), is(not(key)));
+        assertThat(Key.of(Key.EntityType.VIP, "myVip", Key.KeyType.JSON, Version.V1, EurekaAccept.full), is(not(key)));
+        assertThat(Key.of(Key.EntityType.VIP, "myVip", Key.KeyType.JSON, Version.V2, EurekaAccept.compact), is(not(key)));
+        assertThat(Key.of(Key.EntityType.VIP, "otherVip", Key.KeyType.JSON, Version.V2, EurekaAccept.full), is(not(key)));
+    }
+
+    @Test
+    public void testKeysOfTheFullAndDeltaRegistryAreCanonical() throws Exception {
+        Key key = Key.of(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS, Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        assertThat(Key.of(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS, Key.KeyType.JSON, Version.V2, EurekaAccept.full),
+                is(sameInstance(key)));
+
+        Key delta = Key.of(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS_DELTA, Key.KeyType.XML, Version.V2, EurekaAccept.compact);
+        assertThat(Key.of(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS_DELTA, Key.KeyType.XML, Version.V2, EurekaAccept.compact),
+                is(sameInstance(delta)));
+    }
+
+    @Test
+    public void testKeysOfNamesNotInternedAreBuiltAndEqualTheInternedOnes() throws Exception {
+        Key key = Key.of(Key.EntityType.Application, "notRegisteredApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        Key other = Key.of(Key.EntityType.Application, "notRegisteredApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        assertThat(other, is(not(sameInstance(key))));
+        assertThat(other, is(equalTo(key)));
+
+        KeySpace.intern("notRegisteredApp");
+        Key interned = Key.of(Key.EntityType.Application, "notRegisteredApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        assertThat(interned, is(equalTo(key)));
+        assertThat(interned.hashCode(), is(equalTo(key.hashCode())));
+    }
+
+    @Test
+    public void testEqualsBuiltKeys() throws Exception {
+        Key key = Key.of(Key.EntityType.Application, "myApp", Key.KeyType.XML, Version.V1, EurekaAccept.compact);
+        Key built = new Key(Key.EntityType.Application, "myApp", Key.KeyType.XML, Version.V1, EurekaAccept.compact);
+
+        assertThat(built, is(equalTo(key)));
+        assertThat(built.hashCode(), is(equalTo(key.hashCode())));
+        assertThat(built.getHashKey(), is(equalTo(key.getHashKey())));
+    }
+
+    @Test
+    public void testKeysWithRegions() throws Exception {
+        Key key = Key.of(Key.EntityType.Application, "myApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full,
+                new String[]{"us-east-1", "us-west-2"});
+        Key same = new Key(Key.EntityType.Application, "myApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full,
+                new String[]{"us-east-1", "us-west-2"});
+        Key other = new Key(Key.EntityType.Application, "myApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full,
+                new String[]{"us-east-1"});
+
+        assertThat(same, is(equalTo(key)));
+        assertThat(same.hashCode(), is(equalTo(key.hashCode())));
+        assertThat(other, is(not(key)));
+        assertThat(key.cloneWithoutRegions(),
+                is(sameInstance(Key.of(Key.EntityType.Application, "myApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full))));
+        assertThat(key.cloneWithoutRegions(), is(not(key)));
+    }
+
+    @Test
+    public void testKeysWithViews() throws Exception {
+        RegistryView view = RegistryView.of(InstanceInfo.InstanceStatus.UP, "us-east-1c", RegistryView.Projection.ENDPOINTS);
+        Key key = Key.of(Key.EntityType.Application, "myApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full, null, view);
+        Key same = Key.of(Key.EntityType.Application, "myApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full, null,
+                RegistryView.fromParams("up", "us-east-1c", "endpoints"));
+        Key whole = Key.of(Key.EntityType.Application, "myApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+
+        assertThat(same, is(equalTo(key)));
+        assertThat(same.hashCode(), is(equalTo(key.hashCode())));
+        assertThat(whole, is(not(key)));
+        assertThat(key.cloneWithoutRegionsAndView(), is(sameInstance(whole)));
+        assertThat(Key.of(Key.EntityType.Application, "myApp", Key.KeyType.JSON, Version.V2, EurekaAccept.full, null,
+                RegistryView.ALL), is(sameInstance(whole)));
+        assertThat(RegistryView.fromParams(null, null, "unknown"), is(nullValue()));
+    }
+
+    @Test
+    public void testViewParamsAreParsedRegardlessOfTheDefaultLocale() throws Exception {
+        Locale defaultLocale = Locale.getDefault();
+        // Upper-cases "i" to a dotted capital I
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            RegistryView view = RegistryView.fromParams("starting", null, "ENDPOINTS");
+            assertThat(view.getStatus(), is(equalTo(InstanceInfo.InstanceStatus.STARTING)));
+            assertThat(view.getProjection(), is(equalTo(RegistryView.Projection.ENDPOINTS)));
+            assertThat(RegistryView.fromParams(null, null, "endpoints").getProjection(),
+                    is(equalTo(RegistryView.Projection.ENDPOINTS)));
+            assertThat(RegistryView.fromParams(null, null, RegistryView.Projection.FULL.getParamValue()),
+                    is(sameInstance(RegistryView.ALL)));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.netflix.eureka.registry;
+
+import java.util.List;
+
+import com.netflix.discovery.shared.Pair;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RecentLeaseEventsTest {
+
+    private final RecentLeaseEvents events = new RecentLeaseEvents(4);
+
+    @Test
+    public void testKeepsOnlyTheMostRecentEvents() throws Exception {
+        for (int i = 1; i <= 6; i++) {
+            events.add(i, "app", "i-" + i);
+        }
+
+        List<Pair<Long, String>> latest = events.getLatest();
+        assertThat(latest.size(), is(equalTo(4)));
+        assertThat(latest.get(0).first(), is(equalTo(6L)));
+        assertThat(latest.get(0).second(), is(equalTo("app(i-6)")));
+        assertThat(latest.get(3).second(), is(equalTo("app(i-3)")));
+    }
+
+    @Test
+    public void testFiltersByApplicationAndTime() throws Exception {
+        events.add(1, "app1", "i-1");
+        events.add(2, "app2", "i-2");
+        events.add(3, "app1", "i-3");
+        events.add(4, "app1", "i-4");
+
+        List<Pair<Long, String>> latest = events.getLatest("APP1", 2, 3);
+        assertThat(latest.size(), is(equalTo(1)));
+        assertThat(latest.get(0).second(), is(equalTo("app1(i-3)")));
+        assertThat(events.getLatest(null, 2, Long.MAX_VALUE).size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testClearDropsEarlierEvents() throws Exception {
+        events.add(1, "app", "i-1");
+        events.clear();
+        events.add(2, "app", "i-2");
+
+        List<Pair<Long, String>> latest = events.getLatest();
+        assertThat(latest.size(), is(equalTo(1)));
+        assertThat(latest.get(0).second(), is(equalTo("app(i-2)")));
+    }
+}
@@ -0,0 +1,107 @@
+package com.netflix.eureka.registry;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.discovery.shared.Applications;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RegistryGenerationsTest {
+
+    private final RegistryGenerations generations = new RegistryGenerations(TimeUnit.MINUTES.toMillis(1));
+    private final CountingReader reader = new CountingReader();
+
+    @Test
+    public void testReadsOncePerGeneration() throws Exception {
+        Applications first = generations.get("all", reader);
+        assertThat(generations.get("all", reader), is(sameInstance(first)));
+        assertThat(reader.reads.get(), is(equalTo(1)));
+
+        generations.get("delta", reader);
+        assertThat(reader.reads.get(), is(equalTo(2)));
+
+        generations.nextGeneration();
+        assertThat(generations.get("all", reader), is(not(sameInstance(first))));
+        assertThat(reader.reads.get(), is(equalTo(3)));
+        assertThat(generations.getReadCount(), is(equalTo(3L)));
+        assertThat(generations.getGenerationCount(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void testConcurrentReadsAreCoalesced() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<Applications> slowReader = new Callable<Applications>() {
+            @Override
+            public Applications call() throws Exception {
+                release.await();
+                return reader.call();
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] results = new Future<?>[4];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = executor.submit(new Callable<Applications>() {
+                    @Override
+                    public Applications call() throws Exception {
+                        return generations.get("all", slowReader);
+                    }
+                });
+            }
+            release.countDown();
+            for (Future<?> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS), is(sameInstance(results[0].get())));
+            }
+            assertThat(reader.reads.get(), is(equalTo(1)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedReadIsNotKept() throws Exception {
+        try {
+            generations.get("all", new Callable<Applications>() {
+                @Override
+                public Applications call() {
+                    throw new IllegalStateException("read failure");
+                }
+            });
+            fail("Expected the read failure");
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+        generations.get("all", reader);
+        assertThat(reader.reads.get(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testExpiredGenerationIsRetired() throws Exception {
+        RegistryGenerations expiring = new RegistryGenerations(0);
+        expiring.get("all", reader);
+        expiring.get("all", reader);
+        assertThat(reader.reads.get(), is(equalTo(2)));
+    }
+
+    private static class CountingReader implements Callable<Applications> {
+        private final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public Applications call() throws Exception {
+            reads.incrementAndGet();
+            return new Applications();
+        }
+    }
+}
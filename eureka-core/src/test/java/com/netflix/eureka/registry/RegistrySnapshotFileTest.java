@@ -0,0 +1,211 @@
+package com.netflix.eureka.registry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.appinfo.LeaseInfo;
+import com.netflix.discovery.DefaultEurekaClientConfig;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.AbstractTester;
+import com.netflix.eureka.DefaultEurekaServerConfig;
+import com.netflix.eureka.EurekaServerConfig;
+import com.netflix.eureka.cluster.PeerEurekaNode;
+import com.netflix.eureka.cluster.PeerEurekaNodes;
+import com.netflix.eureka.resources.DefaultServerCodecs;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.netflix.discovery.shared.transport.EurekaHttpResponse.anEurekaHttpResponse;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RegistrySnapshotFileTest extends AbstractTester {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<PeerAwareInstanceRegistryImpl> registries = new ArrayList<>();
+    private final EurekaClient peerClient = mock(EurekaClient.class);
+    private final List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(4, 2).build().toInstanceList();
+    private EurekaServerConfig snapshotServerConfig;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        snapshotServerConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(new File(temporaryFolder.getRoot(), "registry.snapshot").getPath())
+                .when(snapshotServerConfig).getRegistrySnapshotFile();
+        doReturn(1).when(snapshotServerConfig).getRegistrySyncRetries();
+        when(peerClient.getApplications()).thenReturn(new Applications());
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        for (PeerAwareInstanceRegistryImpl registry : registries) {
+            registry.shutdown();
+        }
+        super.tearDown();
+    }
+
+    @Test
+    public void testRestartWithoutPeersRestoresSavedRegistry() throws Exception {
+        PeerAwareInstanceRegistryImpl registry = newRegistry();
+        for (InstanceInfo instance : instances) {
+            registry.register(instance, 90, true);
+        }
+        InstanceInfo overridden = instances.get(0);
+        registry.statusUpdate(overridden.getAppName(), overridden.getId(), InstanceStatus.OUT_OF_SERVICE, null, true);
+        assertThat(registry.saveRegistrySnapshot(), is(equalTo(instances.size())));
+
+        PeerAwareInstanceRegistryImpl restarted = newRegistry();
+        assertThat(restarted.syncUp(), is(equalTo(instances.size())));
+
+        for (InstanceInfo instance : instances) {
+            assertThat(restarted.getInstanceByAppAndId(instance.getAppName(), instance.getId(), false), is(notNullValue()));
+        }
+        assertThat(restarted.overriddenInstanceStatusesSnapshot().get(overridden.getId()),
+                is(equalTo(InstanceStatus.OUT_OF_SERVICE)));
+        assertThat(restarted.getInstanceByAppAndId(overridden.getAppName(), overridden.getId(), false).getStatus(),
+                is(equalTo(InstanceStatus.OUT_OF_SERVICE)));
+    }
+
+    @Test
+    public void testPeerRegistryCatchesUpRestoredRegistry() throws Exception {
+        PeerAwareInstanceRegistryImpl registry = newRegistry();
+        for (InstanceInfo instance : instances.subList(0, 3)) {
+            registry.register(instance, 90, true);
+        }
+        registry.saveRegistrySnapshot();
+
+        // The peers know about a newer version of the first instance, and about an instance registered since
+        InstanceInfo changed = new InstanceInfo.Builder(new InstanceInfo(instances.get(0)))
+                .setStatus(InstanceStatus.DOWN)
+                .setLastDirtyTimestamp(instances.get(0).getLastDirtyTimestamp() + 1)
+                .build();
+        Applications peerApps = new Applications();
+        addInstance(peerApps, changed);
+        addInstance(peerApps, instances.get(3));
+        when(peerClient.getApplications()).thenReturn(peerApps);
+
+        PeerAwareInstanceRegistryImpl restarted = newRegistry();
+        assertThat(restarted.syncUp(), is(equalTo(instances.size())));
+        assertThat(restarted.getInstanceByAppAndId(changed.getAppName(), changed.getId(), false).getStatus(),
+                is(equalTo(InstanceStatus.DOWN)));
+    }
+
+    @Test
+    public void testRestoredLeasesKeepTheirLastRenewalAndDuration() throws Exception {
+        PeerAwareInstanceRegistryImpl registry = newRegistry();
+        InstanceInfo instance = instances.get(0);
+        registry.register(instance, 45, true);
+        LeaseInfo leaseInfo = registry.getInstanceByAppAndId(instance.getAppName(), instance.getId(), false).getLeaseInfo();
+        registry.saveRegistrySnapshot();
+        RegistrySnapshotFile.Contents contents = new RegistrySnapshotFile(
+                new File(snapshotServerConfig.getRegistrySnapshotFile()),
+                new DefaultServerCodecs(snapshotServerConfig).getFullJsonCodec()
+        ).read();
+        assertThat(contents.getEntries().get(0).getDurationInSecs(), is(equalTo(45)));
+        Thread.sleep(20);
+
+        PeerAwareInstanceRegistryImpl restarted = newRegistry();
+        assertThat(restarted.syncUp(), is(equalTo(1)));
+        LeaseInfo restored = restarted.getInstanceByAppAndId(instance.getAppName(), instance.getId(), false).getLeaseInfo();
+        assertThat(restored.getRenewalTimestamp(), is(equalTo(leaseInfo.getRenewalTimestamp())));
+    }
+
+    @Test
+    public void testPeerDeltaCatchesUpRestoredRegistry() throws Exception {
+        PeerAwareInstanceRegistryImpl registry = newRegistry();
+        for (InstanceInfo instance : instances.subList(0, 3)) {
+            registry.register(instance, 90, true);
+        }
+        registry.saveRegistrySnapshot();
+
+        // The peer delta holds a newer version of the first instance, the cancellation of the second one and an
+        // instance registered since
+        InstanceInfo changed = new InstanceInfo.Builder(new InstanceInfo(instances.get(0)))
+                .setStatus(InstanceStatus.DOWN)
+                .setLastDirtyTimestamp(instances.get(0).getLastDirtyTimestamp() + 1)
+                .setActionType(ActionType.MODIFIED)
+                .build();
+        InstanceInfo cancelled = new InstanceInfo.Builder(new InstanceInfo(instances.get(1)))
+                .setActionType(ActionType.DELETED)
+                .build();
+        Applications peerDelta = new Applications();
+        addInstance(peerDelta, changed);
+        addInstance(peerDelta, cancelled);
+        addInstance(peerDelta, instances.get(3));
+        PeerEurekaNode peerNode = mock(PeerEurekaNode.class);
+        when(peerNode.getDelta()).thenReturn(anEurekaHttpResponse(200, peerDelta).build());
+        PeerEurekaNodes peerNodes = mock(PeerEurekaNodes.class);
+        when(peerNodes.getPeerEurekaNodes()).thenReturn(Collections.singletonList(peerNode));
+
+        PeerAwareInstanceRegistryImpl restarted = newRegistry();
+        restarted.peerEurekaNodes = peerNodes;
+        assertThat(restarted.syncUp(), is(equalTo(3)));
+        assertThat(restarted.getInstanceByAppAndId(changed.getAppName(), changed.getId(), false).getStatus(),
+                is(equalTo(InstanceStatus.DOWN)));
+        assertThat(restarted.getInstanceByAppAndId(cancelled.getAppName(), cancelled.getId(), false),
+                is(nullValue()));
+        assertThat(restarted.getInstanceByAppAndId(instances.get(3).getAppName(), instances.get(3).getId(), false),
+                is(notNullValue()));
+        // The full peer registry is not walked
+        verify(peerClient, never()).getApplications();
+    }
+
+    @Test
+    public void testStaleSnapshotIsIgnored() throws Exception {
+        PeerAwareInstanceRegistryImpl registry = newRegistry();
+        registry.register(instances.get(0), 90, true);
+        registry.saveRegistrySnapshot();
+
+        doReturn(-1L).when(snapshotServerConfig).getRegistrySnapshotMaxAgeMs();
+        PeerAwareInstanceRegistryImpl restarted = newRegistry();
+        assertThat(restarted.syncUp(), is(equalTo(0)));
+        assertThat(restarted.getInstanceByAppAndId(instances.get(0).getAppName(), instances.get(0).getId(), false),
+                is(nullValue()));
+    }
+
+    private PeerAwareInstanceRegistryImpl newRegistry() {
+        PeerAwareInstanceRegistryImpl registry = new PeerAwareInstanceRegistryImpl(
+                snapshotServerConfig,
+                new DefaultEurekaClientConfig(),
+                new DefaultServerCodecs(snapshotServerConfig),
+                peerClient
+        );
+        registry.initializedResponseCache();
+        registries.add(registry);
+        return registry;
+    }
+
+    private static void addInstance(Applications apps, InstanceInfo instance) {
+        Application app = apps.getRegisteredApplications(instance.getAppName());
+        if (app == null) {
+            app = new Application(instance.getAppName());
+            apps.addApplication(app);
+        }
+        app.addInstance(instance);
+    }
+}
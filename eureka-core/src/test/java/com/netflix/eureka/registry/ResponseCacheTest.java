@@ -1,18 +1,51 @@
 package com.netflix.eureka.registry;
 
 import com.netflix.appinfo.EurekaAccept;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.DefaultEurekaClientConfig;
+import com.netflix.discovery.converters.wrappers.CodecWrapper;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
 import com.netflix.eureka.AbstractTester;
 import com.netflix.eureka.DefaultEurekaServerConfig;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.Version;
+import com.netflix.eureka.resources.CurrentRequestVersion;
 import com.netflix.eureka.resources.DefaultServerCodecs;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Nitesh Kant
@@ -91,4 +124,335 @@ public class ResponseCacheTest extends AbstractTester {
         Assert.assertNull("Cache after invalidate did not return null.", cache.get(key1, true));
         Assert.assertNull("Cache after invalidate did not return null.", cache.get(key2, true));
     }
+
+    @Test
+    public void testInvalidateWithView() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key key = Key.of(
+                Key.EntityType.Application,
+                REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full, null,
+                RegistryView.of(InstanceStatus.UP, null, RegistryView.Projection.ENDPOINTS)
+        );
+
+        Assert.assertNotNull("Cache get returned null.", cache.get(key, false));
+
+        testRegistry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+        Assert.assertNull("Cache after invalidate did not return null.", cache.get(key, true));
+    }
+
+    @Test
+    public void testViewsPastTheMaximumAreServedUncached() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key key = Key.of(
+                Key.EntityType.Application,
+                REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full, null,
+                RegistryView.uncached(InstanceStatus.UP, null, RegistryView.Projection.ENDPOINTS)
+        );
+        int size = cache.getCurrentSize();
+
+        Assert.assertNotNull("Cache get returned null.", cache.get(key, true));
+        assertThat(cache.getCurrentSize(), is(equalTo(size)));
+
+        testRegistry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+        Assert.assertNull("Uncached view served a stale payload.", cache.get(key, true));
+    }
+
+    @Test
+    public void testAllFormatsAreEncodedFromOneRegistryReadPerChange() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        long reads = cache.getRegistryReads();
+        for (Key.KeyType type : Key.KeyType.values()) {
+            for (Version version : Version.values()) {
+                for (EurekaAccept accept : EurekaAccept.values()) {
+                    Assert.assertNotNull(cache.get(new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS,
+                            type, version, accept), false));
+                }
+            }
+        }
+        assertThat(cache.getRegistryReads() - reads, is(equalTo(1L)));
+
+        testRegistry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+        cache.get(new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS,
+                Key.KeyType.JSON, Version.V2, EurekaAccept.full), false);
+        assertThat(cache.getRegistryReads() - reads, is(equalTo(2L)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStatsCountHitsMissesAndInvalidations() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key key = Key.of(Key.EntityType.VIP, "myvip", Key.KeyType.XML, Version.V2, EurekaAccept.full);
+        cache.get(key, false);
+        cache.get(key, false);
+        cache.invalidate(key);
+
+        Map<String, Object> stats = cache.getStats();
+        Map<String, Object> vipStats = (Map<String, Object>) ((Map<String, Object>) stats.get("byType")).get("VIP");
+        Map<String, Object> xmlStats = (Map<String, Object>) vipStats.get("XML");
+        assertThat(xmlStats.get("misses"), is((Object) 1L));
+        assertThat(xmlStats.get("hits"), is((Object) 1L));
+        assertThat(xmlStats.get("loads"), is((Object) 1L));
+        assertThat(xmlStats.get("invalidations"), is((Object) 1L));
+        assertThat(stats.get("entries"), is(notNullValue()));
+    }
+
+    @Test
+    public void testWarmUpLoadsTheFullRegistryAndTheMostRequestedKeys() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key hotKey = Key.of(Key.EntityType.Application, REMOTE_REGION_APP_NAME, Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        Key coldKey = Key.of(Key.EntityType.Application, REMOTE_REGION_APP_NAME, Key.KeyType.XML, Version.V2, EurekaAccept.full);
+        for (int i = 0; i < 3; i++) {
+            cache.get(hotKey, false);
+        }
+        cache.get(coldKey, false);
+        cache.invalidate(hotKey, coldKey);
+
+        List<Key> keys = cache.getKeysToWarmUp();
+        assertThat(keys.contains(Key.of(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS,
+                Key.KeyType.JSON, Version.V2, EurekaAccept.full)), is(true));
+        assertThat(keys.contains(Key.of(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS_DELTA,
+                Key.KeyType.XML, Version.V2, EurekaAccept.full)), is(true));
+        assertThat(keys.contains(hotKey), is(true));
+        assertThat(keys.contains(coldKey), is(true));
+
+        // The counts are halved on each warm-up, so the key requested once is no longer warmed up
+        long loads = cache.getPayloadLoads();
+        cache.warmUp();
+        assertThat(cache.getPayloadLoads() > loads, is(true));
+        assertThat(cache.getKeysToWarmUp().contains(coldKey), is(false));
+    }
+
+    @Test
+    public void testWarmUpRestoresTheRequestVersionOfTheCallingThread() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        CurrentRequestVersion.set(Version.V1);
+        try {
+            cache.warmUp();
+            assertThat(CurrentRequestVersion.get(), is(equalTo(Version.V1)));
+        } finally {
+            CurrentRequestVersion.set(null);
+        }
+    }
+
+    @Test
+    public void testAwaitChangeReturnsThePayloadGeneratedAfterAChange() throws Exception {
+        // Served from the read write cache, so a change can be served as soon as it is made
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn(false).when(serverConfig).shouldUseReadOnlyResponseCache();
+        PeerAwareInstanceRegistryImpl registry = new PeerAwareInstanceRegistryImpl(
+                serverConfig,
+                new DefaultEurekaClientConfig(),
+                new DefaultServerCodecs(serverConfig),
+                client
+        );
+        registry.init(serverContext.getPeerEurekaNodes());
+        registry.syncUp();
+
+        final ResponseCacheImpl cache = (ResponseCacheImpl) registry.getResponseCache();
+        final Key key = Key.of(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS_DELTA,
+                Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        final CachedPayload seen = cache.getValue(key);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CachedPayload> changed = executor.submit(new Callable<CachedPayload>() {
+                @Override
+                public CachedPayload call() throws Exception {
+                    return cache.awaitChange(key, seen, 30 * 1000);
+                }
+            });
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getWatcherCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            registry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+
+            assertThat(changed.get(5, TimeUnit.SECONDS), is(not(sameInstance(seen))));
+            assertThat(cache.getWatcherCount(), is(equalTo(0)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAwaitChangeIsReleasedOnInvalidationOfTheReadOnlyCache() throws Exception {
+        // Served from the read only cache, which is otherwise only refreshed by the periodic update
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn(true).when(serverConfig).shouldUseReadOnlyResponseCache();
+        doReturn(false).when(serverConfig).shouldRefreshReadOnlyResponseCacheOnInvalidation();
+        doReturn(0L).when(serverConfig).getResponseCacheMinRefreshIntervalMs();
+        PeerAwareInstanceRegistryImpl registry = new PeerAwareInstanceRegistryImpl(
+                serverConfig,
+                new DefaultEurekaClientConfig(),
+                new DefaultServerCodecs(serverConfig),
+                client
+        );
+        registry.init(serverContext.getPeerEurekaNodes());
+        registry.syncUp();
+
+        final ResponseCacheImpl cache = (ResponseCacheImpl) registry.getResponseCache();
+        final Key key = Key.of(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS_DELTA,
+                Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        final CachedPayload seen = cache.getValue(key);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CachedPayload> changed = executor.submit(new Callable<CachedPayload>() {
+                @Override
+                public CachedPayload call() throws Exception {
+                    return cache.awaitChange(key, seen, 30 * 1000);
+                }
+            });
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getWatcherCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            registry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+
+            assertThat(changed.get(5, TimeUnit.SECONDS), is(not(sameInstance(seen))));
+            assertThat(cache.getWatcherCount(), is(equalTo(0)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAwaitChangeTimesOutWithTheSamePayload() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key key = Key.of(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS_DELTA,
+                Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        CachedPayload seen = cache.getValue(key);
+
+        assertThat(cache.awaitChange(key, seen, 50), is(sameInstance(seen)));
+    }
+
+    @Test
+    public void testReadOnlyCacheIsRefreshedOnInvalidation() throws Exception {
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn(true).when(serverConfig).shouldRefreshReadOnlyResponseCacheOnInvalidation();
+        doReturn(0L).when(serverConfig).getResponseCacheMinRefreshIntervalMs();
+        PeerAwareInstanceRegistryImpl registry = new PeerAwareInstanceRegistryImpl(
+                serverConfig,
+                new DefaultEurekaClientConfig(),
+                new DefaultServerCodecs(serverConfig),
+                client
+        );
+        registry.init(serverContext.getPeerEurekaNodes());
+        registry.syncUp();
+
+        ResponseCacheImpl cache = (ResponseCacheImpl) registry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS,
+                Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        String before = cache.get(key, true);
+        Assert.assertNotNull("Cache get returned null.", before);
+
+        registry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+
+        // Refreshed in the background, long before the periodic update
+        long deadline = System.currentTimeMillis() + 5000;
+        String after = cache.get(key, true);
+        while (before.equals(after) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            after = cache.get(key, true);
+        }
+        assertThat(after, is(not(equalTo(before))));
+        assertThat(after, is(equalTo(cache.get(key, false))));
+    }
+
+    @Test
+    public void testPayloadThatCannotBeCompressedIsServedUncompressed() throws Exception {
+        PayloadCompressor failing = new PayloadCompressor() {
+            @Override
+            public String getEncoding() {
+                return ContentEncodings.GZIP;
+            }
+
+            @Override
+            public byte[] compress(byte[] payload) {
+                throw new IllegalStateException("compression failure");
+            }
+        };
+        EurekaServerConfig serverConfig = new DefaultEurekaServerConfig();
+        ResponseCacheImpl cache = new ResponseCacheImpl(serverConfig, new DefaultServerCodecs(serverConfig),
+                (AbstractInstanceRegistry) testRegistry, Collections.singletonList(failing));
+        Key key = new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS,
+                Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+
+        CachedPayload payload = cache.getValue(key);
+        assertThat(payload.selectEncoding(ContentEncodings.GZIP), is(equalTo(ContentEncodings.GZIP)));
+        assertThat(payload.getCompressed(ContentEncodings.GZIP), is(nullValue()));
+        assertThat(cache.getGZIP(key), is(nullValue()));
+        assertThat(payload.getCompressedSize(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testStoppedCacheIsNoLongerRefreshedInTheBackgroundButStillServes() throws Exception {
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).shouldRefreshReadOnlyResponseCacheOnInvalidation();
+        doReturn(0L).when(serverConfig).getResponseCacheMinRefreshIntervalMs();
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn(true).when(serverConfig).shouldWarmUpResponseCache();
+        PeerAwareInstanceRegistryImpl registry = new PeerAwareInstanceRegistryImpl(
+                serverConfig,
+                new DefaultEurekaClientConfig(),
+                new DefaultServerCodecs(serverConfig),
+                client
+        );
+        registry.init(serverContext.getPeerEurekaNodes());
+        registry.syncUp();
+
+        ResponseCacheImpl cache = (ResponseCacheImpl) registry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, ResponseCacheImpl.ALL_APPS,
+                Key.KeyType.JSON, Version.V2, EurekaAccept.full);
+        String before = cache.get(key, true);
+        cache.stop();
+
+        registry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+        cache.warmUpLater();
+        Thread.sleep(200);
+        assertThat(cache.get(key, true), is(equalTo(before)));
+        assertThat(cache.get(key, false), is(not(equalTo(before))));
+    }
+
+    @Test
+    public void testFragmentsOfTheAppsOnlyRenewedAreReusedAcrossReloads() throws Exception {
+        testRegistry.openForTraffic(serverContext.getApplicationInfoManager(), 1);
+        List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(6, "AppA", "AppB", "AppC").build().toInstanceList();
+        for (InstanceInfo instance : instances) {
+            testRegistry.register(instance, true);
+        }
+        CodecWrapper codec = spy(CodecWrappers.getCodec(CodecWrappers.JacksonJson.class));
+        ApplicationFragments fragments = new ApplicationFragments(
+                DefaultServerCodecs.builder().withFullJsonCodec(codec).build());
+        Applications before = testRegistry.getApplicationsFromLocalRegionOnly();
+        fragments.encode(Key.KeyType.JSON, EurekaAccept.full, null, before);
+
+        for (InstanceInfo instance : instances) {
+            testRegistry.renew(instance.getAppName(), instance.getId(), true);
+        }
+        InstanceInfo changed = instances.get(0);
+        testRegistry.statusUpdate(changed.getAppName(), changed.getId(), InstanceStatus.OUT_OF_SERVICE, null, true);
+        Applications after = testRegistry.getApplicationsFromLocalRegionOnly();
+        reset(codec);
+        fragments.encode(Key.KeyType.JSON, EurekaAccept.full, null, after);
+
+        ArgumentCaptor<Applications> captor = ArgumentCaptor.forClass(Applications.class);
+        verify(codec, atLeast(0)).encode(captor.capture(), any(OutputStream.class));
+        Set<String> encodedApps = new HashSet<>();
+        for (Applications encoded : captor.getAllValues()) {
+            for (Application app : encoded.getRegisteredApplications()) {
+                encodedApps.add(app.getName());
+            }
+        }
+        for (Application app : after.getRegisteredApplications()) {
+            boolean untouched = !app.getName().equals(changed.getAppName());
+            assertThat(app == before.getRegisteredApplications(app.getName()), is(untouched));
+            assertThat(app.getName(), encodedApps.contains(app.getName()), is(!untouched));
+        }
+    }
 }
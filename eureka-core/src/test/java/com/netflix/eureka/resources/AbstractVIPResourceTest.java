@@ -11,6 +11,7 @@ import com.netflix.discovery.util.InstanceInfoGenerator;
 import com.netflix.eureka.AbstractTester;
 import com.netflix.eureka.Version;
 import com.netflix.eureka.registry.Key;
+import com.netflix.eureka.registry.RegistryView;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -37,8 +38,10 @@ public class AbstractVIPResourceTest extends AbstractTester {
 
         resource = new AbstractVIPResource(serverContext) {
             @Override
-            protected Response getVipResponse(String version, String entityName, String acceptHeader, EurekaAccept eurekaAccept, Key.EntityType entityType) {
-                return super.getVipResponse(version, entityName, acceptHeader, eurekaAccept, entityType);
+            protected Response getVipResponse(String version, String entityName, String acceptHeader,
+                                              EurekaAccept eurekaAccept, Key.EntityType entityType, String ifNoneMatch,
+                                              RegistryView view) {
+                return super.getVipResponse(version, entityName, acceptHeader, eurekaAccept, entityType, ifNoneMatch, view);
             }
         };
 
@@ -60,10 +63,12 @@ public class AbstractVIPResourceTest extends AbstractTester {
                 vipName,
                 MediaType.APPLICATION_JSON,
                 EurekaAccept.full,
-                Key.EntityType.VIP
+                Key.EntityType.VIP,
+                null, // ifNoneMatch
+                RegistryView.ALL
         );
 
-        String json = String.valueOf(response.getEntity());
+        String json = new String((byte[]) response.getEntity(), "UTF-8");
         DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
 
         Applications decodedApps = decoder.decode(json, Applications.class);
@@ -78,10 +83,12 @@ public class AbstractVIPResourceTest extends AbstractTester {
                 vipName,
                 MediaType.APPLICATION_JSON,
                 EurekaAccept.compact,
-                Key.EntityType.VIP
+                Key.EntityType.VIP,
+                null, // ifNoneMatch
+                RegistryView.ALL
         );
 
-        String json = String.valueOf(response.getEntity());
+        String json = new String((byte[]) response.getEntity(), "UTF-8");
         DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
 
         Applications decodedApps = decoder.decode(json, Applications.class);
@@ -51,10 +51,12 @@ public class ApplicationResourceTest extends AbstractTester {
         Response response = applicationResource.getApplication(
                 Version.V2.name(),
                 MediaType.APPLICATION_JSON,
-                EurekaAccept.full.name()
+                EurekaAccept.full.name(),
+                null, // ifNoneMatch
+                null, null, null // view
         );
 
-        String json = String.valueOf(response.getEntity());
+        String json = new String((byte[]) response.getEntity(), "UTF-8");
         DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
 
         Application decodedApp = decoder.decode(json, Application.class);
@@ -66,10 +68,12 @@ public class ApplicationResourceTest extends AbstractTester {
         Response response = applicationResource.getApplication(
                 Version.V2.name(),
                 MediaType.APPLICATION_JSON,
-                EurekaAccept.compact.name()
+                EurekaAccept.compact.name(),
+                null, // ifNoneMatch
+                null, null, null // view
         );
 
-        String json = String.valueOf(response.getEntity());
+        String json = new String((byte[]) response.getEntity(), "UTF-8");
         DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
 
         Application decodedApp = decoder.decode(json, Application.class);
@@ -7,6 +7,10 @@ import com.netflix.discovery.converters.wrappers.CodecWrappers;
 import com.netflix.discovery.converters.wrappers.DecoderWrapper;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.transport.HeartbeatBatchRequest;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
+import com.netflix.discovery.shared.transport.InstanceBatchRequest;
+import com.netflix.discovery.shared.transport.InstanceBatchResponse;
 import com.netflix.discovery.util.InstanceInfoGenerator;
 import com.netflix.eureka.AbstractTester;
 import com.netflix.eureka.Version;
@@ -15,8 +19,15 @@ import org.junit.Test;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
@@ -49,11 +60,13 @@ public class ApplicationsResourceTest extends AbstractTester {
                 MediaType.APPLICATION_JSON,
                 null, // encoding
                 EurekaAccept.full.name(),
+                null, // ifNoneMatch
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null, null, null // view
         );
 
-        String json = String.valueOf(response.getEntity());
+        String json = new String((byte[]) response.getEntity(), "UTF-8");
         DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
 
         Applications decoded = decoder.decode(json, Applications.class);
@@ -71,8 +84,10 @@ public class ApplicationsResourceTest extends AbstractTester {
                 MediaType.APPLICATION_JSON,
                 "gzip", // encoding
                 EurekaAccept.full.name(),
+                null, // ifNoneMatch
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null, null, null // view
         );
 
         assertThat(response.getMetadata().getFirst("Content-Encoding").toString(), is("gzip"));
@@ -86,12 +101,109 @@ public class ApplicationsResourceTest extends AbstractTester {
                 MediaType.APPLICATION_XML,
                 "gzip", // encoding
                 EurekaAccept.full.name(),
+                null, // ifNoneMatch
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null, null, null // view
         );
 
         assertThat(response.getMetadata().getFirst("Content-Encoding").toString(), is("gzip"));
         assertThat(response.getMetadata().getFirst("Content-Type").toString(), is(MediaType.APPLICATION_XML));
+        assertThat(response.getMetadata().getFirst("ETag").toString().endsWith("-gzip\""), is(true));
+    }
+
+    @Test
+    public void testFullAppsGetDeflateWhenPreferred() throws Exception {
+        Response response = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                "gzip;q=0.5, deflate", // encoding
+                EurekaAccept.full.name(),
+                null, // ifNoneMatch
+                null,  // uriInfo
+                null, // remote regions
+                null, null, null // view
+        );
+
+        assertThat(response.getMetadata().getFirst("Content-Encoding").toString(), is("deflate"));
+        assertThat(response.getMetadata().getFirst("ETag").toString().endsWith("-deflate\""), is(true));
+
+        InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream((byte[]) response.getEntity()));
+        Applications decoded = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class)
+                .decode(in, Applications.class);
+        for (Application application : testApplications.getRegisteredApplications()) {
+            assertThat(decoded.getRegisteredApplications(application.getName()), is(notNullValue()));
+        }
+    }
+
+    @Test
+    public void testFullAppsGetNotModified() throws Exception {
+        Response response = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // ifNoneMatch
+                null,  // uriInfo
+                null, // remote regions
+                null, null, null // view
+        );
+        String eTag = response.getMetadata().getFirst("ETag").toString();
+
+        Response notModified = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                "\"other\", " + eTag,
+                null,  // uriInfo
+                null, // remote regions
+                null, null, null // view
+        );
+        assertThat(notModified.getStatus(), is(304));
+        assertThat(notModified.getEntity(), is(nullValue()));
+        assertThat(notModified.getMetadata().getFirst("ETag").toString(), is(eTag));
+
+        Response modified = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                "\"other\"",
+                null,  // uriInfo
+                null, // remote regions
+                null, null, null // view
+        );
+        assertThat(modified.getStatus(), is(200));
+    }
+
+    @Test
+    public void testDeltaWatchAnswersNotModifiedWhenTheDeltaDoesNotChange() throws Exception {
+        Response response = applicationsResource.getContainerDifferential(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // ifNoneMatch
+                0,    // waitMs
+                null, // uriInfo
+                null  // remote regions
+        );
+        String eTag = response.getMetadata().getFirst("ETag").toString();
+
+        long startTime = System.currentTimeMillis();
+        Response notModified = applicationsResource.getContainerDifferential(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                eTag,
+                100,  // waitMs
+                null, // uriInfo
+                null  // remote regions
+        );
+        assertThat(notModified.getStatus(), is(304));
+        assertThat(System.currentTimeMillis() - startTime >= 100, is(true));
     }
 
     @Test
@@ -101,11 +213,13 @@ public class ApplicationsResourceTest extends AbstractTester {
                 MediaType.APPLICATION_JSON,
                 null, // encoding
                 EurekaAccept.compact.name(),
+                null, // ifNoneMatch
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null, null, null // view
         );
 
-        String json = String.valueOf(response.getEntity());
+        String json = new String((byte[]) response.getEntity(), "UTF-8");
         DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
 
         Applications decoded = decoder.decode(json, Applications.class);
@@ -126,4 +240,119 @@ public class ApplicationsResourceTest extends AbstractTester {
             }
         }
     }
+
+    @Test
+    public void testFilteredAndProjectedAppsGet() throws Exception {
+        Application testApp = testApplications.getRegisteredApplications().get(0);
+        InstanceInfo down = new InstanceInfo.Builder(testApp.getInstances().get(0))
+                .setStatus(InstanceInfo.InstanceStatus.DOWN)
+                .build();
+        registry.register(down, false);
+
+        Response response = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // ifNoneMatch
+                null,  // uriInfo
+                null, // remote regions
+                "UP", "us-east-1c", "endpoints"
+        );
+
+        String json = new String((byte[]) response.getEntity(), "UTF-8");
+        DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
+
+        Applications decoded = decoder.decode(json, Applications.class);
+        Application decodedApp = decoded.getRegisteredApplications(testApp.getName());
+        assertThat(decodedApp.getByInstanceId(down.getId()), is(nullValue()));
+        assertThat(decodedApp.size(), is(testApp.size() - 1));
+        for (InstanceInfo decodedInfo : decodedApp.getInstances()) {
+            InstanceInfo instanceInfo = testApp.getByInstanceId(decodedInfo.getId());
+            assertThat(decodedInfo.getHostName(), is(instanceInfo.getHostName()));
+            assertThat(decodedInfo.getPort(), is(instanceInfo.getPort()));
+            assertThat(decodedInfo.getVIPAddress(), is(instanceInfo.getVIPAddress()));
+            assertThat(decodedInfo.getHomePageUrl(), is(nullValue()));
+            assertThat(decodedInfo.getMetadata().isEmpty(), is(true));
+        }
+
+        Response otherZone = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // ifNoneMatch
+                null,  // uriInfo
+                null, // remote regions
+                null, "us-west-2a", null
+        );
+        decoded = decoder.decode(new String((byte[]) otherZone.getEntity(), "UTF-8"), Applications.class);
+        assertThat(decoded.getRegisteredApplications(testApp.getName()), is(nullValue()));
+
+        Response unknownStatus = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // ifNoneMatch
+                null,  // uriInfo
+                null, // remote regions
+                "SLEEPING", null, null
+        );
+        assertThat(unknownStatus.getStatus(), is(400));
+    }
+
+    @Test
+    public void testBatchRegisterAndCancel() throws Exception {
+        List<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(2, "batchApp").build().toInstanceList();
+        List<InstanceBatchRequest.Item> items = new ArrayList<>(InstanceBatchRequest.registrationOf(instances).getItems());
+        InstanceInfo mismatched = InstanceInfoGenerator.takeOne();
+        items.add(new InstanceBatchRequest.Item("otherApp", mismatched.getId(), mismatched));
+
+        Response response = applicationsResource.registerAll(new InstanceBatchRequest(items), null);
+        assertThat(statusCodesOf(response), is(Arrays.asList(204, 204, 400)));
+        for (InstanceInfo instance : instances) {
+            assertThat(registry.getInstanceByAppAndId(instance.getAppName(), instance.getId()) != null, is(true));
+        }
+
+        InstanceInfo unknown = new InstanceInfo.Builder(InstanceInfoGenerator.takeOne()).setAppName("batchApp").build();
+        List<InstanceInfo> cancelBatch = new ArrayList<>(instances);
+        cancelBatch.add(unknown);
+        response = applicationsResource.cancelAll(InstanceBatchRequest.cancellationOf(cancelBatch), null);
+        assertThat(statusCodesOf(response), is(Arrays.asList(200, 200, 404)));
+        for (InstanceInfo instance : instances) {
+            assertThat(registry.getInstanceByAppAndId(instance.getAppName(), instance.getId()) == null, is(true));
+        }
+    }
+
+    @Test
+    public void testBatchRenewReportsOnlyTheFailedHeartbeats() throws Exception {
+        registry.openForTraffic(serverContext.getApplicationInfoManager(), 1);
+        InstanceInfo registered = testApplications.getRegisteredApplications().get(0).getInstances().get(0);
+        InstanceInfo changed = testApplications.getRegisteredApplications().get(1).getInstances().get(0);
+        List<HeartbeatBatchRequest.Item> items = new ArrayList<>();
+        items.add(new HeartbeatBatchRequest.Item(registered.getAppName(), registered.getId(),
+                registered.getLastDirtyTimestamp(), registered.getStatus()));
+        items.add(new HeartbeatBatchRequest.Item(changed.getAppName(), changed.getId(),
+                changed.getLastDirtyTimestamp() + 1, changed.getStatus()));
+        items.add(new HeartbeatBatchRequest.Item(registered.getAppName(), "unknownId", null, registered.getStatus()));
+        items.add(new HeartbeatBatchRequest.Item(null, registered.getId(), null, registered.getStatus()));
+
+        Response response = applicationsResource.renewAll(new HeartbeatBatchRequest(items));
+
+        HeartbeatBatchResponse batchResponse = (HeartbeatBatchResponse) response.getEntity();
+        assertThat(batchResponse.getFailures(), is(Arrays.asList(
+                new HeartbeatBatchResponse.Failure(changed.getAppName(), changed.getId(), 404),
+                new HeartbeatBatchResponse.Failure(registered.getAppName(), "unknownId", 404),
+                new HeartbeatBatchResponse.Failure(null, registered.getId(), 400)
+        )));
+    }
+
+    private static List<Integer> statusCodesOf(Response response) {
+        List<Integer> statusCodes = new ArrayList<>();
+        for (InstanceBatchResponse.ItemResponse itemResponse : ((InstanceBatchResponse) response.getEntity()).getResponseList()) {
+            statusCodes.add(itemResponse.getStatusCode());
+        }
+        return statusCodes;
+    }
 }
@@ -0,0 +1,20 @@
+package com.netflix.eureka.resources;
+
+import com.sun.jersey.api.uri.UriComponent;
+import org.junit.Test;
+
+import static com.netflix.eureka.resources.ChangeFeedExcludingGzipFilter.isChangeFeedPath;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ChangeFeedExcludingGzipFilterTest {
+
+    @Test
+    public void testOnlyTheChangeFeedPathIsExcluded() throws Exception {
+        assertThat(isChangeFeedPath(UriComponent.decodePath("v2/changes", true)), is(true));
+        assertThat(isChangeFeedPath(UriComponent.decodePath("v2/changes/", true)), is(true));
+        assertThat(isChangeFeedPath(UriComponent.decodePath("v2/apps", true)), is(false));
+        assertThat(isChangeFeedPath(UriComponent.decodePath("v2/apps/changes", true)), is(false));
+        assertThat(isChangeFeedPath(UriComponent.decodePath("changes", true)), is(false));
+    }
+}
@@ -0,0 +1,169 @@
+package com.netflix.eureka.resources;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.netflix.discovery.shared.transport.RegistryChangeEvent;
+import com.netflix.discovery.shared.transport.RegistryChangeEvent.Type;
+import com.netflix.eureka.AbstractTester;
+import com.netflix.eureka.Version;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+
+public class ChangeFeedStreamTest extends AbstractTester {
+
+    private static final int MAX_SUBSCRIBERS = 10;
+
+    @Test
+    public void testStreamsTheChangesFollowingTheGivenSequence() throws Exception {
+        long since = registry.getLastChangeSequence();
+        registry.register(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME), false);
+        registry.register(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME), false);
+
+        List<RegistryChangeEvent> events = stream(new ChangeFeedStream(registry, since, registry.getChangeIncarnation(), MAX_SUBSCRIBERS, 1000, 50, 200));
+
+        assertThat(events.get(0).getType(), is(equalTo(Type.HEARTBEAT)));
+        assertThat(events.get(0).getSequence(), is(equalTo(since)));
+        assertThat(events.get(1).getType(), is(equalTo(Type.ADDED)));
+        assertThat(events.get(1).getSequence(), is(equalTo(since + 1)));
+        assertThat(events.get(1).getInstanceInfo().getHostName(), is(equalTo(LOCAL_REGION_INSTANCE_1_HOSTNAME)));
+        assertThat(events.get(2).getType(), is(equalTo(Type.ADDED)));
+        assertThat(events.get(2).getSequence(), is(equalTo(since + 2)));
+        assertThat(events.get(2).getInstanceInfo().getHostName(), is(equalTo(LOCAL_REGION_INSTANCE_2_HOSTNAME)));
+        // The registry does not change any more, so only heartbeats follow
+        for (RegistryChangeEvent event : events.subList(3, events.size())) {
+            assertThat(event.getType(), is(equalTo(Type.HEARTBEAT)));
+            assertThat(event.getSequence(), is(equalTo(since + 2)));
+        }
+        assertThat(ChangeFeedStream.getSubscriberCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testLaggingSubscriberIsToldToResync() throws Exception {
+        long since = registry.getLastChangeSequence();
+        registry.register(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME), false);
+        registry.register(createLocalInstance(LOCAL_REGION_INSTANCE_2_HOSTNAME), false);
+
+        List<RegistryChangeEvent> events = stream(new ChangeFeedStream(registry, since, registry.getChangeIncarnation(), MAX_SUBSCRIBERS, 0, 50, 200));
+
+        assertThat(events.size(), is(equalTo(2)));
+        assertThat(events.get(0).getType(), is(equalTo(Type.HEARTBEAT)));
+        assertThat(events.get(1).getType(), is(equalTo(Type.RESYNC)));
+    }
+
+    @Test
+    public void testSubscriberFromAnotherServerIsToldToResync() throws Exception {
+        List<RegistryChangeEvent> events = stream(
+                new ChangeFeedStream(registry, registry.getLastChangeSequence() + 10, registry.getChangeIncarnation(), MAX_SUBSCRIBERS, 1000, 50, 200));
+
+        assertThat(events.size(), is(equalTo(1)));
+        assertThat(events.get(0).getType(), is(equalTo(Type.RESYNC)));
+    }
+
+    @Test
+    public void testSubscriberFromAnotherIncarnationIsToldToResync() throws Exception {
+        registry.register(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME), false);
+
+        List<RegistryChangeEvent> events = stream(
+                new ChangeFeedStream(registry, registry.getLastChangeSequence() - 1, "another incarnation", MAX_SUBSCRIBERS, 1000, 50, 200));
+
+        assertThat(events.size(), is(equalTo(1)));
+        assertThat(events.get(0).getType(), is(equalTo(Type.RESYNC)));
+    }
+
+    @Test
+    public void testNewStreamOpensWithTheSnapshotItsChangesFollow() throws Exception {
+        registry.register(createLocalInstance(LOCAL_REGION_INSTANCE_1_HOSTNAME), false);
+        long sequence = registry.getLastChangeSequence();
+
+        List<RegistryChangeEvent> events = stream(new ChangeFeedStream(registry, -1, null, MAX_SUBSCRIBERS, 1000, 50, 200));
+
+        RegistryChangeEvent snapshot = events.get(0);
+        assertThat(snapshot.getType(), is(equalTo(Type.SNAPSHOT)));
+        assertThat(snapshot.getSequence(), is(equalTo(sequence)));
+        assertThat(snapshot.getIncarnation(), is(equalTo(registry.getChangeIncarnation())));
+        assertThat(snapshot.getApplications().getRegisteredApplications(LOCAL_REGION_APP_NAME).size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testSubscriberSlotsAreCapped() throws Exception {
+        final ChangeFeedStream first = new ChangeFeedStream(registry, -1, null, 1, 1000, 50, 10000);
+        final CountDownLatch released = new CountDownLatch(1);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    first.write(new OutputStream() {
+                        @Override
+                        public void write(int b) throws IOException {
+                            try {
+                                released.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            // Ends the stream, as when the subscriber goes away
+                            throw new IOException("Subscriber gone");
+                        }
+                    });
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        writer.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (ChangeFeedStream.getSubscriberCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(ChangeFeedStream.getSubscriberCount(), is(equalTo(1)));
+            try {
+                new ChangeFeedStream(registry, -1, null, 1, 1000, 50, 0).write(new ByteArrayOutputStream());
+                fail("A stream past the maximum number of subscribers must not be written");
+            } catch (WebApplicationException e) {
+                assertThat(e.getResponse().getStatus(), is(equalTo(Status.SERVICE_UNAVAILABLE.getStatusCode())));
+            }
+        } finally {
+            released.countDown();
+            writer.join();
+        }
+        assertThat(ChangeFeedStream.getSubscriberCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testStreamsNeverWrittenHoldNoSubscriberSlot() throws Exception {
+        doReturn(1).when(serverConfig).getChangeFeedMaxSubscribers();
+        doReturn(0L).when(serverConfig).getChangeFeedMaxStreamDurationMs();
+        ChangeFeedResource resource = new ChangeFeedResource(serverContext);
+        for (int i = 0; i < 3; i++) {
+            Response response = resource.streamChanges(Version.V2.name(), -1, null);
+            assertThat(response.getStatus(), is(equalTo(Status.OK.getStatusCode())));
+        }
+        assertThat(ChangeFeedStream.getSubscriberCount(), is(equalTo(0)));
+
+        List<RegistryChangeEvent> events = stream((ChangeFeedStream) resource.streamChanges(Version.V2.name(), -1, null).getEntity());
+        assertThat(events.get(0).getType(), is(equalTo(Type.SNAPSHOT)));
+    }
+
+    private static List<RegistryChangeEvent> stream(ChangeFeedStream stream) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        stream.write(output);
+        List<RegistryChangeEvent> events = new ArrayList<>();
+        for (String line : output.toString("UTF-8").split("\n")) {
+            events.add(RegistryChangeEvent.fromLine(line));
+        }
+        return events;
+    }
+}
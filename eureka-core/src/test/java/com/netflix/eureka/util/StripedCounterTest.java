@@ -0,0 +1,102 @@
+package com.netflix.eureka.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class StripedCounterTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 100000;
+
+    private final StripedCounter counter = new StripedCounter();
+
+    @Test
+    public void testGetSumsTheIncrementsAndAdditions() throws Exception {
+        assertThat(counter.get(), is(equalTo(0L)));
+        counter.increment();
+        counter.increment();
+        counter.add(40);
+        counter.add(-2);
+        assertThat(counter.get(), is(equalTo(40L)));
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreAllCounted() throws Exception {
+        runConcurrently(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    counter.increment();
+                }
+            }
+        });
+        assertThat(counter.get(), is(equalTo((long) THREADS * INCREMENTS_PER_THREAD)));
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreCountedOnceAcrossResets() throws Exception {
+        final long[] resetCounts = new long[1];
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread resetter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (done.getCount() > 0) {
+                    resetCounts[0] += counter.getAndReset();
+                }
+            }
+        });
+        resetter.start();
+        try {
+            runConcurrently(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                        counter.add(2);
+                    }
+                }
+            });
+        } finally {
+            done.countDown();
+            resetter.join();
+        }
+        long total = resetCounts[0] + counter.getAndReset();
+        assertThat(total, is(equalTo(2L * THREADS * INCREMENTS_PER_THREAD)));
+        assertThat(counter.get(), is(equalTo(0L)));
+    }
+
+    private static void runConcurrently(final Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        task.run();
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -32,15 +32,20 @@
     <div id="content">
 	<div id="tabs">
 	<ul>
-	    <li><a href="#tabs-1">Last 1000 canceled leases</a></li>
-	    <li><a href="#tabs-2">Last 1000 newly registered leases</a></li>
+	    <li><a href="#tabs-1">Last 1024 canceled leases</a></li>
+	    <li><a href="#tabs-2">Last 1024 newly registered leases</a></li>
 	</ul>
     <div id="tabs-1">
       <%
       EurekaServerContext serverContext = (EurekaServerContext) pageContext.getServletContext()
               .getAttribute(EurekaServerContext.class.getName());
       PeerAwareInstanceRegistry registry = serverContext.getRegistry();
-      List<Pair<Long, String>> list = registry.getLastNCanceledInstances();
+      // Optionally narrowed down to a single application
+      String appName = request.getParameter("app");
+      if (appName != null && appName.trim().isEmpty()) {
+          appName = null;
+      }
+      List<Pair<Long, String>> list = registry.getLastNCanceledInstances(appName, Long.MIN_VALUE, Long.MAX_VALUE);
       out.print("<table id=\'lastNCanceled\' class=\"stripeable\">");
       out.print("<tr><th>Timestamp</th><th>Lease</th></tr>");
       for (Pair<Long, String> entry : list) {
@@ -52,7 +57,7 @@
     </div>
     <div id="tabs-2">
       <%
-      list = registry.getLastNRegisteredInstances();
+      list = registry.getLastNRegisteredInstances(appName, Long.MIN_VALUE, Long.MAX_VALUE);
       out.print("<table id=\'lastNRegistered\' class=\"stripeable\">");
       out.print("<tr><th>Timestamp</th><th>Lease</th></tr>");
       for (Pair<Long, String> entry : list) {
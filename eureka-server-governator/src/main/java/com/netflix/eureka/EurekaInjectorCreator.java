@@ -42,7 +42,7 @@ public class EurekaInjectorCreator {
                                     params.put(PackagesResourceConfig.PROPERTY_PACKAGES, "com.netflix");
                                     params.put("com.sun.jersey.config.property.WebPageContentRegex", "/(flex|images|js|css|jsp)/.*");
                                     params.put("com.sun.jersey.spi.container.ContainerRequestFilters", "com.sun.jersey.api.container.filter.GZIPContentEncodingFilter");
-                                    params.put("com.sun.jersey.spi.container.ContainerResponseFilters", "com.sun.jersey.api.container.filter.GZIPContentEncodingFilter");
+                                    params.put("com.sun.jersey.spi.container.ContainerResponseFilters", "com.netflix.eureka.resources.ChangeFeedExcludingGzipFilter");
                                     filter("/*").through(GuiceContainer.class, params);
                                     bind(GuiceContainer.class).asEagerSingleton();
                                 }
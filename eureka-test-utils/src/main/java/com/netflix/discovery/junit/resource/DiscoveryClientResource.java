@@ -48,6 +48,7 @@ public class DiscoveryClientResource extends ExternalResource {
 
     private final boolean registrationEnabled;
     private final boolean registryFetchEnabled;
+    private final int registryWatchWaitSeconds;
     private final InstanceInfo instance;
 
     private final SimpleEurekaHttpServer eurekaHttpServer;
@@ -67,6 +68,7 @@ public class DiscoveryClientResource extends ExternalResource {
     DiscoveryClientResource(DiscoveryClientRuleBuilder builder) {
         this.registrationEnabled = builder.registrationEnabled;
         this.registryFetchEnabled = builder.registryFetchEnabled;
+        this.registryWatchWaitSeconds = builder.registryWatchWaitSeconds;
         this.portResolverCallable = builder.portResolverCallable;
         this.eurekaHttpServer = builder.eurekaHttpServer;
         this.instance = builder.instance;
@@ -179,7 +181,10 @@ public class DiscoveryClientResource extends ExternalResource {
         // Registry fetch
         bindProperty(EUREKA_TEST_NAMESPACE + "shouldFetchRegistry", Boolean.toString(registryFetchEnabled));
 
-        bindProperty(EUREKA_TEST_NAMESPACE + "client.refresh.interval", Integer.toString(1));
+        // The fetches are held for less than the refresh interval, so it is longer when watching the registry
+        int refreshInterval = registryWatchWaitSeconds > 0 ? registryWatchWaitSeconds + 1 : 1;
+        bindProperty(EUREKA_TEST_NAMESPACE + "client.refresh.interval", Integer.toString(refreshInterval));
+        bindProperty(EUREKA_TEST_NAMESPACE + "registryWatchWaitSeconds", Integer.toString(registryWatchWaitSeconds));
         if (vipFetch != null) {
             bindProperty(EUREKA_TEST_NAMESPACE + "registryRefreshSingleVipAddress", vipFetch);
         }
@@ -290,6 +295,7 @@ public class DiscoveryClientResource extends ExternalResource {
     public static class DiscoveryClientRuleBuilder {
         private boolean registrationEnabled;
         private boolean registryFetchEnabled;
+        private int registryWatchWaitSeconds;
         private Callable<Integer> portResolverCallable;
         private InstanceInfo instance;
         private SimpleEurekaHttpServer eurekaHttpServer;
@@ -313,6 +319,11 @@ public class DiscoveryClientResource extends ExternalResource {
             return this;
         }
 
+        public DiscoveryClientRuleBuilder withRegistryWatch(int waitSeconds) {
+            this.registryWatchWaitSeconds = waitSeconds;
+            return this;
+        }
+
         public DiscoveryClientRuleBuilder withPortResolver(Callable<Integer> portResolverCallable) {
             this.portResolverCallable = portResolverCallable;
             return this;
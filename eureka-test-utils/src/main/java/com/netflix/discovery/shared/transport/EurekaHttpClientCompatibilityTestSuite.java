@@ -35,6 +35,7 @@ import static com.netflix.discovery.shared.transport.EurekaHttpResponse.anEureka
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -160,6 +161,44 @@ public abstract class EurekaHttpClientCompatibilityTestSuite {
         verifyResponseOkWithEntity(delta, httpResponse);
     }
 
+    @Test
+    public void testGetApplicationsIfModifiedRequest() throws Exception {
+        String eTag = "\"apps\"";
+        when(requestHandler.getApplicationsIfModified(eTag)).thenReturn(
+                anEurekaHttpResponse(304, Applications.class).headers(HttpHeaders.ETAG, eTag).build()
+        );
+
+        EurekaHttpResponse<Applications> httpResponse = getEurekaHttpClient().getApplicationsIfModified(eTag);
+        assertThat(httpResponse.getStatusCode(), is(equalTo(304)));
+        assertThat(httpResponse.getEntity(), is(nullValue()));
+        assertThat(httpResponse.getETag(), is(equalTo(eTag)));
+    }
+
+    @Test
+    public void testGetDeltaIfModifiedRequest() throws Exception {
+        Applications delta = InstanceInfoGenerator.newBuilder(2, 1).build().takeDelta(2);
+        when(requestHandler.getDeltaIfModified("\"old\"")).thenReturn(
+                anEurekaHttpResponse(200, delta).headers(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .headers(HttpHeaders.ETAG, "\"new\"").build()
+        );
+
+        EurekaHttpResponse<Applications> httpResponse = getEurekaHttpClient().getDeltaIfModified("\"old\"");
+        verifyResponseOkWithEntity(delta, httpResponse);
+        assertThat(httpResponse.getETag(), is(equalTo("\"new\"")));
+    }
+
+    @Test
+    public void testWatchDeltaRequest() throws Exception {
+        String eTag = "\"delta\"";
+        when(requestHandler.watchDelta(eTag, 100)).thenReturn(
+                anEurekaHttpResponse(304, Applications.class).headers(HttpHeaders.ETAG, eTag).build()
+        );
+
+        EurekaHttpResponse<Applications> httpResponse = getEurekaHttpClient().watchDelta(eTag, 100);
+        assertThat(httpResponse.getStatusCode(), is(equalTo(304)));
+        assertThat(httpResponse.getETag(), is(equalTo(eTag)));
+    }
+
     @Test
     public void testGetInstanceRequest() throws Exception {
         InstanceInfo instance = InstanceInfoGenerator.takeOne();
@@ -17,6 +17,7 @@
 package com.netflix.discovery.shared.transport;
 
 import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -133,12 +134,30 @@ public class SimpleEurekaHttpServer {
         String path = httpExchange.getRequestURI().getPath();
 
         Matcher matcher;
+        String eTag = httpExchange.getRequestHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
         if (path.matches("/v2/apps[/]?")) {
             String regions = getQueryParam(httpExchange, "regions");
-            httpResponse = regions == null ? requestHandler.getApplications() : requestHandler.getApplications(regions);
+            if (eTag != null) {
+                httpResponse = regions == null
+                        ? requestHandler.getApplicationsIfModified(eTag)
+                        : requestHandler.getApplicationsIfModified(eTag, regions);
+            } else {
+                httpResponse = regions == null ? requestHandler.getApplications() : requestHandler.getApplications(regions);
+            }
         } else if (path.matches("/v2/apps/delta[/]?")) {
             String regions = getQueryParam(httpExchange, "regions");
-            httpResponse = regions == null ? requestHandler.getDelta() : requestHandler.getDelta(regions);
+            String waitMs = getQueryParam(httpExchange, "waitMs");
+            if (eTag != null && waitMs != null) {
+                httpResponse = regions == null
+                        ? requestHandler.watchDelta(eTag, Long.parseLong(waitMs))
+                        : requestHandler.watchDelta(eTag, Long.parseLong(waitMs), regions);
+            } else if (eTag != null) {
+                httpResponse = regions == null
+                        ? requestHandler.getDeltaIfModified(eTag)
+                        : requestHandler.getDeltaIfModified(eTag, regions);
+            } else {
+                httpResponse = regions == null ? requestHandler.getDelta() : requestHandler.getDelta(regions);
+            }
         } else if ((matcher = Pattern.compile("/v2/apps/([^/]+)/([^/]+)").matcher(path)).matches()) {
             httpResponse = requestHandler.getInstance(matcher.group(1), matcher.group(2));
         } else {
@@ -210,9 +229,17 @@ public class SimpleEurekaHttpServer {
         Matcher matcher = Pattern.compile("/v2/vips/([^/]+)").matcher(httpExchange.getRequestURI().getPath());
         if (matcher.matches()) {
             String regions = getQueryParam(httpExchange, "regions");
-            EurekaHttpResponse<Applications> httpResponse = regions == null
-                    ? requestHandler.getVip(matcher.group(1))
-                    : requestHandler.getVip(matcher.group(1), regions);
+            String eTag = httpExchange.getRequestHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+            EurekaHttpResponse<Applications> httpResponse;
+            if (eTag != null) {
+                httpResponse = regions == null
+                        ? requestHandler.getVipIfModified(matcher.group(1), eTag)
+                        : requestHandler.getVipIfModified(matcher.group(1), eTag, regions);
+            } else {
+                httpResponse = regions == null
+                        ? requestHandler.getVip(matcher.group(1))
+                        : requestHandler.getVip(matcher.group(1), regions);
+            }
             mapResponse(httpExchange, httpResponse);
         } else {
             httpExchange.sendResponseHeaders(HttpServletResponse.SC_NOT_FOUND, 0);
@@ -258,7 +285,8 @@ public class SimpleEurekaHttpServer {
         }
 
         if (response.getStatusCode() / 100 != 2) {
-            httpExchange.sendResponseHeaders(response.getStatusCode(), 0);
+            // No body at all for a 304 (Not Modified)
+            httpExchange.sendResponseHeaders(response.getStatusCode(), response.getStatusCode() == 304 ? -1 : 0);
             return;
         }
 